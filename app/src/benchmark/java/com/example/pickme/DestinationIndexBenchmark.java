@@ -0,0 +1,89 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * JVM benchmark of {@link DestinationIndex} queries over 10k ride destinations, against
+ * normalizing and comparing every destination per query.
+ *
+ * <p>Both approaches must find the same rides, and a query on the index must take less time than a
+ * scan; the timings are part of the failure message. Benchmarks only run when asked for, see
+ * {@code app/build.gradle}.</p>
+ */
+public class DestinationIndexBenchmark {
+
+    private static final int RIDES = 10_000;
+    private static final int QUERIES = 1_000;
+
+    private static final String[] CITIES = {
+            "תל אביב-יפו", "Tel Aviv", "חיפה", "Haifa", "ירושלים", "Jerusalem", "באר שבע", "Be'er Sheva",
+            "רמת גן", "הרצליה", "נתניה", "פתח תקווה", "ראשון לציון", "אשדוד", "כפר סבא", "רעננה"};
+    private static final String[] STREETS = {
+            "הרצל", "רוטשילד", "אלנבי", "דיזנגוף", "אבן גבירול", "ז'בוטינסקי", "ויצמן", "בן יהודה",
+            "העצמאות", "הנשיא", "Rothschild Blvd", "Herzl St", "Allenby St", "Weizmann St"};
+
+    @Test
+    public void matchAt10kRides() {
+        Random random = new Random(15);
+        List<String> destinations = new ArrayList<>(RIDES);
+        DestinationIndex index = new DestinationIndex();
+        for (int i = 0; i < RIDES; i++) {
+            String destination = randomAddress(random);
+            destinations.add(destination);
+            index.put("ride" + i, destination);
+        }
+        List<String> queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(randomAddress(random));
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(new HashSet<>(scan(destinations, queries.get(i))), new HashSet<>(index.match(queries.get(i))));
+        }
+
+        for (int round = 0; round < 3; round++) {
+            for (String query : queries) {
+                index.match(query);
+            }
+        }
+        long start = System.nanoTime();
+        long matched = 0;
+        for (String query : queries) {
+            matched += index.match(query).size();
+        }
+        double indexUs = (System.nanoTime() - start) / 1e3 / QUERIES;
+
+        start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            scan(destinations, queries.get(i));
+        }
+        double scanUs = (System.nanoTime() - start) / 1e3 / 20;
+
+        assertTrue(String.format("Destination match, %d rides: index %.1f us/query (%.0f matches/query), scan %.1f us/query",
+                RIDES, indexUs, matched / (double) QUERIES, scanUs), indexUs < scanUs);
+    }
+
+    private static List<String> scan(List<String> destinations, String query) {
+        String city = AddressNormalizer.parse(query).city;
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < destinations.size(); i++) {
+            if (city.equals(AddressNormalizer.parse(destinations.get(i)).city)) {
+                keys.add("ride" + i);
+            }
+        }
+        return keys;
+    }
+
+    private static String randomAddress(Random random) {
+        return STREETS[random.nextInt(STREETS.length)] + " " + (1 + random.nextInt(120)) + ", "
+                + CITIES[random.nextInt(CITIES.length)] + (random.nextBoolean() ? ", ישראל" : "");
+    }
+}
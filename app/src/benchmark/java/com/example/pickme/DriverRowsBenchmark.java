@@ -0,0 +1,68 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JVM benchmark of the row comparisons {@link DriverAdapter} diffs a 2,000-ride list with.
+ *
+ * <p>Appending a page compares every shown row with its new version ({@link DriverRows#sameRide}
+ * and {@link DriverRows#sameContent}, as DiffUtil does for unchanged rows); the average cost must fit
+ * in a 16 ms frame budget, although the diff runs off the main thread, and is part of the failure
+ * message. The stable ids of the rows must all differ. Benchmarks only run when asked for, see
+ * {@code app/build.gradle}.</p>
+ */
+public class DriverRowsBenchmark {
+
+    private static final int RIDES = 2_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 100;
+    private static final double FRAME_BUDGET_MS = 16.0;
+
+    @Test
+    public void compareRowsOf2000Rides() {
+        List<Driver> shown = new ArrayList<>(RIDES);
+        List<Driver> submitted = new ArrayList<>(RIDES);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < RIDES; i++) {
+            String rideKey = RidePaths.rideKey("202311" + (10 + i % 20), "-Nride" + i);
+            Driver driver = DriverRowsTest.ride(rideKey);
+            driver.setUser(new User("Driver " + i, "30", ""));
+            shown.add(driver);
+            // Each submitted list is a copy holding the same rides
+            submitted.add(driver);
+            ids.add(DriverRows.stableId(rideKey));
+        }
+        assertEquals(RIDES, ids.size());
+        assertEquals(RIDES, compare(shown, submitted));
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            compare(shown, submitted);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            compare(shown, submitted);
+        }
+        double ms = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+        assertTrue(String.format("DriverRows x %d rows: %.3f ms per diff (%.0f%% of a %.0f ms frame)",
+                RIDES, ms, 100 * ms / FRAME_BUDGET_MS, FRAME_BUDGET_MS), ms < FRAME_BUDGET_MS);
+    }
+
+    private static int compare(List<Driver> shown, List<Driver> submitted) {
+        int unchanged = 0;
+        for (int i = 0; i < shown.size(); i++) {
+            if (DriverRows.sameRide(shown.get(i), submitted.get(i))
+                    && DriverRows.sameContent(shown.get(i), submitted.get(i))) {
+                unchanged++;
+            }
+        }
+        return unchanged;
+    }
+}
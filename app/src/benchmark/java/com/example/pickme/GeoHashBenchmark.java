@@ -0,0 +1,123 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * JVM benchmark comparing a {@link GeoHash} range search with a full scan over 10k rides.
+ *
+ * <p>The ride origins are kept sorted by geohash, as the server keeps them under the
+ * {@code originGeohash} index, and each range is located with a binary search. Both must find the
+ * same rides, and the range search must read fewer rides and take less time than the scan; the
+ * counts and timings are part of the failure message. Benchmarks only run when asked for, see
+ * {@code app/build.gradle}.</p>
+ */
+public class GeoHashBenchmark {
+
+    private static final int RIDES = 10_000;
+    private static final int QUERIES = 500;
+    private static final double RADIUS_METERS = 5_000;
+
+    @Test
+    public void proximitySearch() {
+        Random random = new Random(42);
+        double[] lats = new double[RIDES];
+        double[] lngs = new double[RIDES];
+        String[] hashes = new String[RIDES];
+        for (int i = 0; i < RIDES; i++) {
+            lats[i] = 29.5 + random.nextDouble() * 3.8;
+            lngs[i] = 34.2 + random.nextDouble() * 1.7;
+            hashes[i] = GeoHash.encode(lats[i], lngs[i]);
+        }
+
+        // The "index": ride ids ordered by geohash
+        Integer[] order = new Integer[RIDES];
+        for (int i = 0; i < RIDES; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> hashes[a].compareTo(hashes[b]));
+        String[] sortedHashes = new String[RIDES];
+        for (int i = 0; i < RIDES; i++) {
+            sortedHashes[i] = hashes[order[i]];
+        }
+
+        double[][] centers = new double[QUERIES][];
+        for (int q = 0; q < QUERIES; q++) {
+            centers[q] = new double[]{29.5 + random.nextDouble() * 3.8, 34.2 + random.nextDouble() * 1.7};
+        }
+
+        for (double[] center : centers) {
+            assertEquals(scan(center, lats, lngs), indexed(center, lats, lngs, order, sortedHashes, null));
+        }
+
+        long scanNanos = 0;
+        long indexNanos = 0;
+        long[] candidates = {0};
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (double[] center : centers) {
+                scan(center, lats, lngs);
+            }
+            scanNanos = System.nanoTime() - start;
+
+            candidates[0] = 0;
+            start = System.nanoTime();
+            for (double[] center : centers) {
+                indexed(center, lats, lngs, order, sortedHashes, candidates);
+            }
+            indexNanos = System.nanoTime() - start;
+        }
+
+        String result = String.format("Proximity search, %d rides, r=%.0f m: full scan reads %d rides/query in %.1f us,"
+                        + " geohash ranges read %.1f rides/query in %.1f us",
+                RIDES, RADIUS_METERS, RIDES, scanNanos / 1e3 / QUERIES,
+                candidates[0] / (double) QUERIES, indexNanos / 1e3 / QUERIES);
+        assertTrue(result, candidates[0] < (long) RIDES * QUERIES);
+        assertTrue(result, indexNanos < scanNanos);
+    }
+
+    private static Set<Integer> scan(double[] center, double[] lats, double[] lngs) {
+        Set<Integer> found = new TreeSet<>();
+        for (int i = 0; i < lats.length; i++) {
+            if (GeoHash.distanceMeters(center[0], center[1], lats[i], lngs[i]) <= RADIUS_METERS) {
+                found.add(i);
+            }
+        }
+        return found;
+    }
+
+    private static Set<Integer> indexed(double[] center, double[] lats, double[] lngs, Integer[] order,
+                                        String[] sortedHashes, long[] candidates) {
+        Set<Integer> found = new TreeSet<>();
+        List<String> index = Arrays.asList(sortedHashes);
+        for (String[] range : GeoHash.queryBounds(center[0], center[1], RADIUS_METERS)) {
+            int from = insertionPoint(index, range[0]);
+            int to = insertionPoint(index, range[1]);
+            for (int k = from; k < to; k++) {
+                int ride = order[k];
+                if (candidates != null) {
+                    candidates[0]++;
+                }
+                if (GeoHash.distanceMeters(center[0], center[1], lats[ride], lngs[ride]) <= RADIUS_METERS) {
+                    found.add(ride);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static int insertionPoint(List<String> sorted, String key) {
+        int position = Collections.binarySearch(sorted, key);
+        return position >= 0 ? position : -position - 1;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * JVM benchmark of {@link RideRanker} on candidate lists of the sizes a busy listing could reach.
+ *
+ * <p>Each size is ranked repeatedly and the average must fit in a 16 ms frame budget; the timing is
+ * part of the failure message. The ranking is compared with a plain sort of the same scores, which
+ * must give the same order. Benchmarks only run when asked for, see {@code app/build.gradle}.</p>
+ */
+public class RideRankerBenchmark {
+
+    private static final int[] SIZES = {1_000, 5_000, 20_000};
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+    private static final double FRAME_BUDGET_MS = 16.0;
+
+    @Test
+    public void rankCandidates() {
+        long now = 1741156200000L;
+        RideRanker ranker = new RideRanker(new RideRanker.Request(32.80, 35.00, 32.08, 34.78, now, 2));
+
+        for (int size : SIZES) {
+            Random random = new Random(size);
+            List<Driver> drivers = new ArrayList<>(size);
+            int[] freeSeats = new int[size];
+            for (int i = 0; i < size; i++) {
+                drivers.add(RideRankerTest.ride("d" + i,
+                        29.5 + random.nextDouble() * 3.8, 34.2 + random.nextDouble() * 1.7,
+                        29.5 + random.nextDouble() * 3.8, 34.2 + random.nextDouble() * 1.7,
+                        now + random.nextInt(24 * 60) * 60_000L));
+                freeSeats[i] = random.nextInt(5);
+            }
+
+            List<Driver> ranked = ranker.rank(drivers, freeSeats);
+            List<Integer> reference = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (!Double.isInfinite(ranker.score(drivers.get(i), freeSeats[i]))) {
+                    reference.add(i);
+                }
+            }
+            reference.sort(Comparator.comparingDouble(i -> (float) ranker.score(drivers.get(i), freeSeats[i])));
+            assertEquals(reference.size(), ranked.size());
+            for (int i = 0; i < ranked.size(); i++) {
+                assertEquals(drivers.get(reference.get(i)), ranked.get(i));
+            }
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                ranker.rank(drivers, freeSeats);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                ranker.rank(drivers, freeSeats);
+            }
+            double ms = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+            assertTrue(String.format("RideRanker x %d candidates: %.3f ms (%.0f%% of a %.0f ms frame)",
+                    size, ms, 100 * ms / FRAME_BUDGET_MS, FRAME_BUDGET_MS), ms < FRAME_BUDGET_MS);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.firebase.database.core.utilities.encoding.CustomClassMapper;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JVM benchmark comparing {@link SnapshotCodec} with Firebase's reflection-based
+ * {@code CustomClassMapper} (the path behind {@code DataSnapshot#getValue(Class)}) on 10k-row payloads.
+ *
+ * <p>Both paths must decode the same values, and the codec must be the faster one; the timings are
+ * part of the failure message. Benchmarks only run when asked for, see {@code app/build.gradle}.</p>
+ */
+public class SnapshotCodecBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Test
+    public void driverRows() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Map<String, Object> ride = new HashMap<>();
+            ride.put("uid", "driver" + i);
+            ride.put("currentLocation", "Herzl St " + i + ", Haifa");
+            ride.put("destination", "Rothschild Blvd " + i + ", Tel Aviv");
+            ride.put("comment", "Ride " + i);
+            ride.put("driverName", "Driver " + i);
+            ride.put("driverAge", String.valueOf(20 + i % 50));
+            ride.put("seats", (long) (1 + i % 4));
+            ride.put("departureEpochMillis", 1741156200000L + i * 60_000L);
+            ride.put("schemaVersion", 2L);
+            rows.add(ride);
+        }
+
+        Driver codec = SnapshotCodec.decodeDriver(rows.get(7));
+        Driver mapper = CustomClassMapper.convertToCustomClass(rows.get(7), Driver.class);
+        assertEquals(mapper.getDestination(), codec.getDestination());
+        assertEquals(mapper.getDriverAge(), codec.getDriverAge());
+        assertEquals(mapper.getSeats(), codec.getSeats());
+        assertEquals(mapper.getDepartureEpochMillis(), codec.getDepartureEpochMillis());
+
+        compare("Driver", rows, SnapshotCodec.DRIVER, Driver.class);
+    }
+
+    @Test
+    public void passengerRows() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Map<String, Object> request = new HashMap<>();
+            request.put("currentLocation", "Herzl St " + i + ", Haifa");
+            request.put("destination", "Rothschild Blvd " + i + ", Tel Aviv");
+            request.put("passengerCount", (long) (1 + i % 3));
+            request.put("comment", "Request " + i);
+            rows.add(request);
+        }
+
+        Passenger codec = SnapshotCodec.decodePassenger(rows.get(7));
+        Passenger mapper = CustomClassMapper.convertToCustomClass(rows.get(7), Passenger.class);
+        assertEquals(mapper.getDestination(), codec.getDestination());
+        assertEquals(mapper.getPassengerCount(), codec.getPassengerCount());
+
+        compare("Passenger", rows, SnapshotCodec.PASSENGER, Passenger.class);
+    }
+
+    @Test
+    public void userRows() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Map<String, Object> user = new HashMap<>();
+            user.put("name", "User " + i);
+            user.put("age", String.valueOf(18 + i % 60));
+            user.put("email", "user" + i + "@example.com");
+            rows.add(user);
+        }
+
+        User codec = SnapshotCodec.decodeUser(rows.get(7));
+        User mapper = CustomClassMapper.convertToCustomClass(rows.get(7), User.class);
+        assertEquals(mapper.getName(), codec.getName());
+        assertEquals(mapper.getEmail(), codec.getEmail());
+
+        compare("User", rows, SnapshotCodec.USER, User.class);
+    }
+
+    /**
+     * Times both decoding paths over the same rows and checks that the codec is faster on average.
+     */
+    private static <T> void compare(String label, List<Map<String, Object>> rows,
+                                    SnapshotCodec.Decoder<T> decoder, Class<T> type) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            decodeAll(rows, decoder);
+            mapAll(rows, type);
+        }
+
+        long codecNanos = 0;
+        long mapperNanos = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            decodeAll(rows, decoder);
+            codecNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            mapAll(rows, type);
+            mapperNanos += System.nanoTime() - start;
+        }
+
+        double codecMs = codecNanos / 1e6 / MEASURED_ROUNDS;
+        double mapperMs = mapperNanos / 1e6 / MEASURED_ROUNDS;
+        assertTrue(String.format("%s x %d rows: codec %.2f ms, CustomClassMapper %.2f ms",
+                label, rows.size(), codecMs, mapperMs), codecMs < mapperMs);
+    }
+
+    private static <T> int decodeAll(List<Map<String, Object>> rows, SnapshotCodec.Decoder<T> decoder) {
+        int count = 0;
+        for (Map<String, Object> row : rows) {
+            if (decoder.decode(row) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static <T> int mapAll(List<Map<String, Object>> rows, Class<T> type) {
+        int count = 0;
+        for (Map<String, Object> row : rows) {
+            if (CustomClassMapper.convertToCustomClass(row, type) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.pickme;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code AddressNormalizer} turns the address strings produced by Places autocomplete and the
+ * reverse geocoder into comparable tokens.
+ *
+ * <p>The same place arrives in several spellings: with or without niqqud, with final or regular
+ * Hebrew letters depending on where a word was cut, with a maqaf or a space in "תל אביב-יפו", with
+ * geresh-abbreviated street types, or in English. Normalization:</p>
+ * <ul>
+ *   <li>strips diacritics, including niqqud and cantillation marks, and lower-cases Latin letters;</li>
+ *   <li>maps the Hebrew final letters ך ם ן ף ץ to their regular forms;</li>
+ *   <li>treats hyphens, the maqaf and other punctuation as separators and drops quote marks;</li>
+ *   <li>drops numbers, so house numbers and postal codes do not take part in matching;</li>
+ *   <li>splits the comma-separated parts into a city (the last part, without the country) and street
+ *   tokens (the other parts, without street-type words like "רחוב" or "St");</li>
+ *   <li>maps common English and alternative spellings of major cities to one Hebrew form.</li>
+ * </ul>
+ *
+ * <p>The class has no Android dependencies so it can be exercised on the JVM.</p>
+ */
+public final class AddressNormalizer {
+
+    /**
+     * A parsed address.
+     */
+    public static final class Address {
+        /** The normalized city, or null if the address was empty. */
+        public final String city;
+        /** The normalized street tokens, in order and without duplicates. */
+        public final List<String> streetTokens;
+
+        Address(String city, List<String> streetTokens) {
+            this.city = city;
+            this.streetTokens = streetTokens;
+        }
+    }
+
+    /**
+     * Country names dropped from the end of an address.
+     */
+    private static final Set<String> COUNTRIES = normalizedSet("ישראל", "israel");
+    /**
+     * Street-type words and abbreviations dropped from street tokens.
+     */
+    private static final Set<String> STREET_WORDS = normalizedSet(
+            "רחוב", "רח", "שדרות", "שד", "דרך", "סמטת", "סמ", "כיכר", "ככר",
+            "st", "street", "rd", "road", "ave", "avenue", "blvd", "boulevard", "ln", "lane", "sq", "square");
+    /**
+     * Alternative spellings of major cities, mapped to one form.
+     */
+    private static final Map<String, String> CITY_ALIASES = new HashMap<>();
+
+    static {
+        alias("תל אביב יפו", "תל אביב", "ת\"א", "tel aviv", "tel aviv yafo", "tel aviv jaffa");
+        alias("ירושלים", "jerusalem");
+        alias("חיפה", "haifa");
+        alias("באר שבע", "beer sheva", "be'er sheva", "beersheba", "beer sheba");
+        alias("ראשון לציון", "rishon lezion", "rishon le zion", "rishon letsiyon");
+        alias("פתח תקווה", "פתח תקוה", "petah tikva", "petach tikva", "petah tiqwa");
+        alias("נתניה", "netanya");
+        alias("אשדוד", "ashdod");
+        alias("אשקלון", "ashkelon");
+        alias("חולון", "holon");
+        alias("בת ים", "bat yam");
+        alias("בני ברק", "bnei brak");
+        alias("רמת גן", "ramat gan");
+        alias("הרצליה", "herzliya", "herzliyya");
+        alias("כפר סבא", "kfar saba");
+        alias("רעננה", "raanana", "ra'anana");
+        alias("רחובות", "rehovot");
+        alias("מודיעין מכבים רעות", "מודיעין", "modiin", "modi'in");
+        alias("אילת", "eilat");
+        alias("נצרת", "nazareth");
+        alias("טבריה", "tiberias");
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private AddressNormalizer() {}
+
+    /**
+     * Parses an address into its normalized city and street tokens.
+     * A single-part address (typically a typed city name) is taken as a city.
+     *
+     * @param address The address as displayed, may be null.
+     * @return The parsed address; its city is null if nothing is left after normalization.
+     */
+    public static Address parse(String address) {
+        if (address == null) {
+            return new Address(null, Collections.emptyList());
+        }
+
+        List<String> parts = new ArrayList<>();
+        for (String part : address.split("[,،]")) {
+            String normalized = joinWords(part);
+            if (!normalized.isEmpty()) {
+                parts.add(normalized);
+            }
+        }
+        // Drop a trailing country
+        if (parts.size() > 1 && COUNTRIES.contains(parts.get(parts.size() - 1))) {
+            parts.remove(parts.size() - 1);
+        }
+        if (parts.isEmpty()) {
+            return new Address(null, Collections.emptyList());
+        }
+
+        String city = parts.get(parts.size() - 1);
+        String alias = CITY_ALIASES.get(city);
+        city = alias != null ? alias : city;
+
+        List<String> streetTokens = new ArrayList<>();
+        for (int i = 0; i < parts.size() - 1; i++) {
+            for (String token : parts.get(i).split(" ")) {
+                // Single letters are left over from house numbers like "5א"
+                if (token.length() > 1 && !STREET_WORDS.contains(token) && !streetTokens.contains(token)) {
+                    streetTokens.add(token);
+                }
+            }
+        }
+        return new Address(city, streetTokens);
+    }
+
+    /**
+     * Normalizes free text into space-separated words.
+     *
+     * @param text The text to normalize.
+     * @return The normalized words; numbers are dropped.
+     */
+    static String joinWords(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK || isQuote(c)) {
+                // Diacritics, niqqud, geresh and gershayim are dropped without splitting the word
+                continue;
+            }
+            if (Character.isLetter(c)) {
+                if (pendingSpace && out.length() > 0) {
+                    out.append(' ');
+                }
+                pendingSpace = false;
+                out.append(toRegularForm(Character.toLowerCase(c)));
+            } else {
+                // Digits, spaces, hyphens, the maqaf and other punctuation end a word
+                pendingSpace = true;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns true for quote marks used inside abbreviations, e.g. "רח'" or "ת\"א".
+     */
+    private static boolean isQuote(char c) {
+        return c == '\'' || c == '"' || c == '`' || c == '׳' || c == '״'
+                || c == '‘' || c == '’' || c == '“' || c == '”';
+    }
+
+    /**
+     * Maps a Hebrew final letter to its regular form.
+     */
+    private static char toRegularForm(char c) {
+        switch (c) {
+            case 'ך':
+                return 'כ';
+            case 'ם':
+                return 'מ';
+            case 'ן':
+                return 'נ';
+            case 'ף':
+                return 'פ';
+            case 'ץ':
+                return 'צ';
+            default:
+                return c;
+        }
+    }
+
+    /**
+     * Registers spellings of a city.
+     */
+    private static void alias(String canonical, String... spellings) {
+        String target = joinWords(canonical);
+        CITY_ALIASES.put(target, target);
+        for (String spelling : spellings) {
+            CITY_ALIASES.put(joinWords(spelling), target);
+        }
+    }
+
+    /**
+     * Builds a set of normalized words.
+     */
+    private static Set<String> normalizedSet(String... words) {
+        Set<String> set = new HashSet<>();
+        for (String word : Arrays.asList(words)) {
+            set.add(joinWords(word));
+        }
+        return set;
+    }
+}
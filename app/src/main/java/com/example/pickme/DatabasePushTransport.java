@@ -0,0 +1,80 @@
+package com.example.pickme;
+
+import android.util.Log;
+
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.util.Map;
+
+/**
+ * {@code DatabasePushTransport} sends data messages through the Realtime Database.
+ *
+ * <p>Devices cannot address each other over FCM directly, since that needs the server credentials.
+ * A message is therefore queued under {@code PushOutbox/{recipientUid}/{pushKey}}; the
+ * {@code deliverPush} Cloud Function ({@code functions/index.js}, deployed by {@code firebase deploy}
+ * from firebase.json) sends it as an FCM data message to every token registered under
+ * {@code PushTokens/{recipientUid}} (see {@link PickMeMessagingService#registerToken}) and deletes
+ * it, whether or not the send succeeded.</p>
+ */
+public class DatabasePushTransport implements PushTransport {
+
+    /**
+     * Root of the queued messages.
+     */
+    public static final String PUSH_OUTBOX = "PushOutbox";
+    /**
+     * Root of the registered FCM tokens, {@code PushTokens/{uid}/{token} -> true}.
+     */
+    public static final String PUSH_TOKENS = "PushTokens";
+    /**
+     * Root of the user each FCM token was last registered for, {@code PushTokenOwners/{token} -> uid}.
+     * A device signed in by another user keeps its token, so only the owner's messages are sent to it.
+     */
+    public static final String PUSH_TOKEN_OWNERS = "PushTokenOwners";
+
+    /**
+     * Tag for logging messages related to sending.
+     */
+    private static final String TAG = "DatabasePushTransport";
+
+    /**
+     * The process-wide instance.
+     */
+    private static DatabasePushTransport instance;
+
+    /**
+     * Reference to the "PushOutbox" node.
+     */
+    private final DatabaseReference outbox;
+
+    /**
+     * Creates the transport. Use {@link #getInstance()}.
+     */
+    private DatabasePushTransport() {
+        outbox = FirebaseDatabase.getInstance().getReference(PUSH_OUTBOX);
+    }
+
+    /**
+     * @return The process-wide transport.
+     */
+    public static synchronized DatabasePushTransport getInstance() {
+        if (instance == null) {
+            instance = new DatabasePushTransport();
+        }
+        return instance;
+    }
+
+    /**
+     * Queues a message for {@code deliverPush} to deliver. Failures are logged; the caller's own write has
+     * already succeeded and the recipient will see the change the next time it reads the ride.
+     */
+    @Override
+    public void send(String recipientUid, Map<String, String> data) {
+        if (recipientUid == null) {
+            return;
+        }
+        outbox.child(recipientUid).push().setValue(data)
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to queue push message: " + e.getMessage()));
+    }
+}
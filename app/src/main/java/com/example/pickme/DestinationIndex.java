@@ -0,0 +1,181 @@
+package com.example.pickme;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code DestinationIndex} is an in-memory inverted index over the destinations of active rides,
+ * used to match a passenger's destination against rides without comparing strings one by one.
+ *
+ * <p>Destinations are parsed with {@link AddressNormalizer}. A ride matches a query when it goes to
+ * the same city; matches are ordered by the number of street tokens they share with the query, so
+ * rides to the same street come first. Each city and street token maps to a postings list of
+ * ride ids, so a query only touches the rides in its city.</p>
+ *
+ * <p>Rides are identified by their ride key, see {@link RidePaths}. Replacing or removing a ride
+ * leaves its old postings in place and marks its id dead; dead ids are skipped by queries. The class
+ * is not thread safe and has no Android dependencies so it can be exercised on the JVM.</p>
+ */
+public final class DestinationIndex {
+
+    /**
+     * Ride ids by ride key, for the rides currently in the index.
+     */
+    private final Map<String, Integer> idsByKey = new HashMap<>();
+    /**
+     * Ride keys by id, including removed rides.
+     */
+    private final List<String> keys = new ArrayList<>();
+    /**
+     * Ids of the rides currently in the index.
+     */
+    private final BitSet live = new BitSet();
+    /**
+     * Ride ids by normalized city.
+     */
+    private final Map<String, IntList> cityPostings = new HashMap<>();
+    /**
+     * Ride ids by normalized street token.
+     */
+    private final Map<String, IntList> streetPostings = new HashMap<>();
+
+    /**
+     * Shared street-overlap counters, indexed by ride id and reused across queries.
+     */
+    private int[] overlap = new int[0];
+
+    /**
+     * Adds a ride, replacing any earlier destination stored under the same key.
+     *
+     * @param rideKey     The ride's key.
+     * @param destination The ride's destination as displayed.
+     */
+    public void put(String rideKey, String destination) {
+        remove(rideKey);
+        AddressNormalizer.Address address = AddressNormalizer.parse(destination);
+        if (address.city == null) {
+            return;
+        }
+
+        int id = keys.size();
+        keys.add(rideKey);
+        idsByKey.put(rideKey, id);
+        live.set(id);
+        postings(cityPostings, address.city).add(id);
+        for (String token : address.streetTokens) {
+            postings(streetPostings, token).add(id);
+        }
+    }
+
+    /**
+     * Removes a ride.
+     *
+     * @param rideKey The ride's key.
+     */
+    public void remove(String rideKey) {
+        Integer id = idsByKey.remove(rideKey);
+        if (id != null) {
+            live.clear(id);
+        }
+    }
+
+    /**
+     * Returns the number of rides in the index.
+     */
+    public int size() {
+        return idsByKey.size();
+    }
+
+    /**
+     * Finds the rides going to a destination.
+     *
+     * @param destination The passenger's destination as displayed.
+     * @return The keys of the rides in the same city, most shared street tokens first and otherwise
+     *         in insertion order; null if the destination has no city to match on.
+     */
+    public List<String> match(String destination) {
+        AddressNormalizer.Address address = AddressNormalizer.parse(destination);
+        if (address.city == null) {
+            return null;
+        }
+        IntList candidates = cityPostings.get(address.city);
+        if (candidates == null) {
+            return new ArrayList<>();
+        }
+
+        if (overlap.length < keys.size()) {
+            overlap = new int[Math.max(keys.size(), overlap.length * 2)];
+        }
+        // Candidates are flagged with 1 so street postings outside the city are ignored
+        int maxOverlap = 0;
+        for (int i = 0; i < candidates.size; i++) {
+            overlap[candidates.values[i]] = 1;
+        }
+        for (String token : address.streetTokens) {
+            IntList postings = streetPostings.get(token);
+            if (postings == null) {
+                continue;
+            }
+            for (int i = 0; i < postings.size; i++) {
+                int id = postings.values[i];
+                if (overlap[id] > 0) {
+                    maxOverlap = Math.max(maxOverlap, ++overlap[id] - 1);
+                }
+            }
+        }
+
+        // Counting sort by overlap, highest first; postings are in insertion order
+        int[] bucketStarts = new int[maxOverlap + 2];
+        int liveCount = 0;
+        for (int i = 0; i < candidates.size; i++) {
+            int id = candidates.values[i];
+            if (live.get(id)) {
+                bucketStarts[maxOverlap - (overlap[id] - 1) + 1]++;
+                liveCount++;
+            }
+        }
+        for (int b = 1; b < bucketStarts.length; b++) {
+            bucketStarts[b] += bucketStarts[b - 1];
+        }
+        String[] ordered = new String[liveCount];
+        for (int i = 0; i < candidates.size; i++) {
+            int id = candidates.values[i];
+            if (live.get(id)) {
+                ordered[bucketStarts[maxOverlap - (overlap[id] - 1)]++] = keys.get(id);
+            }
+            overlap[id] = 0;
+        }
+        return new ArrayList<>(Arrays.asList(ordered));
+    }
+
+    /**
+     * Returns the postings list of a term, creating it if needed.
+     */
+    private static IntList postings(Map<String, IntList> index, String term) {
+        IntList list = index.get(term);
+        if (list == null) {
+            list = new IntList();
+            index.put(term, list);
+        }
+        return list;
+    }
+
+    /**
+     * A growable list of ints, so postings do not box their ids.
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
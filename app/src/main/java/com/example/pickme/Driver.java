@@ -1,5 +1,7 @@
 package com.example.pickme;
 
+import com.google.firebase.database.Exclude;
+
 /**
  * Represents a driver in the PickMe ride-sharing application.
  * This class encapsulates all the necessary information about a driver's
@@ -34,8 +36,25 @@ public class Driver {
     private String destination;
 
     /**
-     * Number of available seats in the vehicle.
-     * Stored as String to accommodate various input formats and validation requirements.
+     * Number of available seats in the vehicle (schema version 2).
+     */
+    private int seats;
+
+    /**
+     * Scheduled departure time in milliseconds since the epoch (schema version 2).
+     * Replaces the separate {@link #date} and {@link #time} strings.
+     */
+    private long departureEpochMillis;
+
+    /**
+     * Version of the ride schema this record was written with; 0 for records written before
+     * versioning, which are treated as version 1. See {@link RideSchema}.
+     */
+    private int schemaVersion;
+
+    /**
+     * Number of available seats, as stored by schema version 1.
+     * Only read for records not yet migrated; use {@link RideSchema#seatsOf(Driver)}.
      */
     private String numberOfSeats;
 
@@ -46,17 +65,63 @@ public class Driver {
     private String comment;
 
     /**
-     * Time for the scheduled ride.
-     * Stored in string format to accommodate different time formats.
+     * Time for the scheduled ride, as stored by schema version 1.
+     * Only read for records not yet migrated; use {@link RideSchema#departureOf(Driver)}.
      */
     private String time;
 
     /**
-     * Date for the scheduled ride.
-     * Stored in string format to accommodate different date formats.
+     * Date for the scheduled ride, as stored by schema version 1.
+     * Only read for records not yet migrated; use {@link RideSchema#departureOf(Driver)}.
      */
     private String date;
 
+    /**
+     * Display name of the driver, copied from {@code Users/{uid}/name} when the ride is published
+     * and kept in sync by {@link ProfileActivity}, so ride lists do not need a per-ride user lookup.
+     */
+    private String driverName;
+
+    /**
+     * Age of the driver, copied from {@code Users/{uid}/age} alongside {@link #driverName}.
+     */
+    private String driverAge;
+
+    /**
+     * Latitude of the pickup location, or null if the ride was published without coordinates.
+     */
+    private Double originLat;
+
+    /**
+     * Longitude of the pickup location, or null if the ride was published without coordinates.
+     */
+    private Double originLng;
+
+    /**
+     * Geohash of the pickup location, indexed for proximity search. See {@link GeoHash}.
+     */
+    private String originGeohash;
+
+    /**
+     * Latitude of the drop-off location, or null if it is not known.
+     */
+    private Double destinationLat;
+
+    /**
+     * Longitude of the drop-off location, or null if it is not known.
+     */
+    private Double destinationLng;
+
+    /**
+     * Geohash of the drop-off location. See {@link GeoHash}.
+     */
+    private String destinationGeohash;
+
+    /**
+     * Where the ride is stored, see {@link RidePaths}. Set when the ride is read, never written.
+     */
+    private String rideKey;
+
     /**
      * User object associated with this driver.
      * Contains additional user information linked to the driver profile.
@@ -77,25 +142,25 @@ public class Driver {
 
     /**
      * Parameterized constructor for Driver class.
-     * Creates a new Driver instance with specified ride details.
+     * Creates a new Driver instance with specified ride details, written with the current
+     * {@link RideSchema#CURRENT_VERSION schema version}.
      *
      * @param currentLocation the starting location or pickup point
      * @param destination the destination or drop-off location
-     * @param numberOfSeats the number of available seats in the vehicle
+     * @param seats the number of available seats in the vehicle
      * @param comment additional comments or notes about the ride
-     * @param date the date for the scheduled ride
-     * @param time the time for the scheduled ride
+     * @param departureEpochMillis the scheduled departure time in milliseconds since the epoch
      * @param uid the unique identifier for this driver record
      */
-    public Driver(String currentLocation, String destination, String numberOfSeats,
-                  String comment, String date, String time, String uid) {
+    public Driver(String currentLocation, String destination, int seats,
+                  String comment, long departureEpochMillis, String uid) {
         this.uid = uid;
         this.currentLocation = currentLocation;
         this.destination = destination;
-        this.numberOfSeats = numberOfSeats;
+        this.seats = seats;
         this.comment = comment;
-        this.time = time;
-        this.date = date;
+        this.departureEpochMillis = departureEpochMillis;
+        this.schemaVersion = RideSchema.CURRENT_VERSION;
     }
 
     /**
@@ -155,6 +220,60 @@ public class Driver {
     /**
      * Retrieves the number of available seats.
      *
+     * @return the number of seats
+     */
+    public int getSeats() {
+        return seats;
+    }
+
+    /**
+     * Sets the number of available seats.
+     *
+     * @param seats the number of seats to set
+     */
+    public void setSeats(int seats) {
+        this.seats = seats;
+    }
+
+    /**
+     * Retrieves the scheduled departure time.
+     *
+     * @return the departure time in milliseconds since the epoch, or 0 if not set
+     */
+    public long getDepartureEpochMillis() {
+        return departureEpochMillis;
+    }
+
+    /**
+     * Sets the scheduled departure time.
+     *
+     * @param departureEpochMillis the departure time in milliseconds since the epoch
+     */
+    public void setDepartureEpochMillis(long departureEpochMillis) {
+        this.departureEpochMillis = departureEpochMillis;
+    }
+
+    /**
+     * Retrieves the schema version this record was written with.
+     *
+     * @return the schema version, or 0 for records written before versioning
+     */
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    /**
+     * Sets the schema version of this record.
+     *
+     * @param schemaVersion the schema version to set
+     */
+    public void setSchemaVersion(int schemaVersion) {
+        this.schemaVersion = schemaVersion;
+    }
+
+    /**
+     * Retrieves the schema version 1 seat count.
+     *
      * @return the number of seats as a String, or null if not set
      */
     public String getNumberOfSeats() {
@@ -162,7 +281,7 @@ public class Driver {
     }
 
     /**
-     * Sets the number of available seats.
+     * Sets the schema version 1 seat count.
      *
      * @param numberOfSeats the number of seats to set
      */
@@ -189,7 +308,7 @@ public class Driver {
     }
 
     /**
-     * Retrieves the scheduled time for the ride.
+     * Retrieves the schema version 1 time for the ride.
      *
      * @return the time as a String, or null if not set
      */
@@ -207,7 +326,7 @@ public class Driver {
     }
 
     /**
-     * Retrieves the scheduled date for the ride.
+     * Retrieves the schema version 1 date for the ride.
      *
      * @return the date as a String, or null if not set
      */
@@ -224,6 +343,170 @@ public class Driver {
         this.date = date;
     }
 
+    /**
+     * Retrieves the driver's display name stored on the ride.
+     *
+     * @return the driver name as a String, or null if not set
+     */
+    public String getDriverName() {
+        return driverName;
+    }
+
+    /**
+     * Sets the driver's display name stored on the ride.
+     *
+     * @param driverName the driver name to set
+     */
+    public void setDriverName(String driverName) {
+        this.driverName = driverName;
+    }
+
+    /**
+     * Retrieves the driver's age stored on the ride.
+     *
+     * @return the driver age as a String, or null if not set
+     */
+    public String getDriverAge() {
+        return driverAge;
+    }
+
+    /**
+     * Sets the driver's age stored on the ride.
+     *
+     * @param driverAge the driver age to set
+     */
+    public void setDriverAge(String driverAge) {
+        this.driverAge = driverAge;
+    }
+
+    /**
+     * Retrieves the latitude of the pickup location.
+     *
+     * @return the latitude, or null if not set
+     */
+    public Double getOriginLat() {
+        return originLat;
+    }
+
+    /**
+     * Sets the latitude of the pickup location.
+     *
+     * @param originLat the latitude to set
+     */
+    public void setOriginLat(Double originLat) {
+        this.originLat = originLat;
+    }
+
+    /**
+     * Retrieves the longitude of the pickup location.
+     *
+     * @return the longitude, or null if not set
+     */
+    public Double getOriginLng() {
+        return originLng;
+    }
+
+    /**
+     * Sets the longitude of the pickup location.
+     *
+     * @param originLng the longitude to set
+     */
+    public void setOriginLng(Double originLng) {
+        this.originLng = originLng;
+    }
+
+    /**
+     * Retrieves the geohash of the pickup location.
+     *
+     * @return the geohash, or null if not set
+     */
+    public String getOriginGeohash() {
+        return originGeohash;
+    }
+
+    /**
+     * Sets the geohash of the pickup location.
+     *
+     * @param originGeohash the geohash to set
+     */
+    public void setOriginGeohash(String originGeohash) {
+        this.originGeohash = originGeohash;
+    }
+
+    /**
+     * Retrieves the latitude of the drop-off location.
+     *
+     * @return the latitude, or null if not set
+     */
+    public Double getDestinationLat() {
+        return destinationLat;
+    }
+
+    /**
+     * Sets the latitude of the drop-off location.
+     *
+     * @param destinationLat the latitude to set
+     */
+    public void setDestinationLat(Double destinationLat) {
+        this.destinationLat = destinationLat;
+    }
+
+    /**
+     * Retrieves the longitude of the drop-off location.
+     *
+     * @return the longitude, or null if not set
+     */
+    public Double getDestinationLng() {
+        return destinationLng;
+    }
+
+    /**
+     * Sets the longitude of the drop-off location.
+     *
+     * @param destinationLng the longitude to set
+     */
+    public void setDestinationLng(Double destinationLng) {
+        this.destinationLng = destinationLng;
+    }
+
+    /**
+     * Retrieves the geohash of the drop-off location.
+     *
+     * @return the geohash, or null if not set
+     */
+    public String getDestinationGeohash() {
+        return destinationGeohash;
+    }
+
+    /**
+     * Sets the geohash of the drop-off location.
+     *
+     * @param destinationGeohash the geohash to set
+     */
+    public void setDestinationGeohash(String destinationGeohash) {
+        this.destinationGeohash = destinationGeohash;
+    }
+
+    /**
+     * Retrieves the key of the ride, {@code yyyyMMdd/rideId}.
+     *
+     * @return the ride key, or null if the ride was not read from the database
+     */
+    @Exclude
+    public String getRideKey() {
+        return rideKey;
+    }
+
+    /**
+     * Sets the key of the ride.
+     *
+     * @param rideKey the ride key, as built by {@link RidePaths#rideKey}
+     */
+    @Exclude
+    public void setRideKey(String rideKey) {
+        this.rideKey = rideKey;
+    }
+
     /**
      * Retrieves the User object associated with this driver.
      *
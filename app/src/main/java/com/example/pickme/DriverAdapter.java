@@ -1,7 +1,5 @@
 package com.example.pickme;
 
-import static androidx.core.content.ContentProviderCompat.requireContext;
-
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
@@ -14,6 +12,8 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.volley.Request;
@@ -21,8 +21,12 @@ import com.android.volley.RequestQueue;
 import com.android.volley.toolbox.JsonObjectRequest;
 import com.android.volley.toolbox.Volley;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -38,7 +42,14 @@ import java.util.Map;
  *
  * <p>The adapter creates and manages ViewHolder instances for efficient list display,
  * handles user interactions for booking rides, and integrates with Firebase Database
- * to store passenger booking information under the selected driver's ride data.</p>
+ * to store passenger booking information under the selected driver's ride data.
+ * Bookings are made with a transaction so a ride cannot be booked beyond its seats.</p>
+ *
+ * <p>The adapter is a {@link ListAdapter}: the owner submits a new list whenever rides are added, and
+ * the list is diffed against the shown one on a background thread (see {@link DriverRows} for how rows
+ * are compared), so only the inserted or changed rows are bound. Rows have stable ids derived from
+ * their ride key. A row whose driver name resolves later is rebound with {@link DriverRows#NAME_PAYLOAD},
+ * which only sets the name line, see {@link #notifyNameChanged}.</p>
  *
  * <p>Key features include:</p>
  * <ul>
@@ -52,13 +63,27 @@ import java.util.Map;
  * @version 1.0
  * @since 1.0
  */
-public class DriverAdapter extends RecyclerView.Adapter<DriverAdapter.DriverViewHolder> {
+public class DriverAdapter extends ListAdapter<Driver, DriverAdapter.DriverViewHolder> {
 
     /**
-     * List of Driver objects to be displayed in the RecyclerView.
-     * Contains all available drivers with their ride information.
+     * Compares rides by ride key and displayed content, see {@link DriverRows}.
      */
-    private List<Driver> driverList;
+    private static final DiffUtil.ItemCallback<Driver> DIFF_CALLBACK = new DiffUtil.ItemCallback<Driver>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Driver oldItem, @NonNull Driver newItem) {
+            return DriverRows.sameRide(oldItem, newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Driver oldItem, @NonNull Driver newItem) {
+            return DriverRows.sameContent(oldItem, newItem);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Driver oldItem, @NonNull Driver newItem) {
+            return DriverRows.changePayload(oldItem, newItem);
+        }
+    };
 
     /**
      * Android Context used for accessing resources, launching activities,
@@ -68,14 +93,38 @@ public class DriverAdapter extends RecyclerView.Adapter<DriverAdapter.DriverView
 
     /**
      * Constructor for DriverAdapter.
-     * Initializes the adapter with a list of drivers and the application context.
+     * Initializes an empty adapter with stable ids; rides are shown with {@link #submitList}.
      *
-     * @param driverList the list of Driver objects to display
      * @param context the Android Context for resource access and operations
      */
-    public DriverAdapter(List<Driver> driverList, Context context) {
-        this.driverList = driverList;
+    public DriverAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Returns the stable id of the row at a position, derived from its ride key.
+     *
+     * @param position the position of the row
+     * @return the row's id, see {@link DriverRows#stableId}
+     */
+    @Override
+    public long getItemId(int position) {
+        return DriverRows.stableId(getItem(position).getRideKey());
+    }
+
+    /**
+     * Rebinds the name line of a shown ride after its driver's profile was resolved and set on it.
+     * Does nothing if the ride is not in the shown list.
+     *
+     * @param driver the ride whose user changed
+     */
+    public void notifyNameChanged(Driver driver) {
+        int position = getCurrentList().indexOf(driver);
+        if (position != -1) {
+            notifyItemChanged(position, DriverRows.NAME_PAYLOAD);
+        }
     }
 
     /**
@@ -93,6 +142,26 @@ public class DriverAdapter extends RecyclerView.Adapter<DriverAdapter.DriverView
         return new DriverViewHolder(view);
     }
 
+    /**
+     * Binds a row, only setting the name line when the sole payload is {@link DriverRows#NAME_PAYLOAD}.
+     *
+     * @param holder the ViewHolder to bind data to
+     * @param position the position of the item within the adapter's data set
+     * @param payloads the change payloads, empty for a full bind
+     */
+    @Override
+    public void onBindViewHolder(@NonNull DriverViewHolder holder, int position, @NonNull List<Object> payloads) {
+        boolean nameOnly = !payloads.isEmpty();
+        for (Object payload : payloads) {
+            nameOnly &= payload == DriverRows.NAME_PAYLOAD;
+        }
+        if (nameOnly) {
+            holder.tvNameAge.setText(DriverRows.nameLine(getItem(position)));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
     /**
      * Binds driver data to the ViewHolder at the specified position.
      * This method populates the ViewHolder's views with driver information
@@ -111,30 +180,26 @@ public class DriverAdapter extends RecyclerView.Adapter<DriverAdapter.DriverView
      */
     @Override
     public void onBindViewHolder(@NonNull DriverViewHolder holder, int position) {
-        Driver driver = driverList.get(position);
-        User user = driver.getUser();
+        Driver driver = getItem(position);
 
         // Set driver name and age, with fallback for missing user data
-        if (user != null) {
-            holder.tvNameAge.setText(user.getName() + ", " + user.getAge());
-        } else {
-            holder.tvNameAge.setText("Unknown Driver");
-        }
+        holder.tvNameAge.setText(DriverRows.nameLine(driver));
 
         // Populate driver information views
         holder.locationTextView.setText("From: " + driver.getCurrentLocation());
         holder.destinationTextView.setText("To: " + driver.getDestination());
-        holder.seatsTextView.setText("Seats: " + driver.getNumberOfSeats());
+        holder.seatsTextView.setText("Seats: " + RideSchema.seatsOf(driver));
         holder.commentTextView.setText("Comment: " + driver.getComment());
-        holder.dateText.setText("Date: " + driver.getDate());
-        holder.timeText.setText("Time: " +  driver.getTime());
+        long departure = RideSchema.departureOf(driver);
+        holder.dateText.setText("Date: " + RideSchema.formatDate(departure));
+        holder.timeText.setText("Time: " + RideSchema.formatTime(departure));
 
         // Set up order button click listener for ride booking
         holder.orderButton.setOnClickListener(new View.OnClickListener() {
             /**
              * Handles the ride booking process when the order button is clicked.
              * This method retrieves the current user's passenger data from Firebase
-             * and stores it under the selected driver's ride information.
+             * and books seats on the selected driver's ride with {@link #bookSeats}.
              *
              * @param v the clicked View (order button)
              */
@@ -142,25 +207,16 @@ public class DriverAdapter extends RecyclerView.Adapter<DriverAdapter.DriverView
             public void onClick(View v) {
                 FirebaseDatabase database = FirebaseDatabase.getInstance();
                 DatabaseReference usersRef = database.getReference("Users");
-                DatabaseReference ridesRef = database.getReference("Rides");
 
                 String currentUserUid = FirebaseAuth.getInstance().getCurrentUser().getUid(); // Get current user UID
-                String driverUid = driver.getUid(); // Get selected driver UID
+                String rideKey = driver.getRideKey(); // Where the selected ride is stored
 
                 // Retrieve passenger data and book the ride
                 usersRef.child(currentUserUid).child("Passenger").get().addOnCompleteListener(task -> {
                     if (task.isSuccessful() && task.getResult().exists()) {
                         // Get passenger data
                         Map<String, Object> passengerData = (Map<String, Object>) task.getResult().getValue();
-
-                        // Save passenger data under Rides/{driverUid}/passengers/{currentUserUid}
-                        ridesRef.child(driverUid).child("Passengers").child(currentUserUid).setValue(passengerData)
-                                .addOnSuccessListener(aVoid -> {
-                                    Toast.makeText(context, "Ride booked successfully!", Toast.LENGTH_SHORT).show();
-                                })
-                                .addOnFailureListener(e -> {
-                                    Toast.makeText(context, "Failed to book ride: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                                });
+                        bookSeats(database, rideKey, currentUserUid, passengerData, true);
                     } else {
                         Toast.makeText(context, "No passenger data found!", Toast.LENGTH_SHORT).show();
                     }
@@ -170,14 +226,211 @@ public class DriverAdapter extends RecyclerView.Adapter<DriverAdapter.DriverView
     }
 
     /**
-     * Returns the total number of items in the driver list.
-     * This method is called by the RecyclerView to determine how many items to display.
+     * Books seats on a driver's ride.
+     *
+     * <p>The two writes of a booking cannot share a transaction, so they are ordered so that no
+     * interruption loses a booking: the {@code PassengerRides/{passengerUid}} index entry is pointed at
+     * the ride key first, and the seats are then reserved by {@link #reserveSeats}. A pointer to a ride
+     * the passenger is not on is dropped by its readers (see {@code PassengerFragment}), while a booking
+     * nobody points at could not be found again. If the reservation does not go through, the pointer
+     * is put back to what it named before, unless it has been changed since.</p>
+     *
+     * <p>A passenger has one pointer, so a pointer naming another ride is never overwritten: the
+     * booking is refused while the passenger is still on that ride. A pointer to a ride they are no
+     * longer on is stale; it is cleared and the booking tried once more.</p>
      *
-     * @return the size of the driver list
+     * @param database the FirebaseDatabase instance
+     * @param rideKey the key of the booked ride, see {@link RidePaths}
+     * @param passengerUid the uid of the booking passenger
+     * @param passengerData the passenger's request read from {@code Users/{passengerUid}/Passenger}
+     * @param retryStale whether a stale pointer may be cleared and the booking tried again
      */
-    @Override
-    public int getItemCount() {
-        return driverList.size();
+    private void bookSeats(FirebaseDatabase database, String rideKey, String passengerUid,
+                           Map<String, Object> passengerData, boolean retryStale) {
+        DatabaseReference pointer = database.getReference(RidePaths.PASSENGER_RIDES).child(passengerUid);
+        final Object[] previous = {null};
+
+        pointer.runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                previous[0] = currentData.getValue();
+                if (RidePaths.isRideKey(previous[0]) && !rideKey.equals(previous[0])) {
+                    // Already pointing at another ride: leave it for the checks below
+                    return Transaction.abort();
+                }
+                currentData.setValue(rideKey);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                if (error != null) {
+                    Log.e("DriverAdapter", "Failed to index booking: " + error.getMessage());
+                    showBookingResult(SeatReservation.Result.FAILED);
+                    return;
+                }
+                if (committed) {
+                    reserveSeats(database, pointer, previous[0], rideKey, passengerUid, passengerData);
+                    return;
+                }
+
+                String otherRideKey = (String) previous[0];
+                database.getReference(RidePaths.ridePath(otherRideKey)).child(RideArchiver.PASSENGERS).child(passengerUid)
+                        .get().addOnCompleteListener(task -> {
+                            if (!task.isSuccessful()) {
+                                showBookingResult(SeatReservation.Result.FAILED);
+                            } else if (task.getResult().exists() || !retryStale) {
+                                showBookingResult(SeatReservation.Result.OTHER_RIDE_BOOKED);
+                            } else {
+                                // The pointer outlived the passenger's place on that ride
+                                replacePointer(pointer, otherRideKey, null,
+                                        () -> bookSeats(database, rideKey, passengerUid, passengerData, false));
+                            }
+                        });
+            }
+        });
+    }
+
+    /**
+     * Reserves seats on a driver's ride with a transaction on {@code RidesByDay/{rideKey}}.
+     * The transaction checks the ride's free seats against the requested number of passengers
+     * (see {@link SeatReservation#tryReserve}) and either adds the passenger under
+     * {@code Passengers/{passengerUid}} or aborts, so concurrent bookings cannot oversubscribe a ride.
+     * Once the booking commits, the driver is sent a booking push message (see {@link PushMessages})
+     * and the {@link RideMonitorService} is started to follow the ride; otherwise the index entry is
+     * restored with {@link #replacePointer}, except when the passenger was already on the ride.
+     *
+     * @param database the FirebaseDatabase instance
+     * @param pointer the passenger's {@code PassengerRides/{passengerUid}} entry, already naming the ride
+     * @param previous the value the entry held before the booking
+     * @param rideKey the key of the booked ride, see {@link RidePaths}
+     * @param passengerUid the uid of the booking passenger
+     * @param passengerData the passenger's request read from {@code Users/{passengerUid}/Passenger}
+     */
+    private void reserveSeats(FirebaseDatabase database, DatabaseReference pointer, Object previous, String rideKey,
+                              String passengerUid, Map<String, Object> passengerData) {
+        final SeatReservation.Result[] outcome = {SeatReservation.Result.FAILED};
+
+        database.getReference(RidePaths.RIDES_BY_DAY).child(rideKey).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                Object value = currentData.getValue();
+                if (value == null) {
+                    // Nothing cached locally yet: let the server supply the current value and retry
+                    outcome[0] = SeatReservation.Result.RIDE_NOT_FOUND;
+                    return Transaction.success(currentData);
+                }
+
+                Map<String, Object> ride = value instanceof Map
+                        ? new HashMap<>((Map<String, Object>) value) : null;
+                outcome[0] = SeatReservation.tryReserve(ride, passengerUid, passengerData);
+                if (outcome[0] != SeatReservation.Result.BOOKED) {
+                    return Transaction.abort();
+                }
+
+                currentData.child("Passengers").child(passengerUid).setValue(passengerData);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                if (error != null) {
+                    Log.e("DriverAdapter", "Booking transaction failed: " + error.getMessage());
+                    replacePointer(pointer, rideKey, previous, null);
+                    showBookingResult(SeatReservation.Result.FAILED);
+                    return;
+                }
+
+                if (!committed || outcome[0] != SeatReservation.Result.BOOKED) {
+                    // Already on the ride: the pointer is right, and was possibly missing
+                    if (outcome[0] != SeatReservation.Result.ALREADY_BOOKED) {
+                        replacePointer(pointer, rideKey, previous, null);
+                    }
+                    showBookingResult(outcome[0]);
+                    return;
+                }
+
+                DatabasePushTransport.getInstance().send(currentData.child("uid").getValue(String.class),
+                        PushMessages.booking(rideKey, passengerUid));
+                RideMonitorService.start(context);
+                showBookingResult(SeatReservation.Result.BOOKED);
+            }
+        });
+    }
+
+    /**
+     * Replaces a passenger's index entry if it still names a given ride, e.g. to put it back to its
+     * value before a booking that did not go through, or to clear a stale entry. The entry is left
+     * alone if it names something else, e.g. after a booking from another device.
+     *
+     * @param pointer the passenger's {@code PassengerRides/{passengerUid}} entry
+     * @param rideKey the key of the ride the entry must still name
+     * @param replacement the new value, or null to remove the entry
+     * @param then run once the entry has been replaced or found changed, or null; if the write fails
+     *             instead, the booking is reported as failed
+     */
+    private void replacePointer(DatabaseReference pointer, String rideKey, Object replacement, Runnable then) {
+        pointer.runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                if (!rideKey.equals(currentData.getValue())) {
+                    return Transaction.abort();
+                }
+                currentData.setValue(replacement);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                if (error != null) {
+                    Log.e("DriverAdapter", "Failed to update booking index: " + error.getMessage());
+                    if (then != null) {
+                        showBookingResult(SeatReservation.Result.FAILED);
+                    }
+                } else if (then != null) {
+                    then.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Shows the user the outcome of a booking attempt.
+     *
+     * @param result the outcome returned by the booking transaction
+     */
+    private void showBookingResult(SeatReservation.Result result) {
+        String message;
+        switch (result) {
+            case BOOKED:
+                message = "Ride booked successfully!";
+                break;
+            case ALREADY_BOOKED:
+                message = "You already booked this ride.";
+                break;
+            case OTHER_RIDE_BOOKED:
+                message = "You already have a ride. Cancel it before booking another one.";
+                break;
+            case NOT_ENOUGH_SEATS:
+                message = "Not enough free seats on this ride.";
+                break;
+            case RIDE_NOT_FOUND:
+                message = "This ride is no longer available.";
+                break;
+            case RIDE_CLOSED:
+                message = "This ride has already started.";
+                break;
+            case INVALID_REQUEST:
+                message = "Invalid number of passengers.";
+                break;
+            default:
+                message = "Failed to book ride.";
+                break;
+        }
+        Toast.makeText(context, message, Toast.LENGTH_SHORT).show();
     }
 
     /**
@@ -0,0 +1,104 @@
+package com.example.pickme;
+
+import java.util.Objects;
+
+/**
+ * {@code DriverRows} holds the row identity and equality rules {@link DriverAdapter} diffs the ride
+ * list with.
+ *
+ * <p>A row is identified by its ride key (see {@link RidePaths}). A driver has at most one active
+ * ride, so the key is as stable as the driver's uid, and unlike the uid it is set on every listed
+ * ride. Two versions of a row have the same content when everything the row displays is equal; when
+ * only the driver's name line differs, the row is rebound with {@link #NAME_PAYLOAD} instead of in
+ * full. The class has no Android dependencies so it can be exercised on the JVM.</p>
+ */
+public final class DriverRows {
+
+    /**
+     * Change payload of a row whose driver name line is all that changed.
+     */
+    public static final Object NAME_PAYLOAD = "driverName";
+
+    /**
+     * FNV-1a 64-bit offset basis.
+     */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    /**
+     * FNV-1a 64-bit prime.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Not instantiable.
+     */
+    private DriverRows() {}
+
+    /**
+     * Returns the stable id of a ride's row.
+     *
+     * @param rideKey The ride's key, may be null.
+     * @return A 64-bit hash of the key, the same on every call.
+     */
+    public static long stableId(String rideKey) {
+        long hash = FNV_OFFSET;
+        if (rideKey != null) {
+            for (int i = 0; i < rideKey.length(); i++) {
+                hash ^= rideKey.charAt(i);
+                hash *= FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Checks whether two rows show the same ride.
+     *
+     * @param a A ride.
+     * @param b Another ride.
+     * @return true if both have the same ride key.
+     */
+    public static boolean sameRide(Driver a, Driver b) {
+        return Objects.equals(a.getRideKey(), b.getRideKey());
+    }
+
+    /**
+     * Checks whether two versions of a row display the same thing.
+     *
+     * @param a The old version.
+     * @param b The new version.
+     * @return true if the name line and the ride details are equal.
+     */
+    public static boolean sameContent(Driver a, Driver b) {
+        return nameLine(a).equals(nameLine(b)) && sameDetails(a, b);
+    }
+
+    /**
+     * Returns the payload to rebind a row with when its content changed.
+     *
+     * @param a The old version.
+     * @param b The new version.
+     * @return {@link #NAME_PAYLOAD} if only the name line changed, or null for a full rebind.
+     */
+    public static Object changePayload(Driver a, Driver b) {
+        return sameDetails(a, b) ? NAME_PAYLOAD : null;
+    }
+
+    /**
+     * Returns the name line of a row.
+     *
+     * @param driver The ride.
+     * @return "name, age" of the ride's driver, or "Unknown Driver" while it is not known.
+     */
+    public static String nameLine(Driver driver) {
+        User user = driver.getUser();
+        return user != null ? user.getName() + ", " + user.getAge() : "Unknown Driver";
+    }
+
+    private static boolean sameDetails(Driver a, Driver b) {
+        return RideSchema.seatsOf(a) == RideSchema.seatsOf(b)
+                && RideSchema.departureOf(a) == RideSchema.departureOf(b)
+                && Objects.equals(a.getCurrentLocation(), b.getCurrentLocation())
+                && Objects.equals(a.getDestination(), b.getDestination())
+                && Objects.equals(a.getComment(), b.getComment());
+    }
+}
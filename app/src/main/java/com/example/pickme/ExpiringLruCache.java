@@ -0,0 +1,124 @@
+package com.example.pickme;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A small size-bounded cache that evicts the least recently used entry once {@code maxEntries}
+ * is exceeded, and treats entries older than {@code ttlMillis} as absent.
+ *
+ * <p>All methods are synchronized, so a single instance may be shared between threads.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class ExpiringLruCache<K, V> {
+
+    /**
+     * A cached value together with the time it was stored.
+     */
+    private static final class Timed<V> {
+        final V value;
+        final long storedAtMillis;
+
+        Timed(V value, long storedAtMillis) {
+            this.value = value;
+            this.storedAtMillis = storedAtMillis;
+        }
+    }
+
+    /**
+     * Maximum age of an entry, in milliseconds, before it is considered stale.
+     */
+    private final long ttlMillis;
+    /**
+     * Backing map in access order, so iteration starts at the least recently used entry.
+     */
+    private final LinkedHashMap<K, Timed<V>> map;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxEntries the maximum number of entries kept before the eldest is evicted
+     * @param ttlMillis  how long an entry stays valid after it was stored
+     */
+    public ExpiringLruCache(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.ttlMillis = ttlMillis;
+        this.map = new LinkedHashMap<K, Timed<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Timed<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the value stored for a key if it exists and has not expired.
+     * Expired entries are removed.
+     *
+     * @param key the key to look up
+     * @return the cached value, or null if absent or expired
+     */
+    public synchronized V get(K key) {
+        Timed<V> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (now() - entry.storedAtMillis > ttlMillis) {
+            map.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Stores a value, replacing any previous value and resetting its age.
+     *
+     * @param key   the key to store under
+     * @param value the value to store; must not be null
+     */
+    public synchronized void put(K key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        map.put(key, new Timed<>(value, now()));
+    }
+
+    /**
+     * Removes the entry for a key, if any.
+     *
+     * @param key the key to remove
+     */
+    public synchronized void remove(K key) {
+        map.remove(key);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    /**
+     * Returns the number of entries currently held, including ones that have expired
+     * but were not looked up since.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * Returns the current time used for expiry checks.
+     *
+     * @return the current time in milliseconds
+     */
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.pickme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * {@code GeoHash} encodes coordinates as geohash strings and computes the key ranges that cover a
+ * circle, so that rides can be found by location with ordered queries on a single indexed child.
+ *
+ * <p>A geohash interleaves longitude and latitude bits and writes them in base 32, so every prefix
+ * of a hash names a rectangular cell that contains all longer hashes starting with it. A circle is
+ * covered by at most four cells of the longest prefix whose cells are at least as large as the
+ * circle's bounding box; each cell becomes one {@code startAt(prefix).endAt(prefix + "~")} query.
+ * The cells cover more than the circle, so callers drop the extra results with
+ * {@link #distanceMeters}.</p>
+ *
+ * <p>The class has no Android dependencies so it can be exercised on the JVM.</p>
+ */
+public final class GeoHash {
+
+    /**
+     * Number of characters stored on a ride, about 1.2 m x 0.6 m per cell.
+     */
+    public static final int STORED_PRECISION = 10;
+
+    /**
+     * Mean radius of the earth used for distances.
+     */
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    /**
+     * Length of one degree of latitude.
+     */
+    private static final double METERS_PER_DEGREE_LAT = 111_320.0;
+    /**
+     * Geohash alphabet.
+     */
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    /**
+     * Sorts after every geohash character, used as the inclusive end of a prefix range.
+     */
+    private static final String RANGE_END = "~";
+
+    /**
+     * Not instantiable.
+     */
+    private GeoHash() {}
+
+    /**
+     * Encodes a point.
+     *
+     * @param latitude  Latitude in degrees, -90 to 90.
+     * @param longitude Longitude in degrees, -180 to 180.
+     * @param precision Number of characters, 1 to 12.
+     * @return The geohash.
+     * @throws IllegalArgumentException if a coordinate or the precision is out of range
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Invalid coordinates: " + latitude + ", " + longitude);
+        }
+        if (precision < 1 || precision > 12) {
+            throw new IllegalArgumentException("Precision must be between 1 and 12: " + precision);
+        }
+
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        char[] hash = new char[precision];
+        boolean evenBit = true;
+        for (int i = 0; i < precision; i++) {
+            int index = 0;
+            for (int bit = 0; bit < 5; bit++) {
+                index <<= 1;
+                if (evenBit) {
+                    double mid = (minLng + maxLng) / 2;
+                    if (longitude >= mid) {
+                        index |= 1;
+                        minLng = mid;
+                    } else {
+                        maxLng = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (latitude >= mid) {
+                        index |= 1;
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+            hash[i] = BASE32[index];
+        }
+        return new String(hash);
+    }
+
+    /**
+     * Encodes a point with {@link #STORED_PRECISION}.
+     *
+     * @param latitude  Latitude in degrees.
+     * @param longitude Longitude in degrees.
+     * @return The geohash to store on a ride.
+     */
+    public static String encode(double latitude, double longitude) {
+        return encode(latitude, longitude, STORED_PRECISION);
+    }
+
+    /**
+     * Computes the key ranges covering a circle.
+     *
+     * @param latitude     Latitude of the center in degrees.
+     * @param longitude    Longitude of the center in degrees.
+     * @param radiusMeters Radius of the circle, greater than 0.
+     * @return Up to four {@code [start, end]} pairs, sorted and without duplicates, to query with
+     *         {@code orderByChild(...).startAt(start).endAt(end)}.
+     */
+    public static List<String[]> queryBounds(double latitude, double longitude, double radiusMeters) {
+        double latDelta = radiusMeters / METERS_PER_DEGREE_LAT;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        // Near the poles the box wraps all longitudes
+        double lngDelta = cosLat > 1e-9 ? Math.min(180, latDelta / cosLat) : 180;
+        int precision = precisionFor(2 * latDelta, 2 * lngDelta);
+
+        double south = Math.max(-90, latitude - latDelta);
+        double north = Math.min(90, latitude + latDelta);
+        double west = wrapLongitude(longitude - lngDelta);
+        double east = wrapLongitude(longitude + lngDelta);
+
+        TreeSet<String> prefixes = new TreeSet<>();
+        if (precision == 0) {
+            prefixes.add("");
+        } else {
+            prefixes.add(encode(south, west, precision));
+            prefixes.add(encode(south, east, precision));
+            prefixes.add(encode(north, west, precision));
+            prefixes.add(encode(north, east, precision));
+        }
+
+        List<String[]> bounds = new ArrayList<>(prefixes.size());
+        for (String prefix : prefixes) {
+            bounds.add(new String[]{prefix, prefix + RANGE_END});
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns the great-circle distance between two points.
+     *
+     * @return The distance in meters.
+     */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Returns the longest precision whose cells are at least as large as a box, so that the box
+     * touches at most two cells in each direction.
+     *
+     * @return The precision, or 0 if even a single character is too fine.
+     */
+    static int precisionFor(double latSpan, double lngSpan) {
+        int precision = 0;
+        for (int p = 1; p <= 12; p++) {
+            int bits = 5 * p;
+            double cellLng = 360.0 / (1L << ((bits + 1) / 2));
+            double cellLat = 180.0 / (1L << (bits / 2));
+            if (cellLat < latSpan || cellLng < lngSpan) {
+                break;
+            }
+            precision = p;
+        }
+        return precision;
+    }
+
+    /**
+     * Brings a longitude back into -180 to 180.
+     */
+    private static double wrapLongitude(double longitude) {
+        if (longitude > 180) {
+            return longitude - 360;
+        }
+        if (longitude < -180) {
+            return longitude + 360;
+        }
+        return longitude;
+    }
+}
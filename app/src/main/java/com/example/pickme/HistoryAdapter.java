@@ -156,7 +156,8 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHold
             holder.role.setText("Driver");
             holder.from.setText("From: " + ride.getCurrentLocation());
             holder.to.setText("To: " + ride.getDestination());
-            holder.timeDate.setText("Date: " + ride.getDate() + " " + ride.getTime());
+            long departure = RideSchema.departureOf(ride);
+            holder.timeDate.setText("Date: " + RideSchema.formatDate(departure) + " " + RideSchema.formatTime(departure));
 
         } else {
             Passenger ride = passengerData.get(position);
@@ -164,7 +165,7 @@ public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.ViewHold
             holder.role.setText("Passenger");
             holder.from.setText("From: " + ride.getCurrentLocation());
             holder.to.setText("To: " + ride.getDestination());
-            holder.timeDate.setText("Passengers: " + ride.getNumberOfPassengers());
+            holder.timeDate.setText("Passengers: " + RideSchema.passengerCountOf(ride));
         }
     }
 
@@ -19,9 +19,10 @@ import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
+import com.google.firebase.database.Query;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -43,6 +44,12 @@ import java.util.List;
  *   <li>Passenger history: "HistoryPassenger/{userId}"</li>
  * </ul>
  *
+ * <p>History entries are keyed by push key, so key order is chronological. Each list is read
+ * newest first in pages of {@link #PAGE_SIZE} ({@code orderByKey().limitToLast(n)}, then
+ * {@code endBefore} the oldest key loaded so far) and further pages are appended as the user
+ * scrolls. Pages already loaded are kept in memory, so toggling between the two lists does not
+ * read them again.</p>
+ *
  * @author Your Name
  * @version 1.0
  * @since 1.0
@@ -70,6 +77,18 @@ public class HistoryFragment extends Fragment {
     /** Flag indicating whether driver history is currently being displayed */
     private boolean showingDriver = true;
 
+    /** Number of history entries requested per page */
+    static final int PAGE_SIZE = 20;
+
+    /** How many rows before the end of the list the next page is requested */
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
+    /** Pager over "HistoryDriver/{userId}" */
+    private HistoryPager<Driver> driverPager;
+
+    /** Pager over "HistoryPassenger/{userId}" */
+    private HistoryPager<Passenger> passengerPager;
+
     /** Current authenticated user's unique identifier from Firebase Auth */
     private String currentUserUid;
 
@@ -88,7 +107,7 @@ public class HistoryFragment extends Fragment {
      * <p>This method:
      * <ul>
      *   <li>Gets the current user's UID from Firebase Authentication</li>
-     *   <li>Initializes empty ArrayLists for driver and passenger data</li>
+     *   <li>Initializes empty ArrayLists for driver and passenger data and their pagers</li>
      * </ul>
      *
      * @param savedInstanceState If the fragment is being re-created from a previous saved state,
@@ -100,6 +119,8 @@ public class HistoryFragment extends Fragment {
         currentUserUid = FirebaseAuth.getInstance().getCurrentUser().getUid();
         driverList = new ArrayList<>();
         passengerList = new ArrayList<>();
+        driverPager = new HistoryPager<>("HistoryDriver", SnapshotCodec.DRIVER, driverList, true);
+        passengerPager = new HistoryPager<>("HistoryPassenger", SnapshotCodec.PASSENGER, passengerList, false);
     }
 
     /**
@@ -113,7 +134,8 @@ public class HistoryFragment extends Fragment {
      *   <li>Initializes UI components (buttons and RecyclerView)</li>
      *   <li>Sets up RecyclerView with LinearLayoutManager and HistoryAdapter</li>
      *   <li>Configures click listeners for history toggle buttons</li>
-     *   <li>Loads default driver history data</li>
+     *   <li>Loads the next page when the list is scrolled near its end</li>
+     *   <li>Shows the current history, loading its first page if needed</li>
      * </ul>
      *
      * @param inflater The LayoutInflater object that can be used to inflate views
@@ -130,11 +152,13 @@ public class HistoryFragment extends Fragment {
         btnDriverHistory = view.findViewById(R.id.btnDriverHistory);
         btnPassengerHistory = view.findViewById(R.id.btnPassengerHistory);
         recyclerView = view.findViewById(R.id.history_recycler_view);
-        recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        recyclerView.setLayoutManager(layoutManager);
 
         adapter = new HistoryAdapter();
         adapter.setDriverData(driverList);      // when showing driver history
         adapter.setPassengerData(passengerList); // when showing passenger history
+        adapter.setShowingDriver(showingDriver);
 
         recyclerView.setAdapter(adapter);
 
@@ -148,111 +172,209 @@ public class HistoryFragment extends Fragment {
             loadPassengerHistory();
         });
 
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    currentPager().loadNextPage();
+                }
+            }
+        });
+
         // Load default
-        loadDriverHistory();
+        if (showingDriver) {
+            loadDriverHistory();
+        } else {
+            loadPassengerHistory();
+        }
 
         return view;
     }
 
     /**
-     * Loads driver ride history data from Firebase Realtime Database.
-     * Clears existing driver data and fetches fresh data from the "HistoryDriver" node
-     * for the current authenticated user.
-     *
-     * <p>This method:
-     * <ul>
-     *   <li>Clears the current driver list to avoid duplicates</li>
-     *   <li>Queries Firebase database at "HistoryDriver/{currentUserUid}"</li>
-     *   <li>Deserializes each ride snapshot into Driver objects</li>
-     *   <li>Updates the adapter to show driver data</li>
-     *   <li>Handles database errors with Toast notifications</li>
-     * </ul>
-     *
-     * <p>Uses Firebase's {@code addListenerForSingleValueEvent} to fetch data once
-     * rather than maintaining a persistent listener.
+     * Shows the driver ride history.
+     * The entries already loaded are shown immediately; the first page is read from
+     * "HistoryDriver/{currentUserUid}" only if it has not been loaded before.
      */
     private void loadDriverHistory() {
-        driverList.clear();
-        DatabaseReference ref = FirebaseDatabase.getInstance().getReference("HistoryDriver").child(currentUserUid);
-        ref.addListenerForSingleValueEvent(new ValueEventListener() {
-            /**
-             * Called when data is successfully retrieved from Firebase.
-             * Processes each ride snapshot and adds it to the driver list,
-             * then updates the adapter to display the new data.
-             *
-             * @param snapshot DataSnapshot containing all driver ride history for the user
-             */
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                for (DataSnapshot rideSnapshot : snapshot.getChildren()) {
-                    Driver driver = rideSnapshot.getValue(Driver.class);
-                    driverList.add(driver);
-                }
-                adapter.setShowingDriver(true);
-                adapter.notifyDataSetChanged();
-            }
+        adapter.setShowingDriver(true);
+        driverPager.loadFirstPage();
+    }
 
-            /**
-             * Called when the Firebase operation fails.
-             * Displays an error message to the user via Toast.
-             *
-             * @param error DatabaseError containing error details
-             */
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Toast.makeText(getContext(), "Failed to load driver history", Toast.LENGTH_SHORT).show();
-            }
-        });
+    /**
+     * Shows the passenger ride history.
+     * The entries already loaded are shown immediately; the first page is read from
+     * "HistoryPassenger/{currentUserUid}" only if it has not been loaded before.
+     */
+    private void loadPassengerHistory() {
+        adapter.setShowingDriver(false);
+        passengerPager.loadFirstPage();
     }
 
     /**
-     * Loads passenger ride history data from Firebase Realtime Database.
-     * Clears existing passenger data and fetches fresh data from the "HistoryPassenger" node
-     * for the current authenticated user.
-     *
-     * <p>This method:
-     * <ul>
-     *   <li>Clears the current passenger list to avoid duplicates</li>
-     *   <li>Queries Firebase database at "HistoryPassenger/{currentUserUid}"</li>
-     *   <li>Deserializes each ride snapshot into Passenger objects</li>
-     *   <li>Updates the adapter to show passenger data</li>
-     *   <li>Handles database errors with Toast notifications</li>
-     * </ul>
+     * @return The pager of the history currently shown.
+     */
+    private HistoryPager<?> currentPager() {
+        return showingDriver ? driverPager : passengerPager;
+    }
+
+    /**
+     * Reads one history list page by page, newest entries first, appending each page to
+     * a list shared with the adapter.
      *
-     * <p>Uses Firebase's {@code addListenerForSingleValueEvent} to fetch data once
-     * rather than maintaining a persistent listener.
+     * @param <T> the type each entry is converted to
      */
-    private void loadPassengerHistory() {
-        passengerList.clear();
-        DatabaseReference ref = FirebaseDatabase.getInstance().getReference("HistoryPassenger").child(currentUserUid);
-        ref.addListenerForSingleValueEvent(new ValueEventListener() {
-            /**
-             * Called when data is successfully retrieved from Firebase.
-             * Processes each ride snapshot and adds it to the passenger list,
-             * then updates the adapter to display the new data.
-             *
-             * @param snapshot DataSnapshot containing all passenger ride history for the user
-             */
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                for (DataSnapshot rideSnapshot : snapshot.getChildren()) {
-                    Passenger passenger = rideSnapshot.getValue(Passenger.class);
-                    passengerList.add(passenger);
+    private final class HistoryPager<T> {
+
+        /** Name of the history node, e.g. "HistoryDriver" */
+        private final String node;
+
+        /** Decoder each entry is converted with */
+        private final SnapshotCodec.Decoder<T> decoder;
+
+        /** The list the entries are appended to */
+        private final List<T> items;
+
+        /** Whether this pager feeds the driver view of the adapter */
+        private final boolean driverHistory;
+
+        /** Key of the oldest entry loaded so far, or null before the first page */
+        private String oldestKey;
+
+        /** Whether the first page has been requested */
+        private boolean started;
+
+        /** Whether a page request is in flight */
+        private boolean loading;
+
+        /** Whether the oldest entry has been reached */
+        private boolean exhausted;
+
+        /** Incremented when the list is rebuilt, so older page requests can be discarded */
+        private int generation;
+
+        HistoryPager(String node, SnapshotCodec.Decoder<T> decoder, List<T> items, boolean driverHistory) {
+            this.node = node;
+            this.decoder = decoder;
+            this.items = items;
+            this.driverHistory = driverHistory;
+        }
+
+        /**
+         * Requests the newest page unless it was requested before.
+         */
+        void loadFirstPage() {
+            if (!started) {
+                started = true;
+                loadNextPage();
+            }
+        }
+
+        /**
+         * Requests the page of entries right before the oldest one loaded so far.
+         * The newest page is rendered from the disk cache first and replaced if the server
+         * value differs, see {@link LocalPersistence#readCacheFirst}.
+         */
+        void loadNextPage() {
+            if (loading || exhausted) {
+                return;
+            }
+            loading = true;
+
+            Query page = FirebaseDatabase.getInstance().getReference(node).child(currentUserUid).orderByKey();
+            if (oldestKey != null) {
+                page = page.endBefore(oldestKey);
+            }
+            boolean firstPage = oldestKey == null;
+            int requestGeneration = generation;
+            boolean[] delivered = {false};
+
+            LocalPersistence.readCacheFirst(page.limitToLast(PAGE_SIZE), new LocalPersistence.Callback() {
+                /**
+                 * Called when the page is retrieved, and again if the server value differs
+                 * from the cached one; only the newest page is replaced then.
+                 *
+                 * @param snapshot  DataSnapshot containing one page of the user's history
+                 * @param fromCache Whether the page was read from the disk cache
+                 */
+                @Override
+                public void onData(@NonNull DataSnapshot snapshot, boolean fromCache) {
+                    if (!firstPage && requestGeneration != generation) {
+                        return; // The list was rebuilt while this page was in flight
+                    }
+                    boolean reconcile = delivered[0];
+                    if (reconcile && !firstPage) {
+                        // History is append-only, so only the newest page can gain entries
+                        return;
+                    }
+                    delivered[0] = true;
+                    loading = false;
+                    if (reconcile) {
+                        // Server copy of the newest page: start over from it
+                        generation++;
+                        items.clear();
+                        oldestKey = null;
+                    }
+                    appendPage(snapshot, reconcile);
+                    if (firstPage && getContext() != null) {
+                        StartupMetrics.markFirstContent(getContext(), "HistoryFragment", fromCache);
+                    }
+                }
+
+                /**
+                 * Called when the Firebase operation fails.
+                 * Displays an error message to the user via Toast.
+                 *
+                 * @param error DatabaseError containing error details
+                 */
+                @Override
+                public void onError(@NonNull DatabaseError error) {
+                    if (requestGeneration == generation) {
+                        loading = false;
+                    }
+                    if (getContext() != null) {
+                        Toast.makeText(getContext(), driverHistory ? "Failed to load driver history"
+                                : "Failed to load passenger history", Toast.LENGTH_SHORT).show();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Appends one page to the list. Entries arrive oldest first, so they are reversed before
+         * being appended to the newest-first list.
+         *
+         * @param snapshot DataSnapshot containing one page of the user's history
+         * @param replaced Whether the list was cleared for this page
+         */
+        private void appendPage(DataSnapshot snapshot, boolean replaced) {
+            exhausted = snapshot.getChildrenCount() < PAGE_SIZE;
+
+            List<T> pageItems = new ArrayList<>();
+            String pageOldestKey = null;
+            for (DataSnapshot rideSnapshot : snapshot.getChildren()) {
+                if (pageOldestKey == null) {
+                    pageOldestKey = rideSnapshot.getKey();
+                }
+                T item = SnapshotCodec.decode(rideSnapshot, decoder);
+                if (item != null) {
+                    pageItems.add(item);
                 }
-                adapter.setShowingDriver(false);
-                adapter.notifyDataSetChanged();
+            }
+            Collections.reverse(pageItems);
+            if (pageOldestKey != null) {
+                oldestKey = pageOldestKey;
             }
 
-            /**
-             * Called when the Firebase operation fails.
-             * Displays an error message to the user via Toast.
-             *
-             * @param error DatabaseError containing error details
-             */
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Toast.makeText(getContext(), "Failed to load passenger history", Toast.LENGTH_SHORT).show();
+            int firstNew = items.size();
+            items.addAll(pageItems);
+            if (adapter != null && showingDriver == driverHistory) {
+                if (replaced) {
+                    adapter.notifyDataSetChanged();
+                } else {
+                    adapter.notifyItemRangeInserted(firstNew, pageItems.size());
+                }
             }
-        });
+        }
     }
-}
\ No newline at end of file
+}
@@ -7,9 +7,8 @@ import android.content.pm.PackageManager;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
-import android.content.Intent;
-import android.os.Build;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.widget.Toast;
 
@@ -18,8 +17,13 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.Lifecycle;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
 
 /**
  * Main activity class for the PickMe application home screen.
@@ -36,8 +40,14 @@ import com.google.android.material.bottomnavigation.BottomNavigationView;
  *   <li>History - Trip history and records</li>
  * </ul>
  *
- * <p>Additionally, this activity automatically starts the RideMonitorService
- * to track ride-related activities in the background.</p>
+ * <p>Each tab's fragment is created the first time the tab is selected and then kept: switching
+ * tabs hides the current fragment and shows the selected one, so maps, Places clients, lists and
+ * database listeners are not rebuilt on every switch and each tab comes back as it was left. A hidden
+ * tab is capped at {@link Lifecycle.State#STARTED}, so it is paused and stops its heavy work, such as
+ * location updates, until it is shown again. Switch latency is logged by {@link TabSwitchMetrics}.</p>
+ *
+ * <p>Additionally, this activity registers the device for ride push messages and restarts the
+ * RideMonitorService if the user has a ride.</p>
  *
  * @author [Your Name]
  * @version 1.0
@@ -45,51 +55,82 @@ import com.google.android.material.bottomnavigation.BottomNavigationView;
  */
 public class HomeActivity extends AppCompatActivity {
 
+    /**
+     * Fragment tag of the Home tab.
+     */
+    private static final String TAB_HOME = "home";
+    /**
+     * Fragment tag of the Passenger tab.
+     */
+    private static final String TAB_PASSENGER = "passenger";
+    /**
+     * Fragment tag of the Driver tab.
+     */
+    private static final String TAB_DRIVER = "driver";
+    /**
+     * Fragment tag of the History tab.
+     */
+    private static final String TAB_HISTORY = "history";
+    /**
+     * Key of the shown tab in the saved instance state.
+     */
+    private static final String KEY_CURRENT_TAB = "currentTab";
+
+    /**
+     * Tag of the tab shown in the fragment container, or null before the first one is shown.
+     */
+    private String currentTab;
+
     /**
      * Called when the activity is starting.
      *
      * <p>This method performs the following initialization tasks:</p>
      * <ul>
      *   <li>Sets the content view to the home activity layout</li>
-     *   <li>Starts the RideMonitorService for background ride tracking</li>
-     *   <li>Loads the default HomeFragment if this is a fresh start</li>
-     *   <li>Sets up the bottom navigation view with fragment switching logic</li>
+     *   <li>Registers the device for push messages, see {@link PickMeMessagingService}</li>
+     *   <li>Starts the RideMonitorService if the user drives a ride or is a passenger on one</li>
+     *   <li>Keeps the user's own nodes in the disk cache, see {@link LocalPersistence}</li>
+     *   <li>Shows the Home tab if this is a fresh start, or remembers the restored tab</li>
+     *   <li>Sets up the bottom navigation view with tab switching logic</li>
      * </ul>
      *
      * @param savedInstanceState If the activity is being re-initialized after
      *                          previously being shut down, this Bundle contains
      *                          the data it most recently supplied. Otherwise, it is null.
      * @see AppCompatActivity#onCreate(Bundle)
-     * @see #startRideMonitorService()
-     * @see #loadFragment(Fragment)
+     * @see RideMonitorService#startIfUserHasRide
+     * @see #showTab(String)
      */
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_home);
 
-        startRideMonitorService();
+        PickMeMessagingService.registerToken();
+        RideMonitorService.startIfUserHasRide(this);
+
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        if (currentUser != null) {
+            LocalPersistence.keepUserDataSynced(currentUser.getUid());
+        }
 
         if (savedInstanceState == null) {
-            loadFragment(new HomeFragment());
+            showTab(TAB_HOME);
+        } else {
+            // The fragment manager restored the tabs with their hidden state
+            currentTab = savedInstanceState.getString(KEY_CURRENT_TAB);
         }
 
         BottomNavigationView bottomNavigationView = findViewById(R.id.bottom_Navigation);
         bottomNavigationView.setOnItemSelectedListener(item -> {
-            Fragment selectedFragment = null;
-
             if (item.getItemId() == R.id.home) {
-                loadFragment(new HomeFragment());
+                showTab(TAB_HOME);
             } else if (item.getItemId() == R.id.passenger) {
-                loadFragment(new PassengerFragment());
+                showTab(TAB_PASSENGER);
             } else if (item.getItemId() == R.id.driver) {
-                loadFragment(new DriverFragment());
+                showTab(TAB_DRIVER);
             } else if (item.getItemId() == R.id.history) {
-                loadFragment(new HistoryFragment());
-            }
-
-            if (selectedFragment != null) {
-                loadFragment(selectedFragment);
+                showTab(TAB_HISTORY);
             }
             return true;
 
@@ -97,51 +138,82 @@ public class HomeActivity extends AppCompatActivity {
     }
 
     /**
-     * Starts the RideMonitorService to track ride-related activities in the background.
+     * Saves the shown tab, so it is the one shown again when the activity is recreated.
      *
-     * <p>This method handles the proper service startup based on the Android version:</p>
-     * <ul>
-     *   <li>For Android Oreo (API 26) and above: Uses {@code startForegroundService()}</li>
-     *   <li>For earlier versions: Uses {@code startService()}</li>
-     * </ul>
+     * @param outState Bundle in which to place the saved state.
+     */
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(KEY_CURRENT_TAB, currentTab);
+    }
+
+    /**
+     * Called when the activity is no longer visible.
+     * Logs the {@link UserProfileCache} counters so cache effectiveness can be checked on real sessions.
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        Log.i("UserProfileCache", UserProfileCache.getInstance().statsSummary());
+    }
+
+    /**
+     * Shows a tab in the main container.
      *
-     * <p>The service is essential for maintaining ride state and notifications
-     * even when the app is not in the foreground.</p>
+     * <p>The tab's fragment is looked up by its tag and only created, and added, the first time. The
+     * current tab is hidden and capped at {@link Lifecycle.State#STARTED}, which pauses it without
+     * destroying its view; the selected tab is shown and allowed to resume. The transaction is
+     * executed immediately so the switch can be timed, see {@link TabSwitchMetrics}.</p>
      *
-     * @see RideMonitorService
-     * @see Build.VERSION_CODES#O
+     * @param tab The tag of the tab to show. Showing the current tab does nothing.
+     * @see FragmentTransaction#hide(Fragment)
+     * @see FragmentTransaction#setMaxLifecycle(Fragment, Lifecycle.State)
      */
-    private void startRideMonitorService() {
-        Intent serviceIntent = new Intent(this, RideMonitorService.class);
+    private void showTab(String tab) {
+        if (tab.equals(currentTab)) {
+            return;
+        }
+        long startedAt = SystemClock.uptimeMillis();
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        FragmentTransaction transaction = fragmentManager.beginTransaction().setReorderingAllowed(true);
 
-        // For Android Oreo (API 26) and above
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            startForegroundService(serviceIntent);
+        Fragment current = currentTab != null ? fragmentManager.findFragmentByTag(currentTab) : null;
+        if (current != null) {
+            transaction.hide(current).setMaxLifecycle(current, Lifecycle.State.STARTED);
+        }
+        Fragment selected = fragmentManager.findFragmentByTag(tab);
+        boolean created = selected == null;
+        if (created) {
+            selected = createTab(tab);
+            transaction.add(id.fragmentContainer, selected, tab);
         } else {
-            // For earlier versions
-            startService(serviceIntent);
+            transaction.show(selected).setMaxLifecycle(selected, Lifecycle.State.RESUMED);
         }
+        transaction.commitNow();
+
+        if (currentTab != null) {
+            TabSwitchMetrics.measure(this, selected.getView(), tab, created, startedAt);
+        }
+        currentTab = tab;
     }
 
     /**
-     * Loads and displays the specified fragment in the main container.
-     *
-     * <p>This method replaces the current fragment in the fragment container
-     * with the provided fragment using a fragment transaction. The transaction
-     * is committed immediately.</p>
+     * Creates the fragment of a tab.
      *
-     * <p>The fragment will be placed in the container with ID {@code R.id.fragmentContainer}.
-     * Any existing fragment in this container will be replaced.</p>
-     *
-     * @param fragment The fragment to be loaded and displayed. Must not be null.
-     * @throws IllegalArgumentException if the fragment parameter is null
-     * @see Fragment
-     * @see androidx.fragment.app.FragmentTransaction#replace(int, Fragment)
+     * @param tab The tag of the tab.
+     * @return A new fragment for the tab.
      */
-    private void loadFragment(Fragment fragment) {
-        getSupportFragmentManager()
-                .beginTransaction()
-                .replace(id.fragmentContainer, fragment)
-                .commit();
+    private static Fragment createTab(String tab) {
+        switch (tab) {
+            case TAB_PASSENGER:
+                return new PassengerFragment();
+            case TAB_DRIVER:
+                return new DriverFragment();
+            case TAB_HISTORY:
+                return new HistoryFragment();
+            default:
+                return new HomeFragment();
+        }
     }
-}
\ No newline at end of file
+}
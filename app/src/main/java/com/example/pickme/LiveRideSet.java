@@ -0,0 +1,144 @@
+package com.example.pickme;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code LiveRideSet} keeps the rides of a live listing sorted by departure time while they are
+ * added, changed and removed one at a time, as database child events deliver them.
+ *
+ * <p>Rides are identified by their ride key (see {@link RidePaths}) and ordered by
+ * {@link RideSchema#departureOf departure}, ties broken by ride key, which is the order the listing
+ * queries return. Each change finds its position by binary search, so applying an event costs a
+ * search and one array shift instead of a sort, and reports the rows it affected. The class is not
+ * thread safe and has no Android dependencies so it can be exercised on the JVM.</p>
+ */
+public final class LiveRideSet {
+
+    /**
+     * The rows affected by one change.
+     */
+    public static final class Change {
+        /**
+         * Change of a ride that was not in the set and still is not.
+         */
+        static final Change NONE = new Change(-1, -1);
+
+        /**
+         * Row the ride was at before the change, or -1 if it was not in the set.
+         */
+        public final int from;
+        /**
+         * Row the ride is at after the change, or -1 if it is no longer in the set.
+         */
+        public final int to;
+
+        Change(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @return true if the ride was added.
+         */
+        public boolean isInsert() {
+            return from == -1 && to != -1;
+        }
+
+        /**
+         * @return true if the ride was removed.
+         */
+        public boolean isRemove() {
+            return from != -1 && to == -1;
+        }
+
+        /**
+         * @return true if the ride changed position.
+         */
+        public boolean isMove() {
+            return from != -1 && to != -1 && from != to;
+        }
+    }
+
+    /**
+     * The rides in display order.
+     */
+    private final List<Driver> rides = new ArrayList<>();
+    /**
+     * The rides by ride key.
+     */
+    private final Map<String, Driver> byKey = new HashMap<>();
+
+    /**
+     * Adds a ride, or replaces the ride with the same key and moves it to its new position.
+     *
+     * @param ride The ride, with its ride key set.
+     * @return The affected rows.
+     */
+    public Change upsert(Driver ride) {
+        Driver previous = byKey.put(ride.getRideKey(), ride);
+        int from = -1;
+        if (previous != null) {
+            from = indexOf(previous);
+            rides.remove(from);
+        }
+        int to = -(Collections.binarySearch(rides, ride, LiveRideSet::compare) + 1);
+        rides.add(to, ride);
+        return new Change(from, to);
+    }
+
+    /**
+     * Removes a ride.
+     *
+     * @param rideKey The ride's key.
+     * @return The affected rows; {@link Change#NONE} if the ride was not in the set.
+     */
+    public Change remove(String rideKey) {
+        Driver previous = byKey.remove(rideKey);
+        if (previous == null) {
+            return Change.NONE;
+        }
+        int from = indexOf(previous);
+        rides.remove(from);
+        return new Change(from, -1);
+    }
+
+    /**
+     * @param rideKey A ride key.
+     * @return true if the set holds the ride.
+     */
+    public boolean contains(String rideKey) {
+        return byKey.containsKey(rideKey);
+    }
+
+    /**
+     * @return The number of rides in the set.
+     */
+    public int size() {
+        return rides.size();
+    }
+
+    /**
+     * Returns a copy of the rides, e.g. to submit to a list adapter.
+     *
+     * @return The rides in display order.
+     */
+    public List<Driver> snapshot() {
+        return new ArrayList<>(rides);
+    }
+
+    /**
+     * Orders rides by departure time, then by ride key.
+     */
+    static int compare(Driver a, Driver b) {
+        int byDeparture = Long.compare(RideSchema.departureOf(a), RideSchema.departureOf(b));
+        return byDeparture != 0 ? byDeparture : a.getRideKey().compareTo(b.getRideKey());
+    }
+
+    private int indexOf(Driver ride) {
+        return Collections.binarySearch(rides, ride, LiveRideSet::compare);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.pickme;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@code LocalPersistence} configures the Realtime Database disk cache and keeps the signed-in
+ * user's own data in it, so screens can render from disk on a cold start and reconcile with the
+ * server once connected.
+ *
+ * <ul>
+ *   <li>{@link #install(Context)} enables persistence with the size budget from
+ *   {@code res/values/database.xml}; it must run before any other database call.</li>
+ *   <li>{@link #keepUserDataSynced(String)} marks {@code Users/{uid}}, the newest page of both
+ *   history lists, the ride pointers {@code DriverActiveRide/{uid}} and {@code PassengerRides/{uid}}
+ *   and the rides they name with {@code keepSynced}, so they are current on disk even while no
+ *   screen listens to them.</li>
+ *   <li>{@link #readCacheFirst(Query, Callback)} delivers the cached value first and the server
+ *   value once it differs.</li>
+ * </ul>
+ */
+public final class LocalPersistence {
+
+    /**
+     * Receives the result of {@link #readCacheFirst(Query, Callback)}.
+     */
+    public interface Callback {
+        /**
+         * Called with the cached value, and again with the server value if it differs.
+         *
+         * @param snapshot  The data.
+         * @param fromCache Whether the data was read while the client was offline.
+         */
+        void onData(@NonNull DataSnapshot snapshot, boolean fromCache);
+
+        /**
+         * Called if the read was rejected.
+         *
+         * @param error The error.
+         */
+        void onError(@NonNull DatabaseError error);
+    }
+
+    /**
+     * Tag for logging messages related to local persistence.
+     */
+    private static final String TAG = "LocalPersistence";
+
+    /**
+     * Whether the client currently has a connection to the database server.
+     */
+    private static volatile boolean connected;
+    /**
+     * Locations marked with {@code keepSynced}, so they can be released on logout.
+     */
+    private static final List<Query> syncedQueries = new ArrayList<>();
+    /**
+     * Ride pointers followed by {@link #keepUserDataSynced(String)}, so they can be released on logout.
+     */
+    private static final List<RidePointer> ridePointers = new ArrayList<>();
+    /**
+     * Reads waiting for the connection, run by the connection listener once it is back.
+     */
+    private static final List<Runnable> whenConnected = new ArrayList<>();
+
+    /**
+     * Not instantiable.
+     */
+    private LocalPersistence() {}
+
+    /**
+     * Enables the disk cache and starts tracking the connection state.
+     *
+     * @param context Any context, used to read the configuration.
+     */
+    public static void install(@NonNull Context context) {
+        boolean enabled = context.getResources().getBoolean(R.bool.database_persistence_enabled);
+        long cacheBytes = context.getResources().getInteger(R.integer.database_cache_size_mb) * 1024L * 1024L;
+
+        FirebaseDatabase database = FirebaseDatabase.getInstance();
+        database.setPersistenceEnabled(enabled);
+        if (enabled) {
+            database.setPersistenceCacheSizeBytes(cacheBytes);
+        }
+
+        database.getReference(".info/connected").addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                connected = Boolean.TRUE.equals(snapshot.getValue(Boolean.class));
+                if (connected) {
+                    List<Runnable> pending = new ArrayList<>(whenConnected);
+                    whenConnected.clear();
+                    for (Runnable read : pending) {
+                        read.run();
+                    }
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Connection state listener cancelled: " + error.getMessage());
+            }
+        });
+        Log.i(TAG, "Persistence " + (enabled ? "enabled, budget " + cacheBytes + " bytes" : "disabled"));
+    }
+
+    /**
+     * @return Whether the client currently has a connection to the database server.
+     */
+    public static boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Keeps the signed-in user's own nodes current in the disk cache. Calling it again replaces the
+     * previous user's locations.
+     *
+     * <p>The user's rides live in day shards, so the pointers are listened to and the ride each one
+     * names is marked as well; the mark moves when the pointer changes.</p>
+     *
+     * @param uid The uid of the signed-in user.
+     */
+    public static synchronized void keepUserDataSynced(@NonNull String uid) {
+        stopSyncing();
+        DatabaseReference root = FirebaseDatabase.getInstance().getReference();
+        ridePointers.add(new RidePointer(root.child(RidePaths.DRIVER_ACTIVE_RIDE).child(uid)));
+        ridePointers.add(new RidePointer(root.child(RidePaths.PASSENGER_RIDES).child(uid)));
+        syncedQueries.add(root.child("Users").child(uid));
+        // Same queries as the first page HistoryFragment requests
+        syncedQueries.add(root.child("HistoryDriver").child(uid).orderByKey().limitToLast(HistoryFragment.PAGE_SIZE));
+        syncedQueries.add(root.child("HistoryPassenger").child(uid).orderByKey().limitToLast(HistoryFragment.PAGE_SIZE));
+        for (Query query : syncedQueries) {
+            query.keepSynced(true);
+        }
+    }
+
+    /**
+     * Releases the locations marked by {@link #keepUserDataSynced(String)}. Called on logout.
+     */
+    public static synchronized void stopSyncing() {
+        for (Query query : syncedQueries) {
+            query.keepSynced(false);
+        }
+        syncedQueries.clear();
+        for (RidePointer pointer : ridePointers) {
+            pointer.release();
+        }
+        ridePointers.clear();
+    }
+
+    /**
+     * Reads a location from the disk cache first, then reconciles with the server.
+     *
+     * <p>The value is delivered as soon as the SDK has it. With persistence enabled that can be the
+     * disk copy even while connected, so the server value is always requested as well, with
+     * {@link Query#get()} once the client is connected, and delivered a second time if it differs.</p>
+     *
+     * @param query    The location to read.
+     * @param callback Receives the value once or twice.
+     */
+    public static void readCacheFirst(@NonNull Query query, @NonNull Callback callback) {
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot cached) {
+                callback.onData(cached, !connected);
+                runWhenConnected(() -> query.get().addOnCompleteListener(task -> {
+                    if (!task.isSuccessful()) {
+                        Log.w(TAG, "Reconcile failed, keeping cached value: " + task.getException());
+                        return;
+                    }
+                    DataSnapshot server = task.getResult();
+                    if (!Objects.equals(server.getValue(), cached.getValue())) {
+                        callback.onData(server, false);
+                    }
+                }));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error);
+            }
+        });
+    }
+
+    /**
+     * Runs a read now if the client is connected, otherwise once the connection is back, so
+     * {@link Query#get()} answers from the server rather than from disk.
+     *
+     * @param read The read to run, on the main thread.
+     */
+    private static void runWhenConnected(@NonNull Runnable read) {
+        if (connected) {
+            read.run();
+        } else {
+            whenConnected.add(read);
+        }
+    }
+
+    /**
+     * Listens to a ride pointer and keeps the ride it names synced.
+     */
+    private static final class RidePointer implements ValueEventListener {
+        /**
+         * The pointer, {@code DriverActiveRide/{uid}} or {@code PassengerRides/{uid}}.
+         */
+        private final DatabaseReference pointer;
+        /**
+         * The ride currently marked, or null.
+         */
+        private DatabaseReference ride;
+        /**
+         * Key of {@link #ride}, see {@link RidePaths}.
+         */
+        private String rideKey;
+
+        RidePointer(@NonNull DatabaseReference pointer) {
+            this.pointer = pointer;
+            pointer.addValueEventListener(this);
+        }
+
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            Object value = snapshot.getValue();
+            String key = RidePaths.isRideKey(value) ? (String) value : null;
+            if (Objects.equals(key, rideKey)) {
+                return;
+            }
+            releaseRide();
+            if (key != null) {
+                rideKey = key;
+                ride = FirebaseDatabase.getInstance().getReference(RidePaths.ridePath(key));
+                ride.keepSynced(true);
+            }
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.e(TAG, "Ride pointer listener cancelled: " + error.getMessage());
+        }
+
+        /**
+         * Stops listening to the pointer and unmarks the ride.
+         */
+        void release() {
+            pointer.removeEventListener(this);
+            releaseRide();
+        }
+
+        private void releaseRide() {
+            if (ride != null) {
+                ride.keepSynced(false);
+            }
+            ride = null;
+            rideKey = null;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.pickme;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code NotificationCoalescer} decides which passenger bookings still need a notification and
+ * groups them per ride, for {@link RideMonitorService}.
+ *
+ * <p>Bookings are {@link #offer offered} as listener events arrive and collected until the service
+ * {@link #drain drains} them at the end of its batching window. A passenger is notified once per
+ * ride: offering a passenger that is already pending or was already notified changes nothing, so
+ * repeated events for the same booking collapse into one. The notified passengers can be exported
+ * with {@link #seenEntries} and passed back to the constructor, so a restarted service does not
+ * notify the existing passengers again.</p>
+ *
+ * <p>Each ride has a stable notification id, see {@link #notificationId}, so a later batch updates
+ * the ride's notification instead of adding another one. The class is not thread safe and has no
+ * Android dependencies so it can be exercised on the JVM.</p>
+ */
+public class NotificationCoalescer {
+
+    /**
+     * Separates the ride key from the passenger uid in {@link #seenEntries}.
+     * A passenger uid is a Firebase key and cannot contain it, so the last one ends the ride key.
+     */
+    static final char SEPARATOR = '/';
+    /**
+     * Smallest id handed out by {@link #notificationId}; lower ids are left for fixed notifications.
+     */
+    static final int FIRST_RIDE_NOTIFICATION_ID = 1000;
+
+    /**
+     * The new passengers of one ride collected during a batching window.
+     */
+    public static final class Batch {
+        /**
+         * Number of passengers added to the ride in this batch.
+         */
+        public final int newPassengers;
+        /**
+         * Number of passengers notified for the ride so far, including this batch.
+         */
+        public final int totalPassengers;
+
+        Batch(int newPassengers, int totalPassengers) {
+            this.newPassengers = newPassengers;
+            this.totalPassengers = totalPassengers;
+        }
+    }
+
+    /**
+     * Passengers already notified, by ride key.
+     */
+    private final Map<String, Set<String>> seen = new HashMap<>();
+    /**
+     * Passengers waiting for the next batch, by ride key, in arrival order.
+     */
+    private final Map<String, Set<String>> pending = new LinkedHashMap<>();
+
+    /**
+     * Creates a coalescer that nobody has been notified by yet.
+     */
+    public NotificationCoalescer() {
+        this(null);
+    }
+
+    /**
+     * Creates a coalescer restoring the passengers notified by an earlier instance.
+     *
+     * @param seenEntries Entries as returned by {@link #seenEntries}, may be null; malformed entries
+     *                    are ignored.
+     */
+    public NotificationCoalescer(Set<String> seenEntries) {
+        if (seenEntries == null) {
+            return;
+        }
+        for (String entry : seenEntries) {
+            int separator = entry.lastIndexOf(SEPARATOR);
+            if (separator > 0 && separator < entry.length() - 1) {
+                seen.computeIfAbsent(entry.substring(0, separator), k -> new HashSet<>())
+                        .add(entry.substring(separator + 1));
+            }
+        }
+    }
+
+    /**
+     * Records that a passenger is on a ride.
+     *
+     * @param rideKey      The ride's key.
+     * @param passengerUid The passenger's uid.
+     * @return true if the passenger was added to the next batch, false if they are already pending
+     *         or were already notified.
+     */
+    public boolean offer(String rideKey, String passengerUid) {
+        Set<String> notified = seen.get(rideKey);
+        if (notified != null && notified.contains(passengerUid)) {
+            return false;
+        }
+        return pending.computeIfAbsent(rideKey, k -> new LinkedHashSet<>()).add(passengerUid);
+    }
+
+    /**
+     * Records that a passenger left a ride, so booking it again is notified again.
+     *
+     * @param rideKey      The ride's key.
+     * @param passengerUid The passenger's uid.
+     */
+    public void forget(String rideKey, String passengerUid) {
+        remove(seen, rideKey, passengerUid);
+        remove(pending, rideKey, passengerUid);
+    }
+
+    /**
+     * Drops everything known about rides other than the given one, e.g. once the driver's ride
+     * has been replaced.
+     *
+     * @param rideKey The ride to keep, or null to drop all rides.
+     */
+    public void retainRide(String rideKey) {
+        seen.keySet().removeIf(key -> !key.equals(rideKey));
+        pending.keySet().removeIf(key -> !key.equals(rideKey));
+    }
+
+    /**
+     * Checks whether any passenger is waiting for a notification.
+     *
+     * @return true if the next {@link #drain} returns at least one batch.
+     */
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Ends the current batching window: the pending passengers count as notified from now on.
+     *
+     * @return The batch of each ride that got new passengers, by ride key, in the order the rides
+     *         first got one; empty if nothing is pending.
+     */
+    public Map<String, Batch> drain() {
+        Map<String, Batch> batches = new LinkedHashMap<>();
+        for (Map.Entry<String, Set<String>> entry : pending.entrySet()) {
+            Set<String> notified = seen.computeIfAbsent(entry.getKey(), k -> new HashSet<>());
+            notified.addAll(entry.getValue());
+            batches.put(entry.getKey(), new Batch(entry.getValue().size(), notified.size()));
+        }
+        pending.clear();
+        return batches;
+    }
+
+    /**
+     * Exports the notified passengers.
+     *
+     * @return One {@code rideKey/passengerUid} entry per notified passenger, suitable for
+     *         {@code SharedPreferences#putStringSet}.
+     */
+    public Set<String> seenEntries() {
+        Set<String> entries = new HashSet<>();
+        for (Map.Entry<String, Set<String>> ride : seen.entrySet()) {
+            for (String passengerUid : ride.getValue()) {
+                entries.add(ride.getKey() + SEPARATOR + passengerUid);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the notification id of a ride, the same on every call and across restarts.
+     *
+     * @param rideKey The ride's key.
+     * @return An id of at least {@link #FIRST_RIDE_NOTIFICATION_ID}.
+     */
+    public static int notificationId(String rideKey) {
+        return FIRST_RIDE_NOTIFICATION_ID
+                + Math.floorMod(rideKey.hashCode(), Integer.MAX_VALUE - FIRST_RIDE_NOTIFICATION_ID);
+    }
+
+    private static void remove(Map<String, Set<String>> passengersByRide, String rideKey, String passengerUid) {
+        Set<String> passengers = passengersByRide.get(rideKey);
+        if (passengers != null && passengers.remove(passengerUid) && passengers.isEmpty()) {
+            passengersByRide.remove(rideKey);
+        }
+    }
+}
@@ -15,7 +15,7 @@ package com.example.pickme;
  * Passenger passenger = new Passenger(
  *     "Downtown Plaza",
  *     "Airport Terminal 1",
- *     "2",
+ *     2,
  *     "Please wait at the main entrance"
  * );
  * }
@@ -33,12 +33,30 @@ public class Passenger {
     /** The passenger's desired destination */
     private String destination;
 
-    /** The total number of passengers for this ride request (as string for flexibility) */
+    /** The total number of passengers for this ride request */
+    private int passengerCount;
+
+    /**
+     * The number of passengers as stored by schema version 1.
+     * Only read for records not yet migrated; use {@link RideSchema#passengerCountOf(Passenger)}.
+     */
     private String numberOfPassengers;
 
     /** Additional comments or special instructions from the passenger */
     private String comment;
 
+    /** Latitude of the pickup location, or null if it is not known */
+    private Double originLat;
+
+    /** Longitude of the pickup location, or null if it is not known */
+    private Double originLng;
+
+    /** Latitude of the destination, or null if it was not picked from the suggestions */
+    private Double destinationLat;
+
+    /** Longitude of the destination, or null if it was not picked from the suggestions */
+    private Double destinationLng;
+
     /**
      * Default empty constructor required for Firebase Realtime Database deserialization.
      * Firebase uses reflection to create instances of this class when reading data
@@ -61,15 +79,14 @@ public class Passenger {
      *                       Should not be null or empty for valid ride requests.
      * @param destination The passenger's desired destination.
      *                   Should not be null or empty for valid ride requests.
-     * @param numberOfPassengers The total number of passengers for this ride.
-     *                          Stored as String for flexibility in handling various input formats.
-     *                          Should represent a positive integer value.
+     * @param passengerCount The total number of passengers for this ride.
+     *                       Should be a positive value.
      * @param comment Additional comments or special instructions from the passenger.
      *               Can be null or empty if no special instructions are needed.
      *
      * @throws IllegalArgumentException if currentLocation or destination is null
      */
-    public Passenger(String currentLocation, String destination, String numberOfPassengers, String comment) {
+    public Passenger(String currentLocation, String destination, int passengerCount, String comment) {
         if (currentLocation == null) {
             throw new IllegalArgumentException("Current location cannot be null");
         }
@@ -79,7 +96,7 @@ public class Passenger {
 
         this.currentLocation = currentLocation;
         this.destination = destination;
-        this.numberOfPassengers = numberOfPassengers;
+        this.passengerCount = passengerCount;
         this.comment = comment;
     }
 
@@ -134,21 +151,34 @@ public class Passenger {
     /**
      * Retrieves the number of passengers for this ride request.
      *
+     * @return The number of passengers, or 0 if not set
+     */
+    public int getPassengerCount() {
+        return passengerCount;
+    }
+
+    /**
+     * Sets the number of passengers for this ride request.
+     *
+     * @param passengerCount The number of passengers. Should be positive for valid requests.
+     */
+    public void setPassengerCount(int passengerCount) {
+        this.passengerCount = passengerCount;
+    }
+
+    /**
+     * Retrieves the schema version 1 number of passengers.
+     *
      * @return The number of passengers as a String, or null if not set.
-     *         The string should represent a positive integer value.
      */
     public String getNumberOfPassengers() {
         return numberOfPassengers;
     }
 
     /**
-     * Sets the number of passengers for this ride request.
-     * The number is stored as a String to provide flexibility in handling
-     * various input formats and to maintain consistency with Firebase storage.
+     * Sets the schema version 1 number of passengers.
      *
-     * @param numberOfPassengers The number of passengers as a String.
-     *                          Should represent a positive integer value for valid requests.
-     *                          Can be null if not specified.
+     * @param numberOfPassengers The number of passengers as a String, or null.
      */
     public void setNumberOfPassengers(String numberOfPassengers) {
         this.numberOfPassengers = numberOfPassengers;
@@ -178,6 +208,78 @@ public class Passenger {
         this.comment = comment;
     }
 
+    /**
+     * Retrieves the latitude of the pickup location.
+     *
+     * @return The latitude, or null if not known
+     */
+    public Double getOriginLat() {
+        return originLat;
+    }
+
+    /**
+     * Sets the latitude of the pickup location.
+     *
+     * @param originLat The latitude, or null if not known.
+     */
+    public void setOriginLat(Double originLat) {
+        this.originLat = originLat;
+    }
+
+    /**
+     * Retrieves the longitude of the pickup location.
+     *
+     * @return The longitude, or null if not known
+     */
+    public Double getOriginLng() {
+        return originLng;
+    }
+
+    /**
+     * Sets the longitude of the pickup location.
+     *
+     * @param originLng The longitude, or null if not known.
+     */
+    public void setOriginLng(Double originLng) {
+        this.originLng = originLng;
+    }
+
+    /**
+     * Retrieves the latitude of the destination.
+     *
+     * @return The latitude, or null if not known
+     */
+    public Double getDestinationLat() {
+        return destinationLat;
+    }
+
+    /**
+     * Sets the latitude of the destination.
+     *
+     * @param destinationLat The latitude, or null if not known.
+     */
+    public void setDestinationLat(Double destinationLat) {
+        this.destinationLat = destinationLat;
+    }
+
+    /**
+     * Retrieves the longitude of the destination.
+     *
+     * @return The longitude, or null if not known
+     */
+    public Double getDestinationLng() {
+        return destinationLng;
+    }
+
+    /**
+     * Sets the longitude of the destination.
+     *
+     * @param destinationLng The longitude, or null if not known.
+     */
+    public void setDestinationLng(Double destinationLng) {
+        this.destinationLng = destinationLng;
+    }
+
     /**
      * Returns a string representation of the Passenger object.
      * This method is useful for debugging and logging purposes.
@@ -189,7 +291,7 @@ public class Passenger {
         return "Passenger{" +
                 "currentLocation='" + currentLocation + '\'' +
                 ", destination='" + destination + '\'' +
-                ", numberOfPassengers='" + numberOfPassengers + '\'' +
+                ", passengerCount=" + passengerCount +
                 ", comment='" + comment + '\'' +
                 '}';
     }
@@ -204,7 +306,7 @@ public class Passenger {
     public boolean isValidRequest() {
         return currentLocation != null && !currentLocation.trim().isEmpty() &&
                 destination != null && !destination.trim().isEmpty() &&
-                numberOfPassengers != null && !numberOfPassengers.trim().isEmpty();
+                RideSchema.passengerCountOf(this) > 0;
     }
 
     /**
@@ -2,7 +2,6 @@ package com.example.pickme;
 
 import android.annotation.SuppressLint;
 import android.os.Bundle;
-import android.os.Handler;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -14,20 +13,29 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.cardview.widget.CardView;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.ChildEventListener;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
 import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * A simple {@link Fragment} subclass that handles the display and interaction
@@ -38,6 +46,19 @@ import java.util.Map;
  * <p>It manages UI elements such as driver and passenger information cards,
  * ride status displays, and action buttons (e.g., cancel ride, accept/decline passenger,
  * start/end ride).</p>
+ *
+ * <p>The fragment is bound to the user's active ride by one stream, attached in {@link #onStart}
+ * and detached in {@link #onStop}: small listeners on the {@code DriverActiveRide/{uid}} and
+ * {@code PassengerRides/{uid}} pointers pick the ride, and a single value listener on that ride
+ * delivers every change to it, whoever made it. Each value is mapped to an immutable
+ * {@link RideViewState}, and only the cards and buttons whose fields differ from the state rendered
+ * before are updated. Actions write to the database and leave the rendering to the stream, so no
+ * action reads the ride again after writing it.</p>
+ *
+ * <p>In the driver's view the passenger card lists every passenger of the ride in a
+ * {@link RecyclerView}, fed by a child listener on the ride's "Passengers" through a
+ * {@link PassengerRoster}, which also keeps the running seat tally. Accepting or declining a passenger
+ * writes only that passenger's entry.</p>
  */
 public class PassengerFragment extends Fragment {
 
@@ -100,6 +121,18 @@ public class PassengerFragment extends Fragment {
      * LinearLayout container for displaying detailed passenger information.
      */
     private LinearLayout passengerDetailsContainer;
+    /**
+     * TextView showing the driver how many of their seats are booked.
+     */
+    private TextView seatTally;
+    /**
+     * RecyclerView listing the passengers of the driver's ride.
+     */
+    private RecyclerView passengerList;
+    /**
+     * Adapter of {@link #passengerList}.
+     */
+    private PassengerRowAdapter passengerRowAdapter;
     /**
      * TextView for displaying the passenger's name.
      */
@@ -131,17 +164,9 @@ public class PassengerFragment extends Fragment {
      */
     private Button driverCancelRideButton;
     /**
-     * LinearLayout container for driver controls related to passenger management (accept/decline/start/end).
+     * LinearLayout container for the driver's ride controls once a passenger is accepted (start/end).
      */
     private LinearLayout driverPassengerControls;
-    /**
-     * Button for the driver to accept a pending passenger request.
-     */
-    private Button acceptPassengerButton;
-    /**
-     * Button for the driver to decline a pending passenger request.
-     */
-    private Button declineButton;
 
     // Passenger UI elements
     /**
@@ -153,31 +178,111 @@ public class PassengerFragment extends Fragment {
      */
     private TextView passengerStatus;
     /**
-     * Button for the driver to start the ride. Dynamically created and added to UI.
+     * Button for the driver to start the ride.
      */
     private Button startRideButton;
     /**
-     * Button for the driver to end the ride. Dynamically created and added to UI.
+     * Button for the driver to end the ride.
      */
     private Button endRideButton;
 
     // Firebase references
     /**
-     * DatabaseReference to the "Rides" node in Firebase, which stores all active ride information.
+     * DatabaseReference to the "RidesByDay" node in Firebase, which stores all active ride information
+     * in day shards, see {@link RidePaths}.
      */
     private DatabaseReference ridesReference;
+    /**
+     * DatabaseReference to the "DriverActiveRide" index, which maps a driver's uid to the key of their
+     * active ride ({@code DriverActiveRide/{driverUid} -> rideKey}).
+     */
+    private DatabaseReference driverActiveRideReference;
     /**
      * DatabaseReference to the "Users" node in Firebase, used to retrieve user details like names.
      */
     private DatabaseReference usersReference;
+    /**
+     * DatabaseReference to the "PassengerRides" index, which maps a passenger's uid to the key of the
+     * ride they booked ({@code PassengerRides/{passengerUid} -> rideKey}).
+     */
+    private DatabaseReference passengerRidesReference;
     /**
      * The unique ID of the currently authenticated user.
      */
     private String userId;
     /**
-     * A boolean flag indicating whether the current user is a driver with an active ride.
+     * The state rendered last, or null if nothing has been rendered into the current views yet.
+     */
+    private RideViewState shownState;
+    /**
+     * Listener on {@code DriverActiveRide/{userId}}, attached while the fragment is started.
+     */
+    private ValueEventListener driverPointerListener;
+    /**
+     * Listener on {@code PassengerRides/{userId}}, attached while the fragment is started.
+     */
+    private ValueEventListener passengerPointerListener;
+    /**
+     * The ride key in {@code DriverActiveRide/{userId}}, or null if there is none.
+     */
+    private String driverPointerKey;
+    /**
+     * The ride key in {@code PassengerRides/{userId}}, or null if there is none.
+     */
+    private String passengerPointerKey;
+    /**
+     * Whether {@link #driverPointerKey} has been read since the stream was attached.
+     */
+    private boolean driverPointerRead;
+    /**
+     * Whether {@link #passengerPointerKey} has been read since the stream was attached.
+     */
+    private boolean passengerPointerRead;
+    /**
+     * A driver ride key whose ride no longer exists, so the pointer is ignored until it changes.
+     */
+    private String missingDriverRideKey;
+    /**
+     * The ride the stream listens to, or null.
+     */
+    private DatabaseReference watchedRideReference;
+    /**
+     * Listener on {@link #watchedRideReference}.
+     */
+    private ValueEventListener rideListener;
+    /**
+     * The key of the ride the stream listens to, or null.
      */
-    private boolean isDriver = false;
+    private String watchedRideKey;
+    /**
+     * How the user takes part in the ride the stream listens to.
+     */
+    private RideViewState.Role watchedRole;
+    /**
+     * The "Passengers" child of the driver's ride while the stream listens to it, or null.
+     */
+    private DatabaseReference watchedPassengersReference;
+    /**
+     * Child listener on {@link #watchedPassengersReference}, feeding {@link #roster}.
+     */
+    private ChildEventListener passengersListener;
+    /**
+     * The passengers of the driver's ride and the seats they take, kept from child events.
+     */
+    private final PassengerRoster roster = new PassengerRoster();
+    /**
+     * The last value of the driver's own ride shown on screen, including its passengers.
+     * Used for the ride's capacity. Null when no driver ride is displayed.
+     */
+    private Map<String, Object> activeRideData;
+    /**
+     * The key of the current user's own ride shown on screen, or null when no driver ride is displayed.
+     */
+    private String driverRideKey;
+    /**
+     * The key of the ride the current user is shown as a passenger on, or null.
+     */
+    private String passengerRideKey;
 
     /**
      * Called to have the fragment instantiate its user interface view.
@@ -228,59 +333,68 @@ public class PassengerFragment extends Fragment {
         driverControls = view.findViewById(R.id.driver_controls);
         driverCancelRideButton = view.findViewById(R.id.driver_cancel_ride_button);
         driverPassengerControls = view.findViewById(R.id.driver_passenger_controls);
-        acceptPassengerButton = view.findViewById(R.id.accept_passenger_button);
-        declineButton = view.findViewById(R.id.decline_button);
+        startRideButton = view.findViewById(R.id.start_ride_button);
+        endRideButton = view.findViewById(R.id.end_ride_button);
+
+        // Passenger rows of the driver's view
+        seatTally = view.findViewById(R.id.seat_tally);
+        passengerList = view.findViewById(R.id.passenger_list);
+        passengerList.setLayoutManager(new LinearLayoutManager(getContext()));
+        passengerRowAdapter = new PassengerRowAdapter(new PassengerRowAdapter.Listener() {
+            @Override
+            public void onAccept(String passengerUid) {
+                acceptPassenger(passengerUid);
+            }
+
+            @Override
+            public void onDecline(String passengerUid) {
+                declinePassenger(passengerUid);
+            }
+        });
+        passengerList.setAdapter(passengerRowAdapter);
 
         // Passenger controls
         passengerCancelButton = view.findViewById(R.id.passenger_cancel_button);
         passengerStatus = view.findViewById(R.id.passenger_status);
 
-        // Initialize start ride button
-        startRideButton = new Button(getContext());
-        startRideButton.setText("Start Ride");
-        startRideButton.setBackgroundTintList(acceptPassengerButton.getBackgroundTintList());
-        startRideButton.setTextColor(acceptPassengerButton.getTextColors());
-        startRideButton.setPadding(
-                acceptPassengerButton.getPaddingLeft(),
-                acceptPassengerButton.getPaddingTop(),
-                acceptPassengerButton.getPaddingRight(),
-                acceptPassengerButton.getPaddingBottom()
-        );
-        startRideButton.setTextSize(16);
-        startRideButton.setLayoutParams(acceptPassengerButton.getLayoutParams());
-
-        // Initialize end ride button
-        endRideButton = new Button(getContext());
-        endRideButton.setText("End Ride");
-        endRideButton.setBackgroundTintList(acceptPassengerButton.getBackgroundTintList());
-        endRideButton.setTextColor(acceptPassengerButton.getTextColors());
-        endRideButton.setPadding(
-                acceptPassengerButton.getPaddingLeft(),
-                acceptPassengerButton.getPaddingTop(),
-                acceptPassengerButton.getPaddingRight(),
-                acceptPassengerButton.getPaddingBottom()
-        );
-        endRideButton.setTextSize(16);
-        endRideButton.setLayoutParams(acceptPassengerButton.getLayoutParams());
-
         // Initialize Firebase references
         userId = FirebaseAuth.getInstance().getCurrentUser().getUid();
-        ridesReference = FirebaseDatabase.getInstance().getReference("Rides");
+        ridesReference = FirebaseDatabase.getInstance().getReference(RidePaths.RIDES_BY_DAY);
+        driverActiveRideReference = FirebaseDatabase.getInstance().getReference(RidePaths.DRIVER_ACTIVE_RIDE);
         usersReference = FirebaseDatabase.getInstance().getReference("Users");
+        passengerRidesReference = FirebaseDatabase.getInstance().getReference(RidePaths.PASSENGER_RIDES);
 
         // Set up button click listeners
         setupButtonListeners();
 
-        // Load user role and data
-        loadUserRole();
+        // The views are new, so the first state is rendered in full
+        shownState = null;
 
         return view;
     }
 
+    /**
+     * Attaches the ride stream, see {@link #startWatching}.
+     */
+    @Override
+    public void onStart() {
+        super.onStart();
+        startWatching();
+    }
+
+    /**
+     * Detaches the ride stream while the fragment is not visible.
+     */
+    @Override
+    public void onStop() {
+        super.onStop();
+        stopWatching();
+    }
+
     /**
      * Sets up all the click listeners for the various buttons in the fragment.
-     * This includes buttons for drivers (cancel ride, accept/decline passenger, start/end ride)
-     * and passengers (cancel ride).
+     * This includes buttons for drivers (cancel ride, start/end ride) and passengers (cancel ride);
+     * the per-passenger accept/decline buttons are wired by {@link PassengerRowAdapter}.
      */
     private void setupButtonListeners() {
         // Driver's cancel ride button (when no passenger)
@@ -290,156 +404,15 @@ public class PassengerFragment extends Fragment {
             deleteRide();
         });
 
-        // Accept passenger button listener
-        acceptPassengerButton.setOnClickListener(v -> {
-            // Implementation for accepting passenger
-            Toast.makeText(getContext(), "Passenger accepted", Toast.LENGTH_SHORT).show();
-
-            // Update Firebase data to reflect passenger acceptance
-            updateRideStatus("accepted");
-
-            // Replace "Accept Passenger" button with "Start Ride" button
-            LinearLayout parentLayout = (LinearLayout) acceptPassengerButton.getParent();
-            int index = parentLayout.indexOfChild(acceptPassengerButton);
-            parentLayout.removeView(acceptPassengerButton);
-            parentLayout.addView(startRideButton, index);
-        });
-
         // Start ride button click listener
         startRideButton.setOnClickListener(v -> {
             Toast.makeText(getContext(), "Ride started", Toast.LENGTH_SHORT).show();
-            updateRideStatus("in_progress");
-
-            // Hide decline button
-            declineButton.setVisibility(View.GONE);
-
-            // Replace start ride button with end ride button
-            LinearLayout parentLayout = (LinearLayout) startRideButton.getParent();
-            int index = parentLayout.indexOfChild(startRideButton);
-            parentLayout.removeView(startRideButton);
-            parentLayout.addView(endRideButton, index);
+            // The stream swaps in "End Ride" and hides the rows' buttons
+            updateRideStatus(RideStatus.IN_PROGRESS);
         });
 
         // End ride button click listener
-        endRideButton.setOnClickListener(v -> {
-            Toast.makeText(getContext(), "Ride ended", Toast.LENGTH_SHORT).show();
-            updateRideStatus("completed");
-
-            DatabaseReference ridesRef = FirebaseDatabase.getInstance().getReference("Rides");
-            DatabaseReference historyDriverRef = FirebaseDatabase.getInstance().getReference("HistoryDriver");
-            DatabaseReference historyPassengerRef = FirebaseDatabase.getInstance().getReference("HistoryPassenger");
-
-            String driverUID = FirebaseAuth.getInstance().getCurrentUser().getUid();
-
-            ridesRef.child(driverUID).addListenerForSingleValueEvent(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    if (snapshot.exists()) {
-                        // Step 1: Extract ONLY driver data (exclude "Passengers")
-                        Map<String, Object> driverData = new HashMap<>();
-                        for (DataSnapshot child : snapshot.getChildren()) {
-                            if (!child.getKey().equals("Passengers")) {
-                                driverData.put(child.getKey(), child.getValue());
-                            }
-                        }
-
-                        String rideId = FirebaseDatabase.getInstance().getReference().push().getKey();
-
-// Save driver data under HistoryDriver/driverUID/rideId
-                        historyDriverRef.child(driverUID).child(rideId).setValue(driverData)
-                                .addOnSuccessListener(aVoid -> {
-                                    // Handle passengers
-                                    DataSnapshot passengersSnap = snapshot.child("Passengers");
-                                    if (passengersSnap.exists()) {
-                                        for (DataSnapshot passengerEntry : passengersSnap.getChildren()) {
-                                            String passengerUID = passengerEntry.getKey();
-                                            Object passengerData = passengerEntry.getValue();
-
-                                            // Save under HistoryPassenger/passengerUID/rideId
-                                            historyPassengerRef.child(passengerUID).child(rideId).setValue(passengerData)
-                                                    .addOnSuccessListener(aVoid2 -> {
-                                                        // Remove ride only once after all is copied (optional)
-                                                        ridesRef.child(driverUID).removeValue();
-                                                        Toast.makeText(getContext(), "Ride saved with ID " + rideId, Toast.LENGTH_SHORT).show();
-                                                    })
-                                                    .addOnFailureListener(e -> {
-                                                        Log.e("Firebase", "Passenger save failed: " + e.getMessage());
-                                                    });
-                                        }
-                                    } else {
-                                        ridesRef.child(driverUID).removeValue();
-                                    }
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e("Firebase", "Driver save failed: " + e.getMessage());
-                                });
-                    }
-                }
-
-                @Override
-                public void onCancelled(@NonNull DatabaseError error) {
-                    Log.e("Firebase", "DB Error: " + error.getMessage());
-                }
-            });
-
-            deleteRide();
-        });
-
-        // Decline button listener
-        declineButton.setOnClickListener(v -> {
-            // Implementation for declining passenger
-            Toast.makeText(getContext(), "Passenger declined", Toast.LENGTH_SHORT).show();
-
-            // Get the first passenger's ID
-            ridesReference.child(userId).child("Passengers").addListenerForSingleValueEvent(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    if (snapshot.exists() && snapshot.getChildrenCount() > 0) {
-                        // For simplicity, get the first passenger
-                        String passengerUid = snapshot.getChildren().iterator().next().getKey();
-
-                        // Remove this passenger from the ride
-                        ridesReference.child(userId).child("Passengers").child(passengerUid).removeValue()
-                                .addOnSuccessListener(aVoid -> {
-                                    // Reset the ride status to "waiting"
-                                    ridesReference.child(userId).child("status").setValue("waiting")
-                                            .addOnSuccessListener(statusVoid -> {
-                                                Toast.makeText(getContext(), "Passenger removed and status reset", Toast.LENGTH_SHORT).show();
-
-                                                // Refresh the driver UI to show waiting for passengers
-                                                ridesReference.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
-                                                    @Override
-                                                    public void onDataChange(@NonNull DataSnapshot rideSnapshot) {
-                                                        if (rideSnapshot.exists()) {
-                                                            showDriverUI(rideSnapshot);
-                                                        }
-                                                    }
-
-                                                    @Override
-                                                    public void onCancelled(@NonNull DatabaseError error) {
-                                                        Toast.makeText(getContext(), "Failed to refresh ride data", Toast.LENGTH_SHORT).show();
-                                                    }
-                                                });
-                                            })
-                                            .addOnFailureListener(e -> {
-                                                Toast.makeText(getContext(), "Failed to reset ride status: " + e.getMessage(),
-                                                        Toast.LENGTH_SHORT).show();
-                                            });
-                                })
-                                .addOnFailureListener(e -> {
-                                    Toast.makeText(getContext(), "Failed to remove passenger: " + e.getMessage(),
-                                            Toast.LENGTH_SHORT).show();
-                                });
-                    }
-                }
-
-                @Override
-                public void onCancelled(@NonNull DatabaseError error) {
-                    Toast.makeText(getContext(), "Failed to access passenger data", Toast.LENGTH_SHORT).show();
-                }
-            });
-
-        });
+        endRideButton.setOnClickListener(v -> endRide());
 
         // Cancel ride button listener for passenger
         passengerCancelButton.setOnClickListener(v -> {
@@ -451,16 +424,76 @@ public class PassengerFragment extends Fragment {
     }
 
     /**
-     * Deletes the current user's active ride from the "Rides" node in Firebase.
+     * Ends the driver's ride. The move to {@link RideStatus#COMPLETED} is applied with
+     * {@link #runRideTransition}, so a ride that is not in progress is left alone and a passenger who
+     * left in the meantime is not archived with it; the ride is then archived from the committed
+     * value. A ride already completed, e.g. by an earlier attempt whose archive failed, is archived
+     * again from its current value.
+     */
+    @SuppressWarnings("unchecked")
+    private void endRide() {
+        if (userId == null || driverRideKey == null) {
+            return;
+        }
+        String rideKey = driverRideKey;
+        runRideTransition(rideKey, ride -> RideTransitions.transition(ride, RideStatus.COMPLETED), (result, rideSnapshot) -> {
+            Object ride = rideSnapshot != null ? rideSnapshot.getValue() : null;
+            if ((result == RideTransitions.Result.APPLIED || result == RideTransitions.Result.UNCHANGED)
+                    && ride instanceof Map) {
+                Toast.makeText(getContext(), "Ride ended", Toast.LENGTH_SHORT).show();
+                archiveRide(rideKey, (Map<String, Object>) ride);
+            } else {
+                showTransitionError(result);
+            }
+        });
+    }
+
+    /**
+     * Archives the driver's completed ride and removes it from its day shard.
+     * All history entries, passenger index cleanups and the deletion of the live ride are written
+     * with a single multi-path {@code updateChildren} call built by {@link RideArchiver}, so the
+     * ride is either fully archived or left untouched. The passengers are then sent a status push
+     * message; removing the driver's pointer also stops the {@link RideMonitorService}.
+     *
+     * @param rideKey  The key of the ride, see {@link RidePaths}.
+     * @param rideData The ride as committed by {@link #endRide}, including its "Passengers" child.
+     */
+    private void archiveRide(String rideKey, Map<String, Object> rideData) {
+        DatabaseReference rootRef = FirebaseDatabase.getInstance().getReference();
+        String rideId = rootRef.push().getKey();
+
+        Map<String, Object> updates = RideArchiver.buildArchiveUpdates(userId, rideKey, rideData, rideId,
+                RideStatus.COMPLETED.value());
+        rootRef.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    Object passengers = rideData.get("Passengers");
+                    if (passengers instanceof Map) {
+                        for (Object passengerUid : ((Map<?, ?>) passengers).keySet()) {
+                            DatabasePushTransport.getInstance().send((String) passengerUid,
+                                    PushMessages.status(rideKey, RideStatus.COMPLETED));
+                        }
+                    }
+                    Toast.makeText(getContext(), "Ride saved with ID " + rideId, Toast.LENGTH_SHORT).show();
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("Firebase", "Ride archive failed: " + e.getMessage());
+                    Toast.makeText(getContext(), "Failed to end ride: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                });
+    }
+
+    /**
+     * Deletes the current user's active ride from its day shard in Firebase, together with the
+     * {@code DriverActiveRide/{userId}} pointer, in one multi-path update.
      * This method is typically called when a driver cancels their ride.
      */
     private void deleteRide() {
-        if (userId != null) {
-            ridesReference.child(userId).removeValue()
+        if (userId != null && driverRideKey != null) {
+            Map<String, Object> updates = new HashMap<>();
+            updates.put(RidePaths.ridePath(driverRideKey), null);
+            updates.put(RidePaths.DRIVER_ACTIVE_RIDE + "/" + userId, null);
+            FirebaseDatabase.getInstance().getReference().updateChildren(updates)
                     .addOnSuccessListener(aVoid -> {
                         Toast.makeText(getContext(), "Ride deleted successfully", Toast.LENGTH_SHORT).show();
-                        // Refresh UI
-                        showNoActiveRides();
                     })
                     .addOnFailureListener(e -> {
                         Toast.makeText(getContext(), "Failed to delete ride: " + e.getMessage(),
@@ -471,346 +504,580 @@ public class PassengerFragment extends Fragment {
 
     /**
      * Updates the status of the current user's active ride in Firebase.
-     * This method is used by the driver to change the ride status (e.g., "accepted", "in_progress", "completed").
+     * This method is used by the driver to start the ride. The change is
+     * applied with {@link #runRideTransition}, so it is rejected if the ride's current status does
+     * not allow it (see {@link RideStatus}); the ride stream re-renders the card.
+     * Once applied, the passengers are sent a status push message.
      *
-     * @param status The new status string to set for the ride.
+     * @param status The new status for the ride.
      */
-    private void updateRideStatus(String status) {
-        // Update ride status in Firebase
-        if (userId != null) {
-            ridesReference.child(userId).child("status").setValue(status)
-                    .addOnSuccessListener(aVoid -> {
-                        // Success handling
-                        if (status.equals("accepted")) {
-                            Toast.makeText(getContext(), "Passenger accepted successfully", Toast.LENGTH_SHORT).show();
-                        } else if (status.equals("in_progress")) {
-                            Toast.makeText(getContext(), "Ride started successfully", Toast.LENGTH_SHORT).show();
-                        } else if (status.equals("completed")) {
-                            Toast.makeText(getContext(), "Ride completed successfully", Toast.LENGTH_SHORT).show();
-                        } else {
-                            Toast.makeText(getContext(), "Status updated successfully", Toast.LENGTH_SHORT).show();
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        // Error handling
-                        Toast.makeText(getContext(), "Failed to update ride status: " + e.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                    });
+    private void updateRideStatus(RideStatus status) {
+        if (userId == null || driverRideKey == null) {
+            return;
         }
+        String rideKey = driverRideKey;
+        runRideTransition(rideKey, ride -> RideTransitions.transition(ride, status), (result, rideSnapshot) -> {
+            if (result == RideTransitions.Result.APPLIED) {
+                notifyPassengers(rideKey, rideSnapshot.child("Passengers").getChildren(), status);
+                if (status == RideStatus.IN_PROGRESS) {
+                    Toast.makeText(getContext(), "Ride started successfully", Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(getContext(), "Status updated successfully", Toast.LENGTH_SHORT).show();
+                }
+            } else if (result != RideTransitions.Result.UNCHANGED) {
+                showTransitionError(result);
+            }
+        });
     }
 
     /**
-     * Removes the current user (as a passenger) from any active ride they are part of in Firebase.
-     * This method iterates through all active rides to find the one where the current user is a passenger,
-     * removes their entry, and then resets the ride's status to "waiting" if it was previously "accepted".
+     * Accepts one passenger of the driver's ride. The passenger's {@link RideTransitions#ACCEPTED} flag
+     * and, with the first acceptance, the ride's move to {@link RideStatus#ACCEPTED} are written by one
+     * {@link #runRideTransition} on the ride, so the ride cannot be left waiting with an accepted
+     * passenger. Only the accepted passenger is sent a status push message.
+     *
+     * @param passengerUid The passenger to accept.
      */
-    private void removePassengerFromRide() {
-        // Find which ride the passenger is part of
-        ridesReference.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                for (DataSnapshot rideSnapshot : snapshot.getChildren()) {
-                    String driverUid = rideSnapshot.getKey();
-                    DataSnapshot passengersSnapshot = rideSnapshot.child("Passengers");
-
-                    if (passengersSnapshot.hasChild(userId)) {
-                        // Remove passenger from ride
-                        ridesReference.child(driverUid).child("Passengers").child(userId).removeValue()
-                                .addOnSuccessListener(aVoid -> {
-                                    // Reset the ride status to "waiting"
-                                    ridesReference.child(driverUid).child("status").setValue("waiting")
-                                            .addOnSuccessListener(statusVoid -> {
-                                                Toast.makeText(getContext(), "Ride canceled and status reset", Toast.LENGTH_SHORT).show();
-                                                // Refresh UI
-                                                showNoActiveRides();
-                                            })
-                                            .addOnFailureListener(e -> {
-                                                Toast.makeText(getContext(), "Failed to reset ride status: " + e.getMessage(),
-                                                        Toast.LENGTH_SHORT).show();
-                                            });
-                                })
-                                .addOnFailureListener(e -> {
-                                    Toast.makeText(getContext(), "Failed to cancel ride: " + e.getMessage(),
-                                            Toast.LENGTH_SHORT).show();
-                                });
-                        break;
+    private void acceptPassenger(String passengerUid) {
+        if (driverRideKey == null) {
+            return;
+        }
+        String rideKey = driverRideKey;
+        runRideTransition(rideKey, ride -> RideTransitions.acceptPassenger(ride, passengerUid), (result, rideSnapshot) -> {
+            if (result == RideTransitions.Result.APPLIED) {
+                DatabasePushTransport.getInstance().send(passengerUid,
+                        PushMessages.status(rideKey, RideStatus.ACCEPTED));
+                Toast.makeText(getContext(), "Passenger accepted successfully", Toast.LENGTH_SHORT).show();
+            } else if (result != RideTransitions.Result.UNCHANGED) {
+                showTransitionError(result);
+            }
+        });
+    }
+
+    /**
+     * Declines one passenger of the driver's ride. The passenger is removed with
+     * {@link #runRideTransition} and {@link RideTransitions#removePassenger}, like a passenger leaving,
+     * so a ride that has started on another device is not changed, and a ride left without an
+     * accepted passenger goes back to {@link RideStatus#WAITING} in the same write. The passenger's
+     * {@code PassengerRides/{uid}} pointer is cleared once the ride has changed, if it still names it.
+     *
+     * @param passengerUid The passenger to decline.
+     */
+    private void declinePassenger(String passengerUid) {
+        if (driverRideKey == null) {
+            return;
+        }
+        String rideKey = driverRideKey;
+        runRideTransition(rideKey, ride -> RideTransitions.removePassenger(ride, passengerUid), (result, rideSnapshot) -> {
+            switch (result) {
+                case APPLIED:
+                case UNCHANGED:
+                    clearPassengerPointer(passengerUid, rideKey);
+                    if (getContext() != null) {
+                        Toast.makeText(getContext(), "Passenger declined", Toast.LENGTH_SHORT).show();
+                    }
+                    break;
+                default:
+                    if (getContext() != null) {
+                        showTransitionError(result);
                     }
+                    break;
+            }
+        });
+    }
+
+    /**
+     * Clears a passenger's {@code PassengerRides/{uid}} pointer if it still names a ride, so a pointer
+     * the passenger has since moved to another ride is kept.
+     *
+     * @param passengerUid The passenger.
+     * @param rideKey      The ride they were removed from.
+     */
+    private void clearPassengerPointer(String passengerUid, String rideKey) {
+        passengerRidesReference.child(passengerUid).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                if (!rideKey.equals(currentData.getValue())) {
+                    return Transaction.abort();
                 }
+                currentData.setValue(null);
+                return Transaction.success(currentData);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Toast.makeText(getContext(), "Failed to access ride data", Toast.LENGTH_SHORT).show();
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                if (error != null) {
+                    Log.e("Firebase", "Failed to clear passenger pointer: " + error.getMessage());
+                }
             }
         });
     }
 
     /**
-     * Determines the current user's role (driver or passenger) by checking Firebase.
-     * It first checks if the user has an active ride as a driver. If not, it then
-     * searches if the user is listed as a passenger in any active ride.
-     * Based on the role, it calls the appropriate UI display method.
+     * Sends a status push message to the passengers of a ride, see {@link PushMessages}.
+     *
+     * @param rideKey    The ride whose status changed.
+     * @param passengers The ride's "Passengers" children.
+     * @param status     The new status.
      */
-    private void loadUserRole() {
-        // First check if user is a driver with an active ride
-        ridesReference.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+    private void notifyPassengers(String rideKey, Iterable<DataSnapshot> passengers, RideStatus status) {
+        for (DataSnapshot passenger : passengers) {
+            DatabasePushTransport.getInstance().send(passenger.getKey(), PushMessages.status(rideKey, status));
+        }
+    }
+
+    /**
+     * Removes the current user (as a passenger) from the ride they booked in Firebase.
+     * The removal is applied with {@link #runRideTransition} on the ride shown on screen, so it is
+     * rejected once the ride has started; the {@code PassengerRides/{userId}} index entry is cleared
+     * after the ride has changed.
+     */
+    private void removePassengerFromRide() {
+        if (passengerRideKey != null) {
+            leaveRide(passengerRideKey);
+        }
+    }
+
+    /**
+     * Removes the current user from a driver's ride and clears their index entry.
+     *
+     * @param rideKey The key of the ride to leave.
+     */
+    private void leaveRide(String rideKey) {
+        runRideTransition(rideKey, ride -> RideTransitions.removePassenger(ride, userId), (result, rideSnapshot) -> {
+            switch (result) {
+                case APPLIED:
+                case UNCHANGED:
+                case RIDE_NOT_FOUND:
+                    passengerRidesReference.child(userId).removeValue();
+                    Toast.makeText(getContext(), "Ride canceled and status reset", Toast.LENGTH_SHORT).show();
+                    break;
+                default:
+                    showTransitionError(result);
+                    break;
+            }
+        });
+    }
+
+    /**
+     * Applies a change to a ride inside a transaction on {@code RidesByDay/{rideKey}}.
+     * The change is computed from the value the transaction provides, so the status check and the
+     * write are one compare-and-set and no read is needed beforehand. The transaction is aborted
+     * unless the change reports {@link RideTransitions.Result#APPLIED}.
+     *
+     * @param rideKey The key of the ride to change, see {@link RidePaths}.
+     * @param change  Applies the change to a mutable copy of the ride, or reports why it cannot.
+     * @param onDone  Receives the outcome and the ride as it is after the transaction, on the main thread.
+     */
+    @SuppressWarnings("unchecked")
+    private void runRideTransition(String rideKey,
+                                   Function<Map<String, Object>, RideTransitions.Result> change,
+                                   BiConsumer<RideTransitions.Result, DataSnapshot> onDone) {
+        RideTransitions.Result[] outcome = {RideTransitions.Result.FAILED};
+
+        ridesReference.child(rideKey).runTransaction(new Transaction.Handler() {
+            @NonNull
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    isDriver = true;
-                    showDriverUI(snapshot);
-                } else {
-                    // Not a driver, check if user is a passenger on any ride
-                    findPassengerRide();
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                Object value = currentData.getValue();
+                if (!(value instanceof Map)) {
+                    // Unknown locally or deleted; committing null lets the server supply the real value
+                    outcome[0] = RideTransitions.Result.RIDE_NOT_FOUND;
+                    return Transaction.success(currentData);
                 }
+
+                Map<String, Object> ride = new HashMap<>((Map<String, Object>) value);
+                outcome[0] = change.apply(ride);
+                if (outcome[0] != RideTransitions.Result.APPLIED) {
+                    return Transaction.abort();
+                }
+                currentData.setValue(ride);
+                return Transaction.success(currentData);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Toast.makeText(getContext(), "Failed to load ride data", Toast.LENGTH_SHORT).show();
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                if (error != null) {
+                    Log.e("Firebase", "Ride transition failed: " + error.getMessage());
+                    outcome[0] = RideTransitions.Result.FAILED;
+                }
+                if (getContext() != null) {
+                    onDone.accept(outcome[0], currentData);
+                }
             }
         });
     }
 
     /**
-     * Searches through all active rides in Firebase to determine if the current user
-     * is listed as a passenger in any of them. If a ride is found, it updates the UI
-     * to the passenger view. If no ride is found, it displays the "no active rides" message.
+     * Tells the user why a ride change was rejected.
+     *
+     * @param result The rejected outcome.
+     */
+    private void showTransitionError(RideTransitions.Result result) {
+        String message;
+        switch (result) {
+            case ILLEGAL_TRANSITION:
+                message = "The ride has already moved on.";
+                break;
+            case NO_PASSENGERS:
+                message = "There is no passenger on this ride.";
+                break;
+            case RIDE_NOT_FOUND:
+                message = "This ride no longer exists.";
+                break;
+            case PASSENGER_NOT_FOUND:
+                message = "This passenger is no longer on the ride.";
+                break;
+            default:
+                message = "Failed to update ride status.";
+                break;
+        }
+        Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+    }
+
+    /**
+     * Attaches the ride stream: listeners on the user's two ride pointers, which pick the ride to
+     * listen to, see {@link #watchActiveRide}. The pointers and the ride are served from the disk
+     * cache first and updated as the server answers.
      */
-    private void findPassengerRide() {
-        ridesReference.addListenerForSingleValueEvent(new ValueEventListener() {
+    private void startWatching() {
+        driverPointerListener = new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                boolean foundRide = false;
-
-                for (DataSnapshot rideSnapshot : snapshot.getChildren()) {
-                    DataSnapshot passengersSnapshot = rideSnapshot.child("Passengers");
-                    if (passengersSnapshot.hasChild(userId)) {
-                        isDriver = false;
-                        showPassengerUI(rideSnapshot);
-                        foundRide = true;
-                        break;
-                    }
-                }
+                driverPointerKey = rideKeyOf(snapshot);
+                driverPointerRead = true;
+                watchActiveRide();
+            }
 
-                if (!foundRide) {
-                    // Show no active rides message
-                    showNoActiveRides();
-                }
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Toast.makeText(getContext(), "Failed to load ride data", Toast.LENGTH_SHORT).show();
+            }
+        };
+        passengerPointerListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                passengerPointerKey = rideKeyOf(snapshot);
+                passengerPointerRead = true;
+                watchActiveRide();
             }
 
             @Override
             public void onCancelled(@NonNull DatabaseError error) {
                 Toast.makeText(getContext(), "Failed to load passenger data", Toast.LENGTH_SHORT).show();
             }
-        });
+        };
+        driverActiveRideReference.child(userId).addValueEventListener(driverPointerListener);
+        passengerRidesReference.child(userId).addValueEventListener(passengerPointerListener);
     }
 
     /**
-     * Configures the UI to display the "no active rides" message.
-     * It hides the shared ride container and makes the `noActiveRidesText` visible.
+     * Detaches the ride stream. The state on screen is kept, so attaching again only updates what
+     * changed in the meantime.
      */
-    private void showNoActiveRides() {
-        // Show message if no rides available
-        noActiveRidesText.setVisibility(View.VISIBLE);
-        sharedRideContainer.setVisibility(View.GONE);
+    private void stopWatching() {
+        if (driverPointerListener != null) {
+            driverActiveRideReference.child(userId).removeEventListener(driverPointerListener);
+            driverPointerListener = null;
+        }
+        if (passengerPointerListener != null) {
+            passengerRidesReference.child(userId).removeEventListener(passengerPointerListener);
+            passengerPointerListener = null;
+        }
+        detachRideListener();
+        driverPointerRead = false;
+        passengerPointerRead = false;
     }
 
     /**
-     * Configures the UI for a passenger view. This involves showing the shared ride container,
-     * hiding driver controls, showing passenger controls, and populating the driver and
-     * passenger information cards with relevant data from the provided `rideSnapshot`.
-     * It also updates the passenger's ride status.
+     * Moves the ride listener to the user's active ride once both pointers have been read. A ride the
+     * user drives comes first; otherwise the ride they booked is shown, or the empty state.
+     */
+    private void watchActiveRide() {
+        if (!driverPointerRead || !passengerPointerRead) {
+            return;
+        }
+        String rideKey;
+        RideViewState.Role role;
+        if (driverPointerKey != null && !driverPointerKey.equals(missingDriverRideKey)) {
+            rideKey = driverPointerKey;
+            role = RideViewState.Role.DRIVER;
+        } else if (passengerPointerKey != null) {
+            rideKey = passengerPointerKey;
+            role = RideViewState.Role.PASSENGER;
+        } else {
+            rideKey = null;
+            role = RideViewState.Role.NONE;
+        }
+        if (Objects.equals(rideKey, watchedRideKey) && role == watchedRole) {
+            return;
+        }
+
+        detachRideListener();
+        watchedRideKey = rideKey;
+        watchedRole = role;
+        if (rideKey == null) {
+            activeRideData = null;
+            render(RideViewState.NONE);
+            markFirstContent(!LocalPersistence.isConnected());
+            return;
+        }
+
+        watchedRideReference = ridesReference.child(rideKey);
+        rideListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                onRideChanged(role, rideKey, snapshot);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Toast.makeText(getContext(), "Failed to load ride data", Toast.LENGTH_SHORT).show();
+            }
+        };
+        watchedRideReference.addValueEventListener(rideListener);
+        if (role == RideViewState.Role.DRIVER) {
+            watchPassengers(watchedRideReference.child(RideArchiver.PASSENGERS));
+        }
+    }
+
+    /**
+     * Attaches a child listener to the "Passengers" of the driver's ride. Each event updates one row of
+     * {@link #roster} and the seat tally, and the rows are diffed into {@link #passengerList}.
      *
-     * @param rideSnapshot The DataSnapshot containing the details of the ride the passenger is part of.
+     * @param passengersReference The ride's "Passengers" child.
      */
-    private void showPassengerUI(DataSnapshot rideSnapshot) {
-        // Hide no rides message
-        noActiveRidesText.setVisibility(View.GONE);
+    private void watchPassengers(DatabaseReference passengersReference) {
+        watchedPassengersReference = passengersReference;
+        passengersListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                roster.upsert(snapshot.getKey(), snapshot.getValue());
+                showRoster();
+            }
 
-        // Show shared container
-        sharedRideContainer.setVisibility(View.VISIBLE);
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                roster.upsert(snapshot.getKey(), snapshot.getValue());
+                showRoster();
+            }
 
-        // Configure UI for passenger view - rearrange cards to show passenger first
-        reorderCardsForPassenger();
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                roster.remove(snapshot.getKey());
+                showRoster();
+            }
 
-        // Configure controls
-        driverControls.setVisibility(View.GONE);
-        passengerCancelButton.setVisibility(View.VISIBLE);
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // Rows are ordered by uid, which never changes
+            }
 
-        // Show status for passenger
-        passengerStatus.setVisibility(View.VISIBLE);
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e("Firebase", "Passenger listener cancelled: " + error.getMessage());
+            }
+        };
+        watchedPassengersReference.addChildEventListener(passengersListener);
+    }
+
+    /**
+     * Shows the rows of {@link #roster} and the seat tally.
+     */
+    private void showRoster() {
+        passengerRowAdapter.submitList(roster.snapshot());
+        int capacity = activeRideData != null ? RideSchema.seatsOf(activeRideData) : -1;
+        seatTally.setText(PassengerRoster.tallyLine(roster.seatsTaken(), capacity));
+    }
 
-        // Get passenger details from ride
-        String passengerDestination = null;
-        String passengerLocation = null;
-        String seats = null;
-        String comment = null;
-
-        DataSnapshot passengerDataSnapshot = rideSnapshot.child("Passengers").child(userId);
-        if (passengerDataSnapshot.exists()) {
-            passengerDestination = passengerDataSnapshot.child("destination").getValue(String.class);
-            passengerLocation = passengerDataSnapshot.child("currentLocation").getValue(String.class);
-            seats = passengerDataSnapshot.child("numberOfPassengers").getValue(String.class);
-            comment = passengerDataSnapshot.child("comment").getValue(String.class);
+    /**
+     * Removes the ride listener and the passengers' child listener, if they are attached.
+     */
+    private void detachRideListener() {
+        if (rideListener != null) {
+            watchedRideReference.removeEventListener(rideListener);
+            rideListener = null;
+        }
+        if (passengersListener != null) {
+            watchedPassengersReference.removeEventListener(passengersListener);
+            passengersListener = null;
+            // Attaching again replays every passenger as added
+            roster.clear();
+            showRoster();
         }
+        watchedPassengersReference = null;
+        watchedRideReference = null;
+        watchedRideKey = null;
+        watchedRole = null;
+    }
 
-        // Set passenger info details
-        noPassengerInfo.setVisibility(View.GONE);
-        passengerDetailsContainer.setVisibility(View.VISIBLE);
-
-        passengerFrom.setText("From: " + (passengerLocation != null ? passengerLocation : "Not specified"));
-        passengerTo.setText("To: " + (passengerDestination != null ? passengerDestination : "Not specified"));
-        passengerSeats.setText("Seats requested: " + (seats != null ? seats : "Not specified"));
-        passengerComment.setText(comment != null ? comment : "No comment");
-
-        // Load passenger name
-        // This method is assumed to exist elsewhere or needs to be implemented.
-        // loadUserInfo(userId, "Passenger: ", passengerName);
-
-        // Get ride details
-        String destination = rideSnapshot.child("destination").getValue(String.class);
-        String currentLocation = rideSnapshot.child("currentLocation").getValue(String.class);
-        String time = rideSnapshot.child("time").getValue(String.class);
-        String driverSeatsAvailable = rideSnapshot.child("numberOfSeats").getValue(String.class);
-        String driverCommentText = rideSnapshot.child("comment").getValue(String.class);
-
-        // Set driver ride details
-        driverFrom.setText("From: " + (currentLocation != null ? currentLocation : "Not specified"));
-        driverTo.setText("To: " + (destination != null ? destination : "Not specified"));
-        driverTime.setText(time != null ? time : "Time not specified");
-        driverSeats.setText("Available seats: " + (driverSeatsAvailable != null ? driverSeatsAvailable : "Not specified"));
-        driverComment.setText(driverCommentText != null ? driverCommentText : "No comment");
-
-        String rideStatus = rideSnapshot.child("status").getValue(String.class);
-        if (rideStatus != null && rideStatus.equals("accepted")) {
-            passengerStatus.setText("Driver is on the way!");
-            passengerStatus.setTextColor(getResources().getColor(android.R.color.holo_green_dark));
-        } else if (rideStatus != null && rideStatus.equals("in_progress")) {
-            passengerStatus.setText("Ride in progress");
-            passengerStatus.setTextColor(getResources().getColor(android.R.color.holo_blue_dark));
-            // Hide cancel button once ride is in progress
-            passengerCancelButton.setVisibility(View.GONE);
-        } else {
-            passengerStatus.setText("Waiting for confirmation..");
-            passengerStatus.setTextColor(getResources().getColor(android.R.color.darker_gray));
+    /**
+     * Maps a new value of the watched ride to a {@link RideViewState} and renders it.
+     *
+     * @param role     How the user takes part in the ride.
+     * @param rideKey  The ride's key.
+     * @param snapshot The ride's new value.
+     */
+    @SuppressWarnings("unchecked")
+    private void onRideChanged(RideViewState.Role role, String rideKey, DataSnapshot snapshot) {
+        Object value = snapshot.getValue();
+        if (!(value instanceof Map)) {
+            if (role == RideViewState.Role.DRIVER) {
+                // The pointer outlived its ride, check if user is a passenger on any ride
+                missingDriverRideKey = rideKey;
+                watchActiveRide();
+            } else {
+                // The index points at a ride that is gone; drop the stale entry
+                passengerRidesReference.child(userId).removeValue();
+                render(RideViewState.NONE);
+            }
+            return;
         }
 
-        // Load driver info
-        String driverUid = rideSnapshot.getKey();
-        if (driverUid != null) {
-            // This method is assumed to exist elsewhere or needs to be implemented.
-            // loadUserInfo(driverUid, "Driver: ", driverName);
+        Map<String, Object> ride = (Map<String, Object>) value;
+        RideViewState state;
+        if (role == RideViewState.Role.DRIVER) {
+            // Keep the ride in memory so ending it does not need another read
+            activeRideData = ride;
+            state = RideViewState.forDriver(rideKey, ride);
+        } else {
+            state = RideViewState.forPassenger(rideKey, ride, userId);
+            if (state == RideViewState.NONE) {
+                // The index points at a ride we are no longer part of; drop the stale entry
+                passengerRidesReference.child(userId).removeValue();
+            }
         }
+        render(state);
+        markFirstContent(!LocalPersistence.isConnected());
     }
 
     /**
-     * Configures the UI for a driver view. This involves showing the shared ride container,
-     * showing driver controls, hiding passenger controls, and populating the driver and
-     * passenger (if any) information cards with relevant data from the provided `rideSnapshot`.
-     * It also dynamically adjusts driver control buttons based on the ride status and presence of passengers.
+     * Reports the first render of this fragment to {@link StartupMetrics}.
      *
-     * @param rideSnapshot The DataSnapshot containing the details of the driver's active ride.
-     */
-    private void showDriverUI(DataSnapshot rideSnapshot) {
-        // Hide no rides message
-        noActiveRidesText.setVisibility(View.GONE);
-
-        // Show shared container
-        sharedRideContainer.setVisibility(View.VISIBLE);
-
-        // Configure UI for driver view - rearrange cards to show driver first
-        reorderCardsForDriver();
-
-        // Configure controls
-        driverControls.setVisibility(View.VISIBLE);
-        passengerCancelButton.setVisibility(View.GONE);
-
-        // Hide status for driver
-        passengerStatus.setVisibility(View.GONE);
-
-        // Get ride details
-        String destination = rideSnapshot.child("destination").getValue(String.class);
-        String currentLocation = rideSnapshot.child("currentLocation").getValue(String.class);
-        String time = rideSnapshot.child("time").getValue(String.class);
-        String seats = rideSnapshot.child("numberOfSeats").getValue(String.class);
-        String comment = rideSnapshot.child("comment").getValue(String.class);
-        String rideStatus = rideSnapshot.child("status").getValue(String.class);
-
-        // Set driver info details
-        driverFrom.setText("From: " + (currentLocation != null ? currentLocation : "Not specified"));
-        driverTo.setText("To: " + (destination != null ? destination : "Not specified"));
-        driverTime.setText(time != null ? time : "Time not specified");
-        driverSeats.setText("Available seats: " + (seats != null ? seats : "Not specified"));
-        driverComment.setText(comment != null ? comment : "No comment");
-
-        // Load driver name (self info)
-        // This method is assumed to exist elsewhere or needs to be implemented.
-        // loadUserInfo(userId, "Driver: ", driverName);
-
-        // Check if there are passengers
-        DataSnapshot passengersSnapshot = rideSnapshot.child("Passengers");
-        if (passengersSnapshot.exists() && passengersSnapshot.getChildrenCount() > 0) {
-            // There are passengers
-            noPassengerInfo.setVisibility(View.GONE);
-            passengerDetailsContainer.setVisibility(View.VISIBLE);
-
-            // For simplicity, we'll just display the first passenger if there are multiple
-            DataSnapshot firstPassenger = passengersSnapshot.getChildren().iterator().next();
-            String passengerUid = firstPassenger.getKey();
-
-            if (passengerUid != null) {
-                // Load passenger name
-                // This method is assumed to exist elsewhere or needs to be implemented.
-                // loadUserInfo(passengerUid, "Passenger: ", passengerName);
-
-                // Get passenger details
-                String passengerDestination = firstPassenger.child("destination").getValue(String.class);
-                String passengerLocation = firstPassenger.child("currentLocation").getValue(String.class);
-                String passengerSeatsRequested = firstPassenger.child("numberOfPassengers").getValue(String.class);
-                String passengerCommentText = firstPassenger.child("comment").getValue(String.class);
-
-                // Set passenger details
-                passengerFrom.setText("From: " + (passengerLocation != null ? passengerLocation : "Not specified"));
-                passengerTo.setText("To: " + (passengerDestination != null ? passengerDestination : "Not specified"));
-                passengerSeats.setText("Seats requested: " + (passengerSeatsRequested != null ? passengerSeatsRequested : "1"));
-                passengerComment.setText(passengerCommentText != null ? passengerCommentText : "No comment");
-            }
+     * @param fromCache Whether the rendered data came from the disk cache.
+     */
+    private void markFirstContent(boolean fromCache) {
+        if (getContext() != null) {
+            StartupMetrics.markFirstContent(getContext(), "PassengerFragment", fromCache);
+        }
+    }
 
-            // Show appropriate controls based on ride status
-            driverCancelRideButton.setVisibility(View.GONE);
+    /**
+     * Reads a ride key from a pointer.
+     *
+     * @param pointer A snapshot of {@code DriverActiveRide/{uid}} or {@code PassengerRides/{uid}}.
+     * @return The ride key, or null if the pointer holds none.
+     */
+    private static String rideKeyOf(DataSnapshot pointer) {
+        Object value = pointer.getValue();
+        return RidePaths.isRideKey(value) ? (String) value : null;
+    }
 
-            if (rideStatus != null && rideStatus.equals("accepted")) {
-                // Show the startRideButton and hide acceptPassengerButton
-                driverPassengerControls.setVisibility(View.VISIBLE);
-                driverPassengerControls.removeView(acceptPassengerButton);
-                if (driverPassengerControls.indexOfChild(startRideButton) == -1) {
-                    driverPassengerControls.addView(startRideButton, 0);
-                }
-            } else if (rideStatus != null && rideStatus.equals("in_progress")) {
-                // Show the endRideButton and hide decline button
-                driverPassengerControls.setVisibility(View.VISIBLE);
-                declineButton.setVisibility(View.GONE);
-                driverPassengerControls.removeView(startRideButton);
-                if (driverPassengerControls.indexOfChild(endRideButton) == -1) {
-                    driverPassengerControls.addView(endRideButton, 0);
-                }
+    /**
+     * Renders a state, updating only the parts that differ from the state rendered before.
+     * A change of role re-renders everything.
+     *
+     * @param state The state to show.
+     */
+    private void render(RideViewState state) {
+        RideViewState previous = shownState;
+        shownState = state;
+        driverRideKey = state.role == RideViewState.Role.DRIVER ? state.rideKey : null;
+        passengerRideKey = state.role == RideViewState.Role.PASSENGER ? state.rideKey : null;
+
+        if (state.role == RideViewState.Role.NONE) {
+            // Show message if no rides available
+            noActiveRidesText.setVisibility(View.VISIBLE);
+            sharedRideContainer.setVisibility(View.GONE);
+            return;
+        }
+        if (previous == null || previous.role != state.role) {
+            noActiveRidesText.setVisibility(View.GONE);
+            sharedRideContainer.setVisibility(View.VISIBLE);
+            if (state.role == RideViewState.Role.DRIVER) {
+                reorderCardsForDriver();
             } else {
-                // Default: show accept/decline buttons
-                driverPassengerControls.setVisibility(View.VISIBLE);
-                if (driverPassengerControls.indexOfChild(acceptPassengerButton) == -1) {
-                    driverPassengerControls.addView(acceptPassengerButton, 0);
-                }
-                declineButton.setVisibility(View.VISIBLE);
+                reorderCardsForPassenger();
             }
-        } else {
-            // No passengers yet
-            noPassengerInfo.setVisibility(View.VISIBLE);
-            passengerDetailsContainer.setVisibility(View.GONE);
+            previous = null;
+        }
 
-            // Show only cancel button when no passenger
-            driverCancelRideButton.setVisibility(View.VISIBLE);
-            driverPassengerControls.setVisibility(View.GONE);
+        if (!state.sameDriverCard(previous)) {
+            driverFrom.setText(state.driverFrom);
+            driverTo.setText(state.driverTo);
+            driverTime.setText(state.driverTime);
+            driverSeats.setText(state.driverSeats);
+            driverComment.setText(state.driverComment);
+            if (state.role == RideViewState.Role.DRIVER) {
+                // The offered seats are part of the tally
+                showRoster();
+            }
+        }
+        if (!state.samePassengerCard(previous)) {
+            // The driver sees every passenger as a row, a passenger sees their own request
+            boolean driverView = state.role == RideViewState.Role.DRIVER;
+            noPassengerInfo.setVisibility(state.hasPassenger ? View.GONE : View.VISIBLE);
+            seatTally.setVisibility(driverView && state.hasPassenger ? View.VISIBLE : View.GONE);
+            passengerList.setVisibility(driverView && state.hasPassenger ? View.VISIBLE : View.GONE);
+            passengerDetailsContainer.setVisibility(!driverView && state.hasPassenger ? View.VISIBLE : View.GONE);
+            if (!driverView && state.hasPassenger) {
+                passengerFrom.setText(state.passengerFrom);
+                passengerTo.setText(state.passengerTo);
+                passengerSeats.setText(state.passengerSeats);
+                passengerComment.setText(state.passengerComment);
+            }
+        }
+        if (!state.sameDriverControls(previous)) {
+            renderDriverControls(state.driverControls);
+        }
+        if (!state.samePassengerControls(previous)) {
+            renderPassengerStatus(state);
+        }
+    }
+
+    /**
+     * Shows the driver's buttons for a state: "cancel ride" without passengers, "start ride" once a
+     * passenger is accepted and "end ride" while the ride is under way. The rows' accept and decline
+     * buttons are hidden once the ride started.
+     *
+     * @param controls The buttons to show.
+     */
+    private void renderDriverControls(RideViewState.DriverControls controls) {
+        driverControls.setVisibility(controls == RideViewState.DriverControls.HIDDEN ? View.GONE : View.VISIBLE);
+        driverCancelRideButton.setVisibility(controls == RideViewState.DriverControls.CANCEL ? View.VISIBLE : View.GONE);
+        boolean hasRideControls = controls == RideViewState.DriverControls.START
+                || controls == RideViewState.DriverControls.END;
+        driverPassengerControls.setVisibility(hasRideControls ? View.VISIBLE : View.GONE);
+        startRideButton.setVisibility(controls == RideViewState.DriverControls.START ? View.VISIBLE : View.GONE);
+        endRideButton.setVisibility(controls == RideViewState.DriverControls.END ? View.VISIBLE : View.GONE);
+        passengerRowAdapter.setRideStarted(controls == RideViewState.DriverControls.END);
+    }
+
+    /**
+     * Shows the passenger's status line and cancel button for a state, or hides them in the
+     * driver's view.
+     *
+     * @param state The state to show.
+     */
+    private void renderPassengerStatus(RideViewState state) {
+        passengerCancelButton.setVisibility(state.passengerCanCancel() ? View.VISIBLE : View.GONE);
+        if (state.role != RideViewState.Role.PASSENGER) {
+            // Hide status for driver
+            passengerStatus.setVisibility(View.GONE);
+            return;
+        }
+
+        passengerStatus.setVisibility(View.VISIBLE);
+        if (state.status == RideStatus.ACCEPTED) {
+            passengerStatus.setText("Driver is on the way!");
+            passengerStatus.setTextColor(getResources().getColor(android.R.color.holo_green_dark));
+        } else if (state.status == RideStatus.IN_PROGRESS) {
+            passengerStatus.setText("Ride in progress");
+            passengerStatus.setTextColor(getResources().getColor(android.R.color.holo_blue_dark));
+        } else {
+            passengerStatus.setText("Waiting for confirmation..");
+            passengerStatus.setTextColor(getResources().getColor(android.R.color.darker_gray));
         }
     }
 
@@ -0,0 +1,209 @@
+package com.example.pickme;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@code PassengerRoster} keeps the passengers of the driver's ride, and a running tally of the seats
+ * they take, while child events on {@code RidesByDay/{rideKey}/Passengers} add, change and remove them
+ * one at a time.
+ *
+ * <p>Rows are ordered by passenger uid, the order the database lists the children in. Each event
+ * adjusts the seat and acceptance totals by the difference between the passenger's old and new entry,
+ * so the tally never walks the whole list; seats are counted like {@link SeatReservation#seatsTaken}.
+ * The class is not thread safe and has no Android dependencies so it can be exercised on the JVM.</p>
+ */
+public final class PassengerRoster {
+
+    /**
+     * One passenger row as shown on the driver's card.
+     */
+    public static final class Row {
+        /** The passenger's uid. */
+        public final String uid;
+        /** "From: ..." line. */
+        public final String from;
+        /** "To: ..." line. */
+        public final String to;
+        /** Seats line. */
+        public final String seatsLine;
+        /** Comment line. */
+        public final String comment;
+        /** Seats the passenger takes. */
+        public final int seats;
+        /** Whether the driver accepted the passenger. */
+        public final boolean accepted;
+
+        private Row(String uid, String from, String to, String seatsLine, String comment, int seats,
+                    boolean accepted) {
+            this.uid = uid;
+            this.from = from;
+            this.to = to;
+            this.seatsLine = seatsLine;
+            this.comment = comment;
+            this.seats = seats;
+            this.accepted = accepted;
+        }
+
+        /**
+         * Builds the row of a passenger entry.
+         *
+         * @param uid     The passenger's uid.
+         * @param request The passenger's entry in the ride's "Passengers" child.
+         * @return The row.
+         */
+        static Row of(String uid, Map<String, Object> request) {
+            Passenger passenger = SnapshotCodec.decodePassenger(request);
+            int seats = SeatReservation.seatsRequested(request);
+            return new Row(uid,
+                    "From: " + orDefault(passenger.getCurrentLocation(), "Not specified"),
+                    "To: " + orDefault(passenger.getDestination(), "Not specified"),
+                    "Seats requested: " + seats,
+                    orDefault(passenger.getComment(), "No comment"),
+                    seats,
+                    RideTransitions.isAccepted(request));
+        }
+
+        /**
+         * @param other Another version of the row.
+         * @return true if both versions display the same thing.
+         */
+        public boolean sameContent(Row other) {
+            return uid.equals(other.uid)
+                    && seats == other.seats
+                    && accepted == other.accepted
+                    && Objects.equals(from, other.from)
+                    && Objects.equals(to, other.to)
+                    && Objects.equals(comment, other.comment);
+        }
+    }
+
+    /**
+     * The rows ordered by uid.
+     */
+    private final List<Row> rows = new ArrayList<>();
+    /**
+     * The rows by uid.
+     */
+    private final Map<String, Row> byUid = new HashMap<>();
+    /**
+     * The uids of {@link #rows}, for binary search.
+     */
+    private final List<String> uids = new AbstractList<String>() {
+        @Override
+        public String get(int index) {
+            return rows.get(index).uid;
+        }
+
+        @Override
+        public int size() {
+            return rows.size();
+        }
+    };
+    /**
+     * Seats taken by all rows.
+     */
+    private int seatsTaken;
+    /**
+     * Number of accepted rows.
+     */
+    private int acceptedCount;
+
+    /**
+     * Adds a passenger, or replaces the entry of a passenger already on the roster.
+     *
+     * @param uid     The passenger's uid.
+     * @param request The passenger's entry; anything but a map is treated as an empty entry.
+     */
+    @SuppressWarnings("unchecked")
+    public void upsert(String uid, Object request) {
+        Row row = Row.of(uid, request instanceof Map ? (Map<String, Object>) request : new HashMap<>());
+        Row previous = byUid.put(uid, row);
+        int index = Collections.binarySearch(uids, uid);
+        if (previous != null) {
+            rows.set(index, row);
+            count(previous, -1);
+        } else {
+            rows.add(-(index + 1), row);
+        }
+        count(row, 1);
+    }
+
+    /**
+     * Removes a passenger.
+     *
+     * @param uid The passenger's uid.
+     */
+    public void remove(String uid) {
+        Row previous = byUid.remove(uid);
+        if (previous != null) {
+            rows.remove(Collections.binarySearch(uids, uid));
+            count(previous, -1);
+        }
+    }
+
+    /**
+     * Removes all passengers, e.g. when the driver's ride changes.
+     */
+    public void clear() {
+        rows.clear();
+        byUid.clear();
+        seatsTaken = 0;
+        acceptedCount = 0;
+    }
+
+    /**
+     * @return The seats taken by all passengers on the roster.
+     */
+    public int seatsTaken() {
+        return seatsTaken;
+    }
+
+    /**
+     * @return The number of passengers the driver accepted.
+     */
+    public int acceptedCount() {
+        return acceptedCount;
+    }
+
+    /**
+     * @return The number of passengers on the roster.
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Returns a copy of the rows, e.g. to submit to a list adapter.
+     *
+     * @return The rows ordered by uid.
+     */
+    public List<Row> snapshot() {
+        return new ArrayList<>(rows);
+    }
+
+    /**
+     * Builds the seat tally line of the driver's card.
+     *
+     * @param taken    Seats taken, see {@link #seatsTaken()}.
+     * @param capacity Seats the driver offers, or a negative number if unknown.
+     * @return e.g. "Seats booked: 3 of 4".
+     */
+    public static String tallyLine(int taken, int capacity) {
+        return "Seats booked: " + taken + (capacity >= 0 ? " of " + capacity : "");
+    }
+
+    private void count(Row row, int sign) {
+        seatsTaken += sign * row.seats;
+        acceptedCount += row.accepted ? sign : 0;
+    }
+
+    private static String orDefault(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.pickme;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * RecyclerView adapter listing the passengers of the driver's ride on the passenger card of
+ * {@link PassengerFragment}, each with its own "accept" and "decline" buttons.
+ *
+ * <p>The owner submits {@link PassengerRoster#snapshot()} after every child event on the ride's
+ * "Passengers", and the list is diffed against the shown one, so only the passenger that changed is
+ * rebound. Rows have stable ids derived from the passenger's uid. The buttons only report which
+ * passenger they belong to; the owner writes the change.</p>
+ */
+public class PassengerRowAdapter extends ListAdapter<PassengerRoster.Row, PassengerRowAdapter.PassengerRowViewHolder> {
+
+    /**
+     * Receives the clicks on a row's buttons.
+     */
+    public interface Listener {
+        /**
+         * Called when the driver accepts a passenger.
+         *
+         * @param passengerUid The passenger's uid.
+         */
+        void onAccept(String passengerUid);
+
+        /**
+         * Called when the driver declines a passenger.
+         *
+         * @param passengerUid The passenger's uid.
+         */
+        void onDecline(String passengerUid);
+    }
+
+    /**
+     * Compares rows by passenger uid and displayed content.
+     */
+    private static final DiffUtil.ItemCallback<PassengerRoster.Row> DIFF_CALLBACK = new DiffUtil.ItemCallback<PassengerRoster.Row>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull PassengerRoster.Row oldItem, @NonNull PassengerRoster.Row newItem) {
+            return oldItem.uid.equals(newItem.uid);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull PassengerRoster.Row oldItem, @NonNull PassengerRoster.Row newItem) {
+            return oldItem.sameContent(newItem);
+        }
+    };
+
+    /**
+     * Receives the clicks on the rows' buttons.
+     */
+    private final Listener listener;
+    /**
+     * Whether the ride has started, which hides the rows' buttons.
+     */
+    private boolean rideStarted;
+
+    /**
+     * Creates an empty adapter with stable ids; rows are shown with {@link #submitList}.
+     *
+     * @param listener Receives the clicks on the rows' buttons.
+     */
+    public PassengerRowAdapter(Listener listener) {
+        super(DIFF_CALLBACK);
+        this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Shows or hides the rows' buttons. Passengers cannot be accepted or declined once the ride started.
+     *
+     * @param rideStarted Whether the ride is under way.
+     */
+    public void setRideStarted(boolean rideStarted) {
+        if (this.rideStarted != rideStarted) {
+            this.rideStarted = rideStarted;
+            notifyItemRangeChanged(0, getItemCount());
+        }
+    }
+
+    /**
+     * Returns the stable id of the row at a position, derived from the passenger's uid.
+     *
+     * @param position the position of the row
+     * @return the row's id, see {@link DriverRows#stableId}
+     */
+    @Override
+    public long getItemId(int position) {
+        return DriverRows.stableId(getItem(position).uid);
+    }
+
+    @NonNull
+    @Override
+    public PassengerRowViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_passenger_row, parent, false);
+        return new PassengerRowViewHolder(view);
+    }
+
+    /**
+     * Binds a passenger row. "Accept" is only shown while the passenger is not accepted yet.
+     *
+     * @param holder the ViewHolder to bind data to
+     * @param position the position of the item within the adapter's data set
+     */
+    @Override
+    public void onBindViewHolder(@NonNull PassengerRowViewHolder holder, int position) {
+        PassengerRoster.Row row = getItem(position);
+
+        holder.seats.setText(row.seatsLine);
+        holder.from.setText(row.from);
+        holder.to.setText(row.to);
+        holder.comment.setText(row.comment);
+        if (row.accepted) {
+            holder.status.setText("Accepted");
+            holder.status.setTextColor(holder.itemView.getResources().getColor(android.R.color.holo_green_dark));
+        } else {
+            holder.status.setText("Waiting");
+            holder.status.setTextColor(holder.itemView.getResources().getColor(android.R.color.darker_gray));
+        }
+
+        holder.controls.setVisibility(rideStarted ? View.GONE : View.VISIBLE);
+        holder.acceptButton.setVisibility(row.accepted ? View.GONE : View.VISIBLE);
+        holder.acceptButton.setOnClickListener(v -> listener.onAccept(row.uid));
+        holder.declineButton.setOnClickListener(v -> listener.onDecline(row.uid));
+    }
+
+    /**
+     * ViewHolder holding the views of one passenger row.
+     */
+    public static class PassengerRowViewHolder extends RecyclerView.ViewHolder {
+        /** Seats line. */
+        TextView seats;
+        /** "Accepted" or "Waiting". */
+        TextView status;
+        /** "From: ..." line. */
+        TextView from;
+        /** "To: ..." line. */
+        TextView to;
+        /** Comment line. */
+        TextView comment;
+        /** Container of the row's buttons. */
+        LinearLayout controls;
+        /** Accepts the passenger. */
+        Button acceptButton;
+        /** Declines the passenger. */
+        Button declineButton;
+
+        /**
+         * Finds the row's views.
+         *
+         * @param itemView the inflated row
+         */
+        public PassengerRowViewHolder(@NonNull View itemView) {
+            super(itemView);
+            seats = itemView.findViewById(R.id.row_passenger_seats);
+            status = itemView.findViewById(R.id.row_passenger_status);
+            from = itemView.findViewById(R.id.row_passenger_from);
+            to = itemView.findViewById(R.id.row_passenger_to);
+            comment = itemView.findViewById(R.id.row_passenger_comment);
+            controls = itemView.findViewById(R.id.row_passenger_controls);
+            acceptButton = itemView.findViewById(R.id.row_accept_button);
+            declineButton = itemView.findViewById(R.id.row_decline_button);
+        }
+    }
+}
@@ -2,28 +2,129 @@ package com.example.pickme;
 
 import android.annotation.SuppressLint;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import com.google.firebase.database.ChildEventListener;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
 import com.google.firebase.database.ValueEventListener;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * {@code PickDriverActivity} is an Android Activity responsible for displaying a list of available drivers
  * (rides) to the user. It fetches ride data from Firebase Realtime Database, populates a
- * {@link RecyclerView} with this data, and associates driver information with user details.
+ * {@link RecyclerView} with this data, using the driver details stored on each ride.
  * Users can then select a driver from this list.
+ *
+ * <p>Rides are stored in day shards (see {@link RidePaths}), which are read in order starting with
+ * today's, for up to {@link #LISTING_DAYS} days. Within a shard only rides that have not departed yet
+ * are requested, ordered by departure time on the server
+ * ({@code orderByChild("departureEpochMillis").startAt(now)}, backed by an {@code .indexOn} rule) and
+ * read {@link #PAGE_SIZE} at a time; a short page moves on to the next day. Further pages are loaded
+ * as the user scrolls towards the end of the list, so the cost of a page depends neither on how many
+ * rides other days hold nor on how many rides have already departed today. While the list is shorter
+ * than a page, the next pages are read without waiting for a scroll, but at most
+ * {@link #MAX_FILL_PAGES} pages that hold rides are added that way; days without rides are skipped
+ * and not listened to.</p>
+ *
+ * <p>The listing is live: each page is read by a {@link ChildEventListener} that stays attached (see
+ * {@link LivePage}), so seats being taken, rides being cancelled and new rides within a loaded page
+ * show up without reopening the screen. Events are applied one at a time to a {@link LiveRideSet},
+ * which keeps the rides sorted by departure; the rides going to the passenger's destination are then
+ * ranked by {@link RideRanker} within windows of {@link #PAGE_SIZE}, so rides loaded later stay
+ * below the ones already scrolled past, and only the affected rows are rebound. The listeners are
+ * detached in {@link #onStop} and attached again in {@link #onStart}, after which rides removed in
+ * the meantime are dropped.</p>
+ *
+ * <p>When started with the passenger's location ({@link #EXTRA_LATITUDE}/{@link #EXTRA_LONGITUDE}),
+ * the activity instead searches rides departing within {@link #NEARBY_SEARCH_DAYS} days within
+ * {@link #SEARCH_RADIUS_METERS} of it. Only the {@code originGeohash} ranges covering that circle are
+ * queried in each of those shards (see {@link GeoHash}, backed by an {@code .indexOn} rule); the
+ * results are merged, rides outside the circle or already departed are dropped.</p>
+ *
+ * <p>Before they are shown, the rides of the nearby search are ranked against the passenger's
+ * request by {@link RideRanker} on a background thread; rides without enough free seats for the
+ * request are left out, from the listing as well. When the passenger's destination is known
+ * ({@link #EXTRA_DESTINATION}), both only keep the rides the {@link DestinationIndex} matches with
+ * it.</p>
+ *
+ * <p>Rides are shown as soon as they are ready: a copy of {@link #driverList} is submitted to the {@link DriverAdapter}, which diffs it on a background thread and binds only
+ * the new rows. Driver names missing from old rides are patched into their rows afterwards. The time
+ * from opening the screen to the first ride shown is logged.</p>
  */
 public class PickDriverActivity extends AppCompatActivity {
 
+    /**
+     * Number of rides requested per page.
+     */
+    static final int PAGE_SIZE = 20;
+    /**
+     * How many rows before the end of the list the next page is requested.
+     */
+    private static final int LOAD_MORE_THRESHOLD = 5;
+    /**
+     * Intent extra holding the passenger's latitude, as a double.
+     */
+    static final String EXTRA_LATITUDE = "passengerLatitude";
+    /**
+     * Intent extra holding the passenger's longitude, as a double.
+     */
+    static final String EXTRA_LONGITUDE = "passengerLongitude";
+    /**
+     * Intent extra holding the latitude of the passenger's destination, as a double.
+     */
+    static final String EXTRA_DESTINATION_LATITUDE = "passengerDestinationLatitude";
+    /**
+     * Intent extra holding the longitude of the passenger's destination, as a double.
+     */
+    static final String EXTRA_DESTINATION_LONGITUDE = "passengerDestinationLongitude";
+    /**
+     * Intent extra holding the number of seats the passenger needs, as an int.
+     */
+    static final String EXTRA_PASSENGER_COUNT = "passengerCount";
+    /**
+     * Intent extra holding the passenger's destination as displayed, as a string.
+     */
+    static final String EXTRA_DESTINATION = "passengerDestination";
+    /**
+     * Radius around the passenger in which ride pickups are searched.
+     */
+    static final double SEARCH_RADIUS_METERS = 5_000;
+    /**
+     * Number of day shards the paged listing walks through, starting today.
+     */
+    static final int LISTING_DAYS = 30;
+    /**
+     * Number of day shards the nearby search covers, starting today.
+     */
+    static final int NEARBY_SEARCH_DAYS = 7;
+    /**
+     * Number of pages holding rides that are read while the list is shorter than a page, before
+     * waiting for the user to scroll.
+     */
+    static final int MAX_FILL_PAGES = 3;
+
     /**
      * RecyclerView to display the list of available drivers.
      */
@@ -33,9 +134,86 @@ public class PickDriverActivity extends AppCompatActivity {
      */
     private DriverAdapter driverAdapter;
     /**
-     * List to hold {@link Driver} objects fetched from Firebase.
+     * List to hold {@link Driver} objects fetched from Firebase, in display order. The adapter is
+     * given a copy of it after every change.
      */
     private List<Driver> driverList;
+    /**
+     * {@link SystemClock#elapsedRealtime()} when the activity was created, or -1 once the first
+     * ride has been shown.
+     */
+    private long openedAtMillis;
+
+    /**
+     * Reference to the "RidesByDay" node.
+     */
+    private DatabaseReference ridesRef;
+    /**
+     * Departure time the listing starts at, fixed when the activity opens so pages stay consistent.
+     */
+    private long windowStartMillis;
+    /**
+     * Day shards the paged listing reads, in order.
+     */
+    private List<String> listingDays;
+    /**
+     * Index in {@link #listingDays} of the shard the next page is read from.
+     */
+    private int dayIndex;
+    /**
+     * Departure time of the last ride loaded from the current shard, used as the cursor for the next page.
+     */
+    private long lastDeparture;
+    /**
+     * Key of the last ride loaded from the current shard, used to break ties between rides departing
+     * at the same time; null at the start of a shard.
+     */
+    private String lastKey;
+    /**
+     * Whether a page request is in flight.
+     */
+    private boolean loading;
+    /**
+     * Whether the last page has been reached.
+     */
+    private boolean exhausted;
+
+    /**
+     * Ranks loaded rides against the passenger's request.
+     */
+    private RideRanker ranker;
+    /**
+     * Background thread the ranking runs on; a single thread keeps pages in arrival order.
+     */
+    private ExecutorService rankingExecutor;
+    /**
+     * Destinations of the rides loaded so far, matched against the passenger's destination.
+     */
+    private final DestinationIndex destinationIndex = new DestinationIndex();
+    /**
+     * The passenger's destination, or null to show rides to any destination.
+     */
+    private String passengerDestination;
+    /**
+     * Rides of the live listing, in display order.
+     */
+    private final LiveRideSet liveRides = new LiveRideSet();
+    /**
+     * Pages of the live listing, in the order they were loaded.
+     */
+    private final List<LivePage> livePages = new ArrayList<>();
+    /**
+     * Free seats of the rides in {@link #liveRides}, by ride key.
+     */
+    private final Map<String, Integer> liveSeats = new HashMap<>();
+    /**
+     * Number of pages holding rides read since the last page the user asked for.
+     */
+    private int fillPages;
+    /**
+     * Incremented whenever the live listing is ranked again, so an outdated ranking is dropped.
+     */
+    private int rankingGeneration;
 
     /**
      * Called when the activity is first created. This method initializes the UI components,
@@ -50,110 +228,576 @@ public class PickDriverActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        openedAtMillis = SystemClock.elapsedRealtime();
         setContentView(R.layout.activity_pick_driver);
 
         recyclerView = findViewById(R.id.recyclerViewDrivers);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
 
         driverList = new ArrayList<>();
-        driverAdapter = new DriverAdapter(driverList, this);
+        driverAdapter = new DriverAdapter(this);
         recyclerView.setAdapter(driverAdapter);
 
-        fetchDrivers();
+        // Request the next page once the user nears the end of what is loaded
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= driverList.size() - LOAD_MORE_THRESHOLD) {
+                    fetchDrivers();
+                }
+            }
+        });
+
+        ridesRef = FirebaseDatabase.getInstance().getReference(RidePaths.RIDES_BY_DAY);
+        windowStartMillis = System.currentTimeMillis();
+        listingDays = RidePaths.daysBetween(windowStartMillis, windowStartMillis + TimeUnit.DAYS.toMillis(LISTING_DAYS - 1));
+        ranker = new RideRanker(new RideRanker.Request(
+                doubleExtra(EXTRA_LATITUDE), doubleExtra(EXTRA_LONGITUDE),
+                doubleExtra(EXTRA_DESTINATION_LATITUDE), doubleExtra(EXTRA_DESTINATION_LONGITUDE),
+                windowStartMillis, getIntent().getIntExtra(EXTRA_PASSENGER_COUNT, 1)));
+        rankingExecutor = Executors.newSingleThreadExecutor();
+        passengerDestination = getIntent().getStringExtra(EXTRA_DESTINATION);
+
+        if (getIntent().hasExtra(EXTRA_LATITUDE) && getIntent().hasExtra(EXTRA_LONGITUDE)) {
+            // The nearby search returns everything in one pass, so no pages follow
+            exhausted = true;
+            fetchNearbyDrivers(getIntent().getDoubleExtra(EXTRA_LATITUDE, 0),
+                    getIntent().getDoubleExtra(EXTRA_LONGITUDE, 0));
+        } else {
+            fetchDrivers();
+        }
     }
 
     /**
-     * Fetches available driver (ride) data from the Firebase Realtime Database.
-     * It listens for a single event on the "Rides" node, then iterates through each ride
-     * to extract driver information. For each driver, it also fetches associated user
-     * details (like name and age) from the "Users" node to enrich the driver object.
-     * The RecyclerView adapter is notified once all driver and user data is loaded.
+     * Attaches the live listing again after {@link #onStop}.
      */
-    private void fetchDrivers() {
-        DatabaseReference ridesRef = FirebaseDatabase.getInstance().getReference("Rides");
-        DatabaseReference usersRef = FirebaseDatabase.getInstance().getReference("Users");
+    @Override
+    protected void onStart() {
+        super.onStart();
+        for (LivePage page : livePages) {
+            page.attach();
+        }
+    }
 
-        ridesRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                driverList.clear(); // Clear existing list before populating
-                final int[] loadedDrivers = {0}; // Counter for loaded drivers to track completion
-                final int totalDrivers = (int) snapshot.getChildrenCount(); // Total number of rides (potential drivers)
-
-                // If no rides are available, update the adapter and return
-                if (totalDrivers == 0) {
-                    driverAdapter.notifyDataSetChanged();
-                    return;
-                }
+    /**
+     * Detaches the live listing while the activity is not visible.
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        for (LivePage page : livePages) {
+            page.detach();
+        }
+    }
 
-                // Iterate through each ride snapshot to extract driver data
-                for (DataSnapshot rideSnapshot : snapshot.getChildren()) {
-                    Driver driver = rideSnapshot.getValue(Driver.class); // Convert snapshot to Driver object
-                    if (driver != null) {
-                        // Assign UID from Firebase key to the driver object
-                        String userId = rideSnapshot.getKey();
-                        driver.setUid(userId);
-
-                        // Add driver to the temporary list
-                        driverList.add(driver);
-
-                        // Fetch and associate the user details (name, age) for this driver
-                        if (userId != null && !userId.isEmpty()) {
-                            usersRef.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
-                                @Override
-                                public void onDataChange(@NonNull DataSnapshot userSnapshot) {
-                                    if (userSnapshot.exists()) {
-                                        String name = userSnapshot.child("name").getValue(String.class);
-                                        String age = userSnapshot.child("age").getValue(String.class);
-
-                                        if (name != null) {
-                                            // Create a User object and link it to the driver
-                                            User user = new User(name, age != null ? age : "", "");
-                                            driver.setUser(user);
-                                            Log.d("PickDriverActivity", "User linked to driver: " + name);
-                                        }
-                                    } else {
-                                        Log.d("PickDriverActivity", "No user data found for ID: " + userId);
-                                    }
-
-                                    // Increment loaded drivers count and notify adapter if all data is loaded
-                                    loadedDrivers[0]++;
-                                    if (loadedDrivers[0] >= totalDrivers) {
-                                        driverAdapter.notifyDataSetChanged();
-                                    }
+    /**
+     * Stops the ranking thread; results still in flight are dropped.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        rankingExecutor.shutdownNow();
+    }
+
+    /**
+     * Reads an optional double extra from the launching intent.
+     *
+     * @param name The extra's name.
+     * @return The value, or null if the extra is absent.
+     */
+    private Double doubleExtra(String name) {
+        return getIntent().hasExtra(name) ? getIntent().getDoubleExtra(name, 0) : null;
+    }
+
+    /**
+     * Fetches the upcoming rides whose pickup lies within {@link #SEARCH_RADIUS_METERS} of a point.
+     * One query is sent per day shard and geohash range covering the circle; rides returned by more
+     * than one are merged by ride key. Once all queries have answered, rides outside the circle (the
+     * ranges cover a larger area) or departing before the listing started are dropped and the rest
+     * are ranked.
+     *
+     * @param latitude  The passenger's latitude.
+     * @param longitude The passenger's longitude.
+     */
+    private void fetchNearbyDrivers(double latitude, double longitude) {
+        List<String[]> bounds = GeoHash.queryBounds(latitude, longitude, SEARCH_RADIUS_METERS);
+        List<String> days = RidePaths.daysBetween(windowStartMillis,
+                windowStartMillis + TimeUnit.DAYS.toMillis(NEARBY_SEARCH_DAYS - 1));
+        Map<String, DataSnapshot> candidates = new LinkedHashMap<>();
+        int[] pending = {days.size() * bounds.size()};
+
+        for (String day : days) {
+            for (String[] range : bounds) {
+                ridesRef.child(day).orderByChild(RideSchema.ORIGIN_GEOHASH).startAt(range[0]).endAt(range[1])
+                        .addListenerForSingleValueEvent(new ValueEventListener() {
+                            @Override
+                            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                                for (DataSnapshot rideSnapshot : snapshot.getChildren()) {
+                                    candidates.put(RidePaths.rideKey(day, rideSnapshot.getKey()), rideSnapshot);
+                                }
+                                if (--pending[0] == 0) {
+                                    showNearbyDrivers(candidates, latitude, longitude);
                                 }
+                            }
 
-                                @Override
-                                public void onCancelled(@NonNull DatabaseError error) {
-                                    Log.e("FirebaseError", "Error loading user data: " + error.getMessage());
-                                    // Increment count even on error to ensure notifyDataSetChanged is called
-                                    loadedDrivers[0]++;
-                                    if (loadedDrivers[0] >= totalDrivers) {
-                                        driverAdapter.notifyDataSetChanged();
-                                    }
+                            @Override
+                            public void onCancelled(@NonNull DatabaseError error) {
+                                Log.e("FirebaseError", "Error loading nearby rides: " + error.getMessage());
+                                if (--pending[0] == 0) {
+                                    showNearbyDrivers(candidates, latitude, longitude);
                                 }
-                            });
-                        } else {
-                            // If userId is null or empty, still increment count
-                            loadedDrivers[0]++;
-                            if (loadedDrivers[0] >= totalDrivers) {
-                                driverAdapter.notifyDataSetChanged();
                             }
+                        });
+            }
+        }
+    }
+
+    /**
+     * Filters the merged results of a nearby search by exact distance and departure time and shows
+     * them ranked.
+     *
+     * @param snapshots The rides returned by the geohash range queries, by ride key.
+     * @param latitude  The passenger's latitude.
+     * @param longitude The passenger's longitude.
+     */
+    private void showNearbyDrivers(Map<String, DataSnapshot> snapshots, double latitude, double longitude) {
+        List<Driver> nearby = new ArrayList<>();
+        List<Integer> freeSeats = new ArrayList<>();
+        for (Map.Entry<String, DataSnapshot> entry : snapshots.entrySet()) {
+            DataSnapshot rideSnapshot = entry.getValue();
+            Driver driver = SnapshotCodec.decode(rideSnapshot, SnapshotCodec.DRIVER);
+            if (driver == null || driver.getOriginLat() == null || driver.getOriginLng() == null) {
+                continue;
+            }
+            double distance = GeoHash.distanceMeters(latitude, longitude, driver.getOriginLat(), driver.getOriginLng());
+            if (distance > SEARCH_RADIUS_METERS || RideSchema.departureOf(driver) < windowStartMillis) {
+                continue;
+            }
+            driver.setRideKey(entry.getKey());
+            nearby.add(driver);
+            freeSeats.add(freeSeatsOf(rideSnapshot, driver));
+        }
+
+        rankAndAdd(nearby, freeSeats, ranked -> {
+            if (ranked.isEmpty()) {
+                Toast.makeText(this, "No rides found near you.", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    /**
+     * Fetches the next page of upcoming rides because the user asked for more.
+     */
+    private void fetchDrivers() {
+        if (loading || exhausted) {
+            return;
+        }
+        fillPages = 0;
+        fetchNextPage();
+    }
+
+    /**
+     * Fetches the next page of upcoming rides from the Firebase Realtime Database.
+     * The first page of a day shard starts at the time the listing opened; each following page
+     * starts right after the departure time and key of the last ride read from that shard. A page
+     * shorter than {@link #PAGE_SIZE} ends the shard, and the next request reads the next day.
+     * The page stays attached as a {@link LivePage}.
+     */
+    private void fetchNextPage() {
+        if (loading || exhausted) {
+            return;
+        }
+        loading = true;
+
+        String day = listingDays.get(dayIndex);
+        Query page = ridesRef.child(day).orderByChild(RideSchema.DEPARTURE);
+        page = lastKey == null
+                ? page.startAt(windowStartMillis)
+                : page.startAfter(lastDeparture, lastKey);
+
+        LivePage livePage = new LivePage(day, page.limitToFirst(PAGE_SIZE));
+        livePages.add(livePage);
+        livePage.attach();
+    }
+
+    /**
+     * Called once a new page has been read for the first time. Moves the cursor past it, shows the
+     * rides and keeps loading while the list is shorter than a page, up to {@link #MAX_FILL_PAGES}
+     * pages holding rides. An empty page is detached: it has no rides to follow, and rides published
+     * to its day later are shown the next time the screen opens.
+     *
+     * @param page     The page.
+     * @param snapshot The page, in query order.
+     */
+    private void onPageLoaded(LivePage page, DataSnapshot snapshot) {
+        loading = false;
+        for (DataSnapshot rideSnapshot : snapshot.getChildren()) {
+            // Advance the cursor even past rides that fail to convert
+            Long departure = rideSnapshot.child(RideSchema.DEPARTURE).getValue(Long.class);
+            lastKey = rideSnapshot.getKey();
+            lastDeparture = departure != null ? departure : lastDeparture;
+        }
+        if (snapshot.getChildrenCount() < PAGE_SIZE) {
+            dayIndex++;
+            lastKey = null;
+            exhausted = dayIndex == listingDays.size();
+        }
+        boolean empty = snapshot.getChildrenCount() == 0;
+        if (empty) {
+            page.detach();
+            livePages.remove(page);
+        }
+
+        // A page whose rides were all full or going elsewhere, or an empty day, adds nothing to scroll through; keep filling
+        if (showLiveRides() < PAGE_SIZE && (empty || ++fillPages <= MAX_FILL_PAGES)) {
+            fetchNextPage();
+        }
+    }
+
+    /**
+     * Applies an added or changed ride to the live listing. Rides that cannot take the passenger's
+     * request are taken out of the list.
+     *
+     * @param day          The day shard of the ride.
+     * @param rideSnapshot The ride, including its "Passengers" child.
+     */
+    private void applyRide(String day, DataSnapshot rideSnapshot) {
+        String rideKey = RidePaths.rideKey(day, rideSnapshot.getKey());
+        Driver driver = SnapshotCodec.decode(rideSnapshot, SnapshotCodec.DRIVER);
+        int freeSeats = driver != null ? freeSeatsOf(rideSnapshot, driver) : 0;
+        LiveRideSet.Change change;
+        if (driver == null || ranker.score(driver, freeSeats) == Double.POSITIVE_INFINITY) {
+            change = dropLiveRide(rideKey);
+        } else {
+            // Remember where the ride is stored, for booking
+            driver.setRideKey(rideKey);
+            linkDriverDetails(driver);
+            liveSeats.put(rideKey, freeSeats);
+            if (passengerDestination != null) {
+                destinationIndex.put(rideKey, driver.getDestination());
+            }
+            change = liveRides.upsert(driver);
+        }
+        if (change != LiveRideSet.Change.NONE) {
+            showLiveRides();
+        }
+    }
+
+    /**
+     * Takes a ride out of the live listing and the destination index.
+     *
+     * @param rideKey The ride's key.
+     * @return The change to the live listing.
+     */
+    private LiveRideSet.Change dropLiveRide(String rideKey) {
+        liveSeats.remove(rideKey);
+        destinationIndex.remove(rideKey);
+        return liveRides.remove(rideKey);
+    }
+
+    /**
+     * Removes a ride from the live listing unless another page still holds it.
+     *
+     * @param rideKey The ride's key.
+     */
+    private void releaseRide(String rideKey) {
+        for (LivePage page : livePages) {
+            if (page.keys.contains(rideKey)) {
+                return;
+            }
+        }
+        if (dropLiveRide(rideKey) != LiveRideSet.Change.NONE) {
+            showLiveRides();
+        }
+    }
+
+    /**
+     * Shows the live listing, unless a page is still being read; the page shows it once it is.
+     * The rides the {@link DestinationIndex} matches with the passenger's destination are ranked
+     * within windows of {@link #PAGE_SIZE} on the background thread; a ranking overtaken by a newer
+     * one is dropped.
+     *
+     * @return The number of rides shown.
+     */
+    private int showLiveRides() {
+        if (loading) {
+            return driverList.size();
+        }
+
+        Set<String> matching = null;
+        if (passengerDestination != null) {
+            List<String> keys = destinationIndex.match(passengerDestination);
+            matching = keys != null ? new HashSet<>(keys) : null;
+        }
+        List<Driver> candidates = new ArrayList<>(liveRides.size());
+        for (Driver driver : liveRides.snapshot()) {
+            if (matching == null || matching.contains(driver.getRideKey())) {
+                candidates.add(driver);
+            }
+        }
+        int[] seats = new int[candidates.size()];
+        for (int i = 0; i < seats.length; i++) {
+            seats[i] = liveSeats.get(candidates.get(i).getRideKey());
+        }
+
+        int generation = ++rankingGeneration;
+        Executor mainExecutor = ContextCompat.getMainExecutor(this);
+        rankingExecutor.execute(() -> {
+            List<Driver> ranked = ranker.rankInWindows(candidates, seats, PAGE_SIZE);
+            mainExecutor.execute(() -> {
+                if (isDestroyed() || generation != rankingGeneration) {
+                    return;
+                }
+                driverList = ranked;
+                showDrivers();
+            });
+        });
+        return candidates.size();
+    }
+
+    /**
+     * One page of the live listing: a limited query on a day shard with a {@link ChildEventListener}
+     * attached while the activity is started.
+     *
+     * <p>The page's window is the first {@link #PAGE_SIZE} rides from its cursor, so a new ride
+     * departing earlier pushes the last one out of it. Since the next page starts after the cursor,
+     * a ride removed from a full page is looked up once before it is taken out of the list.</p>
+     */
+    private final class LivePage implements ChildEventListener {
+        /**
+         * Day shard the page reads.
+         */
+        private final String day;
+        /**
+         * The page's query.
+         */
+        private final Query query;
+        /**
+         * Keys of the rides in the page's window.
+         */
+        private final Set<String> keys = new HashSet<>();
+        /**
+         * Keys not seen again since the page was attached again; null while none are pending.
+         */
+        private Set<String> unconfirmed;
+        /**
+         * Whether the page has been read once.
+         */
+        private boolean loaded;
+        /**
+         * Whether the first read filled the page.
+         */
+        private boolean full;
+        /**
+         * Whether the listener is attached.
+         */
+        private boolean attached;
+
+        LivePage(String day, Query query) {
+            this.day = day;
+            this.query = query;
+        }
+
+        /**
+         * Attaches the listener, if it is not attached. The value listener added after it runs once
+         * all current rides of the window have been delivered.
+         */
+        void attach() {
+            if (attached) {
+                return;
+            }
+            attached = true;
+            unconfirmed = loaded ? new HashSet<>(keys) : null;
+            query.addChildEventListener(this);
+            query.addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(@NonNull DataSnapshot snapshot) {
+                    if (!loaded) {
+                        loaded = true;
+                        full = snapshot.getChildrenCount() == PAGE_SIZE;
+                        onPageLoaded(LivePage.this, snapshot);
+                    } else if (unconfirmed != null) {
+                        // Rides removed while the page was detached
+                        for (String rideKey : unconfirmed) {
+                            keys.remove(rideKey);
+                            releaseRide(rideKey);
                         }
-                    } else {
-                        // If driver object is null, still increment count
-                        loadedDrivers[0]++;
-                        if (loadedDrivers[0] >= totalDrivers) {
-                            driverAdapter.notifyDataSetChanged();
-                        }
+                        unconfirmed = null;
                     }
                 }
+
+                @Override
+                public void onCancelled(@NonNull DatabaseError error) {
+                    if (!loaded) {
+                        loading = false;
+                        Log.e("FirebaseError", "Error loading rides: " + error.getMessage());
+                        Toast.makeText(PickDriverActivity.this, "Failed to load drivers.", Toast.LENGTH_SHORT).show();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Detaches the listener, if it is attached. The page's rides stay in the list.
+         */
+        void detach() {
+            if (attached) {
+                attached = false;
+                query.removeEventListener(this);
             }
+        }
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("FirebaseError", "Error loading rides: " + error.getMessage());
-                Toast.makeText(PickDriverActivity.this, "Failed to load drivers.", Toast.LENGTH_SHORT).show();
+        @Override
+        public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            String rideKey = RidePaths.rideKey(day, snapshot.getKey());
+            keys.add(rideKey);
+            if (unconfirmed != null) {
+                unconfirmed.remove(rideKey);
+            }
+            applyRide(day, snapshot);
+        }
+
+        @Override
+        public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            applyRide(day, snapshot);
+        }
+
+        @Override
+        public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+            String rideKey = RidePaths.rideKey(day, snapshot.getKey());
+            keys.remove(rideKey);
+            if (!full) {
+                releaseRide(rideKey);
+                return;
+            }
+            // Deleted, or only pushed out of the window by an earlier ride
+            ridesRef.child(day).child(snapshot.getKey()).get().addOnSuccessListener(ride -> {
+                if (!ride.exists()) {
+                    releaseRide(rideKey);
+                }
+            });
+        }
+
+        @Override
+        public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {}
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            Log.e("FirebaseError", "Live ride listener cancelled: " + error.getMessage());
+        }
+    }
+
+    /**
+     * Keeps the rides going to the passenger's destination, ranks them on the background thread and
+     * appends them to the list on the main thread.
+     * Destinations are matched locally with the {@link DestinationIndex}.
+     *
+     * @param drivers   The rides to rank.
+     * @param freeSeats Free seats of each ride, in the same order.
+     * @param onAdded   Run on the main thread with the ranked rides once they are shown.
+     */
+    private void rankAndAdd(List<Driver> drivers, List<Integer> freeSeats, Consumer<List<Driver>> onAdded) {
+        Set<String> matching = null;
+        if (passengerDestination != null) {
+            for (Driver driver : drivers) {
+                destinationIndex.put(driver.getRideKey(), driver.getDestination());
+            }
+            List<String> keys = destinationIndex.match(passengerDestination);
+            matching = keys != null ? new HashSet<>(keys) : null;
+        }
+
+        List<Driver> candidates = new ArrayList<>(drivers.size());
+        List<Integer> candidateSeats = new ArrayList<>(drivers.size());
+        for (int i = 0; i < drivers.size(); i++) {
+            if (matching == null || matching.contains(drivers.get(i).getRideKey())) {
+                candidates.add(drivers.get(i));
+                candidateSeats.add(freeSeats.get(i));
+            }
+        }
+
+        int[] seats = new int[candidateSeats.size()];
+        for (int i = 0; i < seats.length; i++) {
+            seats[i] = candidateSeats.get(i);
+        }
+        ranker.rankAsync(candidates, seats, rankingExecutor, ContextCompat.getMainExecutor(this), ranked -> {
+            if (isDestroyed()) {
+                return;
+            }
+            addDrivers(ranked);
+            onAdded.accept(ranked);
+        });
+    }
+
+    /**
+     * Returns the seats of a ride not yet taken by its passengers.
+     *
+     * @param rideSnapshot The ride's snapshot, including its "Passengers" child.
+     * @param driver       The decoded ride.
+     * @return The free seats, or 0 if the ride has no valid seat count.
+     */
+    @SuppressWarnings("unchecked")
+    private static int freeSeatsOf(DataSnapshot rideSnapshot, Driver driver) {
+        int capacity = RideSchema.seatsOf(driver);
+        if (capacity < 0) {
+            return 0;
+        }
+        Object passengers = rideSnapshot.child(RideArchiver.PASSENGERS).getValue();
+        int taken = passengers instanceof Map ? SeatReservation.seatsTaken((Map<String, Object>) passengers) : 0;
+        return Math.max(0, capacity - taken);
+    }
+
+    /**
+     * Appends ranked rides to the list and shows it.
+     *
+     * @param drivers The rides to append, in display order.
+     */
+    private void addDrivers(List<Driver> drivers) {
+        for (Driver driver : drivers) {
+            linkDriverDetails(driver);
+            driverList.add(driver);
+        }
+        showDrivers();
+    }
+
+    /**
+     * Sets the driver's name and age on a ride. They are read from the {@code driverName}/{@code driverAge}
+     * fields stored on the ride itself; older rides without those fields are patched in afterwards from
+     * the {@link UserProfileCache}, rebinding only the name line of their rows.
+     *
+     * @param driver The ride.
+     */
+    private void linkDriverDetails(Driver driver) {
+        // Link the denormalized driver details, if the ride carries them
+        if (driver.getDriverName() != null) {
+            String age = driver.getDriverAge();
+            driver.setUser(new User(driver.getDriverName(), age != null ? age : "", ""));
+            return;
+        }
+
+        // Rides published before driver names were stored on the ride fall back to the
+        // shared profile cache, which serves repeated uids from memory
+        if (driver.getUid() != null) {
+            UserProfileCache.getInstance().get(driver.getUid(), user -> {
+                if (user == null) {
+                    Log.d("PickDriverActivity", "No user data found for ID: " + driver.getUid());
+                    return;
+                }
+                driver.setUser(user);
+                driverAdapter.notifyNameChanged(driver);
+            });
+        }
+    }
+
+    /**
+     * Submits a copy of {@link #driverList} to the adapter, which diffs it against the shown rows.
+     */
+    private void showDrivers() {
+        driverAdapter.submitList(new ArrayList<>(driverList), () -> {
+            if (openedAtMillis >= 0 && !driverAdapter.getCurrentList().isEmpty()) {
+                Log.i("PickDriverActivity", "First ride shown after "
+                        + (SystemClock.elapsedRealtime() - openedAtMillis) + " ms");
+                openedAtMillis = -1;
             }
         });
     }
@@ -0,0 +1,23 @@
+package com.example.pickme;
+
+import android.app.Application;
+
+/**
+ * Application class of PickMe.
+ *
+ * <p>Configures the Realtime Database disk cache through {@link LocalPersistence} before any
+ * component touches the database, which Firebase requires for persistence settings to apply, and
+ * schedules {@link RideSweepWorker} to archive abandoned rides.</p>
+ */
+public class PickMeApplication extends Application {
+
+    /**
+     * Called when the application is starting, before any activity, service or receiver.
+     */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        LocalPersistence.install(this);
+        RideSweepWorker.schedule(this);
+    }
+}
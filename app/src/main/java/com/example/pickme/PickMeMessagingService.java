@@ -0,0 +1,147 @@
+package com.example.pickme;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingService;
+import com.google.firebase.messaging.RemoteMessage;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code PickMeMessagingService} receives the data messages described by {@link PushMessages}.
+ *
+ * <p>The system starts it only when a message arrives, so ride events reach the user without a
+ * service holding a database connection open. A booking is notified to the driver unless
+ * {@link RideMonitorService} is running and reports it from its live listener; likewise a status
+ * change is notified to the passenger. Both go through {@link RideNotifications}, so a booking that is
+ * delivered twice is notified once.</p>
+ */
+public class PickMeMessagingService extends FirebaseMessagingService implements PushMessages.Listener {
+
+    /**
+     * Tag for logging messages related to push messages.
+     */
+    private static final String TAG = "PickMeMessagingService";
+
+    /**
+     * Called on a background thread for every data message received.
+     *
+     * @param message The received message.
+     */
+    @Override
+    public void onMessageReceived(@NonNull RemoteMessage message) {
+        if (!PushMessages.dispatch(message.getData(), this)) {
+            Log.w(TAG, "Ignoring push message: " + message.getData());
+        }
+    }
+
+    /**
+     * Called when a booking message arrives, i.e. on the driver's device.
+     */
+    @Override
+    public void onBooking(String rideKey, String passengerUid) {
+        if (RideMonitorService.isRunning()) {
+            // The live listener reports the booking itself
+            return;
+        }
+        NotificationCoalescer coalescer = RideNotifications.loadCoalescer(this);
+        if (coalescer.offer(rideKey, passengerUid)) {
+            RideNotifications.createChannel(this);
+            RideNotifications.showBookings(this, coalescer.drain());
+            RideNotifications.saveCoalescer(this, coalescer);
+        }
+    }
+
+    /**
+     * Called when a status message arrives, i.e. on a passenger's device.
+     */
+    @Override
+    public void onStatus(String rideKey, RideStatus status) {
+        if (RideMonitorService.isRunning() && status != RideStatus.ACCEPTED) {
+            // The live listener reports the status change itself; acceptance is per passenger and
+            // only this message tells which one
+            return;
+        }
+        RideNotifications.createChannel(this);
+        RideNotifications.showStatus(this, rideKey, status);
+    }
+
+    /**
+     * Called when FCM issues a new token for this device.
+     *
+     * @param token The new token.
+     */
+    @Override
+    public void onNewToken(@NonNull String token) {
+        saveToken(token);
+    }
+
+    /**
+     * Registers this device's current token for the signed-in user, so messages sent to them reach it.
+     * Safe to call from every app start.
+     */
+    public static void registerToken() {
+        FirebaseMessaging.getInstance().getToken()
+                .addOnSuccessListener(PickMeMessagingService::saveToken)
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to get FCM token: " + e.getMessage()));
+    }
+
+    /**
+     * Removes this device's token from the signed-in user, so their messages stop reaching it, then
+     * runs {@code then}. Must be called before signing out, while the user may still write their
+     * entries; {@code then} runs even if the token could not be removed.
+     *
+     * @param then Run once the token is removed, normally the sign-out.
+     */
+    public static void unregisterToken(Runnable then) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            then.run();
+            return;
+        }
+        String uid = user.getUid();
+        FirebaseMessaging.getInstance().getToken().addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Failed to get FCM token: " + task.getException());
+                then.run();
+                return;
+            }
+            String token = task.getResult();
+            Map<String, Object> updates = new HashMap<>();
+            updates.put(DatabasePushTransport.PUSH_TOKENS + "/" + uid + "/" + token, null);
+            updates.put(DatabasePushTransport.PUSH_TOKEN_OWNERS + "/" + token, null);
+            FirebaseDatabase.getInstance().getReference().updateChildren(updates).addOnCompleteListener(removed -> {
+                if (!removed.isSuccessful()) {
+                    Log.e(TAG, "Failed to unregister FCM token: " + removed.getException());
+                }
+                then.run();
+            });
+        });
+    }
+
+    /**
+     * Stores a token under {@code PushTokens/{uid}/{token}} for the signed-in user and records them as
+     * its owner under {@code PushTokenOwners/{token}}, in one multi-path update.
+     *
+     * @param token The FCM token.
+     */
+    private static void saveToken(String token) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            // Registered again after the next sign-in
+            return;
+        }
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(DatabasePushTransport.PUSH_TOKENS + "/" + user.getUid() + "/" + token, true);
+        updates.put(DatabasePushTransport.PUSH_TOKEN_OWNERS + "/" + token, user.getUid());
+        FirebaseDatabase.getInstance().getReference().updateChildren(updates)
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to register FCM token: " + e.getMessage()));
+    }
+}
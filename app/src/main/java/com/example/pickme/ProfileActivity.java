@@ -17,11 +17,11 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * {@code ProfileActivity} is an Android Activity that allows users to view and update their profile
@@ -139,28 +139,18 @@ public class ProfileActivity extends AppCompatActivity {
     }
 
     /**
-     * Loads the current user's profile data (name and age) from the Firebase Realtime Database
+     * Loads the current user's profile data (name and age) through the shared {@link UserProfileCache}
      * and populates the corresponding EditText fields.
      * A Toast message is displayed if data loading fails.
      */
     private void loadUserData() {
-        mDatabaseRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    // Retrieve name and age from the snapshot
-                    String name = snapshot.child("name").getValue(String.class);
-                    String age = snapshot.child("age").getValue(String.class);
-
-                    // Set the text of EditText fields, handling null values
-                    etName.setText(name != null ? name : "");
-                    etAge.setText(age != null ? age : "");
-                }
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                // Display a toast message if data loading is cancelled or fails
+        UserProfileCache.getInstance().get(currentUser.getUid(), user -> {
+            if (user != null) {
+                // Set the text of EditText fields; missing values are cached as empty strings
+                etName.setText(user.getName());
+                etAge.setText(user.getAge());
+            } else {
+                // Display a toast message if the profile could not be loaded
                 Toast.makeText(ProfileActivity.this, "Failed to load data", Toast.LENGTH_SHORT).show();
             }
         });
@@ -169,6 +159,8 @@ public class ProfileActivity extends AppCompatActivity {
     /**
      * Updates the current user's profile data (name and age) in the Firebase Realtime Database.
      * It performs input validation for name (letters only) and age (numbers only).
+     * If the user has a published ride, found through {@code DriverActiveRide/{uid}}, the copy of the
+     * name and age stored on the ride is updated in the same multi-path write.
      * A Toast message indicates whether the update was successful or failed.
      */
     private void updateUserData() {
@@ -195,20 +187,38 @@ public class ProfileActivity extends AppCompatActivity {
             return;
         }
 
-        // Update name and age in Firebase
-        mDatabaseRef.child("name").setValue(name);
-        mDatabaseRef.child("age").setValue(age).addOnCompleteListener(task -> {
-            if (task.isSuccessful()) {
-                Toast.makeText(ProfileActivity.this, "Profile updated successfully", Toast.LENGTH_SHORT).show();
-            } else {
-                Toast.makeText(ProfileActivity.this, "Failed to update profile", Toast.LENGTH_SHORT).show();
+        String uid = currentUser.getUid();
+        DatabaseReference rootRef = FirebaseDatabase.getInstance().getReference();
+
+        // Check whether the user has a published ride carrying a copy of their name and age
+        rootRef.child(RidePaths.DRIVER_ACTIVE_RIDE).child(uid).get().addOnCompleteListener(rideTask -> {
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("Users/" + uid + "/name", name);
+            updates.put("Users/" + uid + "/age", age);
+            Object rideKey = rideTask.isSuccessful() ? rideTask.getResult().getValue() : null;
+            if (RidePaths.isRideKey(rideKey)) {
+                String ridePath = RidePaths.ridePath((String) rideKey);
+                updates.put(ridePath + "/driverName", name);
+                updates.put(ridePath + "/driverAge", age);
             }
+
+            // Update the profile and the ride copy in a single write
+            rootRef.updateChildren(updates).addOnCompleteListener(task -> {
+                if (task.isSuccessful()) {
+                    UserProfileCache.getInstance().invalidate(uid);
+                    Toast.makeText(ProfileActivity.this, "Profile updated successfully", Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(ProfileActivity.this, "Failed to update profile", Toast.LENGTH_SHORT).show();
+                }
+            });
         });
     }
 
     /**
      * Prompts the user with an AlertDialog to confirm logout.
-     * If confirmed, it clears the "StayConnected" preference, signs out the user from Firebase,
+     * If confirmed, it clears the "StayConnected" preference, stops the {@link RideMonitorService},
+     * removes this device's push token from
+     * the user (see {@link PickMeMessagingService#unregisterToken}), signs out the user from Firebase,
      * navigates to the {@link MainActivity}, and finishes the current activity.
      */
     private void logoutUser() {
@@ -223,11 +233,17 @@ public class ProfileActivity extends AppCompatActivity {
                     editor.putBoolean("StayConnected", false);
                     editor.apply(); // Apply changes to SharedPreferences
 
-                    mAuth.signOut(); // Sign out the user from Firebase
-                    Intent intent = new Intent(ProfileActivity.this, MainActivity.class); // Create intent for MainActivity
-                    Toast.makeText(ProfileActivity.this, "Log out successfully", Toast.LENGTH_SHORT).show(); // Show logout success message
-                    startActivity(intent); // Start MainActivity
-                    finish(); // Finish current activity
+                    UserProfileCache.getInstance().stopWatchingOwnProfile(); // Drop the cached own profile
+                    LocalPersistence.stopSyncing(); // Stop keeping this user's nodes on disk
+                    RideMonitorService.stop(ProfileActivity.this); // Stop monitoring this user's rides
+                    // Stop this user's push messages reaching the device before losing the right to
+                    PickMeMessagingService.unregisterToken(() -> {
+                        mAuth.signOut(); // Sign out the user from Firebase
+                        Intent intent = new Intent(ProfileActivity.this, MainActivity.class); // Create intent for MainActivity
+                        Toast.makeText(ProfileActivity.this, "Log out successfully", Toast.LENGTH_SHORT).show(); // Show logout success message
+                        startActivity(intent); // Start MainActivity
+                        finish(); // Finish current activity
+                    });
                 })
                 .setNegativeButton("No", null) // On "No" click, do nothing (dialog dismisses)
                 .show(); // Show the AlertDialog
@@ -0,0 +1,122 @@
+package com.example.pickme;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code PushMessages} builds and reads the data messages exchanged through a {@link PushTransport}.
+ *
+ * <p>Two messages exist, both carrying the key of the ride they are about (see {@link RidePaths}):</p>
+ * <ul>
+ *   <li>{@link #TYPE_BOOKING}, sent to the driver when a passenger books their ride;</li>
+ *   <li>{@link #TYPE_STATUS}, sent to the passengers when the driver changes the ride's
+ *   {@link RideStatus}.</li>
+ * </ul>
+ *
+ * <p>Data messages carry string values only. Messages that are malformed or of an unknown type,
+ * e.g. from a newer version, are ignored by {@link #dispatch}. The class has no Android dependencies
+ * so it can be exercised on the JVM.</p>
+ */
+public final class PushMessages {
+
+    /** Key of the message type. */
+    public static final String TYPE = "type";
+    /** Type of the message sent to the driver when a passenger books their ride. */
+    public static final String TYPE_BOOKING = "booking";
+    /** Type of the message sent to the passengers when the ride's status changes. */
+    public static final String TYPE_STATUS = "status";
+    /** Key of the ride key. */
+    public static final String RIDE_KEY = "rideKey";
+    /** Key of the booking passenger's uid. */
+    public static final String PASSENGER_UID = "passengerUid";
+    /** Key of the new status, as stored by {@link RideStatus#value()}. */
+    public static final String STATUS = "status";
+
+    /**
+     * Receives the messages read by {@link #dispatch}.
+     */
+    public interface Listener {
+        /**
+         * Called for a booking message.
+         *
+         * @param rideKey      The booked ride.
+         * @param passengerUid The passenger who booked it.
+         */
+        void onBooking(String rideKey, String passengerUid);
+
+        /**
+         * Called for a status message.
+         *
+         * @param rideKey The ride whose status changed.
+         * @param status  The new status.
+         */
+        void onStatus(String rideKey, RideStatus status);
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private PushMessages() {}
+
+    /**
+     * Builds a booking message.
+     *
+     * @param rideKey      The booked ride.
+     * @param passengerUid The passenger who booked it.
+     * @return The message payload.
+     */
+    public static Map<String, String> booking(String rideKey, String passengerUid) {
+        Map<String, String> data = new HashMap<>();
+        data.put(TYPE, TYPE_BOOKING);
+        data.put(RIDE_KEY, rideKey);
+        data.put(PASSENGER_UID, passengerUid);
+        return data;
+    }
+
+    /**
+     * Builds a status message.
+     *
+     * @param rideKey The ride whose status changed.
+     * @param status  The new status.
+     * @return The message payload.
+     */
+    public static Map<String, String> status(String rideKey, RideStatus status) {
+        Map<String, String> data = new HashMap<>();
+        data.put(TYPE, TYPE_STATUS);
+        data.put(RIDE_KEY, rideKey);
+        data.put(STATUS, status.value());
+        return data;
+    }
+
+    /**
+     * Reads a received message and passes it to a listener.
+     *
+     * @param data     The message payload, may be null.
+     * @param listener Receives the message if it is valid.
+     * @return true if the message was passed on, false if it was ignored.
+     */
+    public static boolean dispatch(Map<String, String> data, Listener listener) {
+        if (data == null || !RidePaths.isRideKey(data.get(RIDE_KEY))) {
+            return false;
+        }
+        String rideKey = data.get(RIDE_KEY);
+        if (TYPE_BOOKING.equals(data.get(TYPE))) {
+            String passengerUid = data.get(PASSENGER_UID);
+            if (passengerUid == null || passengerUid.isEmpty()) {
+                return false;
+            }
+            listener.onBooking(rideKey, passengerUid);
+            return true;
+        }
+        if (TYPE_STATUS.equals(data.get(TYPE))) {
+            // A missing status would parse as WAITING; require it to be present
+            RideStatus status = data.get(STATUS) != null ? RideStatus.fromValue(data.get(STATUS)) : null;
+            if (status == null) {
+                return false;
+            }
+            listener.onStatus(rideKey, status);
+            return true;
+        }
+        return false;
+    }
+}
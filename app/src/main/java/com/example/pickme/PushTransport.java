@@ -0,0 +1,22 @@
+package com.example.pickme;
+
+import java.util.Map;
+
+/**
+ * {@code PushTransport} sends data messages to the devices of a user.
+ *
+ * <p>Messages are built and read by {@link PushMessages}. On devices the transport is
+ * {@link DatabasePushTransport}; tests use an in-memory transport that hands messages straight to
+ * the receiving side.</p>
+ */
+public interface PushTransport {
+
+    /**
+     * Sends a data message. Delivery is asynchronous and not guaranteed; receivers must tolerate
+     * messages that arrive late, twice or not at all.
+     *
+     * @param recipientUid The uid of the user whose devices receive the message.
+     * @param data         The message payload, as built by {@link PushMessages}.
+     */
+    void send(String recipientUid, Map<String, String> data);
+}
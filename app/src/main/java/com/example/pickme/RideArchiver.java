@@ -0,0 +1,83 @@
+package com.example.pickme;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code RideArchiver} builds the multi-path update that moves a live ride into history.
+ *
+ * <p>For a ride stored at {@code RidesByDay/{rideKey}} (see {@link RidePaths}) the update:</p>
+ * <ul>
+ *   <li>writes the ride, without its passengers, to {@code HistoryDriver/{driverUid}/{historyKey}}</li>
+ *   <li>writes each passenger's booking to {@code HistoryPassenger/{passengerUid}/{historyKey}}</li>
+ *   <li>clears each passenger's {@code PassengerRides/{passengerUid}} index entry</li>
+ *   <li>clears the driver's {@code DriverActiveRide/{driverUid}} pointer</li>
+ *   <li>deletes {@code RidesByDay/{rideKey}}</li>
+ * </ul>
+ *
+ * <p>Applied with a single {@code updateChildren} call on the database root, either all of these
+ * writes happen or none do, so a ride can never be left half archived. The class has no Android
+ * dependencies so it can be exercised on the JVM.</p>
+ */
+public final class RideArchiver {
+
+    /**
+     * Name of the child holding a ride's passengers.
+     */
+    static final String PASSENGERS = "Passengers";
+
+    /**
+     * Not instantiable.
+     */
+    private RideArchiver() {}
+
+    /**
+     * Builds the archival update for one ride.
+     *
+     * @param driverUid   The uid of the driver.
+     * @param rideKey     The ride's key, as stored in the pointers.
+     * @param ride        The ride's current value, as returned by {@code DataSnapshot#getValue()}.
+     * @param historyKey  The key to store the history entries under (normally a push key).
+     * @param finalStatus The status recorded on the history entries, e.g. "completed".
+     * @return The path-to-value map to pass to {@code updateChildren} on the database root.
+     * @throws IllegalArgumentException if any argument is null
+     */
+    public static Map<String, Object> buildArchiveUpdates(String driverUid, String rideKey, Map<String, Object> ride,
+                                                          String historyKey, String finalStatus) {
+        if (driverUid == null || rideKey == null || ride == null || historyKey == null || finalStatus == null) {
+            throw new IllegalArgumentException("driverUid, rideKey, ride, historyKey and finalStatus are required");
+        }
+
+        Map<String, Object> updates = new HashMap<>();
+
+        // Driver history: everything except the passengers
+        Map<String, Object> driverData = new HashMap<>(ride);
+        driverData.remove(PASSENGERS);
+        driverData.put("status", finalStatus);
+        updates.put("HistoryDriver/" + driverUid + "/" + historyKey, driverData);
+
+        // Passenger history and index cleanup
+        Object passengers = ride.get(PASSENGERS);
+        if (passengers instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) passengers).entrySet()) {
+                String passengerUid = String.valueOf(entry.getKey());
+                Object passengerData = entry.getValue();
+                if (passengerData instanceof Map) {
+                    Map<String, Object> history = new HashMap<>();
+                    for (Map.Entry<?, ?> field : ((Map<?, ?>) passengerData).entrySet()) {
+                        history.put(String.valueOf(field.getKey()), field.getValue());
+                    }
+                    history.put("status", finalStatus);
+                    passengerData = history;
+                }
+                updates.put("HistoryPassenger/" + passengerUid + "/" + historyKey, passengerData);
+                updates.put(RidePaths.PASSENGER_RIDES + "/" + passengerUid, null);
+            }
+        }
+
+        // Remove the live ride and the driver's pointer to it in the same write
+        updates.put(RidePaths.DRIVER_ACTIVE_RIDE + "/" + driverUid, null);
+        updates.put(RidePaths.ridePath(rideKey), null);
+        return updates;
+    }
+}
@@ -2,14 +2,14 @@ package com.example.pickme;
 
 import android.annotation.SuppressLint;
 import android.app.Notification;
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -26,9 +26,8 @@ import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
+import java.util.TimeZone;
 
 /**
  * {@code RideMonitorService} is an Android Service that runs in the background to monitor
@@ -36,33 +35,141 @@ import java.util.Set;
  * new passenger bookings. When a new passenger is detected for a ride owned by the current user,
  * it sends a notification to the user. This service runs as a foreground service to ensure
  * it continues operating even when the app is not in the foreground.
+ *
+ * <p>Holding a database connection open costs battery and memory, so the service only runs while
+ * the user has a ride: it is started when the user publishes a ride or books a seat on one (and at
+ * app start if they already have one, see {@link #startIfUserHasRide}), and stops itself once both
+ * {@code DriverActiveRide/{uid}} and {@code PassengerRides/{uid}} are empty, i.e. once the ride was
+ * deleted, archived or cancelled. While the service is not running, bookings and status changes
+ * reach the user as push messages, see {@link PickMeMessagingService}. The time the service was
+ * alive is added up per day, see {@link ServiceUptime}: it is saved every
+ * {@link #UPTIME_SAVE_INTERVAL_MILLIS} while the service runs, so a process killed without
+ * {@link #onDestroy} loses at most that much, and logged whenever the service stops.</p>
+ *
+ * <p>For a passenger's ride, the service posts a notification whenever the driver starts or ends the
+ * ride. Being accepted is per passenger, so that notification always comes from the push message.</p>
+ *
+ * <p>Bookings are collected for {@link #COALESCE_WINDOW_MILLIS} before anything is posted, then
+ * each ride gets one notification under a stable id, which later bookings update, plus a group
+ * summary. Each passenger is notified once per ride (see {@link NotificationCoalescer}); the
+ * passengers already notified are kept in SharedPreferences, so a restart of this sticky service
+ * does not notify the existing passengers again.</p>
  */
 public class RideMonitorService extends Service {
     /**
      * Tag for logging messages related to this service.
      */
     private static final String TAG = "RideMonitorService";
-    /**
-     * The ID for the notification channel used by this service.
-     */
-    private static final String CHANNEL_ID = "ride_notifications";
     /**
      * The unique ID for the foreground service notification.
      */
     private static final int NOTIFICATION_ID = 1;
     /**
-     * DatabaseReference to the "Rides" node in Firebase.
+     * Time bookings are collected before their notifications are posted.
      */
-    private DatabaseReference ridesRef;
+    private static final long COALESCE_WINDOW_MILLIS = 3_000;
     /**
-     * A map to store ChildEventListener instances, keyed by ride ID, for cleanup.
+     * Name of the shared preferences holding the per-day uptime, by {@code yyyyMMdd} key.
      */
-    private Map<String, ChildEventListener> listenersMap = new HashMap<>();
+    private static final String UPTIME_PREFS = "RideMonitorUptime";
     /**
-     * A set to keep track of ride IDs that are currently being monitored by the service.
+     * Interval at which the uptime of the running service is saved.
      */
-    private Set<String> monitoredRides = new HashSet<>();
-
+    private static final long UPTIME_SAVE_INTERVAL_MILLIS = 5 * 60_000;
+    /**
+     * Whether an instance of the service is running in this process.
+     */
+    private static volatile boolean running;
+    /**
+     * DatabaseReference to the current user's ride pointer, {@code DriverActiveRide/{uid}}.
+     * A driver has at most one active ride, so this is the only ride the service needs to watch.
+     */
+    private DatabaseReference pointerRef;
+    /**
+     * Listener on {@code DriverActiveRide/{uid}}, used to detect when the user's ride is published or
+     * removed without downloading the ride itself.
+     */
+    private ValueEventListener rideExistsListener;
+    /**
+     * The "Passengers" child of the watched ride, {@code RidesByDay/{rideKey}/Passengers}; null while
+     * no ride is watched.
+     */
+    private DatabaseReference passengersRef;
+    /**
+     * Key of the watched ride, see {@link RidePaths}.
+     */
+    private String watchedRideKey;
+    /**
+     * Listener on {@link #passengersRef}, attached only while the ride exists.
+     */
+    private ChildEventListener passengerListener;
+    /**
+     * Whether the user drives a ride: null until {@link #pointerRef} has been read.
+     */
+    private Boolean hasDriverRide;
+    /**
+     * DatabaseReference to the ride the current user is a passenger on, {@code PassengerRides/{uid}}.
+     */
+    private DatabaseReference passengerPointerRef;
+    /**
+     * Listener on {@link #passengerPointerRef}, moving {@link #passengerStatusListener} with it.
+     */
+    private ValueEventListener passengerPointerListener;
+    /**
+     * Whether the user is a passenger on a ride: null until {@link #passengerPointerRef} has been read.
+     */
+    private Boolean hasPassengerRide;
+    /**
+     * The "status" child of the ride the user is a passenger on; null while there is none.
+     */
+    private DatabaseReference passengerStatusRef;
+    /**
+     * Listener on {@link #passengerStatusRef}, notifying the passenger of status changes.
+     */
+    private ValueEventListener passengerStatusListener;
+    /**
+     * Key of the ride the user is a passenger on, see {@link RidePaths}.
+     */
+    private String passengerRideKey;
+    /**
+     * Wall-clock time the service was created, for the log of how long it ran.
+     */
+    private long createdAtMillis;
+    /**
+     * Wall-clock time up to which the uptime has been saved.
+     */
+    private long uptimeSavedAtMillis;
+    /**
+     * Counts the events and estimated bytes received by this service's listeners.
+     */
+    private final SyncTrafficMeter trafficMeter = new SyncTrafficMeter();
+    /**
+     * Tracks which bookings still need a notification; restored in {@link #onCreate}, see
+     * {@link RideNotifications#loadCoalescer}.
+     */
+    private NotificationCoalescer coalescer;
+    /**
+     * Main-thread handler running {@link #flushNotifications} at the end of a batching window.
+     */
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    /**
+     * Posts the notifications of the current batching window.
+     */
+    private final Runnable flushNotifications = this::flushNotifications;
+    /**
+     * Whether {@link #flushNotifications} is scheduled.
+     */
+    private boolean flushScheduled;
+    /**
+     * Saves the uptime so far and schedules itself again.
+     */
+    private final Runnable saveUptime = new Runnable() {
+        @Override
+        public void run() {
+            recordUptime();
+            handler.postDelayed(this, UPTIME_SAVE_INTERVAL_MILLIS);
+        }
+    };
     /**
      * Called by the system when the service is first created. This method is used for one-time setup.
      * It initializes Firebase references, creates the notification channel, starts the service
@@ -72,40 +179,89 @@ public class RideMonitorService extends Service {
     @Override
     public void onCreate() {
         super.onCreate();
-        ridesRef = FirebaseDatabase.getInstance().getReference("Rides");
-        createNotificationChannel();
-        startForeground(NOTIFICATION_ID, createServiceNotification("Monitoring Rides..."));
+        running = true;
+        createdAtMillis = System.currentTimeMillis();
+        uptimeSavedAtMillis = createdAtMillis;
+        handler.postDelayed(saveUptime, UPTIME_SAVE_INTERVAL_MILLIS);
+        coalescer = RideNotifications.loadCoalescer(this);
+        RideNotifications.createChannel(this);
+        startForeground(NOTIFICATION_ID, createServiceNotification("Monitoring your ride..."));
         startListeningForRides();
     }
 
     /**
-     * Creates a notification channel for Android Oreo (API 26) and above.
-     * This channel is used to categorize notifications sent by this service.
+     * Starts the service.
+     *
+     * <p>This method handles the proper service startup based on the Android version:</p>
+     * <ul>
+     *   <li>For Android Oreo (API 26) and above: Uses {@code startForegroundService()}</li>
+     *   <li>For earlier versions: Uses {@code startService()}</li>
+     * </ul>
+     *
+     * @param context Any context.
      */
-    private void createNotificationChannel() {
+    public static void start(Context context) {
+        Intent serviceIntent = new Intent(context, RideMonitorService.class);
+
+        // For Android Oreo (API 26) and above
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationManager manager = getSystemService(NotificationManager.class);
-            if (manager == null) {
-                Log.e(TAG, "Failed to create notification channel: NotificationManager is null");
+            context.startForegroundService(serviceIntent);
+        } else {
+            // For earlier versions
+            context.startService(serviceIntent);
+        }
+    }
+
+    /**
+     * Stops the service, e.g. when the user logs out.
+     *
+     * @param context Any context.
+     */
+    public static void stop(Context context) {
+        context.stopService(new Intent(context, RideMonitorService.class));
+    }
+
+    /**
+     * Starts the service if the signed-in user drives a ride or is a passenger on one, e.g. at app
+     * start after the service was stopped by the system. Costs at most two small reads.
+     *
+     * @param context Any context.
+     */
+    public static void startIfUserHasRide(Context context) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null || running) {
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        FirebaseDatabase database = FirebaseDatabase.getInstance();
+        database.getReference(RidePaths.DRIVER_ACTIVE_RIDE).child(user.getUid()).get().addOnSuccessListener(driver -> {
+            if (RidePaths.isRideKey(driver.getValue())) {
+                start(appContext);
                 return;
             }
+            database.getReference(RidePaths.PASSENGER_RIDES).child(user.getUid()).get().addOnSuccessListener(passenger -> {
+                if (RidePaths.isRideKey(passenger.getValue())) {
+                    start(appContext);
+                }
+            });
+        });
+    }
 
-            NotificationChannel channel = new NotificationChannel(
-                    CHANNEL_ID,
-                    "Ride Booking Notifications",
-                    NotificationManager.IMPORTANCE_HIGH
-            );
-            channel.setDescription("Notifications for new ride bookings");
-            manager.createNotificationChannel(channel);
-        }
+    /**
+     * @return true if the service is running in this process.
+     */
+    public static boolean isRunning() {
+        return running;
     }
 
     /**
-     * Starts listening for new rides or changes to existing rides in Firebase.
-     * It attaches a {@link ChildEventListener} to the "Rides" node.
-     * When a new ride is added, it checks if the ride belongs to the current user.
-     * If it does, a separate listener is attached to that ride's "Passengers" node.
-     * It also handles the removal of ride listeners when a ride is deleted.
+     * Starts listening for the current user's rides in Firebase.
+     * Instead of streaming the ride shards and filtering on the client, small listeners are attached
+     * to the user's pointers {@code DriverActiveRide/{uid}} and {@code PassengerRides/{uid}}, which
+     * hold the keys of their rides. When the driver pointer names a ride, a listener is attached to
+     * that ride's "Passengers"; when the passenger pointer names one, a listener is attached to that
+     * ride's "status". The listeners move with the pointers, and once both pointers are empty the
+     * user has no ride left and the service stops.
      */
     private void startListeningForRides() {
         Log.i(TAG, "startListeningForRides/method started");
@@ -117,119 +273,186 @@ public class RideMonitorService extends Service {
         }
 
         String uid = fbUser.getUid();
+        pointerRef = FirebaseDatabase.getInstance().getReference(RidePaths.DRIVER_ACTIVE_RIDE).child(uid);
 
-        // Listen to all rides
-        ridesRef.addChildEventListener(new ChildEventListener() {
+        // Listen only to the pointer to the user's own ride
+        rideExistsListener = new ValueEventListener() {
             /**
-             * Called when a new child is added to the "Rides" node.
-             * It checks if the newly added ride belongs to the current user and, if so,
-             * attaches a passenger listener to it.
-             * @param rideSnapshot The DataSnapshot containing the new ride data.
-             * @param previousChildName The key of the previous sibling child, or null if this is the first child.
+             * Called with the current value of {@code DriverActiveRide/{uid}} and again whenever it changes.
+             * Moves the passenger listener to the ride the pointer names, and stops the service if the
+             * user has no ride left.
+             * @param snapshot The DataSnapshot containing the ride key.
              */
             @Override
-            public void onChildAdded(@NonNull DataSnapshot rideSnapshot, @Nullable String previousChildName) {
-                String rideId = rideSnapshot.getKey();
-                Log.i(TAG, "Found ride: " + rideId);
-
-                // Check if this ride belongs to the current user by checking the uid field
-                if (rideSnapshot.hasChild("uid")) {
-                    String rideUid = rideSnapshot.child("uid").getValue(String.class);
-                    if (uid.equals(rideUid)) {
-                        Log.i(TAG, "This ride belongs to the current user: " + rideId);
-                        monitoredRides.add(rideId); // Add to set of monitored rides
-                        attachPassengerListener(rideId); // Attach a specific listener for passengers on this ride
-                    }
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                trafficMeter.record("DriverActiveRide/{uid}", snapshot.getValue());
+                Object value = snapshot.getValue();
+                String rideKey = RidePaths.isRideKey(value) ? (String) value : null;
+                hasDriverRide = rideKey != null;
+                if (rideKey != null && rideKey.equals(watchedRideKey)) {
+                    return;
+                }
+                if (passengerListener != null) {
+                    Log.i(TAG, "Removing listeners for ride: " + watchedRideKey);
+                    detachPassengerListener();
+                }
+                // Passengers of an ended ride will not come back; forget them
+                coalescer.retainRide(rideKey);
+                saveSeenPassengers();
+                if (rideKey != null) {
+                    Log.i(TAG, "Found ride for current user: " + uid);
+                    attachPassengerListener(rideKey);
+                } else {
+                    stopIfNoRide();
                 }
             }
 
             /**
-             * Called when the data at a child location is updated. Not used for primary logic in this service.
-             * @param snapshot The DataSnapshot containing the updated data.
-             * @param previousChildName The key of the previous sibling child.
+             * Called when a Firebase database operation is cancelled, e.g. when the user signed out
+             * and lost access to the pointer. The service cannot monitor anything without it, so it
+             * stops.
+             * @param error The DatabaseError object indicating the reason for the cancellation.
              */
             @Override
-            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {}
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error in ride listener: " + error.getMessage());
+                stopSelf();
+            }
+        };
+        pointerRef.addValueEventListener(rideExistsListener);
 
+        passengerPointerRef = FirebaseDatabase.getInstance().getReference(RidePaths.PASSENGER_RIDES).child(uid);
+        passengerPointerListener = new ValueEventListener() {
             /**
-             * Called when a child is removed from the "Rides" node.
-             * It removes the corresponding passenger listener and the ride from the monitored set.
-             * @param snapshot The DataSnapshot containing the data of the removed child.
+             * Called with the current value of {@code PassengerRides/{uid}} and again whenever it changes.
+             * Moves the status listener to the ride the pointer names, and stops the service if the
+             * user has no ride left.
+             * @param snapshot The DataSnapshot containing the ride key.
              */
             @Override
-            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
-                String rideId = snapshot.getKey();
-                if (monitoredRides.contains(rideId)) {
-                    Log.i(TAG, "Removing listeners for ride: " + rideId);
-                    if (listenersMap.containsKey(rideId)) {
-                        // Remove the specific passenger listener for this ride
-                        ridesRef.child(rideId).child("Passengers").removeEventListener(listenersMap.get(rideId));
-                        listenersMap.remove(rideId); // Remove from the map
-                    }
-                    monitoredRides.remove(rideId); // Remove from the set of monitored rides
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                trafficMeter.record("PassengerRides/{uid}", snapshot.getValue());
+                Object value = snapshot.getValue();
+                String rideKey = RidePaths.isRideKey(value) ? (String) value : null;
+                hasPassengerRide = rideKey != null;
+                if (rideKey != null && rideKey.equals(passengerRideKey)) {
+                    return;
+                }
+                detachStatusListener();
+                if (rideKey != null) {
+                    Log.i(TAG, "Current user is a passenger on ride: " + rideKey);
+                    attachStatusListener(rideKey);
+                } else {
+                    stopIfNoRide();
                 }
             }
 
             /**
-             * Called when a Firebase database operation is cancelled.
+             * Called when a Firebase database operation is cancelled; stops the service like the
+             * driver pointer listener does.
              * @param error The DatabaseError object indicating the reason for the cancellation.
              */
             @Override
             public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Error in ride listener: " + error.getMessage());
+                Log.e(TAG, "Error in passenger ride listener: " + error.getMessage());
+                stopSelf();
             }
+        };
+        passengerPointerRef.addValueEventListener(passengerPointerListener);
+    }
 
-            /**
-             * Called when a child is moved to a new position in the list. Not used for primary logic in this service.
-             * @param snapshot The DataSnapshot containing the data of the moved child.
-             * @param previousChildName The key of the previous sibling child.
-             */
-            @Override
-            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {}
-        });
+    /**
+     * Stops the service once both pointers have been read and neither names a ride, i.e. the user's
+     * rides were deleted, archived or cancelled.
+     */
+    private void stopIfNoRide() {
+        if (Boolean.FALSE.equals(hasDriverRide) && Boolean.FALSE.equals(hasPassengerRide)) {
+            Log.i(TAG, "No ride left, stopping");
+            stopSelf();
+        }
     }
 
     /**
-     * Attaches a {@link ChildEventListener} to the "Passengers" node of a specific ride.
-     * This listener is responsible for detecting new passenger additions to that ride
-     * and sending a notification. It also performs an initial check for existing passengers.
+     * Attaches a listener to the "status" of the ride the user is a passenger on, which notifies them
+     * whenever the driver starts or ends it. The value already there when the listener is attached is
+     * not notified.
      *
-     * @param rideId The ID of the ride to monitor for new passengers.
+     * @param rideKey The key of the ride, see {@link RidePaths}.
      */
-    private void attachPassengerListener(String rideId) {
-        Log.i(TAG, "Attaching passenger listener for ride: " + rideId);
-
-        // The path should be: Rides -> RideID -> Passengers
-        DatabaseReference passengersRef = ridesRef.child(rideId).child("Passengers");
+    private void attachStatusListener(String rideKey) {
+        passengerRideKey = rideKey;
+        passengerStatusRef = FirebaseDatabase.getInstance().getReference(RidePaths.ridePath(rideKey)).child(RideTransitions.STATUS);
+        passengerStatusListener = new ValueEventListener() {
+            /**
+             * The status last seen, so the initial value and repeated values are not notified.
+             */
+            private Object lastStatus;
+            private boolean initialized;
 
-        // First, check if there are already passengers when this listener is attached
-        passengersRef.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (snapshot.exists() && snapshot.getChildrenCount() > 0) {
-                    Log.d(TAG, "Ride " + rideId + " already has passengers. Sending notification.");
-                    sendDetailedNotification("Ride Booking", "You have passengers for your ride");
+                trafficMeter.record("RidesByDay/{rideKey}/status", snapshot.getValue());
+                Object value = snapshot.getValue();
+                boolean changed = initialized && value != null && !value.equals(lastStatus);
+                initialized = true;
+                lastStatus = value;
+                RideStatus status = RideStatus.fromValue(value);
+                // An accepted ride only means the driver accepted someone; each passenger's own
+                // acceptance reaches them as a push message instead
+                if (changed && status != null && status != RideStatus.ACCEPTED) {
+                    RideNotifications.showStatus(RideMonitorService.this, rideKey, status);
                 }
             }
 
             @Override
             public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Error checking existing passengers: " + error.getMessage());
+                Log.e(TAG, "Error in status listener: " + error.getMessage());
             }
-        });
+        };
+        passengerStatusRef.addValueEventListener(passengerStatusListener);
+    }
+
+    /**
+     * Detaches the status listener from the ride the user is a passenger on, if it is attached.
+     */
+    private void detachStatusListener() {
+        if (passengerStatusListener != null) {
+            passengerStatusRef.removeEventListener(passengerStatusListener);
+            passengerStatusListener = null;
+        }
+        passengerStatusRef = null;
+        passengerRideKey = null;
+    }
+
+    /**
+     * Attaches a {@link ChildEventListener} to the "Passengers" node of the user's ride.
+     * This listener is responsible for detecting new passenger additions to that ride
+     * and scheduling their notification. It is called once for each passenger already on the ride
+     * as well, which covers the passengers that booked while the service was not running; the ones
+     * that were already notified are skipped by the {@link NotificationCoalescer}.
+     *
+     * @param rideId The key of the ride to monitor for new passengers, see {@link RidePaths}.
+     */
+    private void attachPassengerListener(String rideId) {
+        Log.i(TAG, "Attaching passenger listener for ride: " + rideId);
+
+        // The path should be: RidesByDay -> Day -> RideID -> Passengers
+        watchedRideKey = rideId;
+        passengersRef = FirebaseDatabase.getInstance().getReference(RidePaths.ridePath(rideId)).child("Passengers");
 
-        // Now listen for new passengers being added
-        ChildEventListener passengerListener = new ChildEventListener() {
+        // Listen for passengers being added, starting with the existing ones
+        passengerListener = new ChildEventListener() {
             /**
              * Called when a new passenger is added to the "Passengers" node of the monitored ride.
-             * Sends a notification to the user.
+             * Queues a notification to the user, unless the passenger was already notified.
              * @param snapshot The DataSnapshot containing the new passenger data.
              * @param previousChildName The key of the previous sibling child, or null if this is the first child.
              */
             @Override
             public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
-                Log.i(TAG, "New passenger added for ride: " + rideId);
-                sendDetailedNotification("New Passenger", "A new passenger has booked your ride");
+                trafficMeter.record("RidesByDay/{rideKey}/Passengers", snapshot.getValue());
+                Log.i(TAG, "Passenger on ride: " + rideId);
+                scheduleNotification(rideId, snapshot.getKey());
             }
 
             /**
@@ -238,14 +461,21 @@ public class RideMonitorService extends Service {
              * @param previousChildName The key of the previous sibling child.
              */
             @Override
-            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {}
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                trafficMeter.record("RidesByDay/{rideKey}/Passengers", snapshot.getValue());
+            }
 
             /**
-             * Called when a passenger child is removed. Not used in this context.
+             * Called when a passenger child is removed. Forgets the passenger, so booking again
+             * is notified again.
              * @param snapshot The DataSnapshot containing the data of the removed child.
              */
             @Override
-            public void onChildRemoved(@NonNull DataSnapshot snapshot) {}
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                trafficMeter.record("RidesByDay/{rideKey}/Passengers", snapshot.getValue());
+                coalescer.forget(rideId, snapshot.getKey());
+                saveSeenPassengers();
+            }
 
             /**
              * Called when a Firebase database operation is cancelled for the passenger listener.
@@ -265,41 +495,79 @@ public class RideMonitorService extends Service {
             public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {}
         };
 
-        // Attach the listener to the passengers reference and save it in the map for later cleanup
+        // Attach the listener to the passengers reference; it is removed in detachPassengerListener()
         passengersRef.addChildEventListener(passengerListener);
-        listenersMap.put(rideId, passengerListener);
     }
 
     /**
-     * Sends a detailed notification to the user.
-     * The notification includes a title, content text, a small icon, and a tap action
-     * that opens the {@link HomeActivity}.
+     * Detaches the passenger listener from the user's ride, if it is attached, and logs the traffic
+     * received so far.
+     */
+    private void detachPassengerListener() {
+        if (passengerListener != null) {
+            passengersRef.removeEventListener(passengerListener);
+            passengerListener = null;
+        }
+        passengersRef = null;
+        watchedRideKey = null;
+        Log.i(TAG, "Listener traffic: " + trafficMeter.summary());
+    }
+
+    /**
+     * Queues a booking for the next batch of notifications, opening a batching window if none is open.
      *
-     * @param title The title of the notification.
-     * @param content The main text content of the notification.
-     */
-    private void sendDetailedNotification(String title, String content) {
-        Log.d(TAG, "Sending notification: " + title + " - " + content);
-
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
-                .setSmallIcon(R.drawable.icon_account_circle) // Small icon for the notification
-                .setContentTitle(title) // Title of the notification
-                .setContentText(content) // Content text of the notification
-                .setPriority(NotificationCompat.PRIORITY_HIGH) // High priority for important alerts
-                .setAutoCancel(true); // Notification dismisses when tapped
-
-        // Create an Intent to open HomeActivity when the notification is tapped
-        Intent intent = new Intent(this, HomeActivity.class);
-        PendingIntent pendingIntent = PendingIntent.getActivity(
-                this, 0, intent, PendingIntent.FLAG_IMMUTABLE); // FLAG_IMMUTABLE is required for API 31+
-        builder.setContentIntent(pendingIntent); // Set the intent for the notification
-
-        NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        if (manager != null) {
-            manager.notify((int) System.currentTimeMillis(), builder.build()); // Send the notification with a unique ID
-        } else {
-            Log.e(TAG, "NotificationManager is null");
+     * @param rideKey      The ride that was booked.
+     * @param passengerUid The passenger who booked it.
+     */
+    private void scheduleNotification(String rideKey, String passengerUid) {
+        if (coalescer.offer(rideKey, passengerUid) && !flushScheduled) {
+            flushScheduled = true;
+            handler.postDelayed(flushNotifications, COALESCE_WINDOW_MILLIS);
+        }
+    }
+
+    /**
+     * Posts one notification per ride that got passengers during the batching window, replacing
+     * the ride's previous one, and the group summary. The passengers then count as notified and are
+     * saved, see {@link #saveSeenPassengers}.
+     */
+    private void flushNotifications() {
+        flushScheduled = false;
+        Map<String, NotificationCoalescer.Batch> batches = coalescer.drain();
+        saveSeenPassengers();
+        RideNotifications.showBookings(this, batches);
+    }
+
+    /**
+     * Saves the passengers already notified, so a restarted service skips them.
+     */
+    private void saveSeenPassengers() {
+        RideNotifications.saveCoalescer(this, coalescer);
+    }
+
+    /**
+     * Adds the time since it was last saved to the per-day uptime kept in shared preferences.
+     *
+     * @return The per-day totals, including this run so far.
+     */
+    private Map<String, Long> recordUptime() {
+        SharedPreferences prefs = getSharedPreferences(UPTIME_PREFS, Context.MODE_PRIVATE);
+        Map<String, Long> perDay = new HashMap<>();
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (entry.getValue() instanceof Long) {
+                perDay.put(entry.getKey(), (Long) entry.getValue());
+            }
+        }
+        long now = System.currentTimeMillis();
+        ServiceUptime.add(perDay, uptimeSavedAtMillis, now, TimeZone.getDefault());
+        uptimeSavedAtMillis = now;
+
+        SharedPreferences.Editor editor = prefs.edit().clear();
+        for (Map.Entry<String, Long> entry : perDay.entrySet()) {
+            editor.putLong(entry.getKey(), entry.getValue());
         }
+        editor.apply();
+        return perDay;
     }
 
     /**
@@ -310,17 +578,11 @@ public class RideMonitorService extends Service {
      * @return A Notification object for the foreground service.
      */
     private Notification createServiceNotification(String content) {
-        Intent notificationIntent = new Intent(this, HomeActivity.class);
-        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0,
-                notificationIntent,
-                PendingIntent.FLAG_IMMUTABLE // FLAG_IMMUTABLE is required for API 31+
-        );
-
-        return new NotificationCompat.Builder(this, CHANNEL_ID)
+        return new NotificationCompat.Builder(this, RideNotifications.CHANNEL_ID)
                 .setContentTitle("PickMe") // Title of the foreground notification
-                .setContentText(content) // Content text (e.g., "Monitoring Rides...")
+                .setContentText(content) // Content text (e.g., "Monitoring your ride...")
                 .setSmallIcon(R.drawable.ic_launcher_foreground) // Small icon for the foreground notification
-                .setContentIntent(pendingIntent) // Intent to open HomeActivity
+                .setContentIntent(RideNotifications.contentIntent(this)) // Intent to open HomeActivity
                 .setPriority(NotificationCompat.PRIORITY_LOW) // Low priority for ongoing background service
                 .build();
     }
@@ -349,15 +611,31 @@ public class RideMonitorService extends Service {
     @Override
     public void onDestroy() {
         super.onDestroy();
-        // Clean up all attached ChildEventListeners
-        for (Map.Entry<String, ChildEventListener> entry : listenersMap.entrySet()) {
-            String rideId = entry.getKey();
-            ChildEventListener listener = entry.getValue();
-            ridesRef.child(rideId).child("Passengers").removeEventListener(listener);
+        running = false;
+        // Post what is still pending rather than losing it
+        handler.removeCallbacks(flushNotifications);
+        if (flushScheduled) {
+            flushNotifications();
         }
-
-        listenersMap.clear(); // Clear the map of listeners
-        monitoredRides.clear(); // Clear the set of monitored rides
+        // Clean up the attached listeners
+        if (pointerRef != null) {
+            detachPassengerListener();
+            if (rideExistsListener != null) {
+                pointerRef.removeEventListener(rideExistsListener);
+                rideExistsListener = null;
+            }
+        }
+        if (passengerPointerRef != null) {
+            detachStatusListener();
+            if (passengerPointerListener != null) {
+                passengerPointerRef.removeEventListener(passengerPointerListener);
+                passengerPointerListener = null;
+            }
+        }
+        handler.removeCallbacks(saveUptime);
+        Map<String, Long> perDay = recordUptime();
+        Log.i(TAG, "Ran for " + (System.currentTimeMillis() - createdAtMillis) / 1000 + " s; uptime per day: "
+                + ServiceUptime.summary(perDay));
     }
 
     /**
@@ -0,0 +1,215 @@
+package com.example.pickme;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+
+import java.util.Map;
+
+/**
+ * {@code RideNotifications} posts the ride notifications shown by {@link RideMonitorService} and
+ * {@link PickMeMessagingService}.
+ *
+ * <p>Each ride has one booking notification under a stable id (see
+ * {@link NotificationCoalescer#notificationId}) and the booking notifications share a group with a
+ * summary. Status notifications use the same id, so a passenger sees the latest state of their ride
+ * only. The passengers already notified are kept in SharedPreferences and shared by both senders,
+ * so a booking reported by both a push message and the live listener is notified once.</p>
+ */
+public final class RideNotifications {
+
+    /**
+     * The ID for the notification channel of ride notifications.
+     */
+    static final String CHANNEL_ID = "ride_notifications";
+    /**
+     * The ID of the summary notification grouping the per-ride notifications.
+     */
+    private static final int SUMMARY_NOTIFICATION_ID = 2;
+    /**
+     * Group key of the booking notifications.
+     */
+    private static final String GROUP_KEY = "com.example.pickme.RIDE_BOOKINGS";
+    /**
+     * SharedPreferences file name for notification state.
+     */
+    private static final String PREF_NAME = "RideNotificationPrefs";
+    /**
+     * SharedPreferences key for the passengers already notified, see {@link NotificationCoalescer#seenEntries}.
+     */
+    private static final String KEY_SEEN_PASSENGERS = "seenPassengers";
+    /**
+     * Tag for logging messages related to notifications.
+     */
+    private static final String TAG = "RideNotifications";
+
+    /**
+     * Opens {@link HomeActivity}; created once and shared by all ride notifications.
+     */
+    private static PendingIntent contentIntent;
+
+    /**
+     * Not instantiable.
+     */
+    private RideNotifications() {}
+
+    /**
+     * Creates the notification channel on Android Oreo (API 26) and above. Safe to call repeatedly.
+     *
+     * @param context Any context.
+     */
+    static void createChannel(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationManager manager = context.getSystemService(NotificationManager.class);
+            if (manager == null) {
+                Log.e(TAG, "Failed to create notification channel: NotificationManager is null");
+                return;
+            }
+
+            NotificationChannel channel = new NotificationChannel(
+                    CHANNEL_ID,
+                    "Ride Booking Notifications",
+                    NotificationManager.IMPORTANCE_HIGH
+            );
+            channel.setDescription("Notifications for new ride bookings");
+            manager.createNotificationChannel(channel);
+        }
+    }
+
+    /**
+     * Returns the intent opening {@link HomeActivity}, creating it on first use.
+     *
+     * @param context Any context.
+     * @return The shared intent.
+     */
+    static synchronized PendingIntent contentIntent(Context context) {
+        if (contentIntent == null) {
+            contentIntent = PendingIntent.getActivity(context.getApplicationContext(), 0,
+                    new Intent(context.getApplicationContext(), HomeActivity.class),
+                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE); // FLAG_IMMUTABLE is required for API 31+
+        }
+        return contentIntent;
+    }
+
+    /**
+     * Restores the passengers already notified.
+     *
+     * @param context Any context.
+     * @return A coalescer that skips them.
+     */
+    static NotificationCoalescer loadCoalescer(Context context) {
+        return new NotificationCoalescer(prefs(context).getStringSet(KEY_SEEN_PASSENGERS, null));
+    }
+
+    /**
+     * Saves the passengers already notified, so later senders skip them.
+     *
+     * @param context   Any context.
+     * @param coalescer The coalescer to save.
+     */
+    static void saveCoalescer(Context context, NotificationCoalescer coalescer) {
+        prefs(context).edit()
+                .putStringSet(KEY_SEEN_PASSENGERS, coalescer.seenEntries())
+                .apply();
+    }
+
+    /**
+     * Posts one notification per ride that got passengers, replacing the ride's previous one, and
+     * the group summary.
+     *
+     * @param context Any context.
+     * @param batches The batches drained from a {@link NotificationCoalescer}.
+     */
+    static void showBookings(Context context, Map<String, NotificationCoalescer.Batch> batches) {
+        if (batches.isEmpty()) {
+            return;
+        }
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager == null) {
+            Log.e(TAG, "NotificationManager is null");
+            return;
+        }
+        for (Map.Entry<String, NotificationCoalescer.Batch> entry : batches.entrySet()) {
+            NotificationCoalescer.Batch batch = entry.getValue();
+            String title = batch.newPassengers == 1 ? "New Passenger" : batch.newPassengers + " New Passengers";
+            String content = batch.totalPassengers == 1
+                    ? "A new passenger has booked your ride"
+                    : batch.totalPassengers + " passengers have booked your ride";
+            Log.d(TAG, "Sending notification: " + title + " - " + content);
+            // The ride's id is stable, so this replaces the notification of an earlier batch
+            manager.notify(NotificationCoalescer.notificationId(entry.getKey()), builder(context, title, content)
+                    .setGroup(GROUP_KEY)
+                    .build());
+        }
+
+        manager.notify(SUMMARY_NOTIFICATION_ID, builder(context, "Ride Booking", "You have passengers for your ride")
+                .setGroup(GROUP_KEY)
+                .setGroupSummary(true)
+                .build());
+    }
+
+    /**
+     * Tells a passenger that the driver changed their ride's status.
+     *
+     * @param context Any context.
+     * @param rideKey The ride.
+     * @param status  The new status.
+     */
+    static void showStatus(Context context, String rideKey, RideStatus status) {
+        String content;
+        switch (status) {
+            case ACCEPTED:
+                content = "Driver is on the way!";
+                break;
+            case IN_PROGRESS:
+                content = "Ride in progress";
+                break;
+            case COMPLETED:
+                content = "Ride completed";
+                break;
+            case EXPIRED:
+                content = "Ride expired";
+                break;
+            default:
+                content = "Waiting for confirmation..";
+                break;
+        }
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager == null) {
+            Log.e(TAG, "NotificationManager is null");
+            return;
+        }
+        manager.notify(NotificationCoalescer.notificationId(rideKey), builder(context, "Ride Update", content).build());
+    }
+
+    /**
+     * Creates a builder for a ride notification.
+     * The notification includes a title, content text, a small icon, and a tap action
+     * that opens the {@link HomeActivity}.
+     *
+     * @param context Any context.
+     * @param title The title of the notification.
+     * @param content The main text content of the notification.
+     * @return The builder, to be completed by the caller.
+     */
+    private static NotificationCompat.Builder builder(Context context, String title, String content) {
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.icon_account_circle) // Small icon for the notification
+                .setContentTitle(title) // Title of the notification
+                .setContentText(content) // Content text of the notification
+                .setPriority(NotificationCompat.PRIORITY_HIGH) // High priority for important alerts
+                .setContentIntent(contentIntent(context)) // Open HomeActivity when tapped
+                .setAutoCancel(true); // Notification dismisses when tapped
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+}
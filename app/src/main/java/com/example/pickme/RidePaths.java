@@ -0,0 +1,221 @@
+package com.example.pickme;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * {@code RidePaths} names the database locations of live rides.
+ *
+ * <p>Rides are sharded by departure day:</p>
+ * <ul>
+ *   <li>{@code RidesByDay/{yyyyMMdd}/{rideId}} holds the ride, under the day of its departure;</li>
+ *   <li>{@code DriverActiveRide/{driverUid}} holds the ride key of the driver's current ride;</li>
+ *   <li>{@code PassengerRides/{passengerUid}} holds the ride key of the ride the passenger booked.</li>
+ * </ul>
+ *
+ * <p>A ride key is {@code {yyyyMMdd}/{rideId}}, the ride's path below {@link #RIDES_BY_DAY}, so a ride
+ * is found from a pointer without knowing its departure. Days are UTC days, so every device puts a
+ * ride in the same shard whatever its time zone. Listing the rides of a period reads only the shards
+ * of its days, see {@link #daysBetween}.</p>
+ *
+ * <p>Rides used to be stored at {@code Rides/{driverUid}}; {@link RideShardMigrator} builds the
+ * updates that move them.
+ * The class has no Android dependencies so it can be exercised on the JVM.</p>
+ */
+public final class RidePaths {
+
+    /**
+     * Root of the day shards.
+     */
+    public static final String RIDES_BY_DAY = "RidesByDay";
+    /**
+     * Root of the driver-to-ride pointers.
+     */
+    public static final String DRIVER_ACTIVE_RIDE = "DriverActiveRide";
+    /**
+     * Root of the passenger-to-ride pointers.
+     */
+    public static final String PASSENGER_RIDES = "PassengerRides";
+    /**
+     * Root of the unsharded rides written by older versions.
+     */
+    static final String LEGACY_RIDES = "Rides";
+
+    /**
+     * Time zone of the day shards.
+     */
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    /**
+     * Not instantiable.
+     */
+    private RidePaths() {}
+
+    /**
+     * Returns the shard of a departure time.
+     *
+     * @param epochMillis The departure time in milliseconds since the epoch.
+     * @return The UTC day as {@code yyyyMMdd}.
+     */
+    public static String dayOf(long epochMillis) {
+        Calendar calendar = Calendar.getInstance(UTC);
+        calendar.setTimeInMillis(epochMillis);
+        return dayOf(calendar);
+    }
+
+    /**
+     * Returns the shards covering a period, in order.
+     *
+     * @param fromMillis Start of the period.
+     * @param toMillis   End of the period, inclusive.
+     * @return The UTC days from the day of {@code fromMillis} to the day of {@code toMillis}; empty if
+     *         the period ends before it starts.
+     */
+    public static List<String> daysBetween(long fromMillis, long toMillis) {
+        List<String> days = new ArrayList<>();
+        if (fromMillis > toMillis) {
+            return days;
+        }
+        Calendar calendar = Calendar.getInstance(UTC);
+        calendar.setTimeInMillis(fromMillis);
+        String last = dayOf(toMillis);
+        // yyyyMMdd keys compare like the dates they name
+        for (String day = dayOf(calendar); day.compareTo(last) <= 0; day = dayOf(calendar)) {
+            days.add(day);
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return days;
+    }
+
+    /**
+     * Builds a ride key.
+     *
+     * @param day    The ride's shard, as returned by {@link #dayOf(long)}.
+     * @param rideId The ride's key within the shard.
+     * @return {@code day/rideId}.
+     */
+    public static String rideKey(String day, String rideId) {
+        return day + "/" + rideId;
+    }
+
+    /**
+     * Returns the path of a ride from the database root.
+     *
+     * @param rideKey The ride key.
+     * @return {@code RidesByDay/{rideKey}}.
+     */
+    public static String ridePath(String rideKey) {
+        return RIDES_BY_DAY + "/" + rideKey;
+    }
+
+    /**
+     * Checks that a value read from a pointer is a ride key.
+     *
+     * @param value The stored value.
+     * @return true for a string of the form {@code yyyyMMdd/rideId}.
+     */
+    public static boolean isRideKey(Object value) {
+        if (!(value instanceof String)) {
+            return false;
+        }
+        String key = (String) value;
+        if (key.length() < 10 || key.charAt(8) != '/' || key.indexOf('/', 9) != -1) {
+            return false;
+        }
+        for (int i = 0; i < 8; i++) {
+            if (!Character.isDigit(key.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds the multi-path update that moves a ride from {@code Rides/{driverUid}} into its day
+     * shard, upgraded to {@link RideSchema#CURRENT_VERSION}.
+     *
+     * <p>The ride keeps the driver's uid as its id, so moving the same ride twice writes the same
+     * values. The driver's pointer and the pointers of the ride's passengers
+     * are set to the new key, and the old ride is deleted in the same write.</p>
+     *
+     * @param driverUid   The uid of the driver, i.e. the ride's key under "Rides".
+     * @param ride        The ride as returned by {@code DataSnapshot#getValue()}.
+     * @param timeZone    The time zone used to interpret version 1 dates.
+     * @param nowMillis   Departure used to pick the shard of a ride without a valid one.
+     * @return The path-to-value map to pass to {@code updateChildren} on the database root.
+     */
+    public static Map<String, Object> buildLegacyMove(String driverUid, Map<String, Object> ride,
+                                                      TimeZone timeZone, long nowMillis) {
+        Map<String, Object> moved = deepCopy(ride);
+        for (Map.Entry<String, Object> update : RideSchema.migrateRide(ride, timeZone).entrySet()) {
+            setPath(moved, update.getKey(), update.getValue());
+        }
+        if (!(moved.get("uid") instanceof String)) {
+            moved.put("uid", driverUid);
+        }
+        long departure = RideSchema.departureOf(moved);
+        String rideKey = rideKey(dayOf(departure > 0 ? departure : nowMillis), driverUid);
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(ridePath(rideKey), moved);
+        updates.put(DRIVER_ACTIVE_RIDE + "/" + driverUid, rideKey);
+        Object passengers = moved.get(RideArchiver.PASSENGERS);
+        if (passengers instanceof Map) {
+            for (Object passengerUid : ((Map<?, ?>) passengers).keySet()) {
+                updates.put(PASSENGER_RIDES + "/" + passengerUid, rideKey);
+            }
+        }
+        updates.put(LEGACY_RIDES + "/" + driverUid, null);
+        return updates;
+    }
+
+    /**
+     * Copies nested maps so a ride can be changed without touching the snapshot's value.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> deepCopy(Map<String, Object> map) {
+        Map<String, Object> copy = new HashMap<>(map);
+        for (Map.Entry<String, Object> entry : copy.entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                entry.setValue(deepCopy((Map<String, Object>) entry.getValue()));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Sets or, for null, removes the value at a slash-separated path below a map.
+     */
+    @SuppressWarnings("unchecked")
+    private static void setPath(Map<String, Object> map, String path, Object value) {
+        String[] segments = path.split("/");
+        Map<String, Object> parent = map;
+        for (int i = 0; i < segments.length - 1; i++) {
+            Object child = parent.get(segments[i]);
+            if (!(child instanceof Map)) {
+                if (value == null) {
+                    return;
+                }
+                child = new HashMap<String, Object>();
+                parent.put(segments[i], child);
+            }
+            parent = (Map<String, Object>) child;
+        }
+        if (value == null) {
+            parent.remove(segments[segments.length - 1]);
+        } else {
+            parent.put(segments[segments.length - 1], value);
+        }
+    }
+
+    private static String dayOf(Calendar calendar) {
+        int day = calendar.get(Calendar.YEAR) * 10_000
+                + (calendar.get(Calendar.MONTH) + 1) * 100
+                + calendar.get(Calendar.DAY_OF_MONTH);
+        return String.valueOf(day);
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.pickme;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * {@code RideRanker} orders candidate rides by how well they fit a passenger's request.
+ *
+ * <p>Each ride gets a cost in minutes, lower is better:</p>
+ * <ul>
+ *   <li><b>Pickup detour</b>: the extra distance the driver covers to go through the passenger's
+ *   pickup, {@code d(origin, pickup) + d(pickup, destination) - d(origin, destination)}.</li>
+ *   <li><b>Drop-off detour</b>: the extra distance from the pickup to the driver's destination when
+ *   going through the passenger's drop-off.</li>
+ *   <li><b>Departure gap</b>: the minutes between the ride's departure and the requested time.</li>
+ *   <li><b>Free seats</b>: a small bonus for seats left over after the booking, capped at
+ *   {@link #MAX_SPARE_SEATS}. Rides without enough free seats are left out.</li>
+ * </ul>
+ *
+ * <p>Detours are converted to minutes at {@link #MINUTES_PER_KM}. A missing coordinate on either side
+ * costs {@link #UNKNOWN_DETOUR_MINUTES} instead, so rides published without coordinates sort after
+ * comparable rides that have them. Distances use an equirectangular approximation, which is within
+ * a fraction of a percent of the great-circle distance at trip scale and needs no trigonometry per
+ * ride.</p>
+ *
+ * <p>Ranking allocates only two arrays per call, so thousands of rides are ranked within a frame; use
+ * {@link #rankAsync} to keep it off the main thread anyway. The class has no Android dependencies so
+ * it can be exercised on the JVM.</p>
+ */
+public final class RideRanker {
+
+    /**
+     * Minutes of driving per kilometer of detour, about 30 km/h in town.
+     */
+    static final double MINUTES_PER_KM = 2.0;
+    /**
+     * Cost of a detour that cannot be computed because a coordinate is missing.
+     */
+    static final double UNKNOWN_DETOUR_MINUTES = 30.0;
+    /**
+     * Minutes saved per spare seat.
+     */
+    static final double SPARE_SEAT_BONUS_MINUTES = 2.0;
+    /**
+     * Spare seats beyond this many earn no further bonus.
+     */
+    static final int MAX_SPARE_SEATS = 3;
+
+    /**
+     * Kilometers per degree of latitude.
+     */
+    private static final double KM_PER_DEGREE = 111.32;
+
+    /**
+     * What the passenger asked for, as saved by {@code HomeFragment.savePassengersData}.
+     */
+    public static final class Request {
+        /** Pickup latitude, or null if unknown. */
+        final Double originLat;
+        /** Pickup longitude, or null if unknown. */
+        final Double originLng;
+        /** Drop-off latitude, or null if unknown. */
+        final Double destinationLat;
+        /** Drop-off longitude, or null if unknown. */
+        final Double destinationLng;
+        /** Requested departure time in milliseconds since the epoch. */
+        final long departureEpochMillis;
+        /** Number of seats requested. */
+        final int passengerCount;
+
+        /**
+         * @param originLat            Pickup latitude, or null if unknown.
+         * @param originLng            Pickup longitude, or null if unknown.
+         * @param destinationLat       Drop-off latitude, or null if unknown.
+         * @param destinationLng       Drop-off longitude, or null if unknown.
+         * @param departureEpochMillis Requested departure time.
+         * @param passengerCount       Number of seats requested; values below 1 count as 1.
+         */
+        public Request(Double originLat, Double originLng, Double destinationLat, Double destinationLng,
+                       long departureEpochMillis, int passengerCount) {
+            this.originLat = originLat;
+            this.originLng = originLng;
+            this.destinationLat = destinationLat;
+            this.destinationLng = destinationLng;
+            this.departureEpochMillis = departureEpochMillis;
+            this.passengerCount = Math.max(1, passengerCount);
+        }
+    }
+
+    /**
+     * The request rides are ranked against.
+     */
+    private final Request request;
+    /**
+     * Cosine of the request's latitude, used to scale longitude differences.
+     */
+    private final double lngScale;
+
+    /**
+     * Creates a ranker for one passenger request.
+     *
+     * @param request The passenger's request.
+     */
+    public RideRanker(Request request) {
+        this.request = request;
+        double referenceLat = request.originLat != null ? request.originLat
+                : request.destinationLat != null ? request.destinationLat : 0;
+        this.lngScale = Math.cos(Math.toRadians(referenceLat));
+    }
+
+    /**
+     * Scores one ride.
+     *
+     * @param driver    The ride.
+     * @param freeSeats Seats not yet booked on the ride.
+     * @return The cost in minutes, or {@link Double#POSITIVE_INFINITY} if the ride cannot take the
+     *         request.
+     */
+    public double score(Driver driver, int freeSeats) {
+        if (freeSeats < request.passengerCount) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        Double driverOriginLat = driver.getOriginLat();
+        Double driverOriginLng = driver.getOriginLng();
+        Double driverDestinationLat = driver.getDestinationLat();
+        Double driverDestinationLng = driver.getDestinationLng();
+
+        double pickupMinutes;
+        if (request.originLat == null || request.originLng == null
+                || driverOriginLat == null || driverOriginLng == null) {
+            pickupMinutes = UNKNOWN_DETOUR_MINUTES;
+        } else if (driverDestinationLat == null || driverDestinationLng == null) {
+            // Without the driver's destination, count the way to the pickup and back
+            pickupMinutes = 2 * km(driverOriginLat, driverOriginLng, request.originLat, request.originLng) * MINUTES_PER_KM;
+        } else {
+            pickupMinutes = (km(driverOriginLat, driverOriginLng, request.originLat, request.originLng)
+                    + km(request.originLat, request.originLng, driverDestinationLat, driverDestinationLng)
+                    - km(driverOriginLat, driverOriginLng, driverDestinationLat, driverDestinationLng)) * MINUTES_PER_KM;
+        }
+
+        double dropOffMinutes;
+        if (request.destinationLat == null || request.destinationLng == null
+                || driverDestinationLat == null || driverDestinationLng == null) {
+            dropOffMinutes = UNKNOWN_DETOUR_MINUTES;
+        } else if (request.originLat == null || request.originLng == null) {
+            dropOffMinutes = 2 * km(request.destinationLat, request.destinationLng, driverDestinationLat, driverDestinationLng) * MINUTES_PER_KM;
+        } else {
+            dropOffMinutes = (km(request.originLat, request.originLng, request.destinationLat, request.destinationLng)
+                    + km(request.destinationLat, request.destinationLng, driverDestinationLat, driverDestinationLng)
+                    - km(request.originLat, request.originLng, driverDestinationLat, driverDestinationLng)) * MINUTES_PER_KM;
+        }
+
+        long departure = RideSchema.departureOf(driver);
+        double gapMinutes = departure > 0
+                ? Math.abs(departure - request.departureEpochMillis) / 60_000.0
+                : UNKNOWN_DETOUR_MINUTES;
+
+        int spare = Math.min(MAX_SPARE_SEATS, freeSeats - request.passengerCount);
+        // Rounding can make a detour very slightly negative
+        return Math.max(0, pickupMinutes) + Math.max(0, dropOffMinutes) + gapMinutes
+                - spare * SPARE_SEAT_BONUS_MINUTES;
+    }
+
+    /**
+     * Ranks rides, best first, leaving out rides that cannot take the request.
+     * Equal costs keep their input order.
+     *
+     * @param drivers   The candidate rides.
+     * @param freeSeats Free seats of each ride, in the same order.
+     * @return A new list with the ranked rides.
+     * @throws IllegalArgumentException if the two inputs have different sizes
+     */
+    public List<Driver> rank(List<Driver> drivers, int[] freeSeats) {
+        if (drivers.size() != freeSeats.length) {
+            throw new IllegalArgumentException("Expected " + drivers.size() + " seat counts, got " + freeSeats.length);
+        }
+
+        // Pack each (cost, index) pair into one long so a primitive sort orders them
+        long[] keys = new long[drivers.size()];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            double cost = score(drivers.get(i), freeSeats[i]);
+            if (cost != Double.POSITIVE_INFINITY) {
+                keys[count++] = ((long) sortableBits((float) cost) << 32) | i;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+
+        List<Driver> ranked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ranked.add(drivers.get((int) keys[i]));
+        }
+        return ranked;
+    }
+
+    /**
+     * Ranks rides within consecutive windows of a list, so a ride never moves out of its window.
+     * Used by the live listing, whose rides arrive in departure order one page at a time: ranking
+     * each page-sized window keeps rides loaded later below the ones already shown.
+     *
+     * @param drivers    The candidate rides, in departure order.
+     * @param freeSeats  Free seats of each ride, in the same order.
+     * @param windowSize Number of rides per window.
+     * @return A new list with the rides of each window ranked, windows in input order.
+     * @throws IllegalArgumentException if the two inputs have different sizes or the window is empty
+     */
+    public List<Driver> rankInWindows(List<Driver> drivers, int[] freeSeats, int windowSize) {
+        if (drivers.size() != freeSeats.length) {
+            throw new IllegalArgumentException("Expected " + drivers.size() + " seat counts, got " + freeSeats.length);
+        }
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be positive, got " + windowSize);
+        }
+
+        List<Driver> ranked = new ArrayList<>(drivers.size());
+        for (int start = 0; start < drivers.size(); start += windowSize) {
+            int end = Math.min(drivers.size(), start + windowSize);
+            ranked.addAll(rank(drivers.subList(start, end), Arrays.copyOfRange(freeSeats, start, end)));
+        }
+        return ranked;
+    }
+
+    /**
+     * Ranks rides on a background executor and delivers the result on another one.
+     *
+     * @param drivers        The candidate rides; must not be modified until the result arrives.
+     * @param freeSeats      Free seats of each ride, in the same order.
+     * @param background     Executor the ranking runs on.
+     * @param resultExecutor Executor the result is delivered on, normally the main thread.
+     * @param onRanked       Receives the ranked rides.
+     */
+    public void rankAsync(List<Driver> drivers, int[] freeSeats, Executor background,
+                          Executor resultExecutor, Consumer<List<Driver>> onRanked) {
+        background.execute(() -> {
+            List<Driver> ranked = rank(drivers, freeSeats);
+            resultExecutor.execute(() -> onRanked.accept(ranked));
+        });
+    }
+
+    /**
+     * Returns the distance between two points in kilometers.
+     */
+    private double km(double lat1, double lng1, double lat2, double lng2) {
+        double dy = (lat2 - lat1) * KM_PER_DEGREE;
+        double dx = (lng2 - lng1) * KM_PER_DEGREE * lngScale;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Maps a float to an int that compares the same way.
+     */
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        // Negative floats order backwards as ints; flipping their magnitude bits fixes that
+        return bits ^ ((bits >> 31) & 0x7fffffff);
+    }
+}
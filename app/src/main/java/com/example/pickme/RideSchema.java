@@ -0,0 +1,316 @@
+package com.example.pickme;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * {@code RideSchema} describes the typed layout of ride records and converts older records to it.
+ *
+ * <p>Schema versions:</p>
+ * <ul>
+ *   <li><b>1</b> (no {@code schemaVersion} field): {@code numberOfSeats}, {@code date} ("d/M/yyyy")
+ *   and {@code time} ("HH:mm") stored as strings on rides, and {@code numberOfPassengers} stored as a
+ *   string on passenger requests.</li>
+ *   <li><b>2</b>: an integer {@code seats}, a single {@code departureEpochMillis} and
+ *   {@code schemaVersion = 2} on rides, and an integer {@code passengerCount} on passenger requests.
+ *   These can be sorted, range-filtered and indexed on the server.</li>
+ * </ul>
+ *
+ * <p>Readers go through the accessors here, which prefer the typed fields and fall back to the
+ * version 1 strings for records {@link RideSchemaMigrator} and {@link RideShardMigrator} have not
+ * upgraded yet. The class has no Android dependencies so it can be exercised on the JVM.</p>
+ */
+public final class RideSchema {
+
+    /**
+     * The schema version written by this build.
+     */
+    public static final int CURRENT_VERSION = 2;
+
+    /**
+     * Time zone version 1 dates are read in by the migrations. The strings carry no zone; every
+     * driver entered them in Israel, and a fixed zone gives the same departure wherever a migration runs.
+     */
+    public static final TimeZone LEGACY_TIME_ZONE = TimeZone.getTimeZone("Asia/Jerusalem");
+
+    /** Key of the schema version marker on a ride. */
+    public static final String SCHEMA_VERSION = "schemaVersion";
+    /** Key of the integer seat count on a ride. */
+    public static final String SEATS = "seats";
+    /** Key of the departure time on a ride, in milliseconds since the epoch. */
+    public static final String DEPARTURE = "departureEpochMillis";
+    /** Key of the integer passenger count on a passenger request. */
+    public static final String PASSENGER_COUNT = "passengerCount";
+
+    /** Key of the pickup latitude on a ride or passenger request; the location fields are optional. */
+    public static final String ORIGIN_LAT = "originLat";
+    /** Key of the pickup longitude on a ride. */
+    public static final String ORIGIN_LNG = "originLng";
+    /** Key of the pickup geohash on a ride, indexed for proximity search. */
+    public static final String ORIGIN_GEOHASH = "originGeohash";
+    /** Key of the drop-off latitude on a ride. */
+    public static final String DESTINATION_LAT = "destinationLat";
+    /** Key of the drop-off longitude on a ride. */
+    public static final String DESTINATION_LNG = "destinationLng";
+    /** Key of the drop-off geohash on a ride. */
+    public static final String DESTINATION_GEOHASH = "destinationGeohash";
+
+    /** Version 1 seat count key. */
+    static final String LEGACY_SEATS = "numberOfSeats";
+    /** Version 1 date key. */
+    static final String LEGACY_DATE = "date";
+    /** Version 1 time key. */
+    static final String LEGACY_TIME = "time";
+    /** Version 1 passenger count key. */
+    static final String LEGACY_PASSENGER_COUNT = "numberOfPassengers";
+
+    /**
+     * Date pattern produced by {@code DriverFragment.showDatePicker}.
+     */
+    private static final String DATE_PATTERN = "d/M/yyyy";
+    /**
+     * Time pattern produced by {@code DriverFragment.showTimePicker}.
+     */
+    private static final String TIME_PATTERN = "HH:mm";
+
+    /**
+     * Not instantiable.
+     */
+    private RideSchema() {}
+
+    /**
+     * Returns the seat count of a ride.
+     *
+     * @param driver The ride.
+     * @return The seat count, or -1 if the ride has none.
+     */
+    public static int seatsOf(Driver driver) {
+        if (driver.getSchemaVersion() >= CURRENT_VERSION) {
+            return driver.getSeats();
+        }
+        return parseCount(driver.getNumberOfSeats());
+    }
+
+    /**
+     * Returns the seat count of a raw ride value.
+     *
+     * @param ride The ride as returned by {@code DataSnapshot#getValue()}, may be null.
+     * @return The seat count, or -1 if the ride has none.
+     */
+    public static int seatsOf(Map<String, ?> ride) {
+        if (ride == null) {
+            return -1;
+        }
+        int seats = parseCount(ride.get(SEATS));
+        return seats >= 0 ? seats : parseCount(ride.get(LEGACY_SEATS));
+    }
+
+    /**
+     * Returns the departure time of a ride.
+     *
+     * @param driver The ride.
+     * @return Milliseconds since the epoch, or 0 if the ride has no valid departure.
+     */
+    public static long departureOf(Driver driver) {
+        if (driver.getSchemaVersion() >= CURRENT_VERSION) {
+            return driver.getDepartureEpochMillis();
+        }
+        return toEpochMillis(driver.getDate(), driver.getTime(), TimeZone.getDefault());
+    }
+
+    /**
+     * Returns the departure time of a raw ride value.
+     *
+     * @param ride The ride as returned by {@code DataSnapshot#getValue()}, may be null.
+     * @return Milliseconds since the epoch, or 0 if the ride has no valid departure.
+     */
+    public static long departureOf(Map<String, ?> ride) {
+        if (ride == null) {
+            return 0;
+        }
+        Object departure = ride.get(DEPARTURE);
+        if (departure instanceof Number && ((Number) departure).longValue() > 0) {
+            return ((Number) departure).longValue();
+        }
+        return toEpochMillis(asString(ride.get(LEGACY_DATE)), asString(ride.get(LEGACY_TIME)), TimeZone.getDefault());
+    }
+
+    /**
+     * Returns the number of seats a passenger request asks for.
+     *
+     * @param passenger The passenger request.
+     * @return The passenger count, or -1 if the request has none.
+     */
+    public static int passengerCountOf(Passenger passenger) {
+        if (passenger.getPassengerCount() > 0) {
+            return passenger.getPassengerCount();
+        }
+        return parseCount(passenger.getNumberOfPassengers());
+    }
+
+    /**
+     * Returns the number of seats a raw passenger request asks for.
+     *
+     * @param passenger The request as returned by {@code DataSnapshot#getValue()}, may be null.
+     * @return The passenger count, or -1 if the request has none.
+     */
+    public static int passengerCountOf(Map<?, ?> passenger) {
+        if (passenger == null) {
+            return -1;
+        }
+        int count = parseCount(passenger.get(PASSENGER_COUNT));
+        return count >= 0 ? count : parseCount(passenger.get(LEGACY_PASSENGER_COUNT));
+    }
+
+    /**
+     * Converts a version 1 date and time pair to epoch milliseconds.
+     *
+     * @param date     The date in "d/M/yyyy" form.
+     * @param time     The time in "HH:mm" form; midnight is assumed when missing.
+     * @param timeZone The time zone the driver entered the values in.
+     * @return Milliseconds since the epoch, or 0 if the date cannot be parsed.
+     */
+    public static long toEpochMillis(String date, String time, TimeZone timeZone) {
+        if (date == null || date.trim().isEmpty()) {
+            return 0;
+        }
+        String pattern = DATE_PATTERN;
+        String value = date.trim();
+        if (time != null && !time.trim().isEmpty()) {
+            pattern += " " + TIME_PATTERN;
+            value += " " + time.trim();
+        }
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setTimeZone(timeZone);
+        format.setLenient(false);
+        try {
+            return format.parse(value).getTime();
+        } catch (ParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Formats the date part of a departure time for display.
+     *
+     * @param epochMillis The departure time.
+     * @return The date in "d/M/yyyy" form, or an empty string if unknown.
+     */
+    public static String formatDate(long epochMillis) {
+        return format(epochMillis, DATE_PATTERN);
+    }
+
+    /**
+     * Formats the time part of a departure time for display.
+     *
+     * @param epochMillis The departure time.
+     * @return The time in "HH:mm" form, or an empty string if unknown.
+     */
+    public static String formatTime(long epochMillis) {
+        return format(epochMillis, TIME_PATTERN);
+    }
+
+    /**
+     * Builds the field updates that bring a ride to the current version.
+     * Passenger requests stored under the ride's "Passengers" child are converted as well.
+     *
+     * @param ride     The ride as returned by {@code DataSnapshot#getValue()}.
+     * @param timeZone The time zone used to interpret version 1 dates.
+     * @return Updates keyed by path relative to the ride (deletions map to null); empty if the ride
+     *         is already current.
+     */
+    public static Map<String, Object> migrateRide(Map<String, ?> ride, TimeZone timeZone) {
+        Map<String, Object> updates = new HashMap<>();
+        if (ride == null || versionOf(ride) >= CURRENT_VERSION) {
+            return updates;
+        }
+
+        int seats = seatsOf(ride);
+        if (seats >= 0) {
+            updates.put(SEATS, seats);
+        }
+        long departure = toEpochMillis(asString(ride.get(LEGACY_DATE)), asString(ride.get(LEGACY_TIME)), timeZone);
+        if (departure > 0) {
+            updates.put(DEPARTURE, departure);
+        }
+        updates.put(LEGACY_SEATS, null);
+        updates.put(LEGACY_DATE, null);
+        updates.put(LEGACY_TIME, null);
+        updates.put(SCHEMA_VERSION, CURRENT_VERSION);
+
+        Object passengers = ride.get(RideArchiver.PASSENGERS);
+        if (passengers instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) passengers).entrySet()) {
+                if (!(entry.getValue() instanceof Map)) {
+                    continue;
+                }
+                Map<?, ?> passenger = (Map<?, ?>) entry.getValue();
+                if (!passenger.containsKey(LEGACY_PASSENGER_COUNT)) {
+                    continue;
+                }
+                String prefix = RideArchiver.PASSENGERS + "/" + entry.getKey() + "/";
+                int count = passengerCountOf(passenger);
+                if (count >= 0) {
+                    updates.put(prefix + PASSENGER_COUNT, count);
+                }
+                updates.put(prefix + LEGACY_PASSENGER_COUNT, null);
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Returns the schema version of a raw ride value.
+     *
+     * @param ride The ride.
+     * @return The version; 1 if the ride has no marker.
+     */
+    public static int versionOf(Map<String, ?> ride) {
+        int version = parseCount(ride.get(SCHEMA_VERSION));
+        return version > 0 ? version : 1;
+    }
+
+    /**
+     * Parses a count that may be stored as a number or as a numeric string.
+     *
+     * @param value The stored value.
+     * @return The count, or -1 if the value is missing or not a non-negative integer.
+     */
+    static int parseCount(Object value) {
+        if (value instanceof Number) {
+            long count = ((Number) value).longValue();
+            return count >= 0 && count <= Integer.MAX_VALUE ? (int) count : -1;
+        }
+        if (value instanceof String) {
+            try {
+                int count = Integer.parseInt(((String) value).trim());
+                return count >= 0 ? count : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Formats an epoch time with a pattern in the default time zone.
+     */
+    private static String format(long epochMillis, String pattern) {
+        if (epochMillis <= 0) {
+            return "";
+        }
+        return new SimpleDateFormat(pattern, Locale.US).format(new Date(epochMillis));
+    }
+
+    /**
+     * Returns a value as a string, or null if it is not one.
+     */
+    private static String asString(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.pickme;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * {@code RideSchemaMigrator} builds the updates that upgrade the ride records of "HistoryDriver" to
+ * {@link RideSchema#CURRENT_VERSION}.
+ *
+ * <p>The migration rewrites every user's data, so it is not run by the app: an administrator runs
+ * {@link #main} once against an export of the database and applies the batches it writes. Version 1
+ * dates are read in {@link RideSchema#LEGACY_TIME_ZONE}, so the result does not depend on where the
+ * tool runs. History records are immutable, so field updates computed from an export stay correct
+ * when applied later; the updates of up to {@link #MAX_RECORDS_PER_BATCH} records are merged into one
+ * multi-path update. Live rides left in "Rides" are upgraded as {@link RideShardMigrator} moves them
+ * into their day shards, so they are not touched here.</p>
+ *
+ * <p>The class has no Android dependencies so it can be exercised on the JVM.</p>
+ */
+public final class RideSchemaMigrator {
+
+    /**
+     * The collection this migration upgrades.
+     */
+    static final String HISTORY_DRIVER = "HistoryDriver";
+    /**
+     * Maximum number of records upgraded by one multi-path update.
+     */
+    static final int MAX_RECORDS_PER_BATCH = 50;
+
+    /**
+     * Not instantiable.
+     */
+    private RideSchemaMigrator() {}
+
+    /**
+     * Builds the updates that upgrade every history record below the current version.
+     *
+     * @param historyDriver The value of "HistoryDriver": history entries by key, by driver uid.
+     * @param timeZone      The time zone used to interpret version 1 dates.
+     * @return Multi-path updates to apply in any order with {@code updateChildren} on the database
+     *         root; empty if every record is current.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Map<String, Object>> buildBatches(Map<String, ?> historyDriver, TimeZone timeZone) {
+        List<Map<String, Object>> batches = new ArrayList<>();
+        if (historyDriver == null) {
+            return batches;
+        }
+
+        Map<String, Object> batch = new HashMap<>();
+        int recordsInBatch = 0;
+        for (Map.Entry<String, ?> driverHistory : historyDriver.entrySet()) {
+            if (!(driverHistory.getValue() instanceof Map)) {
+                continue;
+            }
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) driverHistory.getValue()).entrySet()) {
+                if (!(entry.getValue() instanceof Map)) {
+                    continue;
+                }
+                Map<String, Object> updates = RideSchema.migrateRide((Map<String, Object>) entry.getValue(), timeZone);
+                if (updates.isEmpty()) {
+                    continue;
+                }
+                String prefix = HISTORY_DRIVER + "/" + driverHistory.getKey() + "/" + entry.getKey() + "/";
+                for (Map.Entry<String, Object> field : updates.entrySet()) {
+                    batch.put(prefix + field.getKey(), field.getValue());
+                }
+                if (++recordsInBatch == MAX_RECORDS_PER_BATCH) {
+                    batches.add(batch);
+                    batch = new HashMap<>();
+                    recordsInBatch = 0;
+                }
+            }
+        }
+        if (recordsInBatch > 0) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * Migrates an exported database.
+     *
+     * @param export   The export, as parsed by {@link JsonExport#parse}.
+     * @param timeZone The time zone used to interpret version 1 dates.
+     * @return The multi-path updates, as {@link #buildBatches} returns them.
+     * @throws IllegalArgumentException if the export is not a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    static List<Map<String, Object>> migrateExport(Object export, TimeZone timeZone) {
+        if (!(export instanceof Map)) {
+            throw new IllegalArgumentException("The export must be a JSON object");
+        }
+        Object historyDriver = ((Map<String, Object>) export).get(HISTORY_DRIVER);
+        return buildBatches(historyDriver instanceof Map ? (Map<String, Object>) historyDriver : null, timeZone);
+    }
+
+    /**
+     * Migrates an exported database and writes one JSON file per batch, each to be applied with
+     * {@code firebase database:update / schema-NNN.json}.
+     *
+     * <p>Usage: {@code RideSchemaMigrator <export.json> <outputDir>}.</p>
+     *
+     * @param args The export file and the output directory.
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: RideSchemaMigrator <export.json> <outputDir>");
+            System.exit(2);
+        }
+
+        String json = new String(Files.readAllBytes(Paths.get(args[0])), StandardCharsets.UTF_8);
+        List<Map<String, Object>> batches = migrateExport(JsonExport.parse(json), RideSchema.LEGACY_TIME_ZONE);
+
+        Path outputDir = Files.createDirectories(Paths.get(args[1]));
+        for (int i = 0; i < batches.size(); i++) {
+            Path file = outputDir.resolve(String.format("schema-%03d.json", i + 1));
+            Files.write(file, JsonExport.write(batches.get(i)).getBytes(StandardCharsets.UTF_8));
+        }
+        System.out.println(batches.size() + " batches of history upgrades written to " + outputDir);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.pickme;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * {@code RideShardMigrator} builds the updates that move the rides written by older versions from
+ * {@code Rides/{driverUid}} into the day shards described by {@link RidePaths}.
+ *
+ * <p>The move rewrites every driver's ride and pointers, so it is not run by the app: an administrator
+ * runs {@link #main} once against an export of the database and applies the batches it writes. Each
+ * ride is moved with {@link RidePaths#buildLegacyMove}, which writes the ride to its shard, points the
+ * driver and passengers at it and deletes the original, so a ride is never in both places; the moves
+ * of up to {@link #MAX_RIDES_PER_BATCH} rides are merged into one multi-path update. Rides are
+ * upgraded to {@link RideSchema#CURRENT_VERSION} as they move, with version 1 dates read in
+ * {@link RideSchema#LEGACY_TIME_ZONE} so the shard does not depend on where the tool runs.</p>
+ *
+ * <p>A move writes the ride as exported, so the batches must be applied before older app versions,
+ * which still book on "Rides", can change them. The class has no Android dependencies so it can be
+ * exercised on the JVM.</p>
+ */
+public final class RideShardMigrator {
+
+    /**
+     * Maximum number of rides moved by one multi-path update.
+     */
+    static final int MAX_RIDES_PER_BATCH = 50;
+
+    /**
+     * Not instantiable.
+     */
+    private RideShardMigrator() {}
+
+    /**
+     * Builds the updates that move every legacy ride into its day shard.
+     *
+     * @param legacyRides The value of "Rides": rides by driver uid.
+     * @param timeZone    The time zone used to interpret version 1 dates.
+     * @param nowMillis   Departure used to pick the shard of a ride without a valid one.
+     * @return Multi-path updates to apply in order with {@code updateChildren} on the database root;
+     *         empty if there is nothing to move.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Map<String, Object>> buildBatches(Map<String, ?> legacyRides, TimeZone timeZone, long nowMillis) {
+        List<Map<String, Object>> batches = new ArrayList<>();
+        if (legacyRides == null) {
+            return batches;
+        }
+
+        Map<String, Object> batch = new HashMap<>();
+        int ridesInBatch = 0;
+        for (Map.Entry<String, ?> entry : legacyRides.entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                batch.putAll(RidePaths.buildLegacyMove(entry.getKey(), (Map<String, Object>) entry.getValue(), timeZone, nowMillis));
+            } else {
+                // Not a ride; drop it
+                batch.put(RidePaths.LEGACY_RIDES + "/" + entry.getKey(), null);
+            }
+            if (++ridesInBatch == MAX_RIDES_PER_BATCH) {
+                batches.add(batch);
+                batch = new HashMap<>();
+                ridesInBatch = 0;
+            }
+        }
+        if (ridesInBatch > 0) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * Moves the legacy rides of an exported database.
+     *
+     * @param export    The export, as parsed by {@link JsonExport#parse}.
+     * @param timeZone  The time zone used to interpret version 1 dates.
+     * @param nowMillis The current time.
+     * @return The multi-path updates, as {@link #buildBatches} returns them.
+     * @throws IllegalArgumentException if the export is not a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    static List<Map<String, Object>> migrateExport(Object export, TimeZone timeZone, long nowMillis) {
+        if (!(export instanceof Map)) {
+            throw new IllegalArgumentException("The export must be a JSON object");
+        }
+        Object legacyRides = ((Map<String, Object>) export).get(RidePaths.LEGACY_RIDES);
+        return buildBatches(legacyRides instanceof Map ? (Map<String, Object>) legacyRides : null, timeZone, nowMillis);
+    }
+
+    /**
+     * Moves the legacy rides of an exported database and writes one JSON file per batch, each to be
+     * applied with {@code firebase database:update / shard-NNN.json}.
+     *
+     * <p>Usage: {@code RideShardMigrator <export.json> <outputDir>}.</p>
+     *
+     * @param args The export file and the output directory.
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: RideShardMigrator <export.json> <outputDir>");
+            System.exit(2);
+        }
+
+        String json = new String(Files.readAllBytes(Paths.get(args[0])), StandardCharsets.UTF_8);
+        List<Map<String, Object>> batches = migrateExport(JsonExport.parse(json), RideSchema.LEGACY_TIME_ZONE,
+                System.currentTimeMillis());
+
+        Path outputDir = Files.createDirectories(Paths.get(args[1]));
+        for (int i = 0; i < batches.size(); i++) {
+            Path file = outputDir.resolve(String.format("shard-%03d.json", i + 1));
+            Files.write(file, JsonExport.write(batches.get(i)).getBytes(StandardCharsets.UTF_8));
+        }
+        System.out.println(batches.size() + " batches of ride moves written to " + outputDir);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.pickme;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lifecycle status of a ride, stored as a string in {@code RidesByDay/{rideKey}/status}.
+ *
+ * <p>The allowed transitions are listed in one table:</p>
+ * <pre>
+ *   WAITING     -&gt; ACCEPTED                 driver accepts the first passenger
+ *   ACCEPTED    -&gt; IN_PROGRESS, WAITING     driver starts the ride / last passenger leaves
+ *   IN_PROGRESS -&gt; COMPLETED                driver ends the ride
+ *   COMPLETED   (final)
+ *   EXPIRED     (final)
+ * </pre>
+ *
+ * <p>A ride without a status field is {@link #WAITING}. Status changes are applied with
+ * {@link RideTransitions} inside a transaction, which rejects anything not in the table.
+ * {@link #EXPIRED} is never set on a live ride: {@link RideSweeper} records it on the history
+ * entries of rides it archives because their departure passed long ago.</p>
+ */
+public enum RideStatus {
+
+    /** Published and open for bookings; the default for rides without a status. */
+    WAITING("waiting"),
+    /** The driver accepted at least one passenger, see {@link RideTransitions#passengerStatus}. */
+    ACCEPTED("accepted"),
+    /** The driver is on the way with the passengers. */
+    IN_PROGRESS("in_progress"),
+    /** The ride has ended; recorded on history entries. */
+    COMPLETED("completed"),
+    /** The ride was abandoned and archived by {@link RideSweeper}; recorded on history entries. */
+    EXPIRED("expired");
+
+    /**
+     * Allowed targets for each status.
+     */
+    private static final Map<RideStatus, Set<RideStatus>> TRANSITIONS = new EnumMap<>(RideStatus.class);
+
+    static {
+        TRANSITIONS.put(WAITING, EnumSet.of(ACCEPTED));
+        TRANSITIONS.put(ACCEPTED, EnumSet.of(IN_PROGRESS, WAITING));
+        TRANSITIONS.put(IN_PROGRESS, EnumSet.of(COMPLETED));
+        TRANSITIONS.put(COMPLETED, EnumSet.noneOf(RideStatus.class));
+        TRANSITIONS.put(EXPIRED, EnumSet.noneOf(RideStatus.class));
+    }
+
+    /**
+     * The string stored in the database.
+     */
+    private final String value;
+
+    RideStatus(String value) {
+        this.value = value;
+    }
+
+    /**
+     * @return The string stored in the database for this status.
+     */
+    public String value() {
+        return value;
+    }
+
+    /**
+     * Checks whether this status may change to another one.
+     *
+     * @param target The requested status.
+     * @return true if the transition is in the table.
+     */
+    public boolean canTransitionTo(RideStatus target) {
+        return TRANSITIONS.get(this).contains(target);
+    }
+
+    /**
+     * @return The statuses this one may change to.
+     */
+    public Set<RideStatus> allowedTargets() {
+        return Collections.unmodifiableSet(TRANSITIONS.get(this));
+    }
+
+    /**
+     * Whether passengers may still book or leave a ride in this status.
+     *
+     * @return true for {@link #WAITING} and {@link #ACCEPTED}.
+     */
+    public boolean isOpen() {
+        return this == WAITING || this == ACCEPTED;
+    }
+
+    /**
+     * Parses a stored status.
+     *
+     * @param stored The stored value, e.g. from {@code DataSnapshot#getValue()}.
+     * @return The status; {@link #WAITING} if missing, or null if the value is not a known status.
+     */
+    public static RideStatus fromValue(Object stored) {
+        if (stored == null) {
+            return WAITING;
+        }
+        for (RideStatus status : values()) {
+            if (status.value.equals(stored)) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
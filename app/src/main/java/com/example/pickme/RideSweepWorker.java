@@ -0,0 +1,134 @@
+package com.example.pickme;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code RideSweepWorker} periodically archives abandoned rides with {@link RideSweeper}.
+ *
+ * <p>Only the day shards that can hold expired rides are read: the query orders
+ * {@link RidePaths#RIDES_BY_DAY} by key and ends at the day of the cutoff, oldest first and at most
+ * {@link #MAX_DAYS_PER_RUN} days per run, so a backlog is worked off over several runs. The batches
+ * are then applied one after the other; if any read or write fails the work is retried later, and
+ * batches already written are not repeated because their rides are gone.</p>
+ *
+ * <p>A passenger booking a ride at the moment it is swept can lose the booking, which is acceptable
+ * for a ride that left {@link RideSweeper#DEFAULT_GRACE_MILLIS} ago.</p>
+ */
+public class RideSweepWorker extends Worker {
+
+    /**
+     * Tag for logging messages related to the sweep.
+     */
+    private static final String TAG = "RideSweepWorker";
+    /**
+     * Unique name of the periodic work.
+     */
+    private static final String WORK_NAME = "rideSweep";
+    /**
+     * Input key of the grace period in milliseconds.
+     */
+    static final String KEY_GRACE_MILLIS = "graceMillis";
+    /**
+     * Time between two sweeps.
+     */
+    private static final long INTERVAL_HOURS = 6;
+    /**
+     * Maximum number of day shards read by one run.
+     */
+    private static final int MAX_DAYS_PER_RUN = 7;
+    /**
+     * Time allowed for each read or write.
+     */
+    private static final long TIMEOUT_SECONDS = 60;
+
+    public RideSweepWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the periodic sweep with the default grace period, keeping an existing schedule.
+     *
+     * @param context Any context.
+     */
+    public static void schedule(Context context) {
+        schedule(context, RideSweeper.DEFAULT_GRACE_MILLIS);
+    }
+
+    /**
+     * Schedules the periodic sweep, keeping an existing schedule.
+     *
+     * @param context     Any context.
+     * @param graceMillis Time after departure before a ride is archived.
+     */
+    public static void schedule(Context context, long graceMillis) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(RideSweepWorker.class, INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .setInputData(new Data.Builder().putLong(KEY_GRACE_MILLIS, graceMillis).build())
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Reads the expired rides and archives them. Runs on a WorkManager background thread.
+     */
+    @NonNull
+    @Override
+    @SuppressWarnings("unchecked")
+    public Result doWork() {
+        if (FirebaseAuth.getInstance().getCurrentUser() == null) {
+            // The database rules only allow signed-in users; try again after the next sign-in
+            return Result.success();
+        }
+
+        long graceMillis = getInputData().getLong(KEY_GRACE_MILLIS, RideSweeper.DEFAULT_GRACE_MILLIS);
+        long now = System.currentTimeMillis();
+        DatabaseReference root = FirebaseDatabase.getInstance().getReference();
+        try {
+            DataSnapshot snapshot = Tasks.await(root.child(RidePaths.RIDES_BY_DAY)
+                            .orderByKey()
+                            .endAt(RidePaths.dayOf(now - graceMillis))
+                            .limitToFirst(MAX_DAYS_PER_RUN)
+                            .get(),
+                    TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Object ridesByDay = snapshot.getValue();
+            if (!(ridesByDay instanceof Map)) {
+                return Result.success();
+            }
+
+            List<Map<String, Object>> batches = RideSweeper.buildBatches((Map<String, Object>) ridesByDay, now, graceMillis);
+            for (Map<String, Object> batch : batches) {
+                Tasks.await(root.updateChildren(batch), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            Log.d(TAG, "Archived expired rides in " + batches.size() + " batches");
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Ride sweep failed: " + e.getMessage());
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.pickme;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code RideSweeper} finds abandoned rides and builds the updates that archive them as
+ * {@link RideStatus#EXPIRED}.
+ *
+ * <p>A ride is expired once its departure is more than a grace period in the past, whatever its
+ * status: a driver who never pressed Cancel or End Ride leaves it in its day shard forever
+ * otherwise. Each expired ride is archived with {@link RideArchiver}, so its history entries,
+ * pointer cleanups and deletion stay atomic; the updates of up to {@link #MAX_RIDES_PER_BATCH} rides
+ * are merged into one multi-path update. A ride without a valid departure expires with its shard,
+ * once the whole day is before the cutoff, so it cannot hold up the sweep forever.</p>
+ *
+ * <p>Rides are read from the day shards of {@link RidePaths}; only shards up to the day of the cutoff
+ * can hold expired rides. History entries are stored under {@link #historyKey}, which is derived
+ * from the ride rather than generated, so two sweepers racing on the same ride write the same
+ * entries twice instead of archiving it twice. The key starts with the departure time encoded like
+ * a push key, so expired entries sort among the others in the history pages.</p>
+ *
+ * <p>The sweep runs on devices as {@link RideSweepWorker}, or on the JVM against an exported
+ * database through {@link #main}. The class has no Android dependencies so it can be exercised on
+ * the JVM.</p>
+ */
+public final class RideSweeper {
+
+    /**
+     * Default time after departure before a ride is considered abandoned.
+     */
+    public static final long DEFAULT_GRACE_MILLIS = TimeUnit.HOURS.toMillis(12);
+    /**
+     * Maximum number of rides archived by one multi-path update.
+     */
+    static final int MAX_RIDES_PER_BATCH = 50;
+
+    /**
+     * Alphabet of push keys, in ascending order.
+     */
+    private static final char[] PUSH_CHARS =
+            "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    /**
+     * Not instantiable.
+     */
+    private RideSweeper() {}
+
+    /**
+     * Checks whether a ride is expired.
+     *
+     * @param ride        The ride's value, as returned by {@code DataSnapshot#getValue()}.
+     * @param nowMillis   The current time.
+     * @param graceMillis Time after departure before the ride expires.
+     * @return true if the ride has a valid departure older than the grace period.
+     */
+    public static boolean isExpired(Map<String, ?> ride, long nowMillis, long graceMillis) {
+        long departure = RideSchema.departureOf(ride);
+        return departure > 0 && departure < nowMillis - graceMillis;
+    }
+
+    /**
+     * Builds the updates that archive every expired ride.
+     * The driver is taken from the ride's {@code uid} field, or from its id for rides moved from
+     * the unsharded layout.
+     *
+     * @param ridesByDay  Day shards by day, each holding rides by id, e.g. the value of
+     *                    "RidesByDay" or of a query on it.
+     * @param nowMillis   The current time.
+     * @param graceMillis Time after departure before a ride expires.
+     * @return Multi-path updates to apply in order with {@code updateChildren} on the database root;
+     *         empty if nothing expired.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Map<String, Object>> buildBatches(Map<String, ?> ridesByDay, long nowMillis, long graceMillis) {
+        List<Map<String, Object>> batches = new ArrayList<>();
+        if (ridesByDay == null) {
+            return batches;
+        }
+
+        String cutoffDay = RidePaths.dayOf(nowMillis - graceMillis);
+        Map<String, Object> batch = new HashMap<>();
+        int ridesInBatch = 0;
+        for (Map.Entry<String, ?> day : ridesByDay.entrySet()) {
+            if (!(day.getValue() instanceof Map)) {
+                continue;
+            }
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) day.getValue()).entrySet()) {
+                if (!(entry.getValue() instanceof Map)) {
+                    continue;
+                }
+                Map<String, Object> ride = (Map<String, Object>) entry.getValue();
+                boolean expired = RideSchema.departureOf(ride) > 0
+                        ? isExpired(ride, nowMillis, graceMillis)
+                        : day.getKey().compareTo(cutoffDay) < 0;
+                if (!expired) {
+                    continue;
+                }
+
+                String rideId = entry.getKey();
+                String driverUid = ride.get("uid") instanceof String ? (String) ride.get("uid") : rideId;
+                batch.putAll(RideArchiver.buildArchiveUpdates(driverUid, RidePaths.rideKey(day.getKey(), rideId), ride,
+                        historyKey(rideId, RideSchema.departureOf(ride)), RideStatus.EXPIRED.value()));
+                if (++ridesInBatch == MAX_RIDES_PER_BATCH) {
+                    batches.add(batch);
+                    batch = new HashMap<>();
+                    ridesInBatch = 0;
+                }
+            }
+        }
+        if (ridesInBatch > 0) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * Returns the history key of an expired ride: the departure time in the 8-character timestamp
+     * format of push keys, followed by 12 characters derived from the ride's id.
+     *
+     * @param rideId           The ride's id within its day shard.
+     * @param departureMillis  The ride's departure time.
+     * @return A 20-character key that sorts by departure.
+     */
+    static String historyKey(String rideId, long departureMillis) {
+        char[] key = new char[20];
+        long time = departureMillis;
+        for (int i = 7; i >= 0; i--) {
+            key[i] = PUSH_CHARS[(int) (time % 64)];
+            time /= 64;
+        }
+
+        // 64-bit FNV-1a of the id, spread over the 12 remaining characters
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < rideId.length(); i++) {
+            hash ^= rideId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        for (int i = 8; i < 20; i++) {
+            key[i] = PUSH_CHARS[(int) (hash & 63)];
+            hash = Long.rotateRight(hash, 6);
+        }
+        return new String(key);
+    }
+
+    /**
+     * Sweeps an exported database.
+     *
+     * @param export      The export, as parsed by {@link JsonExport#parse}.
+     * @param nowMillis   The current time.
+     * @param graceMillis Time after departure before a ride expires.
+     * @return The multi-path updates, as {@link #buildBatches} returns them.
+     * @throws IllegalArgumentException if the export is not a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    static List<Map<String, Object>> sweepExport(Object export, long nowMillis, long graceMillis) {
+        if (!(export instanceof Map)) {
+            throw new IllegalArgumentException("The export must be a JSON object");
+        }
+        Object ridesByDay = ((Map<String, Object>) export).get(RidePaths.RIDES_BY_DAY);
+        return buildBatches(ridesByDay instanceof Map ? (Map<String, Object>) ridesByDay : null, nowMillis, graceMillis);
+    }
+
+    /**
+     * Sweeps an exported database and writes one JSON file per batch, each to be applied with
+     * {@code firebase database:update / sweep-NNN.json}.
+     *
+     * <p>Usage: {@code RideSweeper <export.json> <outputDir> [graceHours]}. Legacy rides without
+     * {@code departureEpochMillis} are read in the JVM's default time zone.</p>
+     *
+     * @param args The export file, the output directory and optionally the grace period in hours.
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: RideSweeper <export.json> <outputDir> [graceHours]");
+            System.exit(2);
+        }
+        long graceMillis = args.length == 3
+                ? TimeUnit.HOURS.toMillis(Long.parseLong(args[2]))
+                : DEFAULT_GRACE_MILLIS;
+
+        String json = new String(Files.readAllBytes(Paths.get(args[0])), StandardCharsets.UTF_8);
+        List<Map<String, Object>> batches = sweepExport(JsonExport.parse(json), System.currentTimeMillis(), graceMillis);
+
+        Path outputDir = Files.createDirectories(Paths.get(args[1]));
+        int rides = 0;
+        for (int i = 0; i < batches.size(); i++) {
+            Map<String, Object> batch = batches.get(i);
+            for (String path : batch.keySet()) {
+                if (path.startsWith(RidePaths.RIDES_BY_DAY + "/")) {
+                    rides++;
+                }
+            }
+            Path file = outputDir.resolve(String.format("sweep-%03d.json", i + 1));
+            Files.write(file, JsonExport.write(batch).getBytes(StandardCharsets.UTF_8));
+        }
+        System.out.println(rides + " expired rides in " + batches.size() + " batches written to " + outputDir);
+    }
+}
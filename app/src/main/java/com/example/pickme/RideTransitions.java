@@ -0,0 +1,192 @@
+package com.example.pickme;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code RideTransitions} applies status changes and passenger removals to a ride value according
+ * to the {@link RideStatus} transition table.
+ *
+ * <p>The methods are meant to run inside a {@code runTransaction} on {@code RidesByDay/{rideKey}}: they
+ * read the status from the value the transaction hands them, so the check and the write are a
+ * single compare-and-set and no separate read is needed. Illegal transitions are reported instead
+ * of written, and the caller aborts the transaction. The class has no Android dependencies so it
+ * can be exercised on the JVM.</p>
+ */
+public final class RideTransitions {
+
+    /**
+     * Key of the status field on a ride.
+     */
+    public static final String STATUS = "status";
+
+    /**
+     * Key of the flag set on a passenger's entry ({@code Passengers/{uid}}) once the driver accepted them.
+     */
+    public static final String ACCEPTED = "accepted";
+
+    /**
+     * Outcome of a transition attempt.
+     */
+    public enum Result {
+        /** The ride was changed; commit it. */
+        APPLIED,
+        /** The ride is already in the requested state; nothing to write. */
+        UNCHANGED,
+        /** The transition is not allowed from the ride's current status. */
+        ILLEGAL_TRANSITION,
+        /** Accepting or starting a ride requires at least one passenger. */
+        NO_PASSENGERS,
+        /** The ride no longer exists. */
+        RIDE_NOT_FOUND,
+        /** The passenger is no longer on the ride. */
+        PASSENGER_NOT_FOUND,
+        /** The database write failed or the transaction gave up. */
+        FAILED
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private RideTransitions() {}
+
+    /**
+     * Changes the status of a ride if the transition table allows it.
+     *
+     * @param ride   The ride's current value as a mutable map, or null if it does not exist.
+     * @param target The requested status.
+     * @return The outcome; {@code ride} is modified only when the result is {@link Result#APPLIED}.
+     */
+    public static Result transition(Map<String, Object> ride, RideStatus target) {
+        if (ride == null) {
+            return Result.RIDE_NOT_FOUND;
+        }
+        RideStatus current = RideStatus.fromValue(ride.get(STATUS));
+        if (current == target) {
+            return Result.UNCHANGED;
+        }
+        if (current == null || !current.canTransitionTo(target)) {
+            return Result.ILLEGAL_TRANSITION;
+        }
+        if ((target == RideStatus.ACCEPTED || target == RideStatus.IN_PROGRESS) && passengerCount(ride) == 0) {
+            return Result.NO_PASSENGERS;
+        }
+        ride.put(STATUS, target.value());
+        return Result.APPLIED;
+    }
+
+    /**
+     * Removes a passenger from a ride, as a cancellation by the passenger or a decline by the driver.
+     * Passengers can only leave an open ride; when no accepted passenger is left, an accepted ride
+     * goes back to {@link RideStatus#WAITING}, so the driver cannot start it with nobody accepted.
+     *
+     * @param ride         The ride's current value as a mutable map, or null if it does not exist.
+     * @param passengerUid The passenger to remove.
+     * @return The outcome; {@code ride} is modified only when the result is {@link Result#APPLIED}.
+     */
+    @SuppressWarnings("unchecked")
+    public static Result removePassenger(Map<String, Object> ride, String passengerUid) {
+        if (ride == null) {
+            return Result.RIDE_NOT_FOUND;
+        }
+        Object passengersValue = ride.get(RideArchiver.PASSENGERS);
+        if (!(passengersValue instanceof Map) || !((Map<String, Object>) passengersValue).containsKey(passengerUid)) {
+            return Result.UNCHANGED;
+        }
+        RideStatus current = RideStatus.fromValue(ride.get(STATUS));
+        if (current == null || !current.isOpen()) {
+            return Result.ILLEGAL_TRANSITION;
+        }
+
+        Map<String, Object> passengers = new HashMap<>((Map<String, Object>) passengersValue);
+        passengers.remove(passengerUid);
+        if (passengers.isEmpty()) {
+            ride.remove(RideArchiver.PASSENGERS);
+        } else {
+            ride.put(RideArchiver.PASSENGERS, passengers);
+        }
+        boolean anyAccepted = false;
+        for (Object passenger : passengers.values()) {
+            anyAccepted |= isAccepted(passenger);
+        }
+        if (!anyAccepted) {
+            ride.put(STATUS, RideStatus.WAITING.value());
+        }
+        return Result.APPLIED;
+    }
+
+    /**
+     * Marks one passenger as accepted by the driver and, with the first acceptance, moves a
+     * {@link RideStatus#WAITING} ride to {@link RideStatus#ACCEPTED} so the driver can start it.
+     *
+     * <p>Both changes are made on the ride value, so a single {@code runTransaction} on
+     * {@code RidesByDay/{rideKey}} commits them together: the ride can never hold an accepted
+     * passenger while it is still waiting. Accepting an accepted passenger of a waiting ride therefore
+     * still moves the ride on.</p>
+     *
+     * @param ride         The ride's current value as a mutable map, or null if it does not exist.
+     * @param passengerUid The passenger to accept.
+     * @return The outcome; {@code ride} is modified only when the result is {@link Result#APPLIED}.
+     */
+    @SuppressWarnings("unchecked")
+    public static Result acceptPassenger(Map<String, Object> ride, String passengerUid) {
+        if (ride == null) {
+            return Result.RIDE_NOT_FOUND;
+        }
+        Object passengersValue = ride.get(RideArchiver.PASSENGERS);
+        Object passengerValue = passengersValue instanceof Map
+                ? ((Map<String, Object>) passengersValue).get(passengerUid) : null;
+        if (!(passengerValue instanceof Map)) {
+            return Result.PASSENGER_NOT_FOUND;
+        }
+        RideStatus current = RideStatus.fromValue(ride.get(STATUS));
+        if (current == null || !current.isOpen()) {
+            return Result.ILLEGAL_TRANSITION;
+        }
+        if (isAccepted(passengerValue) && current == RideStatus.ACCEPTED) {
+            return Result.UNCHANGED;
+        }
+
+        Map<String, Object> passenger = new HashMap<>((Map<String, Object>) passengerValue);
+        passenger.put(ACCEPTED, true);
+        Map<String, Object> passengers = new HashMap<>((Map<String, Object>) passengersValue);
+        passengers.put(passengerUid, passenger);
+        ride.put(RideArchiver.PASSENGERS, passengers);
+        ride.put(STATUS, RideStatus.ACCEPTED.value());
+        return Result.APPLIED;
+    }
+
+    /**
+     * Checks whether the driver accepted a passenger.
+     *
+     * @param passenger A passenger's entry, may be null.
+     * @return true if the entry carries the {@link #ACCEPTED} flag.
+     */
+    public static boolean isAccepted(Object passenger) {
+        return passenger instanceof Map && Boolean.TRUE.equals(((Map<?, ?>) passenger).get(ACCEPTED));
+    }
+
+    /**
+     * Returns the status a passenger sees. The ride is {@link RideStatus#ACCEPTED} as soon as the
+     * driver accepted one passenger, so until the ride starts each passenger sees their own entry's
+     * acceptance instead.
+     *
+     * @param rideStatus The ride's status.
+     * @param passenger  The passenger's entry.
+     * @return The passenger's status.
+     */
+    public static RideStatus passengerStatus(RideStatus rideStatus, Object passenger) {
+        if (rideStatus != RideStatus.WAITING && rideStatus != RideStatus.ACCEPTED) {
+            return rideStatus;
+        }
+        return isAccepted(passenger) ? RideStatus.ACCEPTED : RideStatus.WAITING;
+    }
+
+    /**
+     * Counts the passengers booked on a ride.
+     */
+    private static int passengerCount(Map<String, Object> ride) {
+        Object passengers = ride.get(RideArchiver.PASSENGERS);
+        return passengers instanceof Map ? ((Map<?, ?>) passengers).size() : 0;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.pickme;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@code RideViewState} is an immutable description of what {@link PassengerFragment} shows for the
+ * user's active ride, built from one value of the ride.
+ *
+ * <p>The state is split into the parts the fragment renders separately: the driver's card, the
+ * passenger's card, the driver's buttons and the passenger's status line. The fragment keeps the state
+ * it rendered last and, for each new state, only updates the parts that are not equal, see
+ * {@link #sameDriverCard}, {@link #samePassengerCard}, {@link #sameDriverControls} and
+ * {@link #samePassengerControls}. The class has no Android dependencies so it can be exercised on the
+ * JVM.</p>
+ */
+public final class RideViewState {
+
+    /**
+     * How the user takes part in the shown ride.
+     */
+    public enum Role {
+        /** No active ride. */
+        NONE,
+        /** The user drives the ride. */
+        DRIVER,
+        /** The user is a passenger on the ride. */
+        PASSENGER
+    }
+
+    /**
+     * The buttons shown to the driver.
+     */
+    public enum DriverControls {
+        /** Not the driver's view. */
+        HIDDEN,
+        /** No passenger yet: only "cancel ride". */
+        CANCEL,
+        /** Passengers are waiting and none is accepted yet: only the rows' "accept" and "decline". */
+        PENDING,
+        /** A passenger was accepted: "start ride", next to the rows' buttons. */
+        START,
+        /** The ride is under way: only "end ride". */
+        END
+    }
+
+    /**
+     * The state shown when the user has no active ride.
+     */
+    public static final RideViewState NONE = new RideViewState(Role.NONE, null, null, null,
+            null, null, null, null, null, false, null, null, null, null, DriverControls.HIDDEN);
+
+    /** How the user takes part in the ride. */
+    public final Role role;
+    /** The ride's key, see {@link RidePaths}; null for {@link Role#NONE}. */
+    public final String rideKey;
+    /** The ride's status; null for {@link Role#NONE}. */
+    public final RideStatus status;
+    /** The uid of the passenger shown on the passenger card; null in the driver's view, which lists them all. */
+    public final String shownPassengerUid;
+
+    /** Driver card: "From: ..." line. */
+    public final String driverFrom;
+    /** Driver card: "To: ..." line. */
+    public final String driverTo;
+    /** Driver card: departure time line. */
+    public final String driverTime;
+    /** Driver card: seats line. */
+    public final String driverSeats;
+    /** Driver card: comment line. */
+    public final String driverComment;
+
+    /** Whether the passenger card shows passengers rather than the "no passenger" text. */
+    public final boolean hasPassenger;
+    /** Passenger card: "From: ..." line. */
+    public final String passengerFrom;
+    /** Passenger card: "To: ..." line. */
+    public final String passengerTo;
+    /** Passenger card: seats line. */
+    public final String passengerSeats;
+    /** Passenger card: comment line. */
+    public final String passengerComment;
+
+    /** The buttons shown to the driver. */
+    public final DriverControls driverControls;
+
+    private RideViewState(Role role, String rideKey, RideStatus status, String shownPassengerUid,
+                          String driverFrom, String driverTo, String driverTime, String driverSeats,
+                          String driverComment, boolean hasPassenger, String passengerFrom,
+                          String passengerTo, String passengerSeats, String passengerComment,
+                          DriverControls driverControls) {
+        this.role = role;
+        this.rideKey = rideKey;
+        this.status = status;
+        this.shownPassengerUid = shownPassengerUid;
+        this.driverFrom = driverFrom;
+        this.driverTo = driverTo;
+        this.driverTime = driverTime;
+        this.driverSeats = driverSeats;
+        this.driverComment = driverComment;
+        this.hasPassenger = hasPassenger;
+        this.passengerFrom = passengerFrom;
+        this.passengerTo = passengerTo;
+        this.passengerSeats = passengerSeats;
+        this.passengerComment = passengerComment;
+        this.driverControls = driverControls;
+    }
+
+    /**
+     * Builds the driver's view of their ride. The passengers themselves are listed from child events,
+     * see {@link PassengerRoster}, so the state only records whether there are any and which of the
+     * ride's buttons apply.
+     *
+     * @param rideKey The ride's key.
+     * @param ride    The ride's value, including its "Passengers" child.
+     * @return The state.
+     */
+    public static RideViewState forDriver(String rideKey, Map<String, Object> ride) {
+        RideStatus status = RideStatus.fromValue(ride.get(RideTransitions.STATUS));
+        Map<String, Object> passengers = asMap(ride.get(RideArchiver.PASSENGERS));
+        boolean anyAccepted = false;
+        if (passengers != null) {
+            for (Object passenger : passengers.values()) {
+                anyAccepted |= RideTransitions.isAccepted(passenger);
+            }
+        }
+
+        DriverControls controls;
+        if (passengers == null || passengers.isEmpty()) {
+            controls = DriverControls.CANCEL;
+        } else if (status == RideStatus.IN_PROGRESS) {
+            controls = DriverControls.END;
+        } else if (status == RideStatus.ACCEPTED && anyAccepted) {
+            controls = DriverControls.START;
+        } else {
+            controls = DriverControls.PENDING;
+        }
+        return build(Role.DRIVER, rideKey, status, null, controls != DriverControls.CANCEL, ride, null,
+                controls);
+    }
+
+    /**
+     * Builds a passenger's view of the ride they booked.
+     *
+     * @param rideKey      The ride's key.
+     * @param ride         The ride's value, including its "Passengers" child.
+     * @param passengerUid The passenger's uid.
+     * @return The state, or {@link #NONE} if the passenger is not on the ride.
+     */
+    public static RideViewState forPassenger(String rideKey, Map<String, Object> ride, String passengerUid) {
+        Map<String, Object> passengers = asMap(ride.get(RideArchiver.PASSENGERS));
+        if (passengers == null || !passengers.containsKey(passengerUid)) {
+            return NONE;
+        }
+        Map<String, Object> request = asMap(passengers.get(passengerUid));
+        RideStatus status = RideTransitions.passengerStatus(
+                RideStatus.fromValue(ride.get(RideTransitions.STATUS)), request);
+        return build(Role.PASSENGER, rideKey, status, passengerUid, true, ride, request, DriverControls.HIDDEN);
+    }
+
+    private static RideViewState build(Role role, String rideKey, RideStatus status, String passengerUid,
+                                       boolean hasPassenger, Map<String, Object> ride, Map<String, Object> request,
+                                       DriverControls controls) {
+        Driver driver = SnapshotCodec.decodeDriver(ride);
+        long departure = RideSchema.departureOf(driver);
+        int seats = RideSchema.seatsOf(driver);
+
+        Passenger passenger = request != null ? SnapshotCodec.decodePassenger(request) : null;
+        int requested = passenger != null ? RideSchema.passengerCountOf(passenger) : -1;
+        String passengerSeats = "Seats requested: " + (requested >= 0 ? String.valueOf(requested) : "Not specified");
+
+        return new RideViewState(role, rideKey, status, passengerUid,
+                "From: " + orDefault(driver.getCurrentLocation(), "Not specified"),
+                "To: " + orDefault(driver.getDestination(), "Not specified"),
+                departure > 0 ? RideSchema.formatTime(departure) : "Time not specified",
+                "Available seats: " + (seats >= 0 ? String.valueOf(seats) : "Not specified"),
+                orDefault(driver.getComment(), "No comment"),
+                hasPassenger,
+                "From: " + orDefault(passenger != null ? passenger.getCurrentLocation() : null, "Not specified"),
+                "To: " + orDefault(passenger != null ? passenger.getDestination() : null, "Not specified"),
+                passengerSeats,
+                orDefault(passenger != null ? passenger.getComment() : null, "No comment"),
+                controls);
+    }
+
+    /**
+     * @param other The state rendered before, may be null.
+     * @return true if the driver card shows the same lines in both states.
+     */
+    public boolean sameDriverCard(RideViewState other) {
+        return other != null
+                && Objects.equals(driverFrom, other.driverFrom)
+                && Objects.equals(driverTo, other.driverTo)
+                && Objects.equals(driverTime, other.driverTime)
+                && Objects.equals(driverSeats, other.driverSeats)
+                && Objects.equals(driverComment, other.driverComment);
+    }
+
+    /**
+     * @param other The state rendered before, may be null.
+     * @return true if the passenger card shows the same lines in both states.
+     */
+    public boolean samePassengerCard(RideViewState other) {
+        return other != null
+                && hasPassenger == other.hasPassenger
+                && Objects.equals(passengerFrom, other.passengerFrom)
+                && Objects.equals(passengerTo, other.passengerTo)
+                && Objects.equals(passengerSeats, other.passengerSeats)
+                && Objects.equals(passengerComment, other.passengerComment);
+    }
+
+    /**
+     * @param other The state rendered before, may be null.
+     * @return true if the driver's buttons are the same in both states.
+     */
+    public boolean sameDriverControls(RideViewState other) {
+        return other != null && driverControls == other.driverControls;
+    }
+
+    /**
+     * @param other The state rendered before, may be null.
+     * @return true if the passenger's status line and cancel button are the same in both states.
+     */
+    public boolean samePassengerControls(RideViewState other) {
+        return other != null && status == other.status;
+    }
+
+    /**
+     * @return Whether a passenger may still cancel their booking.
+     */
+    public boolean passengerCanCancel() {
+        return role == Role.PASSENGER && status != RideStatus.IN_PROGRESS;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+
+    private static String orDefault(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.pickme;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code SeatReservation} holds the seat-admission rule applied when a passenger books a ride.
+ *
+ * <p>A ride's seat count is its capacity. The seats already taken are the sum of the passenger
+ * counts over the ride's "Passengers" child (both read through {@link RideSchema}), so cancelling or declining a
+ * booking frees its seats simply by removing the passenger entry. {@link #tryReserve} is run inside
+ * a {@code runTransaction} on {@code RidesByDay/{rideKey}}, which makes the check and the write atomic
+ * under concurrent bookings.</p>
+ *
+ * <p>The class has no Android dependencies so it can be exercised on the JVM.</p>
+ */
+public final class SeatReservation {
+
+    /**
+     * Outcome of a booking attempt, reported back to the UI.
+     */
+    public enum Result {
+        /** The passenger was added to the ride. */
+        BOOKED,
+        /** The passenger was already on the ride; nothing was changed. */
+        ALREADY_BOOKED,
+        /** The passenger is booked on another ride; nothing was changed. */
+        OTHER_RIDE_BOOKED,
+        /** The ride does not have enough free seats for the request. */
+        NOT_ENOUGH_SEATS,
+        /** The ride no longer exists. */
+        RIDE_NOT_FOUND,
+        /** The ride has started or ended and takes no more bookings. */
+        RIDE_CLOSED,
+        /** The ride or the request is missing a valid seat count. */
+        INVALID_REQUEST,
+        /** The database write failed or the transaction gave up. */
+        FAILED
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private SeatReservation() {}
+
+    /**
+     * Decides whether a passenger can join a ride and, if so, adds them to {@code ride}.
+     *
+     * @param ride          The ride's current value as a mutable map, or null if it does not exist.
+     *                      On {@link Result#BOOKED} the passenger entry is added to its "Passengers".
+     * @param passengerUid  The uid of the booking passenger.
+     * @param passengerData The passenger's request, containing its passenger count.
+     * @return The outcome; {@code ride} is modified only when the result is {@link Result#BOOKED}.
+     */
+    @SuppressWarnings("unchecked")
+    public static Result tryReserve(Map<String, Object> ride, String passengerUid, Map<String, Object> passengerData) {
+        if (ride == null) {
+            return Result.RIDE_NOT_FOUND;
+        }
+
+        Object passengersValue = ride.get(RideArchiver.PASSENGERS);
+        Map<String, Object> passengers = passengersValue instanceof Map
+                ? (Map<String, Object>) passengersValue : new HashMap<>();
+        if (passengers.containsKey(passengerUid)) {
+            return Result.ALREADY_BOOKED;
+        }
+
+        RideStatus status = RideStatus.fromValue(ride.get(RideTransitions.STATUS));
+        if (status == null || !status.isOpen()) {
+            return Result.RIDE_CLOSED;
+        }
+
+        int capacity = RideSchema.seatsOf(ride);
+        int requested = RideSchema.passengerCountOf(passengerData);
+        if (capacity < 0 || requested <= 0) {
+            return Result.INVALID_REQUEST;
+        }
+
+        if (seatsTaken(passengers) + requested > capacity) {
+            return Result.NOT_ENOUGH_SEATS;
+        }
+
+        Map<String, Object> updated = new HashMap<>(passengers);
+        updated.put(passengerUid, passengerData);
+        ride.put(RideArchiver.PASSENGERS, updated);
+        return Result.BOOKED;
+    }
+
+    /**
+     * Sums the seats requested by all passengers of a ride.
+     *
+     * @param passengers The ride's "Passengers" child, keyed by passenger uid.
+     * @return The number of seats taken; entries without a valid count count as one seat.
+     */
+    public static int seatsTaken(Map<String, Object> passengers) {
+        int taken = 0;
+        for (Object passenger : passengers.values()) {
+            taken += seatsRequested(passenger);
+        }
+        return taken;
+    }
+
+    /**
+     * Returns the seats one passenger takes.
+     *
+     * @param passenger The passenger's entry in the ride's "Passengers" child.
+     * @return The requested passenger count, or one seat if the entry has no valid count.
+     */
+    public static int seatsRequested(Object passenger) {
+        int count = passenger instanceof Map ? RideSchema.passengerCountOf((Map<?, ?>) passenger) : -1;
+        return count > 0 ? count : 1;
+    }
+}
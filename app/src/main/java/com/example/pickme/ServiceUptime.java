@@ -0,0 +1,94 @@
+package com.example.pickme;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ServiceUptime} accounts how long {@link RideMonitorService} was running on each day.
+ *
+ * <p>Totals are kept per local day as {@code yyyyMMdd -> milliseconds}; a run that crosses midnight
+ * is split between the days it covers. Only the last {@link #KEPT_DAYS} days are kept. The class has
+ * no Android dependencies so it can be exercised on the JVM.</p>
+ */
+public final class ServiceUptime {
+
+    /**
+     * Number of days whose totals are kept.
+     */
+    static final int KEPT_DAYS = 14;
+
+    /**
+     * Not instantiable.
+     */
+    private ServiceUptime() {}
+
+    /**
+     * Adds a run to the per-day totals and drops days older than {@link #KEPT_DAYS}.
+     *
+     * @param perDay      Totals by day, updated in place.
+     * @param startMillis When the run started.
+     * @param endMillis   When the run ended; a run ending before it started adds nothing.
+     * @param timeZone    Time zone of the days.
+     */
+    public static void add(Map<String, Long> perDay, long startMillis, long endMillis, TimeZone timeZone) {
+        Calendar calendar = Calendar.getInstance(timeZone);
+        long from = startMillis;
+        while (from < endMillis) {
+            calendar.setTimeInMillis(from);
+            String day = dayOf(calendar);
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            long to = Math.min(endMillis, calendar.getTimeInMillis());
+            perDay.merge(day, to - from, Long::sum);
+            from = to;
+        }
+
+        List<String> days = new ArrayList<>(perDay.keySet());
+        if (days.size() > KEPT_DAYS) {
+            // yyyyMMdd keys sort like the dates they name
+            Collections.sort(days);
+            for (String day : days.subList(0, days.size() - KEPT_DAYS)) {
+                perDay.remove(day);
+            }
+        }
+    }
+
+    /**
+     * Builds a one-line summary of the totals, oldest day first.
+     *
+     * @param perDay Totals by day.
+     * @return e.g. {@code "20231114 2h05m, 20231115 0h30m"}, or {@code "none"}.
+     */
+    public static String summary(Map<String, Long> perDay) {
+        if (perDay.isEmpty()) {
+            return "none";
+        }
+        List<String> days = new ArrayList<>(perDay.keySet());
+        Collections.sort(days);
+        StringBuilder sb = new StringBuilder();
+        for (String day : days) {
+            long minutes = TimeUnit.MILLISECONDS.toMinutes(perDay.get(day));
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(day).append(' ').append(minutes / 60).append('h')
+                    .append(String.format("%02d", minutes % 60)).append('m');
+        }
+        return sb.toString();
+    }
+
+    private static String dayOf(Calendar calendar) {
+        int day = calendar.get(Calendar.YEAR) * 10_000
+                + (calendar.get(Calendar.MONTH) + 1) * 100
+                + calendar.get(Calendar.DAY_OF_MONTH);
+        return String.valueOf(day);
+    }
+}
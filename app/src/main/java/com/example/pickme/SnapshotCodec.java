@@ -0,0 +1,183 @@
+package com.example.pickme;
+
+import com.google.firebase.database.DataSnapshot;
+
+import java.util.Map;
+
+/**
+ * {@code SnapshotCodec} decodes database values into {@link Driver}, {@link Passenger} and
+ * {@link User} objects without reflection.
+ *
+ * <p>{@code DataSnapshot#getValue(Class)} goes through Firebase's {@code CustomClassMapper}, which
+ * inspects the target class with reflection and converts each field through a generic path. The
+ * decoders here read the raw value tree ({@code DataSnapshot#getValue()}: maps, strings, longs,
+ * doubles and booleans) and call the setters directly. They are also lenient where the mapper
+ * throws: a number stored where a string is expected is converted instead of failing the row.</p>
+ *
+ * <p>The {@code Map} overloads have no Android dependencies so they can be exercised on the JVM.</p>
+ */
+public final class SnapshotCodec {
+
+    /**
+     * Decodes a raw database value into an object.
+     *
+     * @param <T> the decoded type
+     */
+    public interface Decoder<T> {
+        /**
+         * @param value The value as returned by {@code DataSnapshot#getValue()}.
+         * @return The decoded object.
+         */
+        T decode(Map<String, Object> value);
+    }
+
+    /** Decoder for rides stored under "RidesByDay" and "HistoryDriver". */
+    public static final Decoder<Driver> DRIVER = SnapshotCodec::decodeDriver;
+    /** Decoder for passenger requests and "HistoryPassenger" entries. */
+    public static final Decoder<Passenger> PASSENGER = SnapshotCodec::decodePassenger;
+    /** Decoder for "Users" entries. */
+    public static final Decoder<User> USER = SnapshotCodec::decodeUser;
+
+    /**
+     * Not instantiable.
+     */
+    private SnapshotCodec() {}
+
+    /**
+     * Decodes a snapshot with the given decoder.
+     *
+     * @param snapshot The snapshot to decode.
+     * @param decoder  The decoder to use.
+     * @return The decoded object, or null if the snapshot does not hold an object.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T decode(DataSnapshot snapshot, Decoder<T> decoder) {
+        Object value = snapshot.getValue();
+        return value instanceof Map ? decoder.decode((Map<String, Object>) value) : null;
+    }
+
+    /**
+     * Decodes a ride.
+     *
+     * @param value The ride's raw value.
+     * @return The ride, never null.
+     */
+    public static Driver decodeDriver(Map<String, Object> value) {
+        Driver driver = new Driver();
+        driver.setUid(string(value.get("uid")));
+        driver.setCurrentLocation(string(value.get("currentLocation")));
+        driver.setDestination(string(value.get("destination")));
+        driver.setComment(string(value.get("comment")));
+        driver.setDriverName(string(value.get("driverName")));
+        driver.setDriverAge(string(value.get("driverAge")));
+        driver.setSeats((int) number(value.get(RideSchema.SEATS)));
+        driver.setDepartureEpochMillis(number(value.get(RideSchema.DEPARTURE)));
+        driver.setSchemaVersion((int) number(value.get(RideSchema.SCHEMA_VERSION)));
+        driver.setNumberOfSeats(string(value.get(RideSchema.LEGACY_SEATS)));
+        driver.setDate(string(value.get(RideSchema.LEGACY_DATE)));
+        driver.setTime(string(value.get(RideSchema.LEGACY_TIME)));
+        driver.setOriginLat(coordinate(value.get(RideSchema.ORIGIN_LAT)));
+        driver.setOriginLng(coordinate(value.get(RideSchema.ORIGIN_LNG)));
+        driver.setOriginGeohash(string(value.get(RideSchema.ORIGIN_GEOHASH)));
+        driver.setDestinationLat(coordinate(value.get(RideSchema.DESTINATION_LAT)));
+        driver.setDestinationLng(coordinate(value.get(RideSchema.DESTINATION_LNG)));
+        driver.setDestinationGeohash(string(value.get(RideSchema.DESTINATION_GEOHASH)));
+
+        Map<String, Object> user = map(value.get("user"));
+        if (user != null) {
+            driver.setUser(decodeUser(user));
+        }
+        Map<String, Object> nested = map(value.get("driver"));
+        if (nested != null) {
+            driver.setDriver(decodeDriver(nested));
+        }
+        return driver;
+    }
+
+    /**
+     * Decodes a passenger request.
+     *
+     * @param value The request's raw value.
+     * @return The request, never null.
+     */
+    public static Passenger decodePassenger(Map<String, Object> value) {
+        Passenger passenger = new Passenger();
+        // The setters reject null locations, which the mapper would leave unset
+        String currentLocation = string(value.get("currentLocation"));
+        if (currentLocation != null) {
+            passenger.setCurrentLocation(currentLocation);
+        }
+        String destination = string(value.get("destination"));
+        if (destination != null) {
+            passenger.setDestination(destination);
+        }
+        passenger.setPassengerCount((int) number(value.get(RideSchema.PASSENGER_COUNT)));
+        passenger.setNumberOfPassengers(string(value.get(RideSchema.LEGACY_PASSENGER_COUNT)));
+        passenger.setComment(string(value.get("comment")));
+        passenger.setOriginLat(coordinate(value.get(RideSchema.ORIGIN_LAT)));
+        passenger.setOriginLng(coordinate(value.get(RideSchema.ORIGIN_LNG)));
+        passenger.setDestinationLat(coordinate(value.get(RideSchema.DESTINATION_LAT)));
+        passenger.setDestinationLng(coordinate(value.get(RideSchema.DESTINATION_LNG)));
+        return passenger;
+    }
+
+    /**
+     * Decodes a user profile.
+     *
+     * @param value The profile's raw value.
+     * @return The profile, never null.
+     */
+    public static User decodeUser(Map<String, Object> value) {
+        User user = new User(string(value.get("name")), string(value.get("age")), string(value.get("email")));
+        Map<String, Object> driver = map(value.get("Driver"));
+        if (driver != null) {
+            user.setDriver(decodeDriver(driver));
+        }
+        return user;
+    }
+
+    /**
+     * Reads a string field, converting numbers and booleans.
+     */
+    private static String string(Object value) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return String.valueOf(value);
+        }
+        return null;
+    }
+
+    /**
+     * Reads a numeric field, parsing numeric strings; 0 when missing or invalid.
+     */
+    private static long number(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Long.parseLong(((String) value).trim());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reads an optional coordinate; whole degrees come back from the database as longs.
+     */
+    private static Double coordinate(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+
+    /**
+     * Reads a nested object field.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+}
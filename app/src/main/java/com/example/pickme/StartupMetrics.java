@@ -0,0 +1,85 @@
+package com.example.pickme;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+/**
+ * {@code StartupMetrics} measures cold-start time-to-first-content: the time from process start
+ * until the first screen shows data read from the database.
+ *
+ * <p>Each measurement is classified as <b>warm</b> when the content came from the disk cache
+ * (see {@link LocalPersistence}) and <b>cold</b> when it had to wait for the network. Running
+ * averages for both are kept in the "StartupMetrics" shared preferences and logged with every
+ * new measurement, so the effect of the cache can be compared across launches.</p>
+ */
+public final class StartupMetrics {
+
+    /**
+     * Tag for logging messages related to startup metrics.
+     */
+    private static final String TAG = "StartupMetrics";
+    /**
+     * Name of the shared preferences holding the running totals.
+     */
+    private static final String PREFS = "StartupMetrics";
+
+    /**
+     * Whether the first content of this process has been recorded.
+     */
+    private static boolean recorded;
+
+    /**
+     * Not instantiable.
+     */
+    private StartupMetrics() {}
+
+    /**
+     * Records that a screen rendered its first content. Only the first call per process counts.
+     *
+     * @param context   Any context, used for the shared preferences.
+     * @param screen    Name of the screen, for the log.
+     * @param fromCache Whether the content was read from the disk cache.
+     */
+    public static synchronized void markFirstContent(@NonNull Context context, @NonNull String screen, boolean fromCache) {
+        if (recorded) {
+            return;
+        }
+        recorded = true;
+
+        long elapsed = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        String bucket = fromCache ? "warm" : "cold";
+
+        SharedPreferences prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        long count = prefs.getLong(bucket + "_count", 0) + 1;
+        long total = prefs.getLong(bucket + "_total_ms", 0) + elapsed;
+        prefs.edit()
+                .putLong(bucket + "_count", count)
+                .putLong(bucket + "_total_ms", total)
+                .apply();
+
+        Log.i(TAG, "First content on " + screen + " after " + elapsed + " ms (" + bucket + " cache); "
+                + summary(prefs));
+    }
+
+    /**
+     * Builds a one-line summary of the running averages.
+     */
+    private static String summary(SharedPreferences prefs) {
+        StringBuilder sb = new StringBuilder();
+        for (String bucket : new String[]{"warm", "cold"}) {
+            long count = prefs.getLong(bucket + "_count", 0);
+            long total = prefs.getLong(bucket + "_total_ms", 0);
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(bucket).append(" avg ")
+                    .append(count > 0 ? total / count : 0).append(" ms over ").append(count);
+        }
+        return sb.toString();
+    }
+}
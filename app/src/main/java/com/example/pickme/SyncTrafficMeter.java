@@ -0,0 +1,120 @@
+package com.example.pickme;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code SyncTrafficMeter} keeps a running tally of the events and the approximate payload size
+ * delivered to Firebase listeners, grouped by a caller-chosen label (usually the listened path).
+ *
+ * <p>The Realtime Database SDK does not expose wire-level byte counts, so the size of each event is
+ * estimated from the JSON encoding of the snapshot value. This is close enough to compare listener
+ * scopes against each other (for example a whole node versus a single child).</p>
+ */
+public class SyncTrafficMeter {
+
+    /**
+     * Event counters, keyed by label.
+     */
+    private final Map<String, AtomicLong> events = new ConcurrentHashMap<>();
+    /**
+     * Estimated byte counters, keyed by label.
+     */
+    private final Map<String, AtomicLong> bytes = new ConcurrentHashMap<>();
+
+    /**
+     * Records one delivered event.
+     *
+     * @param label The label to account the event under.
+     * @param value The raw snapshot value ({@code DataSnapshot#getValue()}), may be null.
+     * @return The estimated size of this event in bytes.
+     */
+    public long record(String label, Object value) {
+        long size = estimateBytes(value);
+        events.computeIfAbsent(label, k -> new AtomicLong()).incrementAndGet();
+        bytes.computeIfAbsent(label, k -> new AtomicLong()).addAndGet(size);
+        return size;
+    }
+
+    /**
+     * Returns the number of events recorded under a label.
+     *
+     * @param label The label to look up.
+     * @return The event count, or 0 if nothing was recorded.
+     */
+    public long getEventCount(String label) {
+        AtomicLong count = events.get(label);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Returns the estimated number of bytes recorded under a label.
+     *
+     * @param label The label to look up.
+     * @return The byte estimate, or 0 if nothing was recorded.
+     */
+    public long getByteCount(String label) {
+        AtomicLong count = bytes.get(label);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Builds a one-line summary of all labels, suitable for logging.
+     *
+     * @return A summary such as {@code "Rides/abc/Passengers: 3 events, 412 bytes"}.
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (String label : events.keySet()) {
+            if (sb.length() > 0) {
+                sb.append("; ");
+            }
+            sb.append(label).append(": ")
+                    .append(getEventCount(label)).append(" events, ")
+                    .append(getByteCount(label)).append(" bytes");
+        }
+        return sb.length() > 0 ? sb.toString() : "no events";
+    }
+
+    /**
+     * Clears all counters.
+     */
+    public void reset() {
+        events.clear();
+        bytes.clear();
+    }
+
+    /**
+     * Estimates the JSON-encoded size of a Realtime Database value.
+     *
+     * @param value A value as returned by {@code DataSnapshot#getValue()}: a Map, List, String,
+     *              Number, Boolean or null.
+     * @return The approximate size in bytes.
+     */
+    static long estimateBytes(Object value) {
+        if (value == null) {
+            return 4; // null
+        }
+        if (value instanceof Map) {
+            long size = 2; // {}
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += String.valueOf(entry.getKey()).length() + 4; // "key":,
+                size += estimateBytes(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof List) {
+            long size = 2; // []
+            for (Object item : (List<?>) value) {
+                size += estimateBytes(item) + 1;
+            }
+            return size;
+        }
+        if (value instanceof String) {
+            return ((String) value).length() + 2;
+        }
+        return String.valueOf(value).length();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.pickme;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.annotation.NonNull;
+
+/**
+ * {@code TabSwitchMetrics} measures how long a bottom-navigation tab switch in {@link HomeActivity}
+ * takes: the time from the tap until the frame showing the selected tab is about to be drawn.
+ *
+ * <p>Each measurement is classified as <b>created</b> when the tab's fragment had to be built, which
+ * is what every switch cost while tabs were replaced on each selection, and <b>reused</b> when a
+ * retained fragment was only shown again. Running averages for both are kept in the
+ * "TabSwitchMetrics" shared preferences and logged with every new measurement, so the two can be
+ * compared on real sessions.</p>
+ */
+public final class TabSwitchMetrics {
+
+    /**
+     * Tag for logging messages related to tab switch metrics.
+     */
+    private static final String TAG = "TabSwitchMetrics";
+    /**
+     * Name of the shared preferences holding the running totals.
+     */
+    private static final String PREFS = "TabSwitchMetrics";
+
+    /**
+     * Not instantiable.
+     */
+    private TabSwitchMetrics() {}
+
+    /**
+     * Records a tab switch once the tab's view is about to draw its next frame.
+     *
+     * @param context         Any context, used for the shared preferences.
+     * @param view            The root view of the shown tab; nothing is recorded if it is null.
+     * @param tab             Name of the tab, for the log.
+     * @param created         Whether the tab's fragment was created by this switch.
+     * @param startedAtMillis {@link SystemClock#uptimeMillis()} when the switch was requested.
+     */
+    public static void measure(@NonNull Context context, View view, @NonNull String tab, boolean created,
+                               long startedAtMillis) {
+        if (view == null) {
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        view.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                view.getViewTreeObserver().removeOnPreDrawListener(this);
+                record(appContext, tab, created, SystemClock.uptimeMillis() - startedAtMillis);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Adds a measurement to the running totals and logs it.
+     */
+    private static synchronized void record(Context context, String tab, boolean created, long elapsed) {
+        String bucket = created ? "created" : "reused";
+
+        SharedPreferences prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        long count = prefs.getLong(bucket + "_count", 0) + 1;
+        long total = prefs.getLong(bucket + "_total_ms", 0) + elapsed;
+        prefs.edit()
+                .putLong(bucket + "_count", count)
+                .putLong(bucket + "_total_ms", total)
+                .apply();
+
+        Log.i(TAG, "Switch to " + tab + " took " + elapsed + " ms (" + bucket + "); " + summary(prefs));
+    }
+
+    /**
+     * Builds a one-line summary of the running averages.
+     */
+    private static String summary(SharedPreferences prefs) {
+        StringBuilder sb = new StringBuilder();
+        for (String bucket : new String[]{"created", "reused"}) {
+            long count = prefs.getLong(bucket + "_count", 0);
+            long total = prefs.getLong(bucket + "_total_ms", 0);
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(bucket).append(" avg ")
+                    .append(count > 0 ? total / count : 0).append(" ms over ").append(count);
+        }
+        return sb.toString();
+    }
+}
@@ -26,6 +26,12 @@ public class User {
      */
     private Driver Driver; // Note: Field name is "Driver" (capital D) as in original code
 
+    /**
+     * Default constructor, required by Firebase's reflection-based mapper
+     * ({@code DataSnapshot#getValue(User.class)}). {@link SnapshotCodec} does not need it.
+     */
+    public User() {}
+
     /**
      * Constructs a new {@code User} object with specified name, age, email, and an associated driver.
      * This constructor is typically used when creating a user who is also a driver or has driver-related data.
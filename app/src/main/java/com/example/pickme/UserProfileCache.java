@@ -0,0 +1,370 @@
+package com.example.pickme;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code UserProfileCache} is a process-wide cache of user profiles ({@code Users/{uid}}: name, age
+ * and email) shared by every screen that shows a user's name.
+ *
+ * <p>Behaviour:</p>
+ * <ul>
+ *   <li>Entries are kept in an LRU cache bounded to {@link #MAX_ENTRIES} entries and expire after
+ *   {@link #TTL_MILLIS}.</li>
+ *   <li>Concurrent requests for the same uid are coalesced into a single database read.</li>
+ *   <li>The signed-in user's own node is watched with a persistent listener (see
+ *   {@link #watchOwnProfile(String)}), which notifies observers whenever the profile changes. Its
+ *   latest value is kept outside the LRU cache, so it never expires while watched: it answers
+ *   {@link #get} for that user and is replayed to every new observer.</li>
+ *   <li>Hit, miss and coalesced-request counters are exposed for diagnostics.</li>
+ * </ul>
+ *
+ * <p>All methods are expected to be called on the main thread, where Firebase delivers its callbacks.</p>
+ */
+public class UserProfileCache {
+
+    /**
+     * Callback receiving a profile, or {@code null} if the user has no profile node or the read failed.
+     */
+    public interface Callback {
+        /**
+         * Called with the requested profile.
+         *
+         * @param user The profile, or null if unavailable.
+         */
+        void onProfile(@Nullable User user);
+    }
+
+    /**
+     * Reads one profile from its source. The app reads {@code Users/{uid}}; tests substitute their own.
+     */
+    interface Loader {
+        /**
+         * Reads a profile and reports it exactly once.
+         *
+         * @param uid  The uid of the user.
+         * @param done Receives the profile, or null if the user has no profile node or the read failed.
+         */
+        void load(@NonNull String uid, @NonNull Callback done);
+    }
+
+    /**
+     * Tag for logging messages related to this cache.
+     */
+    private static final String TAG = "UserProfileCache";
+    /**
+     * Maximum number of profiles kept in memory.
+     */
+    static final int MAX_ENTRIES = 200;
+    /**
+     * How long a profile read from the database is served from memory.
+     */
+    static final long TTL_MILLIS = 10 * 60 * 1000L;
+
+    /**
+     * The process-wide instance.
+     */
+    private static UserProfileCache instance;
+
+    /**
+     * The cached profiles, keyed by uid.
+     */
+    private final ExpiringLruCache<String, User> cache = new ExpiringLruCache<>(MAX_ENTRIES, TTL_MILLIS);
+    /**
+     * Callbacks waiting on an in-flight read, keyed by uid.
+     */
+    private final Map<String, List<Callback>> inFlight = new HashMap<>();
+    /**
+     * Long-lived observers of the watched user's profile, notified on every change.
+     */
+    private final List<Callback> ownProfileObservers = new ArrayList<>();
+    /**
+     * Reference to the "Users" node, or null when the cache is built for tests.
+     */
+    private final DatabaseReference usersRef;
+    /**
+     * Reads profiles missing from memory.
+     */
+    private final Loader loader;
+
+    /**
+     * The uid whose node is currently watched, or null.
+     */
+    private String watchedUid;
+    /**
+     * The listener attached to the watched user's node, or null.
+     */
+    private ValueEventListener ownProfileListener;
+    /**
+     * The uid {@link #ownProfile} belongs to, or null until the watched node has been read.
+     */
+    private String ownProfileUid;
+    /**
+     * The latest value of the watched user's profile, or null if they have no profile node.
+     */
+    private User ownProfile;
+
+    /**
+     * Number of requests answered from memory.
+     */
+    private long hitCount;
+    /**
+     * Number of requests that triggered a database read.
+     */
+    private long missCount;
+    /**
+     * Number of requests that joined a read already in flight.
+     */
+    private long coalescedCount;
+
+    /**
+     * Creates the cache. Use {@link #getInstance()}.
+     */
+    private UserProfileCache() {
+        usersRef = FirebaseDatabase.getInstance().getReference("Users");
+        loader = this::readProfile;
+    }
+
+    /**
+     * Creates a cache reading profiles through the given loader, without touching the database.
+     * {@link #watchOwnProfile(String)} is not available on such a cache.
+     *
+     * @param loader Reads profiles missing from memory.
+     */
+    UserProfileCache(@NonNull Loader loader) {
+        usersRef = null;
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the process-wide cache instance.
+     *
+     * @return The shared cache.
+     */
+    public static synchronized UserProfileCache getInstance() {
+        if (instance == null) {
+            instance = new UserProfileCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Delivers the profile of a user, from memory when possible.
+     * If a read for the same uid is already running, the callback is attached to it instead of
+     * starting another one.
+     *
+     * @param uid      The uid of the user.
+     * @param callback Receives the profile once available.
+     */
+    public void get(@NonNull String uid, @NonNull Callback callback) {
+        User cached = uid.equals(ownProfileUid) && ownProfile != null ? ownProfile : cache.get(uid);
+        if (cached != null) {
+            hitCount++;
+            callback.onProfile(cached);
+            return;
+        }
+
+        List<Callback> waiting = inFlight.get(uid);
+        if (waiting != null) {
+            coalescedCount++;
+            waiting.add(callback);
+            return;
+        }
+
+        missCount++;
+        waiting = new ArrayList<>();
+        waiting.add(callback);
+        inFlight.put(uid, waiting);
+
+        loader.load(uid, user -> {
+            if (user != null) {
+                cache.put(uid, user);
+            }
+
+            List<Callback> callbacks = inFlight.remove(uid);
+            if (callbacks != null) {
+                for (Callback cb : callbacks) {
+                    cb.onProfile(user);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads {@code Users/{uid}} once from the database.
+     *
+     * @param uid  The uid of the user.
+     * @param done Receives the profile, or null if absent or the read failed.
+     */
+    private void readProfile(@NonNull String uid, @NonNull Callback done) {
+        usersRef.child(uid).get().addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Failed to load profile " + uid + ": " + task.getException());
+                done.onProfile(null);
+            } else {
+                done.onProfile(task.getResult().exists() ? toUser(task.getResult()) : null);
+            }
+        });
+    }
+
+    /**
+     * Starts watching the signed-in user's own node so that edits (from {@link ProfileActivity}
+     * or another device) replace the cached entry immediately. Calling this again with the same uid
+     * has no effect; calling it with another uid moves the listener.
+     *
+     * @param uid The uid of the signed-in user.
+     */
+    public void watchOwnProfile(@NonNull String uid) {
+        if (uid.equals(watchedUid)) {
+            return;
+        }
+        stopWatchingOwnProfile();
+
+        watchedUid = uid;
+        ownProfileListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                ownProfileChanged(uid, snapshot.exists() ? toUser(snapshot) : null);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Own profile listener cancelled: " + error.getMessage());
+                forgetOwnProfile();
+            }
+        };
+        usersRef.child(uid).addValueEventListener(ownProfileListener);
+    }
+
+    /**
+     * Records a new value of the watched user's profile and notifies the observers.
+     *
+     * @param uid  The watched uid.
+     * @param user The profile, or null if the user has no profile node.
+     */
+    void ownProfileChanged(@NonNull String uid, @Nullable User user) {
+        ownProfileUid = uid;
+        ownProfile = user;
+        // Requests for other uids still go through the cache; keep this entry out of it
+        cache.remove(uid);
+        for (Callback observer : new ArrayList<>(ownProfileObservers)) {
+            observer.onProfile(user);
+        }
+    }
+
+    /**
+     * Forgets the watched user's latest profile.
+     */
+    private void forgetOwnProfile() {
+        if (ownProfileUid != null) {
+            cache.remove(ownProfileUid);
+        }
+        ownProfileUid = null;
+        ownProfile = null;
+    }
+
+    /**
+     * Detaches the own-profile listener and forgets the cached entry for that user.
+     * Called on logout.
+     */
+    public void stopWatchingOwnProfile() {
+        if (watchedUid != null && ownProfileListener != null) {
+            usersRef.child(watchedUid).removeEventListener(ownProfileListener);
+        }
+        forgetOwnProfile();
+        watchedUid = null;
+        ownProfileListener = null;
+    }
+
+    /**
+     * Registers an observer that is notified every time the watched user's profile changes.
+     * If the watched node has already been read, the observer is called immediately with its latest
+     * value, however long ago it arrived.
+     *
+     * @param observer The observer to add.
+     */
+    public void addOwnProfileObserver(@NonNull Callback observer) {
+        ownProfileObservers.add(observer);
+        if (ownProfileUid != null) {
+            hitCount++;
+            observer.onProfile(ownProfile);
+        }
+    }
+
+    /**
+     * Unregisters an observer added with {@link #addOwnProfileObserver(Callback)}.
+     *
+     * @param observer The observer to remove.
+     */
+    public void removeOwnProfileObserver(@NonNull Callback observer) {
+        ownProfileObservers.remove(observer);
+    }
+
+    /**
+     * Drops the cached profile of a user so the next request reads it again.
+     *
+     * @param uid The uid to invalidate.
+     */
+    public void invalidate(@NonNull String uid) {
+        // The watched profile is kept current by its listener
+        cache.remove(uid);
+    }
+
+    /**
+     * @return The number of requests answered from memory.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return The number of requests that triggered a database read.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return The number of requests that joined a read already in flight.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Builds a one-line summary of the counters, suitable for logging.
+     *
+     * @return The counter summary.
+     */
+    public String statsSummary() {
+        return "hits=" + hitCount + ", misses=" + missCount + ", coalesced=" + coalescedCount
+                + ", size=" + cache.size();
+    }
+
+    /**
+     * Converts a {@code Users/{uid}} snapshot into a {@link User}.
+     *
+     * @param snapshot The user's snapshot.
+     * @return The profile, with empty strings for missing fields.
+     */
+    private static User toUser(DataSnapshot snapshot) {
+        User user = SnapshotCodec.decode(snapshot, SnapshotCodec.USER);
+        String name = user != null ? user.getName() : null;
+        String age = user != null ? user.getAge() : null;
+        String email = user != null ? user.getEmail() : null;
+        return new User(name != null ? name : "", age != null ? age : "", email != null ? email : "");
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Unit tests for {@link AddressNormalizer} and {@link DestinationIndex}.
+ */
+public class AddressNormalizerTest {
+
+    @Test
+    public void parse_splitsStreetAndCityAndDropsCountryAndNumbers() {
+        AddressNormalizer.Address address = AddressNormalizer.parse("רחוב הרצל 12, חיפה, ישראל");
+
+        assertEquals("חיפה", address.city);
+        assertEquals(Collections.singletonList("הרצל"), address.streetTokens);
+    }
+
+    @Test
+    public void parse_normalizesFinalLettersAndNiqqud() {
+        assertEquals(AddressNormalizer.parse("אבן גבירול, תל אביב").streetTokens,
+                AddressNormalizer.parse("אֶבֶן גְּבִירוֹל, תל אביב").streetTokens);
+        // A final letter cut mid-word by the geocoder compares equal to the regular form
+        assertEquals(AddressNormalizer.parse("דרך מנחם בגין, רמת גן").streetTokens,
+                AddressNormalizer.parse("דרך מנחמ בגינ, רמת גן").streetTokens);
+    }
+
+    @Test
+    public void parse_mapsCitySpellingsToOneForm() {
+        String city = AddressNormalizer.parse("תל אביב-יפו").city;
+
+        assertEquals(city, AddressNormalizer.parse("Tel Aviv-Yafo, Israel").city);
+        assertEquals(city, AddressNormalizer.parse("תל אביב").city);
+        assertEquals(city, AddressNormalizer.parse("ת\"א").city);
+        assertEquals(city, AddressNormalizer.parse("דיזנגוף 50, תל־אביב–יפו, ישראל").city);
+        assertEquals(AddressNormalizer.parse("באר שבע").city, AddressNormalizer.parse("Be'er Sheva").city);
+    }
+
+    @Test
+    public void parse_dropsStreetWordsAndAbbreviations() {
+        assertEquals(Arrays.asList("rothschild"), AddressNormalizer.parse("Rothschild Blvd 1, Tel Aviv").streetTokens);
+        assertEquals(Arrays.asList("הרצל"), AddressNormalizer.parse("רח' הרצל 5א, חיפה").streetTokens);
+        assertEquals(Arrays.asList("רוטשילד"), AddressNormalizer.parse("שד' רוטשילד, תל אביב").streetTokens);
+    }
+
+    @Test
+    public void parse_emptyAddressHasNoCity() {
+        assertNull(AddressNormalizer.parse(null).city);
+        assertNull(AddressNormalizer.parse(" , 12 ").city);
+    }
+
+    @Test
+    public void index_matchesSameCityAndRanksSharedStreetsFirst() {
+        DestinationIndex index = new DestinationIndex();
+        index.put("a", "אלנבי 10, תל אביב-יפו, ישראל");
+        index.put("b", "Rothschild Blvd 1, Tel Aviv");
+        index.put("c", "הרצל 5, חיפה, ישראל");
+        index.put("d", "רוטשילד 22, תל אביב-יפו, ישראל");
+
+        assertEquals(Arrays.asList("d", "a", "b"), index.match("שד' רוטשילד 3, תל אביב"));
+        assertEquals(Collections.singletonList("c"), index.match("Haifa"));
+        assertEquals(Collections.emptyList(), index.match("ירושלים"));
+        assertNull(index.match(""));
+    }
+
+    @Test
+    public void index_replacesAndRemovesRides() {
+        DestinationIndex index = new DestinationIndex();
+        index.put("a", "חיפה");
+        index.put("a", "ירושלים");
+        index.put("b", "חיפה");
+        index.remove("b");
+
+        assertEquals(Collections.emptyList(), index.match("חיפה"));
+        assertEquals(Collections.singletonList("a"), index.match("Jerusalem"));
+        assertEquals(1, index.size());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DriverRows}.
+ */
+public class DriverRowsTest {
+
+    private static final long DEPARTURE = 1_700_000_000_000L;
+
+    @Test
+    public void sameRide_comparesRideKeys() {
+        Driver a = ride("20231114/r1");
+        Driver b = ride("20231114/r1");
+        b.setSeats(2);
+
+        assertTrue(DriverRows.sameRide(a, b));
+        assertFalse(DriverRows.sameRide(a, ride("20231114/r2")));
+        assertEquals(DriverRows.stableId("20231114/r1"), DriverRows.stableId(b.getRideKey()));
+        assertNotEquals(DriverRows.stableId("20231114/r1"), DriverRows.stableId("20231114/r2"));
+    }
+
+    @Test
+    public void resolvedName_isANamePayload() {
+        Driver before = ride("20231114/r1");
+        Driver after = ride("20231114/r1");
+        after.setUser(new User("Dana", "31", ""));
+
+        assertEquals("Unknown Driver", DriverRows.nameLine(before));
+        assertEquals("Dana, 31", DriverRows.nameLine(after));
+        assertFalse(DriverRows.sameContent(before, after));
+        assertEquals(DriverRows.NAME_PAYLOAD, DriverRows.changePayload(before, after));
+    }
+
+    @Test
+    public void changedDetails_needAFullRebind() {
+        Driver before = ride("20231114/r1");
+        Driver after = ride("20231114/r1");
+        assertTrue(DriverRows.sameContent(before, after));
+
+        after.setDepartureEpochMillis(DEPARTURE + 60_000);
+        assertFalse(DriverRows.sameContent(before, after));
+        assertNull(DriverRows.changePayload(before, after));
+
+        after = ride("20231114/r1");
+        after.setComment("no smoking");
+        assertNull(DriverRows.changePayload(before, after));
+    }
+
+    static Driver ride(String rideKey) {
+        Driver driver = new Driver("from", "to", 3, "", DEPARTURE, "driver");
+        driver.setRideKey(rideKey);
+        return driver;
+    }
+}
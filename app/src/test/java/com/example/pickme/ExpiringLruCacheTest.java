@@ -0,0 +1,87 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ExpiringLruCache}.
+ */
+public class ExpiringLruCacheTest {
+
+    /** Cache whose clock is moved by hand. */
+    private static final class ManualClockCache extends ExpiringLruCache<String, String> {
+        long nowMillis;
+
+        ManualClockCache(int maxEntries, long ttlMillis) {
+            super(maxEntries, ttlMillis);
+        }
+
+        @Override
+        protected long now() {
+            return nowMillis;
+        }
+    }
+
+    @Test
+    public void put_evictsTheLeastRecentlyUsedEntryBeyondTheBound() {
+        ManualClockCache cache = new ManualClockCache(2, 1000);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        // Reading "a" makes "b" the eldest
+        assertEquals("A", cache.get("a"));
+        cache.put("c", "C");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+    }
+
+    @Test
+    public void get_dropsEntriesOlderThanTheTtl() {
+        ManualClockCache cache = new ManualClockCache(10, 1000);
+        cache.put("a", "A");
+        cache.nowMillis = 1000;
+        assertEquals("A", cache.get("a"));
+
+        cache.nowMillis = 1001;
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void put_resetsTheAgeOfAnEntry() {
+        ManualClockCache cache = new ManualClockCache(10, 1000);
+        cache.put("a", "A");
+        cache.nowMillis = 900;
+        cache.put("a", "A2");
+        cache.nowMillis = 1500;
+
+        assertEquals("A2", cache.get("a"));
+    }
+
+    @Test
+    public void removeAndClear_forgetEntries() {
+        ManualClockCache cache = new ManualClockCache(10, 1000);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.remove("a");
+        assertNull(cache.get("a"));
+        assertEquals("B", cache.get("b"));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void put_rejectsNullValues() {
+        new ManualClockCache(1, 1000).put("a", null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsANonPositiveBound() {
+        new ManualClockCache(0, 1000);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.pickme;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory stand-in for the Realtime Database tree, used by unit tests.
+ *
+ * <p>Values are stored as nested {@code Map}s like {@code DataSnapshot#getValue()} returns them.
+ * Writing null (or an empty map) deletes a location and prunes empty parents. Multi-path updates
+ * are applied atomically and, like the real server, reject paths that overlap. Transactions
+ * follow the client SDK's optimistic protocol: the handler runs on the last known value and the
+ * result is committed only if the location still holds that value, otherwise the handler is re-run,
+ * up to {@link #MAX_TRANSACTION_ATTEMPTS} times.</p>
+ */
+public class FakeDatabase {
+
+    /** Same retry limit as the Firebase client SDK. */
+    public static final int MAX_TRANSACTION_ATTEMPTS = 25;
+
+    /** Returned by a {@link TransactionHandler} to abort the transaction. */
+    public static final Object ABORT = new Object();
+
+    /** Computes the new value of a location from its current value. */
+    public interface TransactionHandler {
+        /**
+         * @param current a private copy of the current value, or null
+         * @return the new value, or {@link #ABORT}
+         */
+        Object apply(Object current);
+    }
+
+    /** Result of {@link #runTransaction}. */
+    public static final class TransactionOutcome {
+        public final boolean committed;
+        public final int attempts;
+
+        TransactionOutcome(boolean committed, int attempts) {
+            this.committed = committed;
+            this.attempts = attempts;
+        }
+    }
+
+    private final Map<String, Object> root = new HashMap<>();
+
+    /**
+     * Returns a deep copy of the value at a path, or null if nothing is stored there.
+     */
+    public synchronized Object get(String path) {
+        Object node = root;
+        for (String segment : split(path)) {
+            if (!(node instanceof Map)) {
+                return null;
+            }
+            node = ((Map<?, ?>) node).get(segment);
+        }
+        return deepCopy(node);
+    }
+
+    /**
+     * Replaces the value at a path.
+     */
+    public synchronized void set(String path, Object value) {
+        write(split(path), deepCopy(value));
+    }
+
+    /**
+     * Applies a multi-path update atomically.
+     *
+     * @throws IllegalArgumentException if one path is an ancestor of another
+     */
+    public synchronized void updateChildren(Map<String, Object> updates) {
+        List<String> paths = new ArrayList<>(updates.keySet());
+        for (String a : paths) {
+            for (String b : paths) {
+                if (!a.equals(b) && (b + "/").startsWith(a + "/")) {
+                    throw new IllegalArgumentException("Path " + a + " is an ancestor of " + b);
+                }
+            }
+        }
+        for (Map.Entry<String, Object> entry : updates.entrySet()) {
+            write(split(entry.getKey()), deepCopy(entry.getValue()));
+        }
+    }
+
+    /**
+     * Runs an optimistic transaction on a location.
+     */
+    public TransactionOutcome runTransaction(String path, TransactionHandler handler) {
+        for (int attempt = 1; attempt <= MAX_TRANSACTION_ATTEMPTS; attempt++) {
+            Object expected = get(path);
+            Object result = handler.apply(deepCopy(expected));
+            if (result == ABORT) {
+                return new TransactionOutcome(false, attempt);
+            }
+            synchronized (this) {
+                if (Objects.equals(get(path), expected)) {
+                    set(path, result);
+                    return new TransactionOutcome(true, attempt);
+                }
+            }
+            Thread.yield();
+        }
+        return new TransactionOutcome(false, MAX_TRANSACTION_ATTEMPTS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(List<String> segments, Object value) {
+        if (segments.isEmpty()) {
+            root.clear();
+            if (value instanceof Map) {
+                root.putAll((Map<String, Object>) value);
+            }
+            return;
+        }
+        boolean delete = value == null || (value instanceof Map && ((Map<?, ?>) value).isEmpty());
+        List<Map<String, Object>> parents = new ArrayList<>();
+        Map<String, Object> node = root;
+        for (int i = 0; i < segments.size() - 1; i++) {
+            parents.add(node);
+            Object child = node.get(segments.get(i));
+            if (!(child instanceof Map)) {
+                if (delete) {
+                    return;
+                }
+                child = new HashMap<String, Object>();
+                node.put(segments.get(i), child);
+            }
+            node = (Map<String, Object>) child;
+        }
+        String last = segments.get(segments.size() - 1);
+        if (delete) {
+            node.remove(last);
+            // Prune parents left empty by the delete
+            for (int i = parents.size() - 1; i >= 0 && node.isEmpty(); i--) {
+                parents.get(i).remove(segments.get(i));
+                node = parents.get(i);
+            }
+        } else {
+            node.put(last, value);
+        }
+    }
+
+    private static List<String> split(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Object deepCopy(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> copy = new HashMap<>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                copy.put(entry.getKey(), deepCopy(entry.getValue()));
+            }
+            return copy;
+        }
+        return value;
+    }
+}
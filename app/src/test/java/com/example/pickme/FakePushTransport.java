@@ -0,0 +1,65 @@
+package com.example.pickme;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory stand-in for the push backend, used by unit tests.
+ *
+ * <p>Sent messages are queued until {@link #deliverAll} hands them to the devices registered for
+ * the recipient, through {@link PushMessages#dispatch} like the app's messaging service does.
+ * Delivering the same queue several times models the backend's at-least-once delivery.</p>
+ */
+public class FakePushTransport implements PushTransport {
+
+    private final Map<String, List<PushMessages.Listener>> devices = new HashMap<>();
+    private final List<String> recipients = new ArrayList<>();
+    private final List<Map<String, String>> queue = new ArrayList<>();
+    private int ignored;
+
+    /**
+     * Registers a device of a user.
+     */
+    public void register(String uid, PushMessages.Listener device) {
+        devices.computeIfAbsent(uid, k -> new ArrayList<>()).add(device);
+    }
+
+    @Override
+    public void send(String recipientUid, Map<String, String> data) {
+        recipients.add(recipientUid);
+        // Copy like the real transport serializes, so later changes by the sender do not leak
+        queue.add(new HashMap<>(data));
+    }
+
+    /**
+     * Delivers the queued messages {@code times} times each, then empties the queue.
+     *
+     * @return The number of messages handed to a device.
+     */
+    public int deliverAll(int times) {
+        int delivered = 0;
+        for (int round = 0; round < times; round++) {
+            for (int i = 0; i < queue.size(); i++) {
+                for (PushMessages.Listener device : devices.getOrDefault(recipients.get(i), new ArrayList<>())) {
+                    if (PushMessages.dispatch(queue.get(i), device)) {
+                        delivered++;
+                    } else {
+                        ignored++;
+                    }
+                }
+            }
+        }
+        recipients.clear();
+        queue.clear();
+        return delivered;
+    }
+
+    /**
+     * @return The number of deliveries rejected by {@link PushMessages#dispatch}.
+     */
+    public int ignoredCount() {
+        return ignored;
+    }
+}
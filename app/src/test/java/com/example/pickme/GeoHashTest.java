@@ -0,0 +1,92 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link GeoHash}.
+ */
+public class GeoHashTest {
+
+    @Test
+    public void encode_matchesReferenceHashes() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("ezs42", GeoHash.encode(42.6, -5.6, 5));
+        assertEquals(GeoHash.STORED_PRECISION, GeoHash.encode(32.0853, 34.7818).length());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_rejectsInvalidLatitude() {
+        GeoHash.encode(91, 0, 5);
+    }
+
+    @Test
+    public void distanceMeters_telAvivToJerusalem() {
+        double distance = GeoHash.distanceMeters(32.0853, 34.7818, 31.7683, 35.2137);
+        assertEquals(53_900, distance, 500);
+        assertEquals(0, GeoHash.distanceMeters(32.0853, 34.7818, 32.0853, 34.7818), 1e-6);
+    }
+
+    @Test
+    public void queryBounds_returnsAtMostFourSortedRanges() {
+        List<String[]> bounds = GeoHash.queryBounds(32.0853, 34.7818, 5_000);
+
+        assertTrue(bounds.size() >= 1 && bounds.size() <= 4);
+        for (int i = 0; i < bounds.size(); i++) {
+            assertEquals(bounds.get(i)[0] + "~", bounds.get(i)[1]);
+            if (i > 0) {
+                assertTrue(bounds.get(i - 1)[0].compareTo(bounds.get(i)[0]) < 0);
+            }
+        }
+    }
+
+    @Test
+    public void queryBounds_coverEveryPointInsideTheRadius() {
+        Random random = new Random(13);
+        double[] radii = {500, 5_000, 25_000};
+        for (int center = 0; center < 200; center++) {
+            double lat = 29.5 + random.nextDouble() * 3.8;
+            double lng = 34.2 + random.nextDouble() * 1.7;
+            for (double radius : radii) {
+                List<String[]> bounds = GeoHash.queryBounds(lat, lng, radius);
+                for (int i = 0; i < 50; i++) {
+                    // A random point inside the circle, by bearing and distance
+                    double bearing = random.nextDouble() * 2 * Math.PI;
+                    double meters = random.nextDouble() * radius * 0.999;
+                    double pointLat = lat + Math.cos(bearing) * meters / 111_320.0;
+                    double pointLng = lng + Math.sin(bearing) * meters / (111_320.0 * Math.cos(Math.toRadians(lat)));
+                    if (GeoHash.distanceMeters(lat, lng, pointLat, pointLng) > radius) {
+                        continue;
+                    }
+                    String hash = GeoHash.encode(pointLat, pointLng);
+                    if (!inAnyRange(hash, bounds)) {
+                        fail("Point " + pointLat + "," + pointLng + " (" + hash + ") outside the ranges for "
+                                + lat + "," + lng + " r=" + radius);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void precisionFor_shrinksCellsAsTheBoxShrinks() {
+        assertEquals(0, GeoHash.precisionFor(90, 90));
+        assertTrue(GeoHash.precisionFor(0.1, 0.1) > GeoHash.precisionFor(1, 1));
+        assertEquals(12, GeoHash.precisionFor(0, 0));
+    }
+
+    static boolean inAnyRange(String hash, List<String[]> bounds) {
+        for (String[] range : bounds) {
+            if (hash.compareTo(range[0]) >= 0 && hash.compareTo(range[1]) <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
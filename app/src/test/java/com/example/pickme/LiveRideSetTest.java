@@ -0,0 +1,111 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link LiveRideSet}.
+ */
+public class LiveRideSetTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void upsert_insertsByDepartureThenKey() {
+        LiveRideSet set = new LiveRideSet();
+
+        assertEquals(0, set.upsert(ride("20231114/b", NOW + 2)).to);
+        assertEquals(0, set.upsert(ride("20231114/a", NOW + 1)).to);
+        LiveRideSet.Change tie = set.upsert(ride("20231114/c", NOW + 2));
+
+        assertTrue(tie.isInsert());
+        assertEquals(2, tie.to);
+        assertEquals(keys("20231114/a", "20231114/b", "20231114/c"), keysOf(set.snapshot()));
+    }
+
+    @Test
+    public void upsert_replacesAndMovesAChangedRide() {
+        LiveRideSet set = new LiveRideSet();
+        set.upsert(ride("20231114/a", NOW + 1));
+        set.upsert(ride("20231114/b", NOW + 2));
+        set.upsert(ride("20231114/c", NOW + 3));
+
+        Driver seatsTaken = ride("20231114/b", NOW + 2);
+        LiveRideSet.Change inPlace = set.upsert(seatsTaken);
+        assertFalse(inPlace.isInsert());
+        assertFalse(inPlace.isMove());
+        assertEquals(1, inPlace.to);
+        assertSame(seatsTaken, set.snapshot().get(1));
+
+        LiveRideSet.Change moved = set.upsert(ride("20231114/a", NOW + 4));
+        assertTrue(moved.isMove());
+        assertEquals(0, moved.from);
+        assertEquals(2, moved.to);
+        assertEquals(3, set.size());
+        assertEquals(keys("20231114/b", "20231114/c", "20231114/a"), keysOf(set.snapshot()));
+    }
+
+    @Test
+    public void remove_reportsTheRowOrNone() {
+        LiveRideSet set = new LiveRideSet();
+        set.upsert(ride("20231114/a", NOW + 1));
+        set.upsert(ride("20231114/b", NOW + 2));
+
+        LiveRideSet.Change removed = set.remove("20231114/b");
+        assertTrue(removed.isRemove());
+        assertEquals(1, removed.from);
+        assertSame(LiveRideSet.Change.NONE, set.remove("20231114/b"));
+        assertFalse(set.contains("20231114/b"));
+        assertTrue(set.contains("20231114/a"));
+    }
+
+    @Test
+    public void randomEvents_keepTheSetSorted() {
+        Random random = new Random(22);
+        LiveRideSet set = new LiveRideSet();
+        List<Driver> reference = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            String rideKey = "20231114/r" + random.nextInt(300);
+            reference.removeIf(ride -> ride.getRideKey().equals(rideKey));
+            if (random.nextInt(4) == 0) {
+                set.remove(rideKey);
+            } else {
+                Driver ride = ride(rideKey, NOW + random.nextInt(50));
+                set.upsert(ride);
+                reference.add(ride);
+            }
+        }
+        Collections.sort(reference, LiveRideSet::compare);
+
+        assertEquals(keysOf(reference), keysOf(set.snapshot()));
+    }
+
+    private static Driver ride(String rideKey, long departure) {
+        Driver driver = new Driver("from", "to", 3, "", departure, "driver");
+        driver.setRideKey(rideKey);
+        return driver;
+    }
+
+    private static List<String> keys(String... keys) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, keys);
+        return list;
+    }
+
+    private static List<String> keysOf(List<Driver> rides) {
+        List<String> keys = new ArrayList<>();
+        for (Driver ride : rides) {
+            keys.add(ride.getRideKey());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link NotificationCoalescer}.
+ */
+public class NotificationCoalescerTest {
+
+    private static final String RIDE = "20231114/r1";
+    private static final String OTHER_RIDE = "20231115/r2";
+
+    @Test
+    public void offer_collapsesRepeatedEventsIntoOneBatchPerRide() {
+        NotificationCoalescer coalescer = new NotificationCoalescer();
+
+        assertTrue(coalescer.offer(RIDE, "p1"));
+        assertFalse(coalescer.offer(RIDE, "p1"));
+        assertTrue(coalescer.offer(RIDE, "p2"));
+        assertTrue(coalescer.offer(OTHER_RIDE, "p1"));
+
+        Map<String, NotificationCoalescer.Batch> batches = coalescer.drain();
+        assertEquals(Arrays.asList(RIDE, OTHER_RIDE), Arrays.asList(batches.keySet().toArray()));
+        assertEquals(2, batches.get(RIDE).newPassengers);
+        assertEquals(1, batches.get(OTHER_RIDE).newPassengers);
+        assertFalse(coalescer.hasPending());
+        assertTrue(coalescer.drain().isEmpty());
+    }
+
+    @Test
+    public void drain_marksPassengersNotifiedAndCountsTheRideTotal() {
+        NotificationCoalescer coalescer = new NotificationCoalescer();
+        coalescer.offer(RIDE, "p1");
+        coalescer.drain();
+
+        assertFalse(coalescer.offer(RIDE, "p1"));
+        assertTrue(coalescer.offer(RIDE, "p2"));
+        NotificationCoalescer.Batch batch = coalescer.drain().get(RIDE);
+        assertEquals(1, batch.newPassengers);
+        assertEquals(2, batch.totalPassengers);
+    }
+
+    @Test
+    public void seenEntries_surviveARestart() {
+        NotificationCoalescer before = new NotificationCoalescer();
+        before.offer(RIDE, "p1");
+        before.offer(OTHER_RIDE, "p2");
+        before.drain();
+        // Pending passengers were never notified, so they are not saved
+        before.offer(RIDE, "p3");
+
+        Set<String> saved = before.seenEntries();
+        assertEquals(new HashSet<>(Arrays.asList(RIDE + "/p1", OTHER_RIDE + "/p2")), saved);
+
+        saved.add("malformed");
+        NotificationCoalescer after = new NotificationCoalescer(saved);
+        assertFalse(after.offer(RIDE, "p1"));
+        assertFalse(after.offer(OTHER_RIDE, "p2"));
+        assertTrue(after.offer(RIDE, "p3"));
+        assertEquals(saved.size() - 1, after.seenEntries().size());
+    }
+
+    @Test
+    public void forgetAndRetain_dropState() {
+        NotificationCoalescer coalescer = new NotificationCoalescer();
+        coalescer.offer(RIDE, "p1");
+        coalescer.offer(OTHER_RIDE, "p2");
+        coalescer.drain();
+
+        // A passenger who cancels and books again is notified again
+        coalescer.forget(RIDE, "p1");
+        assertTrue(coalescer.offer(RIDE, "p1"));
+
+        coalescer.retainRide(RIDE);
+        assertTrue(coalescer.offer(OTHER_RIDE, "p2"));
+        assertEquals(2, coalescer.drain().size());
+
+        coalescer.retainRide(null);
+        assertTrue(coalescer.seenEntries().isEmpty());
+        assertFalse(coalescer.hasPending());
+    }
+
+    @Test
+    public void notificationId_isStableAndClearOfFixedIds() {
+        assertEquals(NotificationCoalescer.notificationId(RIDE), NotificationCoalescer.notificationId(RIDE));
+        for (String key : Arrays.asList(RIDE, OTHER_RIDE, "", "20231114/-Nxyz")) {
+            assertTrue(NotificationCoalescer.notificationId(key) >= NotificationCoalescer.FIRST_RIDE_NOTIFICATION_ID);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.pickme;
+
+import static com.example.pickme.RideFixtures.request;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Unit tests for {@link PassengerRoster}.
+ */
+public class PassengerRosterTest {
+
+    @Test
+    public void rows_areOrderedByUidAndReplacedInPlace() {
+        PassengerRoster roster = new PassengerRoster();
+        roster.upsert("p3", request(1, false));
+        roster.upsert("p1", request(2, false));
+        roster.upsert("p2", request(1, false));
+        roster.upsert("p1", request(3, true));
+
+        assertEquals(Arrays.asList("p1", "p2", "p3"), uids(roster));
+        PassengerRoster.Row first = roster.snapshot().get(0);
+        assertEquals("Seats requested: 3", first.seatsLine);
+        assertTrue(first.accepted);
+        assertEquals(5, roster.seatsTaken());
+        assertEquals(1, roster.acceptedCount());
+    }
+
+    @Test
+    public void tally_followsChangesAndRemovals() {
+        PassengerRoster roster = new PassengerRoster();
+        roster.upsert("p1", request(2, false));
+        roster.upsert("p2", request(1, false));
+        roster.upsert("p2", request(1, true));
+        assertEquals(3, roster.seatsTaken());
+        assertEquals(1, roster.acceptedCount());
+
+        roster.remove("p2");
+        roster.remove("p9");
+        assertEquals(2, roster.seatsTaken());
+        assertEquals(0, roster.acceptedCount());
+        assertEquals("Seats booked: 2 of 4", PassengerRoster.tallyLine(roster.seatsTaken(), 4));
+
+        roster.clear();
+        assertEquals(0, roster.size());
+        assertEquals(0, roster.seatsTaken());
+        assertEquals("Seats booked: 0", PassengerRoster.tallyLine(0, -1));
+    }
+
+    @Test
+    public void entriesWithoutAValidCount_takeOneSeatLikeReservations() {
+        PassengerRoster roster = new PassengerRoster();
+        roster.upsert("p1", new HashMap<>());
+        roster.upsert("p2", "not a map");
+
+        assertEquals(2, roster.seatsTaken());
+        assertEquals("From: Not specified", roster.snapshot().get(1).from);
+    }
+
+    @Test
+    public void randomEvents_matchARecountOfTheFullSnapshot() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            PassengerRoster roster = new PassengerRoster();
+            Map<String, Object> passengers = new TreeMap<>();
+            for (int event = 0; event < 50; event++) {
+                String uid = "p" + random.nextInt(12);
+                if (random.nextInt(4) == 0) {
+                    passengers.remove(uid);
+                    roster.remove(uid);
+                } else {
+                    Map<String, Object> request = request(random.nextInt(4), random.nextBoolean());
+                    passengers.put(uid, request);
+                    roster.upsert(uid, request);
+                }
+
+                assertEquals(SeatReservation.seatsTaken(passengers), roster.seatsTaken());
+                assertEquals(new ArrayList<>(passengers.keySet()), uids(roster));
+                int accepted = 0;
+                for (Object passenger : passengers.values()) {
+                    accepted += RideTransitions.isAccepted(passenger) ? 1 : 0;
+                }
+                assertEquals(accepted, roster.acceptedCount());
+            }
+        }
+    }
+
+    @Test
+    public void sameContent_comparesWhatTheRowShows() {
+        PassengerRoster roster = new PassengerRoster();
+        roster.upsert("p1", request(2, false));
+        PassengerRoster.Row before = roster.snapshot().get(0);
+        roster.upsert("p1", request(2, false));
+        assertTrue(roster.snapshot().get(0).sameContent(before));
+        roster.upsert("p1", request(2, true));
+        assertFalse(roster.snapshot().get(0).sameContent(before));
+    }
+
+    private static List<String> uids(PassengerRoster roster) {
+        List<String> uids = new ArrayList<>();
+        for (PassengerRoster.Row row : roster.snapshot()) {
+            uids.add(row.uid);
+        }
+        return uids;
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for {@link PushMessages}, running the booking and status paths from the writing device
+ * through a {@link FakePushTransport} to the receiving devices, with rides in a {@link FakeDatabase}.
+ */
+public class PushMessagesTest {
+
+    private static final String RIDE_KEY = "20231114/r1";
+    private static final String RIDE = "RidesByDay/" + RIDE_KEY;
+
+    private FakeDatabase db;
+    private FakePushTransport transport;
+    private Device driver;
+    private Device passenger;
+
+    /**
+     * Receiving device that reacts like {@link PickMeMessagingService}: while its
+     * {@link RideMonitorService} runs, the live listeners report rides and pushes are skipped.
+     */
+    private static final class Device implements PushMessages.Listener {
+        final NotificationCoalescer coalescer = new NotificationCoalescer();
+        final List<String> notifications = new ArrayList<>();
+        boolean monitorRunning;
+
+        @Override
+        public void onBooking(String rideKey, String passengerUid) {
+            if (monitorRunning) {
+                return;
+            }
+            if (coalescer.offer(rideKey, passengerUid)) {
+                for (Map.Entry<String, NotificationCoalescer.Batch> batch : coalescer.drain().entrySet()) {
+                    notifications.add("booking " + batch.getKey() + " x" + batch.getValue().totalPassengers);
+                }
+            }
+        }
+
+        @Override
+        public void onStatus(String rideKey, RideStatus status) {
+            if (monitorRunning && status != RideStatus.ACCEPTED) {
+                return;
+            }
+            notifications.add("status " + rideKey + " " + status.value());
+        }
+    }
+
+    @Before
+    public void setUp() {
+        db = new FakeDatabase();
+        Map<String, Object> ride = new HashMap<>();
+        ride.put("uid", "driver1");
+        ride.put("seats", 3);
+        ride.put("schemaVersion", 2);
+        db.set(RIDE, ride);
+
+        transport = new FakePushTransport();
+        driver = new Device();
+        passenger = new Device();
+        transport.register("driver1", driver);
+        transport.register("p1", passenger);
+    }
+
+    @Test
+    public void booking_reachesTheDriverOnceDespiteRedelivery() {
+        book("p1");
+
+        assertEquals(2, transport.deliverAll(2));
+        assertEquals(1, driver.notifications.size());
+        assertEquals("booking " + RIDE_KEY + " x1", driver.notifications.get(0));
+
+        book("p2");
+        transport.deliverAll(1);
+        assertEquals("booking " + RIDE_KEY + " x2", driver.notifications.get(1));
+        assertTrue(passenger.notifications.isEmpty());
+    }
+
+    @Test
+    public void pushes_standInOnlyWhileTheMonitorIsNotRunning() {
+        book("p1");
+        transport.deliverAll(1);
+
+        accept("p1");
+        transport.deliverAll(1);
+        assertEquals("status " + RIDE_KEY + " accepted", passenger.notifications.get(0));
+
+        // Both monitors running: the live listeners report bookings and statuses instead
+        driver.monitorRunning = true;
+        passenger.monitorRunning = true;
+        book("p2");
+        changeStatus(RideStatus.IN_PROGRESS);
+        transport.deliverAll(1);
+        assertEquals(1, driver.notifications.size());
+        assertEquals(1, passenger.notifications.size());
+
+        // The system stopped the passenger's monitor; the push is the only report left
+        passenger.monitorRunning = false;
+        changeStatus(RideStatus.COMPLETED);
+        transport.deliverAll(1);
+        assertEquals("status " + RIDE_KEY + " completed", passenger.notifications.get(1));
+    }
+
+    @Test
+    public void acceptance_reachesOnlyTheAcceptedPassengerEvenWhileTheMonitorRuns() {
+        Device other = new Device();
+        transport.register("p2", other);
+        book("p1");
+        book("p2");
+        transport.deliverAll(1);
+
+        // The monitor cannot tell whose acceptance made the ride accepted, so the push always shows
+        passenger.monitorRunning = true;
+        other.monitorRunning = true;
+        accept("p1");
+        transport.deliverAll(1);
+        assertEquals(Arrays.asList("status " + RIDE_KEY + " accepted"), passenger.notifications);
+        assertTrue(other.notifications.isEmpty());
+        assertTrue(RideTransitions.isAccepted(db.get(RIDE + "/Passengers/p1")));
+        assertFalse(RideTransitions.isAccepted(db.get(RIDE + "/Passengers/p2")));
+    }
+
+    @Test
+    public void dispatch_ignoresMalformedAndUnknownMessages() {
+        Map<String, String> unknownType = PushMessages.booking(RIDE_KEY, "p1");
+        unknownType.put(PushMessages.TYPE, "chat");
+        Map<String, String> badKey = PushMessages.booking("driver1", "p1");
+        Map<String, String> noStatus = PushMessages.status(RIDE_KEY, RideStatus.ACCEPTED);
+        noStatus.remove(PushMessages.STATUS);
+        Map<String, String> badStatus = PushMessages.status(RIDE_KEY, RideStatus.ACCEPTED);
+        badStatus.put(PushMessages.STATUS, "teleporting");
+
+        for (Map<String, String> message : List.of(unknownType, badKey, noStatus, badStatus)) {
+            transport.send("driver1", message);
+        }
+        assertEquals(0, transport.deliverAll(1));
+        assertEquals(4, transport.ignoredCount());
+        assertFalse(PushMessages.dispatch(null, driver));
+        assertTrue(driver.notifications.isEmpty());
+    }
+
+    /** Books a seat like {@code DriverAdapter}: transaction first, push once it committed. */
+    @SuppressWarnings("unchecked")
+    private void book(String passengerUid) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("passengerCount", 1);
+        String[] driverUid = new String[1];
+        FakeDatabase.TransactionOutcome outcome = db.runTransaction(RIDE, current -> {
+            Map<String, Object> ride = (Map<String, Object>) current;
+            if (SeatReservation.tryReserve(ride, passengerUid, request) != SeatReservation.Result.BOOKED) {
+                return FakeDatabase.ABORT;
+            }
+            driverUid[0] = (String) ride.get("uid");
+            return ride;
+        });
+        assertTrue(outcome.committed);
+        transport.send(driverUid[0], PushMessages.booking(RIDE_KEY, passengerUid));
+    }
+
+    /**
+     * Accepts a passenger like {@code PassengerFragment}: one transaction on the ride flags them and
+     * opens the ride for starting, then a push goes to them alone.
+     */
+    @SuppressWarnings("unchecked")
+    private void accept(String passengerUid) {
+        FakeDatabase.TransactionOutcome outcome = db.runTransaction(RIDE, current -> {
+            Map<String, Object> ride = (Map<String, Object>) current;
+            return RideTransitions.acceptPassenger(ride, passengerUid) == RideTransitions.Result.APPLIED
+                    ? ride : FakeDatabase.ABORT;
+        });
+        assertTrue(outcome.committed);
+        transport.send(passengerUid, PushMessages.status(RIDE_KEY, RideStatus.ACCEPTED));
+    }
+
+    /** Changes the status like {@code PassengerFragment}: transaction first, then the passengers are told. */
+    @SuppressWarnings("unchecked")
+    private void changeStatus(RideStatus status) {
+        AtomicReference<Map<String, Object>> after = new AtomicReference<>();
+        FakeDatabase.TransactionOutcome outcome = db.runTransaction(RIDE, current -> {
+            Map<String, Object> ride = (Map<String, Object>) current;
+            if (RideTransitions.transition(ride, status) != RideTransitions.Result.APPLIED) {
+                return FakeDatabase.ABORT;
+            }
+            after.set(ride);
+            return ride;
+        });
+        assertTrue(outcome.committed);
+        for (Object passengerUid : ((Map<String, Object>) after.get().get(RideArchiver.PASSENGERS)).keySet()) {
+            transport.send((String) passengerUid, PushMessages.status(RIDE_KEY, status));
+        }
+    }
+}
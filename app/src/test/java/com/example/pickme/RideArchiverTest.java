@@ -0,0 +1,94 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link RideArchiver}, applied against a {@link FakeDatabase}.
+ */
+public class RideArchiverTest {
+
+    private FakeDatabase db;
+
+    @Before
+    public void setUp() {
+        db = new FakeDatabase();
+
+        Map<String, Object> ride = new HashMap<>();
+        ride.put("uid", "driver1");
+        ride.put("currentLocation", "Haifa");
+        ride.put("destination", "Tel Aviv");
+        ride.put("status", "in_progress");
+
+        Map<String, Object> passengers = new HashMap<>();
+        passengers.put("p1", passenger("Haifa", "Tel Aviv"));
+        passengers.put("p2", passenger("Akko", "Herzliya"));
+        ride.put("Passengers", passengers);
+
+        db.set("RidesByDay/20240101/r1", ride);
+        db.set("RidesByDay/20240101/r2/uid", "driver2");
+        db.set("DriverActiveRide/driver1", "20240101/r1");
+        db.set("DriverActiveRide/driver2", "20240101/r2");
+        db.set("PassengerRides/p1", "20240101/r1");
+        db.set("PassengerRides/p2", "20240101/r1");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void archive_writesHistoryAndRemovesRideInOneUpdate() {
+        Map<String, Object> ride = (Map<String, Object>) db.get("RidesByDay/20240101/r1");
+
+        db.updateChildren(RideArchiver.buildArchiveUpdates("driver1", "20240101/r1", ride, "k1", "completed"));
+
+        assertNull(db.get("RidesByDay/20240101/r1"));
+        assertNull(db.get("DriverActiveRide/driver1"));
+        assertNotNull(db.get("RidesByDay/20240101/r2"));
+        assertEquals("20240101/r2", db.get("DriverActiveRide/driver2"));
+
+        Map<String, Object> driverHistory = (Map<String, Object>) db.get("HistoryDriver/driver1/k1");
+        assertEquals("Tel Aviv", driverHistory.get("destination"));
+        assertEquals("completed", driverHistory.get("status"));
+        assertNull(driverHistory.get("Passengers"));
+
+        assertEquals("Tel Aviv", db.get("HistoryPassenger/p1/k1/destination"));
+        assertEquals("Herzliya", db.get("HistoryPassenger/p2/k1/destination"));
+        assertEquals("completed", db.get("HistoryPassenger/p2/k1/status"));
+
+        assertNull(db.get("PassengerRides/p1"));
+        assertNull(db.get("PassengerRides/p2"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void archive_rideWithoutPassengers() {
+        Map<String, Object> ride = (Map<String, Object>) db.get("RidesByDay/20240101/r2");
+
+        Map<String, Object> updates = RideArchiver.buildArchiveUpdates("driver2", "20240101/r2", ride, "k2", "completed");
+        db.updateChildren(updates);
+
+        assertEquals(3, updates.size());
+        assertNull(db.get("RidesByDay/20240101/r2"));
+        assertNull(db.get("DriverActiveRide/driver2"));
+        assertEquals("driver2", db.get("HistoryDriver/driver2/k2/uid"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void archive_requiresRide() {
+        RideArchiver.buildArchiveUpdates("driver1", "20240101/r1", null, "k1", "completed");
+    }
+
+    private static Map<String, Object> passenger(String from, String to) {
+        Map<String, Object> passenger = new HashMap<>();
+        passenger.put("currentLocation", from);
+        passenger.put("destination", to);
+        passenger.put("numberOfPassengers", "1");
+        return passenger;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.pickme;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ride and passenger request values shared by the unit tests.
+ *
+ * <p>Values are built like {@code DataSnapshot#getValue()} returns them: nested {@code Map}s, with
+ * whole numbers as {@code Long}, under the current {@link RideSchema} field names.</p>
+ */
+public final class RideFixtures {
+
+    private RideFixtures() {}
+
+    /**
+     * @param seats the ride's capacity
+     * @return a new ride from Haifa to Tel Aviv without passengers
+     */
+    public static Map<String, Object> ride(long seats) {
+        Map<String, Object> ride = new HashMap<>();
+        ride.put("uid", "driver1");
+        ride.put("currentLocation", "Haifa");
+        ride.put("destination", "Tel Aviv");
+        ride.put(RideSchema.SEATS, seats);
+        ride.put(RideSchema.DEPARTURE, 1_700_000_000_000L);
+        ride.put(RideSchema.SCHEMA_VERSION, (long) RideSchema.CURRENT_VERSION);
+        return ride;
+    }
+
+    /**
+     * @param passengerCount the number of seats requested
+     * @return a new request that has not been accepted
+     */
+    public static Map<String, Object> request(long passengerCount) {
+        return request(passengerCount, false);
+    }
+
+    /**
+     * @param passengerCount the number of seats requested
+     * @param accepted       whether the driver accepted the request
+     * @return a new request
+     */
+    public static Map<String, Object> request(long passengerCount, boolean accepted) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("currentLocation", "Carmel");
+        request.put("destination", "Tel Aviv");
+        request.put(RideSchema.PASSENGER_COUNT, passengerCount);
+        if (accepted) {
+            request.put(RideTransitions.ACCEPTED, true);
+        }
+        return request;
+    }
+
+    /**
+     * Books one seat on a ride for a passenger, see {@link #addPassenger(Map, String, long)}.
+     */
+    public static void addPassenger(Map<String, Object> ride, String uid) {
+        addPassenger(ride, uid, 1);
+    }
+
+    /**
+     * Adds a request to a ride's "Passengers" child, creating it if needed, without any checks.
+     *
+     * @param ride           the ride to change
+     * @param uid            the passenger
+     * @param passengerCount the number of seats requested
+     */
+    @SuppressWarnings("unchecked")
+    public static void addPassenger(Map<String, Object> ride, String uid, long passengerCount) {
+        ((Map<String, Object>) ride.computeIfAbsent(RideArchiver.PASSENGERS, k -> new HashMap<>()))
+                .put(uid, request(passengerCount));
+    }
+
+    /**
+     * Marks a passenger already on the ride as accepted.
+     */
+    @SuppressWarnings("unchecked")
+    public static void accept(Map<String, Object> ride, String uid) {
+        ((Map<String, Object>) ((Map<String, Object>) ride.get(RideArchiver.PASSENGERS)).get(uid))
+                .put(RideTransitions.ACCEPTED, true);
+    }
+}
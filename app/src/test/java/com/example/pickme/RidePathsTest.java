@@ -0,0 +1,134 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Unit tests for {@link RidePaths} and {@link RideShardMigrator}, with the legacy move applied against a {@link FakeDatabase}.
+ */
+public class RidePathsTest {
+
+    /** 2023-11-14T22:13:20Z. */
+    private static final long NOW = 1_700_000_000_000L;
+    private static final TimeZone ISRAEL = TimeZone.getTimeZone("Asia/Jerusalem");
+
+    @Test
+    public void dayOf_usesUtcDays() {
+        assertEquals("20231114", RidePaths.dayOf(NOW));
+        // Past midnight in Israel, still the 14th in UTC
+        assertEquals("20231114", RidePaths.dayOf(NOW + 60 * 60_000L));
+        assertEquals("20231115", RidePaths.dayOf(NOW + 2 * 60 * 60_000L));
+    }
+
+    @Test
+    public void daysBetween_crossesMonthAndYearEnds() {
+        long dec31 = 1_704_024_000_000L; // 2023-12-31T12:00:00Z
+        long day = 24 * 60 * 60_000L;
+
+        assertEquals(Arrays.asList("20231231", "20240101", "20240102"), RidePaths.daysBetween(dec31, dec31 + 2 * day));
+        assertEquals(Arrays.asList("20231231"), RidePaths.daysBetween(dec31, dec31));
+        assertTrue(RidePaths.daysBetween(dec31, dec31 - 1).isEmpty());
+    }
+
+    @Test
+    public void isRideKey_acceptsOnlyDayAndId() {
+        assertTrue(RidePaths.isRideKey(RidePaths.rideKey("20231114", "-NabcDEF")));
+        assertFalse(RidePaths.isRideKey("driver1"));
+        assertFalse(RidePaths.isRideKey("2023111/r1"));
+        assertFalse(RidePaths.isRideKey("20231114/"));
+        assertFalse(RidePaths.isRideKey("20231114/r1/status"));
+        assertFalse(RidePaths.isRideKey(20231114L));
+        assertFalse(RidePaths.isRideKey(null));
+        assertEquals("RidesByDay/20231114/r1", RidePaths.ridePath("20231114/r1"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void legacyMove_movesRideAndPointsDriverAndPassengers() {
+        FakeDatabase db = new FakeDatabase();
+        Map<String, Object> ride = new HashMap<>();
+        ride.put("date", "20/11/2023");
+        ride.put("time", "08:30");
+        ride.put("seats", "3");
+        Map<String, Object> booking = new HashMap<>();
+        booking.put("numberOfPassengers", "2");
+        Map<String, Object> passengers = new HashMap<>();
+        passengers.put("p1", booking);
+        ride.put(RideArchiver.PASSENGERS, passengers);
+        db.set("Rides/driver1", ride);
+        db.set("PassengerRides/p1", "driver1");
+
+        Map<String, Object> legacy = (Map<String, Object>) db.get("Rides/driver1");
+        db.updateChildren(RidePaths.buildLegacyMove("driver1", legacy, ISRAEL, NOW));
+
+        assertNull(db.get("Rides/driver1"));
+        assertEquals("20231120/driver1", db.get("DriverActiveRide/driver1"));
+        assertEquals("20231120/driver1", db.get("PassengerRides/p1"));
+        Map<String, Object> moved = (Map<String, Object>) db.get("RidesByDay/20231120/driver1");
+        assertEquals("driver1", moved.get("uid"));
+        assertEquals(RideSchema.CURRENT_VERSION, RideSchema.versionOf(moved));
+        assertEquals(3, RideSchema.seatsOf(moved));
+        assertEquals(2, RideSchema.passengerCountOf((Map<String, Object>) db.get("RidesByDay/20231120/driver1/Passengers/p1")));
+        // The snapshot value handed in is left untouched
+        assertEquals("3", legacy.get("seats"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void legacyMove_isIdempotentAndShardsUndatedRidesByNow() {
+        Map<String, Object> ride = new HashMap<>();
+        ride.put("uid", "driver2");
+
+        Map<String, Object> first = RidePaths.buildLegacyMove("driver2", ride, ISRAEL, NOW);
+        Map<String, Object> second = RidePaths.buildLegacyMove("driver2", ride, ISRAEL, NOW);
+
+        assertEquals(first, second);
+        assertEquals("20231114/driver2", first.get("DriverActiveRide/driver2"));
+        assertTrue(first.containsKey("Rides/driver2"));
+        assertNull(first.get("Rides/driver2"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shardMigrator_movesEveryLegacyRideInBatches() {
+        FakeDatabase db = new FakeDatabase();
+        int rides = RideShardMigrator.MAX_RIDES_PER_BATCH + 1;
+        for (int i = 0; i < rides; i++) {
+            Map<String, Object> ride = new HashMap<>();
+            // 00:30 on 21/11 in Israel is still 20/11 in UTC
+            ride.put("date", "21/11/2023");
+            ride.put("time", "00:30");
+            db.set("Rides/driver" + i, ride);
+        }
+        db.set("Rides/junk", "not a ride");
+        Map<String, Object> export = new HashMap<>();
+        export.put("Rides", db.get("Rides"));
+
+        TimeZone previous = TimeZone.getDefault();
+        List<Map<String, Object>> batches;
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            batches = RideShardMigrator.migrateExport(export, RideSchema.LEGACY_TIME_ZONE, NOW);
+        } finally {
+            TimeZone.setDefault(previous);
+        }
+        for (Map<String, Object> batch : batches) {
+            db.updateChildren(batch);
+        }
+
+        assertEquals(2, batches.size());
+        assertNull(db.get("Rides"));
+        assertEquals(rides, ((Map<String, Object>) db.get("RidesByDay/20231120")).size());
+        assertEquals("20231120/driver0", db.get("DriverActiveRide/driver0"));
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for {@link RideRanker}.
+ */
+public class RideRankerTest {
+
+    private static final long NOW = 1741156200000L;
+    /** Haifa to Tel Aviv. */
+    private static final RideRanker.Request REQUEST =
+            new RideRanker.Request(32.80, 35.00, 32.08, 34.78, NOW, 1);
+
+    @Test
+    public void rank_prefersSmallerDetour() {
+        Driver sameRoute = ride("same", 32.80, 35.00, 32.08, 34.78, NOW);
+        Driver detour = ride("detour", 32.70, 35.30, 32.08, 34.78, NOW);
+        Driver otherCity = ride("other", 31.77, 35.21, 31.25, 34.79, NOW);
+
+        List<Driver> ranked = new RideRanker(REQUEST).rank(Arrays.asList(otherCity, detour, sameRoute), new int[]{3, 3, 3});
+
+        assertEquals(Arrays.asList(sameRoute, detour, otherCity), ranked);
+    }
+
+    @Test
+    public void rank_prefersCloserDepartureWhenRoutesMatch() {
+        Driver later = ride("later", 32.80, 35.00, 32.08, 34.78, NOW + 90 * 60_000L);
+        Driver soon = ride("soon", 32.80, 35.00, 32.08, 34.78, NOW + 10 * 60_000L);
+
+        List<Driver> ranked = new RideRanker(REQUEST).rank(Arrays.asList(later, soon), new int[]{1, 1});
+
+        assertEquals(Arrays.asList(soon, later), ranked);
+    }
+
+    @Test
+    public void rank_leavesOutRidesWithoutEnoughSeats() {
+        RideRanker ranker = new RideRanker(new RideRanker.Request(32.80, 35.00, 32.08, 34.78, NOW, 2));
+        Driver full = ride("full", 32.80, 35.00, 32.08, 34.78, NOW);
+        Driver roomy = ride("roomy", 32.80, 35.00, 32.08, 34.78, NOW);
+
+        assertEquals(Arrays.asList(roomy), ranker.rank(Arrays.asList(full, roomy), new int[]{1, 2}));
+        assertTrue(Double.isInfinite(ranker.score(full, 1)));
+    }
+
+    @Test
+    public void score_rewardsSpareSeatsUpToTheCap() {
+        RideRanker ranker = new RideRanker(REQUEST);
+        Driver driver = ride("d", 32.80, 35.00, 32.08, 34.78, NOW);
+
+        assertEquals(RideRanker.SPARE_SEAT_BONUS_MINUTES, ranker.score(driver, 1) - ranker.score(driver, 2), 1e-9);
+        assertEquals(ranker.score(driver, 1 + RideRanker.MAX_SPARE_SEATS), ranker.score(driver, 10), 1e-9);
+    }
+
+    @Test
+    public void score_chargesMissingCoordinates() {
+        RideRanker ranker = new RideRanker(REQUEST);
+        Driver located = ride("located", 32.80, 35.00, 32.08, 34.78, NOW);
+        Driver legacy = new Driver("Haifa", "Tel Aviv", 3, "", NOW, "legacy");
+
+        assertEquals(0, ranker.score(located, 1), 1e-6);
+        assertEquals(2 * RideRanker.UNKNOWN_DETOUR_MINUTES, ranker.score(legacy, 1), 1e-6);
+    }
+
+    @Test
+    public void rank_keepsInputOrderForEqualCosts() {
+        Driver a = ride("a", 32.80, 35.00, 32.08, 34.78, NOW);
+        Driver b = ride("b", 32.80, 35.00, 32.08, 34.78, NOW);
+        Driver c = ride("c", 32.80, 35.00, 32.08, 34.78, NOW);
+
+        assertEquals(Arrays.asList(b, c, a), new RideRanker(REQUEST).rank(Arrays.asList(b, c, a), new int[]{2, 2, 2}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rank_rejectsMismatchedSeatCounts() {
+        new RideRanker(REQUEST).rank(Arrays.asList(new Driver()), new int[0]);
+    }
+
+    @Test
+    public void rankInWindows_ranksEachWindowAndKeepsWindowsInOrder() {
+        Driver detour = ride("detour", 32.70, 35.30, 32.08, 34.78, NOW);
+        Driver sameRoute = ride("same", 32.80, 35.00, 32.08, 34.78, NOW);
+        Driver otherCity = ride("other", 31.77, 35.21, 31.25, 34.79, NOW);
+        Driver laterSameRoute = ride("later", 32.80, 35.00, 32.08, 34.78, NOW + 60_000L);
+        Driver lastDetour = ride("last", 32.70, 35.30, 32.08, 34.78, NOW);
+
+        List<Driver> ranked = new RideRanker(REQUEST).rankInWindows(
+                Arrays.asList(detour, sameRoute, otherCity, laterSameRoute, lastDetour),
+                new int[]{3, 3, 3, 3, 3}, 2);
+
+        // The best ride of the second window stays below the whole first window
+        assertEquals(Arrays.asList(sameRoute, detour, laterSameRoute, otherCity, lastDetour), ranked);
+    }
+
+    @Test
+    public void rankInWindows_leavesOutRidesWithoutEnoughSeats() {
+        Driver full = ride("full", 32.80, 35.00, 32.08, 34.78, NOW);
+        Driver roomy = ride("roomy", 32.80, 35.00, 32.08, 34.78, NOW);
+
+        assertEquals(Arrays.asList(roomy),
+                new RideRanker(REQUEST).rankInWindows(Arrays.asList(full, roomy), new int[]{0, 1}, 20));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rankInWindows_rejectsEmptyWindows() {
+        new RideRanker(REQUEST).rankInWindows(Arrays.asList(new Driver()), new int[]{1}, 0);
+    }
+
+    @Test
+    public void rankAsync_runsOnBackgroundAndDeliversOnResultExecutor() throws Exception {
+        ExecutorService background = Executors.newSingleThreadExecutor();
+        ExecutorService results = Executors.newSingleThreadExecutor();
+        try {
+            Driver soon = ride("soon", 32.80, 35.00, 32.08, 34.78, NOW);
+            Driver later = ride("later", 32.80, 35.00, 32.08, 34.78, NOW + 3_600_000L);
+            AtomicReference<List<Driver>> result = new AtomicReference<>();
+            CountDownLatch done = new CountDownLatch(1);
+
+            new RideRanker(REQUEST).rankAsync(Arrays.asList(later, soon), new int[]{1, 1}, background, results,
+                    ranked -> {
+                        result.set(ranked);
+                        done.countDown();
+                    });
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(soon, later), result.get());
+        } finally {
+            background.shutdownNow();
+            results.shutdownNow();
+        }
+    }
+
+    static Driver ride(String uid, double originLat, double originLng,
+                       double destinationLat, double destinationLng, long departure) {
+        Driver driver = new Driver("from", "to", 4, "", departure, uid);
+        driver.setOriginLat(originLat);
+        driver.setOriginLng(originLng);
+        driver.setDestinationLat(destinationLat);
+        driver.setDestinationLng(destinationLng);
+        return driver;
+    }
+}
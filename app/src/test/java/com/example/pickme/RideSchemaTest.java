@@ -0,0 +1,130 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Unit tests for {@link RideSchema} and {@link RideSchemaMigrator}.
+ */
+public class RideSchemaTest {
+
+    private static final TimeZone JERUSALEM = TimeZone.getTimeZone("Asia/Jerusalem");
+
+    @Test
+    public void toEpochMillis_parsesPickerFormat() {
+        // 5 March 2025 08:30 in Israel (UTC+2)
+        assertEquals(1741156200000L, RideSchema.toEpochMillis("5/3/2025", "08:30", JERUSALEM));
+        assertEquals(0, RideSchema.toEpochMillis("not a date", "08:30", JERUSALEM));
+        assertEquals(0, RideSchema.toEpochMillis(null, null, JERUSALEM));
+    }
+
+    @Test
+    public void migrateRide_convertsLegacyFields() {
+        Map<String, Object> passenger = new HashMap<>();
+        passenger.put("destination", "Haifa");
+        passenger.put("numberOfPassengers", "2");
+        Map<String, Object> passengers = new HashMap<>();
+        passengers.put("p1", passenger);
+
+        Map<String, Object> ride = new HashMap<>();
+        ride.put("uid", "d1");
+        ride.put("numberOfSeats", "3");
+        ride.put("date", "5/3/2025");
+        ride.put("time", "08:30");
+        ride.put(RideArchiver.PASSENGERS, passengers);
+
+        Map<String, Object> updates = RideSchema.migrateRide(ride, JERUSALEM);
+
+        assertEquals(3, updates.get("seats"));
+        assertEquals(1741156200000L, updates.get("departureEpochMillis"));
+        assertEquals(RideSchema.CURRENT_VERSION, updates.get("schemaVersion"));
+        assertTrue(updates.containsKey("numberOfSeats"));
+        assertEquals(null, updates.get("numberOfSeats"));
+        assertTrue(updates.containsKey("date"));
+        assertTrue(updates.containsKey("time"));
+        assertEquals(2, updates.get("Passengers/p1/passengerCount"));
+        assertTrue(updates.containsKey("Passengers/p1/numberOfPassengers"));
+    }
+
+    @Test
+    public void migrateRide_skipsCurrentRecords() {
+        Map<String, Object> ride = new HashMap<>();
+        ride.put("seats", 3L);
+        ride.put("departureEpochMillis", 1741156200000L);
+        ride.put("schemaVersion", 2L);
+
+        assertTrue(RideSchema.migrateRide(ride, JERUSALEM).isEmpty());
+    }
+
+    @Test
+    public void accessors_preferTypedFieldsAndFallBack() {
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("numberOfSeats", "4");
+        Map<String, Object> typed = new HashMap<>();
+        typed.put("seats", 2L);
+        typed.put("numberOfSeats", "4");
+
+        assertEquals(4, RideSchema.seatsOf(legacy));
+        assertEquals(2, RideSchema.seatsOf(typed));
+        assertEquals(-1, RideSchema.seatsOf((Map<String, Object>) null));
+
+        Driver driver = new Driver("A", "B", 3, "", 1741156200000L, "d1");
+        assertEquals(3, RideSchema.seatsOf(driver));
+        assertEquals(1741156200000L, RideSchema.departureOf(driver));
+
+        Driver old = new Driver();
+        old.setNumberOfSeats("5");
+        assertEquals(5, RideSchema.seatsOf(old));
+        assertFalse(RideSchema.departureOf(old) > 0);
+
+        Passenger passenger = new Passenger("A", "B", 2, "");
+        assertEquals(2, RideSchema.passengerCountOf(passenger));
+    }
+
+    @Test
+    public void schemaMigrator_upgradesHistoryInTheFixedZoneWhateverTheDefault() {
+        Map<String, Object> export = new HashMap<>();
+        Map<String, Object> history = new HashMap<>();
+        Map<String, Object> driver = new HashMap<>();
+        for (int i = 0; i < RideSchemaMigrator.MAX_RECORDS_PER_BATCH + 1; i++) {
+            Map<String, Object> legacy = new HashMap<>();
+            legacy.put("date", "5/3/2025");
+            legacy.put("time", "08:30");
+            driver.put("h" + i, legacy);
+        }
+        Map<String, Object> current = new HashMap<>();
+        current.put("schemaVersion", 2L);
+        driver.put("current", current);
+        history.put("d1", driver);
+        export.put(RideSchemaMigrator.HISTORY_DRIVER, history);
+        export.put("Rides", new HashMap<>(driver));
+
+        TimeZone previous = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+            List<Map<String, Object>> batches = RideSchemaMigrator.migrateExport(export, RideSchema.LEGACY_TIME_ZONE);
+
+            assertEquals(2, batches.size());
+            assertEquals(1741156200000L, batches.get(1).values().stream()
+                    .filter(value -> value instanceof Long).findFirst().orElse(null));
+            int upgraded = 0;
+            for (Map<String, Object> batch : batches) {
+                for (String path : batch.keySet()) {
+                    assertTrue(path, path.startsWith("HistoryDriver/d1/h"));
+                    upgraded += path.endsWith("/schemaVersion") ? 1 : 0;
+                }
+            }
+            assertEquals(RideSchemaMigrator.MAX_RECORDS_PER_BATCH + 1, upgraded);
+        } finally {
+            TimeZone.setDefault(previous);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link RideSweeper} and {@link JsonExport}, applied against a {@link FakeDatabase}.
+ */
+public class RideSweeperTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long GRACE = TimeUnit.HOURS.toMillis(12);
+
+    @Test
+    public void isExpired_onlyAfterTheGracePeriod() {
+        assertTrue(RideSweeper.isExpired(ride(NOW - GRACE - 1), NOW, GRACE));
+        assertFalse(RideSweeper.isExpired(ride(NOW - GRACE), NOW, GRACE));
+        assertFalse(RideSweeper.isExpired(ride(NOW + 60_000), NOW, GRACE));
+        // Without a valid departure a ride is never swept
+        assertFalse(RideSweeper.isExpired(new HashMap<>(), NOW, GRACE));
+    }
+
+    @Test
+    public void isExpired_readsLegacyDates() {
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("date", "1/1/2020");
+        legacy.put("time", "08:00");
+
+        assertTrue(RideSweeper.isExpired(legacy, NOW, GRACE));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void batches_archiveExpiredRidesAsExpired() {
+        FakeDatabase db = new FakeDatabase();
+        Map<String, Object> old = ride(NOW - GRACE - TimeUnit.DAYS.toMillis(3));
+        Map<String, Object> passengers = new HashMap<>();
+        Map<String, Object> booking = new HashMap<>();
+        booking.put("passengerCount", 1);
+        passengers.put("p1", booking);
+        old.put(RideArchiver.PASSENGERS, passengers);
+        old.put("uid", "driver1");
+        String oldDay = RidePaths.dayOf(RideSchema.departureOf(old));
+        String today = RidePaths.dayOf(NOW);
+        db.set("RidesByDay/" + oldDay + "/r1", old);
+        db.set("RidesByDay/" + today + "/r2", ride(NOW + 60_000));
+        db.set("DriverActiveRide/driver1", oldDay + "/r1");
+        db.set("PassengerRides/p1", oldDay + "/r1");
+
+        List<Map<String, Object>> batches = RideSweeper.buildBatches((Map<String, Object>) db.get("RidesByDay"), NOW, GRACE);
+        assertEquals(1, batches.size());
+        for (Map<String, Object> batch : batches) {
+            db.updateChildren(batch);
+        }
+
+        assertNull(db.get("RidesByDay/" + oldDay + "/r1"));
+        assertNotNull(db.get("RidesByDay/" + today + "/r2"));
+        assertNull(db.get("DriverActiveRide/driver1"));
+        assertNull(db.get("PassengerRides/p1"));
+        String key = RideSweeper.historyKey("r1", RideSchema.departureOf(old));
+        assertEquals("expired", db.get("HistoryDriver/driver1/" + key + "/status"));
+        assertEquals("expired", db.get("HistoryPassenger/p1/" + key + "/status"));
+    }
+
+    @Test
+    public void batches_expireRidesWithoutDepartureWithTheirDay() {
+        Map<String, Object> ridesByDay = new HashMap<>();
+        ridesByDay.put(RidePaths.dayOf(NOW - GRACE - TimeUnit.DAYS.toMillis(1)), singleRide("r1", new HashMap<>()));
+        ridesByDay.put(RidePaths.dayOf(NOW - GRACE), singleRide("r2", new HashMap<>()));
+
+        List<Map<String, Object>> batches = RideSweeper.buildBatches(ridesByDay, NOW, GRACE);
+
+        assertEquals(1, batches.size());
+        assertEquals(1, countRideDeletions(batches.get(0)));
+        // A ride without a uid was moved from the unsharded layout and is keyed by its driver
+        assertTrue(batches.get(0).containsKey("DriverActiveRide/r1"));
+    }
+
+    @Test
+    public void batches_splitLargeSweeps() {
+        Map<String, Object> rides = new HashMap<>();
+        for (int i = 0; i < RideSweeper.MAX_RIDES_PER_BATCH * 2 + 1; i++) {
+            rides.put("driver" + i, ride(NOW - GRACE - 1 - i));
+        }
+        Map<String, Object> ridesByDay = new HashMap<>();
+        ridesByDay.put(RidePaths.dayOf(NOW - GRACE - 1), rides);
+
+        List<Map<String, Object>> batches = RideSweeper.buildBatches(ridesByDay, NOW, GRACE);
+
+        assertEquals(3, batches.size());
+        assertEquals(RideSweeper.MAX_RIDES_PER_BATCH, countRideDeletions(batches.get(0)));
+        assertEquals(1, countRideDeletions(batches.get(2)));
+        assertTrue(RideSweeper.buildBatches(new HashMap<>(), NOW, GRACE).isEmpty());
+    }
+
+    @Test
+    public void historyKey_isStableAndSortsByDeparture() {
+        String earlier = RideSweeper.historyKey("driverB", NOW - 1000);
+        String later = RideSweeper.historyKey("driverA", NOW);
+
+        assertEquals(20, later.length());
+        assertEquals(later, RideSweeper.historyKey("driverA", NOW));
+        assertTrue(earlier.compareTo(later) < 0);
+        assertFalse(later.equals(RideSweeper.historyKey("driverB", NOW)));
+        assertEquals(later.substring(0, 8), RideSweeper.historyKey("driverB", NOW).substring(0, 8));
+    }
+
+    @Test
+    public void sweepExport_readsRidesFromAnExport() {
+        String day = RidePaths.dayOf(NOW);
+        String export = "{\"Users\":{\"u1\":{\"name\":\"Dana\"}},\"RidesByDay\":{\"" + day + "\":{"
+                + "\"r1\":{\"uid\":\"driver1\",\"departureEpochMillis\":" + (NOW - GRACE - 1) + ",\"seats\":3},"
+                + "\"r2\":{\"uid\":\"driver2\",\"departureEpochMillis\":" + NOW + "}}}}";
+
+        List<Map<String, Object>> batches = RideSweeper.sweepExport(JsonExport.parse(export), NOW, GRACE);
+
+        assertEquals(1, batches.size());
+        assertTrue(batches.get(0).containsKey("RidesByDay/" + day + "/r1"));
+        assertTrue(batches.get(0).containsKey("DriverActiveRide/driver1"));
+        assertFalse(batches.get(0).containsKey("RidesByDay/" + day + "/r2"));
+    }
+
+    @Test
+    public void json_roundTripsExportValues() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("text", "תל אביב \"quoted\"\n\\");
+        value.put("count", 3L);
+        value.put("lat", 32.0853);
+        value.put("flag", true);
+        value.put("missing", null);
+        value.put("list", Arrays.asList(1L, "two", null));
+
+        String json = JsonExport.write(value);
+
+        assertEquals(value, JsonExport.parse(json));
+        assertEquals("\u00e9", JsonExport.parse("\"\\u00e9\""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void json_rejectsTrailingContent() {
+        JsonExport.parse("{} x");
+    }
+
+    private static int countRideDeletions(Map<String, Object> batch) {
+        int count = 0;
+        for (String path : batch.keySet()) {
+            if (path.startsWith("RidesByDay/")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Map<String, Object> singleRide(String rideId, Map<String, Object> ride) {
+        Map<String, Object> day = new HashMap<>();
+        day.put(rideId, ride);
+        return day;
+    }
+
+    private static Map<String, Object> ride(long departure) {
+        Map<String, Object> ride = new HashMap<>();
+        ride.put("schemaVersion", 2);
+        ride.put("seats", 3);
+        ride.put("departureEpochMillis", departure);
+        return ride;
+    }
+}
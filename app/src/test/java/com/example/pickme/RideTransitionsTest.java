@@ -0,0 +1,340 @@
+package com.example.pickme;
+
+import static com.example.pickme.RideFixtures.addPassenger;
+import static com.example.pickme.RideFixtures.request;
+import static com.example.pickme.RideFixtures.ride;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link RideStatus} and {@link RideTransitions}, including a randomized test that
+ * runs concurrent driver and passenger operations against one ride in a {@link FakeDatabase}.
+ */
+public class RideTransitionsTest {
+
+    private static final String RIDE = "Rides/driver1";
+
+    @Test
+    public void transitionTable_allowsOnlyForwardStepsAndUnaccept() {
+        assertTrue(RideStatus.WAITING.canTransitionTo(RideStatus.ACCEPTED));
+        assertTrue(RideStatus.ACCEPTED.canTransitionTo(RideStatus.IN_PROGRESS));
+        assertTrue(RideStatus.ACCEPTED.canTransitionTo(RideStatus.WAITING));
+        assertTrue(RideStatus.IN_PROGRESS.canTransitionTo(RideStatus.COMPLETED));
+
+        assertFalse(RideStatus.WAITING.canTransitionTo(RideStatus.IN_PROGRESS));
+        assertFalse(RideStatus.WAITING.canTransitionTo(RideStatus.COMPLETED));
+        assertFalse(RideStatus.IN_PROGRESS.canTransitionTo(RideStatus.WAITING));
+        assertTrue(RideStatus.COMPLETED.allowedTargets().isEmpty());
+    }
+
+    @Test
+    public void fromValue_defaultsMissingStatusToWaiting() {
+        assertEquals(RideStatus.WAITING, RideStatus.fromValue(null));
+        assertEquals(RideStatus.IN_PROGRESS, RideStatus.fromValue("in_progress"));
+        assertNull(RideStatus.fromValue("teleporting"));
+    }
+
+    @Test
+    public void transition_rejectsIllegalStepsWithoutWriting() {
+        Map<String, Object> ride = ride(3);
+        ride.put(RideTransitions.STATUS, "waiting");
+        addPassenger(ride, "p1");
+
+        assertEquals(RideTransitions.Result.ILLEGAL_TRANSITION, RideTransitions.transition(ride, RideStatus.COMPLETED));
+        assertEquals("waiting", ride.get(RideTransitions.STATUS));
+        assertEquals(RideTransitions.Result.APPLIED, RideTransitions.transition(ride, RideStatus.ACCEPTED));
+        assertEquals(RideTransitions.Result.UNCHANGED, RideTransitions.transition(ride, RideStatus.ACCEPTED));
+        assertEquals(RideTransitions.Result.APPLIED, RideTransitions.transition(ride, RideStatus.IN_PROGRESS));
+        assertEquals(RideTransitions.Result.ILLEGAL_TRANSITION, RideTransitions.transition(ride, RideStatus.WAITING));
+        assertEquals("in_progress", ride.get(RideTransitions.STATUS));
+        assertEquals(RideTransitions.Result.RIDE_NOT_FOUND, RideTransitions.transition(null, RideStatus.ACCEPTED));
+    }
+
+    @Test
+    public void transition_requiresAPassengerToAccept() {
+        assertEquals(RideTransitions.Result.NO_PASSENGERS, RideTransitions.transition(ride(3), RideStatus.ACCEPTED));
+    }
+
+    @Test
+    public void removePassenger_resetsStatusWhenLastPassengerLeaves() {
+        Map<String, Object> ride = ride(3);
+        addPassenger(ride, "p1");
+        addPassenger(ride, "p2");
+        assertEquals(RideTransitions.Result.APPLIED, RideTransitions.acceptPassenger(ride, "p2"));
+
+        assertEquals(RideTransitions.Result.APPLIED, RideTransitions.removePassenger(ride, "p1"));
+        assertEquals("accepted", ride.get(RideTransitions.STATUS));
+        assertEquals(RideTransitions.Result.UNCHANGED, RideTransitions.removePassenger(ride, "p1"));
+        assertEquals(RideTransitions.Result.APPLIED, RideTransitions.removePassenger(ride, "p2"));
+        assertEquals("waiting", ride.get(RideTransitions.STATUS));
+        assertNull(ride.get(RideArchiver.PASSENGERS));
+    }
+
+    @Test
+    public void removePassenger_reopensWhenTheLastAcceptedPassengerLeaves() {
+        Map<String, Object> ride = ride(3);
+        addPassenger(ride, "p1");
+        addPassenger(ride, "p2");
+        assertEquals(RideTransitions.Result.APPLIED, RideTransitions.acceptPassenger(ride, "p1"));
+
+        // p2 is still waiting for the driver, so the ride cannot stay accepted
+        assertEquals(RideTransitions.Result.APPLIED, RideTransitions.removePassenger(ride, "p1"));
+        assertEquals("waiting", ride.get(RideTransitions.STATUS));
+        assertTrue(((Map<?, ?>) ride.get(RideArchiver.PASSENGERS)).containsKey("p2"));
+    }
+
+    @Test
+    public void removePassenger_rejectedOnceRideStarted() {
+        Map<String, Object> ride = ride(3);
+        addPassenger(ride, "p1");
+        ride.put(RideTransitions.STATUS, "in_progress");
+
+        assertEquals(RideTransitions.Result.ILLEGAL_TRANSITION, RideTransitions.removePassenger(ride, "p1"));
+        assertNotNull(ride.get(RideArchiver.PASSENGERS));
+    }
+
+    @Test
+    public void tryReserve_rejectsStartedRide() {
+        Map<String, Object> ride = ride(3);
+        addPassenger(ride, "p1");
+        ride.put(RideTransitions.STATUS, "in_progress");
+
+        assertEquals(SeatReservation.Result.RIDE_CLOSED, SeatReservation.tryReserve(ride, "p2", request(1)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void acceptPassenger_flagsThePassengerAndAcceptsTheRideInOneWrite() {
+        Map<String, Object> ride = ride(3);
+        addPassenger(ride, "p1");
+        addPassenger(ride, "p2");
+
+        assertEquals(RideTransitions.Result.APPLIED, RideTransitions.acceptPassenger(ride, "p1"));
+        Map<String, Object> passengers = (Map<String, Object>) ride.get(RideArchiver.PASSENGERS);
+        assertTrue(RideTransitions.isAccepted(passengers.get("p1")));
+        assertFalse(RideTransitions.isAccepted(passengers.get("p2")));
+        assertEquals("accepted", ride.get(RideTransitions.STATUS));
+
+        assertEquals(RideTransitions.Result.UNCHANGED, RideTransitions.acceptPassenger(ride, "p1"));
+        assertEquals(RideTransitions.Result.APPLIED, RideTransitions.acceptPassenger(ride, "p2"));
+        assertEquals(RideTransitions.Result.PASSENGER_NOT_FOUND, RideTransitions.acceptPassenger(ride, "p9"));
+        assertEquals(RideTransitions.Result.RIDE_NOT_FOUND, RideTransitions.acceptPassenger(null, "p1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void acceptPassenger_movesAWaitingRideEvenIfThePassengerIsFlagged() {
+        Map<String, Object> ride = ride(3);
+        addPassenger(ride, "p1");
+        ((Map<String, Object>) ((Map<String, Object>) ride.get(RideArchiver.PASSENGERS)).get("p1"))
+                .put(RideTransitions.ACCEPTED, true);
+        ride.put(RideTransitions.STATUS, "waiting");
+
+        assertEquals(RideTransitions.Result.APPLIED, RideTransitions.acceptPassenger(ride, "p1"));
+        assertEquals("accepted", ride.get(RideTransitions.STATUS));
+    }
+
+    @Test
+    public void acceptPassenger_rejectedOnceRideStarted() {
+        Map<String, Object> ride = ride(3);
+        addPassenger(ride, "p1");
+        ride.put(RideTransitions.STATUS, "in_progress");
+
+        assertEquals(RideTransitions.Result.ILLEGAL_TRANSITION, RideTransitions.acceptPassenger(ride, "p1"));
+        assertFalse(RideTransitions.isAccepted(((Map<?, ?>) ride.get(RideArchiver.PASSENGERS)).get("p1")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void acceptPassenger_keepsABookingMadeWhileInFlight() {
+        FakeDatabase db = new FakeDatabase();
+        Map<String, Object> ride = ride(3);
+        addPassenger(ride, "p1");
+        db.set(RIDE, ride);
+        boolean[] booked = {false};
+
+        // Another passenger books while the driver's accept is in flight
+        FakeDatabase.TransactionOutcome outcome = db.runTransaction(RIDE, current -> {
+            if (!booked[0]) {
+                booked[0] = true;
+                db.runTransaction(RIDE, other -> {
+                    Map<String, Object> value = (Map<String, Object>) other;
+                    SeatReservation.tryReserve(value, "p2", request(2));
+                    return value;
+                });
+            }
+            Map<String, Object> value = (Map<String, Object>) current;
+            return RideTransitions.acceptPassenger(value, "p1") == RideTransitions.Result.APPLIED
+                    ? value : FakeDatabase.ABORT;
+        });
+
+        assertTrue(outcome.committed);
+        assertEquals(2, outcome.attempts);
+        Map<String, Object> stored = (Map<String, Object>) db.get(RIDE);
+        Map<String, Object> passengers = (Map<String, Object>) stored.get(RideArchiver.PASSENGERS);
+        assertTrue(RideTransitions.isAccepted(passengers.get("p1")));
+        assertFalse(RideTransitions.isAccepted(passengers.get("p2")));
+        assertEquals("accepted", stored.get(RideTransitions.STATUS));
+    }
+
+    @Test
+    public void passengerStatus_followsTheirOwnAcceptanceUntilTheRideStarts() {
+        Map<String, Object> accepted = request(1);
+        accepted.put(RideTransitions.ACCEPTED, true);
+
+        assertEquals(RideStatus.WAITING, RideTransitions.passengerStatus(RideStatus.ACCEPTED, request(1)));
+        assertEquals(RideStatus.ACCEPTED, RideTransitions.passengerStatus(RideStatus.ACCEPTED, accepted));
+        assertEquals(RideStatus.ACCEPTED, RideTransitions.passengerStatus(RideStatus.WAITING, accepted));
+        assertEquals(RideStatus.IN_PROGRESS, RideTransitions.passengerStatus(RideStatus.IN_PROGRESS, request(1)));
+    }
+
+    /**
+     * For many random seeds, runs a mix of accept, start, complete, book, cancel and decline
+     * operations from several threads and checks every committed write:
+     * <ul>
+     *   <li>the status change is in the transition table,</li>
+     *   <li>a ride that is not waiting has at least one passenger,</li>
+     *   <li>a waiting ride has no accepted passenger,</li>
+     *   <li>the ride is never overbooked,</li>
+     *   <li>no transaction needs more than the client's retry limit.</li>
+     * </ul>
+     */
+    @Test
+    public void concurrentTransitions_keepInvariants() throws Exception {
+        final int seeds = 40;
+        final int threads = 8;
+        final int opsPerThread = 60;
+        final int capacity = 4;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int seed = 0; seed < seeds; seed++) {
+                FakeDatabase db = new FakeDatabase();
+                db.set(RIDE, ride(capacity));
+                ConcurrentLinkedQueue<String> violations = new ConcurrentLinkedQueue<>();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+
+                for (int t = 0; t < threads; t++) {
+                    final Random random = new Random(seed * 1000L + t);
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < opsPerThread; i++) {
+                            runRandomOp(db, random, capacity, violations);
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+
+                assertTrue("seed " + seed + ": " + violations, violations.isEmpty());
+                checkInvariants(db.get(RIDE), capacity, violations);
+                assertTrue("seed " + seed + " final state: " + violations, violations.isEmpty());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs one random operation as a transaction and records any invariant it breaks.
+     */
+    @SuppressWarnings("unchecked")
+    private static void runRandomOp(FakeDatabase db, Random random, int capacity,
+                                    ConcurrentLinkedQueue<String> violations) {
+        int op = random.nextInt(7);
+        String uid = "p" + random.nextInt(6);
+        Object[] before = new Object[1];
+        Object[] after = new Object[1];
+
+        FakeDatabase.TransactionOutcome outcome = db.runTransaction(RIDE, current -> {
+            if (current == null) {
+                return FakeDatabase.ABORT;
+            }
+            Map<String, Object> ride = (Map<String, Object>) current;
+            before[0] = ride.get(RideTransitions.STATUS);
+            boolean applied;
+            switch (op) {
+                case 0:
+                    applied = RideTransitions.transition(ride, RideStatus.ACCEPTED) == RideTransitions.Result.APPLIED;
+                    break;
+                case 1:
+                    applied = RideTransitions.transition(ride, RideStatus.IN_PROGRESS) == RideTransitions.Result.APPLIED;
+                    break;
+                case 2:
+                    applied = RideTransitions.transition(ride, RideStatus.COMPLETED) == RideTransitions.Result.APPLIED;
+                    break;
+                case 6:
+                    applied = RideTransitions.acceptPassenger(ride, uid) == RideTransitions.Result.APPLIED;
+                    break;
+                case 3:
+                    applied = SeatReservation.tryReserve(ride, uid, request(1 + random.nextInt(2))) == SeatReservation.Result.BOOKED;
+                    break;
+                default:
+                    // Passenger cancel and driver decline are the same removal
+                    applied = RideTransitions.removePassenger(ride, uid) == RideTransitions.Result.APPLIED;
+                    break;
+            }
+            after[0] = ride;
+            return applied ? ride : FakeDatabase.ABORT;
+        });
+
+        if (outcome.attempts > FakeDatabase.MAX_TRANSACTION_ATTEMPTS) {
+            violations.add("op " + op + " took " + outcome.attempts + " attempts");
+        }
+        if (!outcome.committed) {
+            return;
+        }
+
+        RideStatus from = RideStatus.fromValue(before[0]);
+        RideStatus to = RideStatus.fromValue(((Map<String, Object>) after[0]).get(RideTransitions.STATUS));
+        if (from == null || to == null || (from != to && !from.canTransitionTo(to))) {
+            violations.add("op " + op + " moved " + before[0] + " -> " + to);
+        }
+        checkInvariants(after[0], capacity, violations);
+    }
+
+    /**
+     * Records a violation if a ride value breaks the passenger or seat invariants.
+     */
+    @SuppressWarnings("unchecked")
+    private static void checkInvariants(Object value, int capacity, ConcurrentLinkedQueue<String> violations) {
+        Map<String, Object> ride = (Map<String, Object>) value;
+        Object passengersValue = ride.get(RideArchiver.PASSENGERS);
+        Map<String, Object> passengers = passengersValue instanceof Map
+                ? (Map<String, Object>) passengersValue : new HashMap<>();
+        RideStatus status = RideStatus.fromValue(ride.get(RideTransitions.STATUS));
+
+        if (status != RideStatus.WAITING && passengers.isEmpty()) {
+            violations.add("status " + status + " without passengers");
+        }
+        for (Object passenger : passengers.values()) {
+            if (status == RideStatus.WAITING && RideTransitions.isAccepted(passenger)) {
+                violations.add("waiting with an accepted passenger: " + passengers);
+            }
+        }
+        if (SeatReservation.seatsTaken(passengers) > capacity) {
+            violations.add("overbooked: " + passengers);
+        }
+    }
+}
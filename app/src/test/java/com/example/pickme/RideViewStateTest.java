@@ -0,0 +1,112 @@
+package com.example.pickme;
+
+import static com.example.pickme.RideFixtures.accept;
+import static com.example.pickme.RideFixtures.addPassenger;
+import static com.example.pickme.RideFixtures.ride;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * Unit tests for {@link RideViewState}.
+ */
+public class RideViewStateTest {
+
+    private static final String RIDE_KEY = "20231114/r1";
+
+    @Test
+    public void driver_controlsFollowPassengersAndStatus() {
+        Map<String, Object> ride = ride(3);
+        assertEquals(RideViewState.DriverControls.CANCEL, RideViewState.forDriver(RIDE_KEY, ride).driverControls);
+
+        addPassenger(ride, "p2", 2);
+        addPassenger(ride, "p1", 1);
+        RideViewState waiting = RideViewState.forDriver(RIDE_KEY, ride);
+        assertEquals(RideViewState.DriverControls.PENDING, waiting.driverControls);
+        assertTrue(waiting.hasPassenger);
+        assertNull(waiting.shownPassengerUid);
+
+        // Starting needs both the ride's status and an accepted passenger
+        ride.put(RideTransitions.STATUS, RideStatus.ACCEPTED.value());
+        assertEquals(RideViewState.DriverControls.PENDING, RideViewState.forDriver(RIDE_KEY, ride).driverControls);
+        accept(ride, "p2");
+        assertEquals(RideViewState.DriverControls.START, RideViewState.forDriver(RIDE_KEY, ride).driverControls);
+        ride.put(RideTransitions.STATUS, RideStatus.IN_PROGRESS.value());
+        assertEquals(RideViewState.DriverControls.END, RideViewState.forDriver(RIDE_KEY, ride).driverControls);
+    }
+
+    @Test
+    public void statusChange_onlyChangesTheControls() {
+        Map<String, Object> ride = ride(3);
+        addPassenger(ride, "p1", 2);
+        accept(ride, "p1");
+        RideViewState before = RideViewState.forDriver(RIDE_KEY, ride);
+        ride.put(RideTransitions.STATUS, RideStatus.ACCEPTED.value());
+        RideViewState after = RideViewState.forDriver(RIDE_KEY, ride);
+
+        assertTrue(after.sameDriverCard(before));
+        assertTrue(after.samePassengerCard(before));
+        assertFalse(after.sameDriverControls(before));
+        assertFalse(after.samePassengerControls(before));
+    }
+
+    @Test
+    public void secondPassenger_doesNotChangeTheDriversCards() {
+        Map<String, Object> ride = ride(3);
+        addPassenger(ride, "p1", 2);
+        RideViewState before = RideViewState.forDriver(RIDE_KEY, ride);
+        addPassenger(ride, "p2", 1);
+        RideViewState after = RideViewState.forDriver(RIDE_KEY, ride);
+
+        // The rows themselves come from child events, see PassengerRoster
+        assertTrue(after.sameDriverCard(before));
+        assertTrue(after.samePassengerCard(before));
+        assertTrue(after.sameDriverControls(before));
+    }
+
+    @Test
+    public void passengerCancelling_onlyChangesThePassengerCardAndControls() {
+        Map<String, Object> ride = ride(3);
+        addPassenger(ride, "p1", 2);
+        RideViewState before = RideViewState.forDriver(RIDE_KEY, ride);
+        ((Map<?, ?>) ride.get(RideArchiver.PASSENGERS)).remove("p1");
+        RideViewState after = RideViewState.forDriver(RIDE_KEY, ride);
+
+        assertTrue(after.sameDriverCard(before));
+        assertFalse(after.samePassengerCard(before));
+        assertFalse(after.sameDriverControls(before));
+        assertFalse(after.sameDriverCard(null));
+    }
+
+    @Test
+    public void passenger_seesTheirOwnRequestUntilRemoved() {
+        Map<String, Object> ride = ride(3);
+        addPassenger(ride, "p1", 1);
+        addPassenger(ride, "p2", 3);
+
+        RideViewState state = RideViewState.forPassenger(RIDE_KEY, ride, "p2");
+        assertEquals(RideViewState.Role.PASSENGER, state.role);
+        assertEquals("Seats requested: 3", state.passengerSeats);
+        assertEquals("From: Haifa", state.driverFrom);
+        assertEquals("No comment", state.driverComment);
+        assertEquals(RideViewState.DriverControls.HIDDEN, state.driverControls);
+        assertTrue(state.passengerCanCancel());
+
+        // The ride is accepted once the driver accepted anyone; each passenger sees their own acceptance
+        ride.put(RideTransitions.STATUS, RideStatus.ACCEPTED.value());
+        accept(ride, "p1");
+        assertEquals(RideStatus.WAITING, RideViewState.forPassenger(RIDE_KEY, ride, "p2").status);
+        assertEquals(RideStatus.ACCEPTED, RideViewState.forPassenger(RIDE_KEY, ride, "p1").status);
+
+        ride.put(RideTransitions.STATUS, RideStatus.IN_PROGRESS.value());
+        assertEquals(RideStatus.IN_PROGRESS, RideViewState.forPassenger(RIDE_KEY, ride, "p2").status);
+        assertFalse(RideViewState.forPassenger(RIDE_KEY, ride, "p2").passengerCanCancel());
+        assertSame(RideViewState.NONE, RideViewState.forPassenger(RIDE_KEY, ride, "p3"));
+    }
+}
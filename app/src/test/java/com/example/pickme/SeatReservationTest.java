@@ -0,0 +1,122 @@
+package com.example.pickme;
+
+import static com.example.pickme.RideFixtures.request;
+import static com.example.pickme.RideFixtures.ride;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link SeatReservation}, including a contention test that runs many concurrent
+ * booking transactions against one ride in a {@link FakeDatabase}.
+ */
+public class SeatReservationTest {
+
+    @Test
+    public void tryReserve_admitsWhileSeatsRemain() {
+        Map<String, Object> ride = ride(3);
+
+        assertEquals(SeatReservation.Result.BOOKED, SeatReservation.tryReserve(ride, "p1", request(2)));
+        assertEquals(SeatReservation.Result.NOT_ENOUGH_SEATS, SeatReservation.tryReserve(ride, "p2", request(2)));
+        assertEquals(SeatReservation.Result.BOOKED, SeatReservation.tryReserve(ride, "p3", request(1)));
+        assertEquals(SeatReservation.Result.ALREADY_BOOKED, SeatReservation.tryReserve(ride, "p1", request(1)));
+    }
+
+    @Test
+    public void tryReserve_acceptsLegacyStringCounts() {
+        Map<String, Object> ride = new HashMap<>();
+        ride.put("numberOfSeats", "2");
+
+        assertEquals(SeatReservation.Result.BOOKED, SeatReservation.tryReserve(ride, "p1", requestString("2")));
+        assertEquals(SeatReservation.Result.NOT_ENOUGH_SEATS, SeatReservation.tryReserve(ride, "p2", requestString("1")));
+    }
+
+    @Test
+    public void tryReserve_rejectsMissingRideAndBadCounts() {
+        assertEquals(SeatReservation.Result.RIDE_NOT_FOUND, SeatReservation.tryReserve(null, "p1", request(1)));
+        assertEquals(SeatReservation.Result.INVALID_REQUEST, SeatReservation.tryReserve(ride(3), "p1", requestString("two")));
+        assertEquals(SeatReservation.Result.INVALID_REQUEST, SeatReservation.tryReserve(ride(3), "p1", request(0)));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void concurrentBookings_neverOverbook() throws Exception {
+        final int capacity = 40;
+        final int bookings = 400;
+        FakeDatabase db = new FakeDatabase();
+        db.set("Rides/driver1", ride(capacity));
+
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Booking>> futures = new ArrayList<>();
+        for (int i = 0; i < bookings; i++) {
+            final String uid = "p" + i;
+            final int seats = 1 + (i % 3);
+            futures.add(pool.submit(() -> {
+                start.await();
+                SeatReservation.Result[] result = {SeatReservation.Result.FAILED};
+                FakeDatabase.TransactionOutcome outcome = db.runTransaction("Rides/driver1", current -> {
+                    Map<String, Object> ride = (Map<String, Object>) current;
+                    result[0] = SeatReservation.tryReserve(ride, uid, request(seats));
+                    return result[0] == SeatReservation.Result.BOOKED ? ride : FakeDatabase.ABORT;
+                });
+                // A handler that kept admitting but never committed ran out of retries
+                boolean gaveUp = !outcome.committed && result[0] == SeatReservation.Result.BOOKED;
+                return new Booking(gaveUp ? SeatReservation.Result.FAILED : result[0], seats, outcome.attempts);
+            }));
+        }
+        start.countDown();
+
+        int bookedSeats = 0;
+        int booked = 0;
+        int maxAttempts = 0;
+        for (Future<Booking> future : futures) {
+            Booking booking = future.get(30, TimeUnit.SECONDS);
+            if (booking.result == SeatReservation.Result.BOOKED) {
+                booked++;
+                bookedSeats += booking.seats;
+            }
+            maxAttempts = Math.max(maxAttempts, booking.attempts);
+        }
+        pool.shutdown();
+
+        Map<String, Object> passengers = (Map<String, Object>) db.get("Rides/driver1/Passengers");
+        int taken = SeatReservation.seatsTaken(passengers);
+
+        assertTrue("ride overbooked: " + taken, taken <= capacity);
+        assertEquals(bookedSeats, taken);
+        assertEquals(booked, passengers.size());
+        assertTrue("no booking admitted", booked > 0);
+        assertTrue("retries unbounded: " + maxAttempts, maxAttempts <= FakeDatabase.MAX_TRANSACTION_ATTEMPTS);
+    }
+
+    private static final class Booking {
+        final SeatReservation.Result result;
+        final int seats;
+        final int attempts;
+
+        Booking(SeatReservation.Result result, int seats, int attempts) {
+            this.result = result;
+            this.seats = seats;
+            this.attempts = attempts;
+        }
+    }
+
+    private static Map<String, Object> requestString(String passengers) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("destination", "Tel Aviv");
+        request.put(RideSchema.LEGACY_PASSENGER_COUNT, passengers);
+        return request;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Unit tests for {@link ServiceUptime}.
+ */
+public class ServiceUptimeTest {
+
+    /** 2023-11-14T22:13:20Z, 00:13:20 on the 15th in Israel. */
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long MINUTE = 60_000L;
+    private static final long DAY = 24 * 60 * MINUTE;
+    private static final TimeZone ISRAEL = TimeZone.getTimeZone("Asia/Jerusalem");
+
+    @Test
+    public void add_splitsARunAtLocalMidnight() {
+        Map<String, Long> perDay = new HashMap<>();
+        // 23:43:20 on the 14th until 00:13:20 on the 15th, local time
+        ServiceUptime.add(perDay, NOW - 30 * MINUTE, NOW, ISRAEL);
+
+        assertEquals(Long.valueOf(1_000_000L), perDay.get("20231114"));
+        assertEquals(Long.valueOf(800_000L), perDay.get("20231115"));
+        // The same run is a single day in UTC
+        Map<String, Long> utc = new HashMap<>();
+        ServiceUptime.add(utc, NOW - 30 * MINUTE, NOW, TimeZone.getTimeZone("UTC"));
+        assertEquals(Long.valueOf(30 * MINUTE), utc.get("20231114"));
+    }
+
+    @Test
+    public void add_accumulatesAndIgnoresBackwardRuns() {
+        Map<String, Long> perDay = new HashMap<>();
+        ServiceUptime.add(perDay, NOW, NOW + 10 * MINUTE, ISRAEL);
+        ServiceUptime.add(perDay, NOW + 20 * MINUTE, NOW + 25 * MINUTE, ISRAEL);
+        ServiceUptime.add(perDay, NOW + 30 * MINUTE, NOW + 29 * MINUTE, ISRAEL);
+
+        assertEquals(1, perDay.size());
+        assertEquals(Long.valueOf(15 * MINUTE), perDay.get("20231115"));
+        assertEquals("20231115 0h15m", ServiceUptime.summary(perDay));
+    }
+
+    @Test
+    public void add_keepsOnlyTheLastDays() {
+        Map<String, Long> perDay = new HashMap<>();
+        for (int day = 0; day < ServiceUptime.KEPT_DAYS + 3; day++) {
+            ServiceUptime.add(perDay, NOW + day * DAY, NOW + day * DAY + MINUTE, ISRAEL);
+        }
+
+        assertEquals(ServiceUptime.KEPT_DAYS, perDay.size());
+        assertFalse(perDay.containsKey("20231117"));
+        assertTrue(perDay.containsKey("20231118"));
+    }
+
+    @Test
+    public void summary_listsDaysInOrder() {
+        Map<String, Long> perDay = new HashMap<>();
+        perDay.put("20231115", 30 * MINUTE);
+        perDay.put("20231114", 125 * MINUTE);
+
+        assertEquals("20231114 2h05m, 20231115 0h30m", ServiceUptime.summary(perDay));
+        assertEquals("none", ServiceUptime.summary(new HashMap<>()));
+    }
+}
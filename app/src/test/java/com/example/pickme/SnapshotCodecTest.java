@@ -0,0 +1,87 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link SnapshotCodec}.
+ */
+public class SnapshotCodecTest {
+
+    @Test
+    public void decodeDriver_readsTypedAndLegacyFields() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("uid", "d1");
+        value.put("currentLocation", "Haifa");
+        value.put("destination", "Tel Aviv");
+        value.put("comment", "No smoking");
+        value.put("driverName", "Dana");
+        value.put("driverAge", 31L);
+        value.put("seats", 3L);
+        value.put("departureEpochMillis", 1741156200000L);
+        value.put("schemaVersion", 2L);
+        value.put("status", "accepted");
+        value.put("originLat", 32.8);
+        value.put("originLng", 35L);
+        value.put("originGeohash", "sv9xyz");
+
+        Driver driver = SnapshotCodec.decodeDriver(value);
+
+        assertEquals("d1", driver.getUid());
+        assertEquals("Haifa", driver.getCurrentLocation());
+        assertEquals("Tel Aviv", driver.getDestination());
+        assertEquals("No smoking", driver.getComment());
+        assertEquals("Dana", driver.getDriverName());
+        assertEquals("31", driver.getDriverAge());
+        assertEquals(3, driver.getSeats());
+        assertEquals(1741156200000L, driver.getDepartureEpochMillis());
+        assertEquals(2, driver.getSchemaVersion());
+        assertEquals(32.8, driver.getOriginLat(), 0);
+        assertEquals(35.0, driver.getOriginLng(), 0);
+        assertEquals("sv9xyz", driver.getOriginGeohash());
+        assertNull(driver.getDestinationLat());
+        assertNull(driver.getUser());
+
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("numberOfSeats", "4");
+        legacy.put("date", "5/3/2025");
+        legacy.put("time", "08:30");
+        Driver old = SnapshotCodec.decodeDriver(legacy);
+        assertEquals(4, RideSchema.seatsOf(old));
+        assertEquals("5/3/2025", old.getDate());
+        assertEquals("08:30", old.getTime());
+    }
+
+    @Test
+    public void decodePassenger_toleratesMissingLocations() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("destination", "Haifa");
+        value.put("passengerCount", 2L);
+
+        Passenger passenger = SnapshotCodec.decodePassenger(value);
+
+        assertNull(passenger.getCurrentLocation());
+        assertEquals("Haifa", passenger.getDestination());
+        assertEquals(2, RideSchema.passengerCountOf(passenger));
+    }
+
+    @Test
+    public void decodeUser_readsProfile() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("name", "Noa");
+        value.put("age", "27");
+        value.put("email", "noa@example.com");
+
+        User user = SnapshotCodec.decodeUser(value);
+
+        assertEquals("Noa", user.getName());
+        assertEquals("27", user.getAge());
+        assertEquals("noa@example.com", user.getEmail());
+        assertNull(user.getDriver());
+    }
+}
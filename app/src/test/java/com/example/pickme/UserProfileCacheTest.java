@@ -0,0 +1,133 @@
+package com.example.pickme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for {@link UserProfileCache}, with a loader that completes reads by hand.
+ */
+public class UserProfileCacheTest {
+
+    /** Loader holding each read until the test completes it. */
+    private static final class ManualLoader implements UserProfileCache.Loader {
+        final Map<String, List<UserProfileCache.Callback>> pending = new HashMap<>();
+        int reads;
+
+        @Override
+        public void load(String uid, UserProfileCache.Callback done) {
+            reads++;
+            pending.computeIfAbsent(uid, k -> new ArrayList<>()).add(done);
+        }
+
+        void complete(String uid, User user) {
+            for (UserProfileCache.Callback done : pending.remove(uid)) {
+                done.onProfile(user);
+            }
+        }
+    }
+
+    @Test
+    public void concurrentRequestsForOneUid_shareASingleRead() {
+        ManualLoader loader = new ManualLoader();
+        UserProfileCache cache = new UserProfileCache(loader);
+        List<User> delivered = new ArrayList<>();
+
+        cache.get("u1", delivered::add);
+        cache.get("u1", delivered::add);
+        cache.get("u1", delivered::add);
+        assertEquals(1, loader.reads);
+        assertEquals(0, delivered.size());
+
+        User user = new User("Dana", "30", "dana@example.com");
+        loader.complete("u1", user);
+        assertEquals(3, delivered.size());
+        for (User each : delivered) {
+            assertSame(user, each);
+        }
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getCoalescedCount());
+    }
+
+    @Test
+    public void requestsForDifferentUids_readSeparately() {
+        ManualLoader loader = new ManualLoader();
+        UserProfileCache cache = new UserProfileCache(loader);
+
+        cache.get("u1", user -> { });
+        cache.get("u2", user -> { });
+
+        assertEquals(2, loader.reads);
+        assertEquals(0, cache.getCoalescedCount());
+    }
+
+    @Test
+    public void loadedProfiles_areServedFromMemoryUntilInvalidated() {
+        ManualLoader loader = new ManualLoader();
+        UserProfileCache cache = new UserProfileCache(loader);
+        User user = new User("Dana", "30", "dana@example.com");
+        cache.get("u1", profile -> { });
+        loader.complete("u1", user);
+
+        User[] hit = new User[1];
+        cache.get("u1", profile -> hit[0] = profile);
+        assertSame(user, hit[0]);
+        assertEquals(1, loader.reads);
+        assertEquals(1, cache.getHitCount());
+
+        cache.invalidate("u1");
+        cache.get("u1", profile -> { });
+        assertEquals(2, loader.reads);
+    }
+
+    @Test
+    public void missingProfiles_areNotCached() {
+        ManualLoader loader = new ManualLoader();
+        UserProfileCache cache = new UserProfileCache(loader);
+        User[] delivered = {new User("Dana", "30", "dana@example.com")};
+        cache.get("ghost", profile -> delivered[0] = profile);
+        loader.complete("ghost", null);
+        assertNull(delivered[0]);
+
+        cache.get("ghost", profile -> { });
+        assertEquals(2, loader.reads);
+    }
+
+    @Test
+    public void watchedProfile_isReplayedToNewObserversAfterTheCacheDropsIt() {
+        ManualLoader loader = new ManualLoader();
+        UserProfileCache cache = new UserProfileCache(loader);
+        User me = new User("Dana", "30", "dana@example.com");
+        cache.ownProfileChanged("me", me);
+        // Stands in for the TTL expiring
+        cache.invalidate("me");
+
+        User[] replayed = {null};
+        cache.addOwnProfileObserver(profile -> replayed[0] = profile);
+        assertSame(me, replayed[0]);
+
+        User[] served = {null};
+        cache.get("me", profile -> served[0] = profile);
+        assertSame(me, served[0]);
+        assertEquals(0, loader.reads);
+    }
+
+    @Test
+    public void watchedProfile_isForgottenWhenWatchingStops() {
+        ManualLoader loader = new ManualLoader();
+        UserProfileCache cache = new UserProfileCache(loader);
+        cache.ownProfileChanged("me", new User("Dana", "30", "dana@example.com"));
+        cache.stopWatchingOwnProfile();
+
+        int[] calls = {0};
+        cache.addOwnProfileObserver(profile -> calls[0]++);
+        assertEquals(0, calls[0]);
+    }
+}
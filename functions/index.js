@@ -0,0 +1,86 @@
+/**
+ * Delivers the data messages the app queues under PushOutbox/{uid}/{pushKey}
+ * (see DatabasePushTransport) as FCM messages to every device registered for
+ * the recipient under PushTokens/{uid}/{token}, then deletes the entry.
+ * A token whose PushTokenOwners/{token} names another user now belongs to
+ * them (the device changed hands without the old entry being removed), so it
+ * is skipped and dropped from the recipient.
+ *
+ * Devices cannot send FCM messages to each other, since that needs the server
+ * credentials this function runs with.
+ */
+const {onValueCreated} = require("firebase-functions/v2/database");
+const logger = require("firebase-functions/logger");
+const {initializeApp} = require("firebase-admin/app");
+const {getDatabase} = require("firebase-admin/database");
+const {getMessaging} = require("firebase-admin/messaging");
+
+initializeApp();
+
+/** Send errors meaning the token will never work again and can be dropped. */
+const STALE_TOKEN_CODES = new Set([
+  "messaging/registration-token-not-registered",
+  "messaging/invalid-registration-token",
+]);
+
+exports.deliverPush = onValueCreated("/PushOutbox/{uid}/{pushKey}", async (event) => {
+  const uid = event.params.uid;
+  try {
+    const data = toStringMap(event.data.val());
+    const tokensRef = getDatabase().ref(`PushTokens/${uid}`);
+    const registered = Object.keys((await tokensRef.get()).val() || {});
+    const owners = await Promise.all(registered.map(
+        (token) => getDatabase().ref(`PushTokenOwners/${token}`).get()));
+    const tokens = [];
+    const stale = {};
+    registered.forEach((token, i) => {
+      const owner = owners[i].val();
+      // Tokens registered before owners were recorded have none
+      if (owner === null || owner === uid) {
+        tokens.push(token);
+      } else {
+        stale[token] = null;
+      }
+    });
+    if (tokens.length === 0) {
+      if (Object.keys(stale).length > 0) {
+        await tokensRef.update(stale);
+      }
+      return;
+    }
+
+    const response = await getMessaging().sendEachForMulticast({
+      tokens,
+      data,
+      android: {priority: "high"},
+    });
+    response.responses.forEach((result, i) => {
+      if (!result.success && STALE_TOKEN_CODES.has(result.error.code)) {
+        stale[tokens[i]] = null;
+      }
+    });
+    if (Object.keys(stale).length > 0) {
+      await tokensRef.update(stale);
+    }
+    if (response.failureCount > 0) {
+      logger.warn(`Push to ${uid}: ${response.failureCount} of ${tokens.length} sends failed`);
+    }
+  } finally {
+    // Messages are best effort (see PushTransport); never let the outbox grow
+    await event.data.ref.remove();
+  }
+});
+
+/**
+ * FCM data payloads only carry strings.
+ *
+ * @param {object} value The queued message.
+ * @return {Object<string, string>} The payload.
+ */
+function toStringMap(value) {
+  const data = {};
+  for (const [key, field] of Object.entries(value || {})) {
+    data[key] = String(field);
+  }
+  return data;
+}